@@ -0,0 +1,196 @@
+package com.github.dbmdz.solrocr.breaklocator;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * Finds occurrences of any of a set of byte sequences with a single pass over the input, using an
+ * Aho-Corasick automaton.
+ *
+ * <p>The automaton is compiled into a dense transition table over the bytes that occur in the
+ * patterns, so every input byte costs one table lookup, no matter how many patterns there are.
+ * Separate automata for the patterns and their reversal are kept to search in both directions.
+ *
+ * <p>If all patterns start with the same byte, the automaton skips ahead to the next occurrence of
+ * that byte with {@link ByteScanner} while it is in its start state.
+ */
+public final class AhoCorasickMatcher {
+  private final Automaton forward;
+  private final Automaton backward;
+  private final int maxLength;
+
+  public AhoCorasickMatcher(List<byte[]> patterns) {
+    if (patterns.isEmpty()) {
+      throw new IllegalArgumentException("At least one pattern is required");
+    }
+    List<byte[]> reversed = new ArrayList<>(patterns.size());
+    int maxLength = 0;
+    for (byte[] pattern : patterns) {
+      if (pattern.length == 0) {
+        throw new IllegalArgumentException("Patterns must not be empty");
+      }
+      byte[] rev = new byte[pattern.length];
+      for (int i = 0; i < pattern.length; i++) {
+        rev[i] = pattern[pattern.length - 1 - i];
+      }
+      reversed.add(rev);
+      maxLength = Math.max(maxLength, pattern.length);
+    }
+    this.forward = new Automaton(patterns);
+    this.backward = new Automaton(reversed);
+    this.maxLength = maxLength;
+  }
+
+  /**
+   * Find the start of the first occurrence of any pattern that starts at or after {@code fromIdx}
+   * and before {@code toIdx}, or -1 if there is none.
+   *
+   * <p>Like with {@link BaseBreakLocator#indexOf(byte[], byte[], int)}, the match can extend
+   * beyond {@code toIdx}.
+   */
+  public int indexOf(byte[] haystack, int fromIdx, int toIdx) {
+    fromIdx = Math.max(0, fromIdx);
+    // Matches are detected at their end, so we have to look up to a pattern length beyond toIdx
+    int scanEnd = (int) Math.min(haystack.length, (long) toIdx + maxLength - 1);
+    int match = -1;
+    int state = 0;
+    for (int i = fromIdx; i < scanEnd; i++) {
+      if (state == 0 && forward.skipByte >= 0) {
+        i = ByteScanner.indexOf(haystack, (byte) forward.skipByte, i, scanEnd);
+        if (i < 0) {
+          break;
+        }
+      }
+      if (match >= 0 && i - maxLength + 1 > match) {
+        // No match that ends here or later can start before the one we already have
+        break;
+      }
+      state = forward.step(state, haystack[i]);
+      int len = forward.longestMatch[state];
+      if (len > 0) {
+        int start = i - len + 1;
+        if (start < toIdx && (match < 0 || start < match)) {
+          match = start;
+        }
+      }
+    }
+    return match;
+  }
+
+  /**
+   * Find the start of the last occurrence of any pattern that starts <strong>before</strong>
+   * {@code beforeIdx} and at or after {@code minIdx}, or -1 if there is none.
+   *
+   * <p>Like with {@link BaseBreakLocator#lastIndexOf(byte[], byte[], int)}, the match can extend
+   * beyond {@code beforeIdx}.
+   */
+  public int lastIndexOf(byte[] haystack, int beforeIdx, int minIdx) {
+    minIdx = Math.max(0, minIdx);
+    // The reversed automaton detects matches at their start, so we have to start scanning up to a
+    // pattern length beyond beforeIdx
+    int scanStart = (int) Math.min(haystack.length, (long) beforeIdx + maxLength - 1) - 1;
+    int state = 0;
+    for (int i = scanStart; i >= minIdx; i--) {
+      if (state == 0 && backward.skipByte >= 0) {
+        i = ByteScanner.lastIndexOf(haystack, (byte) backward.skipByte, i, minIdx);
+        if (i < 0) {
+          break;
+        }
+      }
+      state = backward.step(state, haystack[i]);
+      if (backward.longestMatch[state] > 0 && i < beforeIdx) {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  /** Deterministic automaton with the failure links resolved into the transition table. */
+  private static final class Automaton {
+    /** Maps every byte value to its column in the transition table, 0 for bytes not in a pattern */
+    private final int[] byteClasses = new int[256];
+
+    private final int numClasses;
+
+    /** Transition table, indexed by {@code state * numClasses + byteClass} */
+    private final int[] transitions;
+
+    /** Length of the longest pattern that ends in each state, 0 if no pattern ends there */
+    private final int[] longestMatch;
+
+    /** The first byte of all patterns if they share it, else -1 */
+    private final int skipByte;
+
+    Automaton(List<byte[]> patterns) {
+      int numClasses = 1;
+      int numStates = 1;
+      int skipByte = patterns.get(0)[0] & 0xFF;
+      for (byte[] pattern : patterns) {
+        if ((pattern[0] & 0xFF) != skipByte) {
+          skipByte = -1;
+        }
+        numStates += pattern.length;
+        for (byte b : pattern) {
+          if (byteClasses[b & 0xFF] == 0) {
+            byteClasses[b & 0xFF] = numClasses++;
+          }
+        }
+      }
+      this.numClasses = numClasses;
+      this.skipByte = skipByte;
+
+      // Build the trie, -1 marks missing edges
+      int[] trie = new int[numStates * numClasses];
+      Arrays.fill(trie, -1);
+      int[] longest = new int[numStates];
+      int usedStates = 1;
+      for (byte[] pattern : patterns) {
+        int state = 0;
+        for (byte b : pattern) {
+          int idx = state * numClasses + byteClasses[b & 0xFF];
+          if (trie[idx] < 0) {
+            trie[idx] = usedStates++;
+          }
+          state = trie[idx];
+        }
+        longest[state] = Math.max(longest[state], pattern.length);
+      }
+
+      // Resolve the failure links breadth-first, so every state's fallback is already complete
+      int[] fail = new int[usedStates];
+      Deque<Integer> queue = new ArrayDeque<>();
+      for (int c = 0; c < numClasses; c++) {
+        int next = trie[c];
+        if (next < 0) {
+          trie[c] = 0;
+        } else {
+          fail[next] = 0;
+          queue.add(next);
+        }
+      }
+      while (!queue.isEmpty()) {
+        int state = queue.poll();
+        longest[state] = Math.max(longest[state], longest[fail[state]]);
+        for (int c = 0; c < numClasses; c++) {
+          int idx = state * numClasses + c;
+          int next = trie[idx];
+          if (next < 0) {
+            trie[idx] = trie[fail[state] * numClasses + c];
+          } else {
+            fail[next] = trie[fail[state] * numClasses + c];
+            queue.add(next);
+          }
+        }
+      }
+      this.transitions = Arrays.copyOf(trie, usedStates * numClasses);
+      this.longestMatch = Arrays.copyOf(longest, usedStates);
+    }
+
+    int step(int state, byte b) {
+      return transitions[state * numClasses + byteClasses[b & 0xFF]];
+    }
+  }
+}
@@ -1,52 +1,103 @@
 package com.github.dbmdz.solrocr.breaklocator;
 
 import com.github.dbmdz.solrocr.reader.SourceReader;
-import com.google.common.collect.Range;
-import com.google.common.collect.RangeMap;
-import com.google.common.collect.TreeRangeMap;
+import com.github.dbmdz.solrocr.reader.SourceReader.Section;
 import java.io.IOException;
 import java.text.BreakIterator;
-import java.util.Map.Entry;
+import java.util.Arrays;
 
 /**
  * Simplified version of a {@link BreakIterator}, without most of the state (except for the text)
  * and automated caching.
  */
-@SuppressWarnings("UnstableApiUsage")
 public abstract class BaseBreakLocator implements BreakLocator {
 
   private static final String BOM_ASCII = "ï»¿";
-  private final RangeMap<Integer, Integer> forwardCache = TreeRangeMap.create();
-  private final RangeMap<Integer, Integer> backwardCache = TreeRangeMap.create();
+  private final BreakCache cache = new BreakCache();
   protected final SourceReader text;
 
+  protected BaseBreakLocator(SourceReader text) {
+    this.text = text;
+  }
+
   /**
-   * An "optimized" version of {@link String#lastIndexOf(String, int)}.
-   *
-   * <p>This optimization is a bit counter-intuitive, since, on the surface, it uses the absolute
-   * worst way to search for the last occurrence of a substring in a larger string, by starting from
-   * the front of the string and working forward until there are no more matches.
+   * Find the first occurrence of a byte at or after {@code fromIdx}, like {@link
+   * String#indexOf(int, int)}.
+   */
+  protected static int indexOf(byte[] haystack, byte needle, int fromIdx) {
+    return ByteScanner.indexOf(haystack, needle, fromIdx, haystack.length);
+  }
+
+  /**
+   * Find the last occurrence of a byte at or before {@code fromIdx}, like {@link
+   * String#lastIndexOf(int, int)}.
+   */
+  protected static int lastIndexOf(byte[] haystack, byte needle, int fromIdx) {
+    return ByteScanner.lastIndexOf(haystack, needle, fromIdx, 0);
+  }
+
+  /**
+   * Find the first occurrence of a byte sequence at or after {@code fromIdx}, like {@link
+   * String#indexOf(String, int)}.
+   */
+  protected static int indexOf(byte[] haystack, byte[] needle, int fromIdx) {
+    return ByteScanner.indexOf(haystack, needle, fromIdx);
+  }
+
+  /**
+   * Find the last occurrence of a byte sequence that starts <strong>before</strong> {@code
+   * beforeIdx}.
    *
-   * <p>So why does using this approach speed up highlighting hOCR by ~25%? Well, during hOCR break
-   * locating, we need to look for multiple possible block type identifiers for each level in the
-   * block hierarchy, i.e. we often run into the situation there is no match. These cases are the
-   * absolute worst case for both {@link String#lastIndexOf(String, int)} and {@link
-   * String#indexOf(String, int)}. So why is the latter faster? Well, in recent Hotspot versions, it
-   * is SIMD-accelerated via compiler intrinsics. And the speed-up we get from these worst cases is
-   * significant enough to completely make up for the slightly worse performance in more ideal cases
-   * (~25% slower).
+   * <p>Unlike {@link String#lastIndexOf(String, int)}, the match can extend beyond {@code
+   * beforeIdx}.
    */
-  protected static int optimizedLastIndexOf(String haystack, String needle, int fromIdx) {
-    int from = -1;
-    int idx;
-    while ((idx = haystack.indexOf(needle, from + 1)) >= 0 && idx < fromIdx) {
-      from = idx;
+  protected static int lastIndexOf(byte[] haystack, byte[] needle, int beforeIdx) {
+    return ByteScanner.lastIndexOf(haystack, needle, beforeIdx);
+  }
+
+  /** Check if the haystack contains the needle at the given offset. */
+  protected static boolean regionMatches(byte[] haystack, int offset, byte[] needle) {
+    return ByteScanner.regionMatches(haystack, offset, needle);
+  }
+
+  /**
+   * Concatenate the range {@code [headFrom, headTo)} of {@code head} with the range {@code
+   * [tailFrom, tailTo)} of {@code tail}, used for matching across section boundaries.
+   */
+  protected static byte[] concat(
+      byte[] head, int headFrom, int headTo, byte[] tail, int tailFrom, int tailTo) {
+    byte[] out = new byte[(headTo - headFrom) + (tailTo - tailFrom)];
+    System.arraycopy(head, headFrom, out, 0, headTo - headFrom);
+    System.arraycopy(tail, tailFrom, out, headTo - headFrom, tailTo - tailFrom);
+    return out;
+  }
+
+  /**
+   * Get the bytes of the tag starting at {@code tagStart} in the section, extended with the next
+   * section up until the tag's closing {@code '>'}, for tags that are split across sections.
+   */
+  protected byte[] readSplitTag(Section section, int tagStart) throws IOException {
+    if (section.end >= this.text.length()) {
+      return Arrays.copyOfRange(section.bytes, tagStart, section.length());
     }
-    return from;
+    Section next = this.text.getAsciiSection(section.end);
+    int firstTagClose = indexOf(next.bytes, (byte) '>', 0);
+    return concat(section.bytes, tagStart, section.length(), next.bytes, 0, firstTagClose + 1);
   }
 
-  protected BaseBreakLocator(SourceReader text) {
-    this.text = text;
+  /**
+   * Get the offset of the last tag in the section if it starts before {@code beforeIdx} and is not
+   * closed within the section, else -1.
+   */
+  protected static int findUnclosedTag(Section section, int beforeIdx) {
+    int lastTagOpen = lastIndexOf(section.bytes, (byte) '<', section.length());
+    if (lastTagOpen < 0 || lastTagOpen >= beforeIdx) {
+      return -1;
+    }
+    if (lastIndexOf(section.bytes, (byte) '>', section.length()) > lastTagOpen) {
+      return -1;
+    }
+    return lastTagOpen;
   }
 
   /** Check if a substring of a string is all whitespace. */
@@ -70,61 +121,174 @@ public abstract class BaseBreakLocator implements BreakLocator {
   }
 
   @Override
-  public int following(int offset) throws IOException {
+  public long following(long offset) throws IOException {
     if (offset >= this.text.length()) {
       return DONE;
     }
-    Integer cached = this.forwardCache.get(offset);
-    if (cached != null) {
+    long cached = this.cache.following(offset);
+    if (cached != BreakCache.UNKNOWN) {
       return cached;
     }
-    Entry<Range<Integer>, Integer> entry = this.backwardCache.getEntry(offset);
-    int preceding;
-    if (entry == null) {
-      preceding = this.getPreceding(offset);
-    } else {
-      if (entry.getKey().upperEndpoint() == offset) {
-        preceding = offset;
-      } else {
-        preceding = entry.getValue();
-      }
-    }
-    int following = this.getFollowing(offset);
+    // The interval has to start at the offset if it is a break itself, otherwise the cache would
+    // claim that there is no break between the preceding break and the following one
+    long preceding =
+        this.cache.isBreak(offset)
+            ? offset
+            : this.getPreceding(Math.min(offset + 1, this.text.length() - 1));
+    long following = this.getFollowing(offset);
     if (following < 0) {
       following = this.text.length();
     }
-    this.forwardCache.put(Range.closedOpen(preceding, following), following);
-    this.backwardCache.put(Range.openClosed(preceding, following), preceding);
+    this.cache.put(preceding, following);
+    this.text.recordScan(scanLength(preceding, following));
     return following;
   }
 
   @Override
-  public int preceding(int offset) throws IOException {
+  public long preceding(long offset) throws IOException {
     if (offset <= 0) {
       return DONE;
     }
-    Integer cached = this.backwardCache.get(offset);
-    if (cached != null) {
+    long cached = this.cache.preceding(offset);
+    if (cached != BreakCache.UNKNOWN) {
       return cached;
     }
-    Entry<Range<Integer>, Integer> entry = this.forwardCache.getEntry(offset);
-    int following;
-    if (entry == null) {
-      following = this.getFollowing(offset);
-    } else {
-      if (entry.getKey().lowerEndpoint() == offset) {
-        following = offset;
-      } else {
-        following = entry.getValue();
+    // Likewise, the interval has to end at the offset if it is a break itself
+    long following = this.cache.isBreak(offset) ? offset : this.getFollowing(offset - 1);
+    long preceding = this.getPreceding(offset);
+    this.cache.put(Math.max(0, preceding), following);
+    this.text.recordScan(scanLength(Math.max(0, preceding), following));
+    return preceding;
+  }
+
+  @Override
+  public long following(long offset, int n, long limit) throws IOException {
+    if (offset >= this.text.length()) {
+      return limit;
+    }
+    long idx = offset;
+    int remaining = n;
+    while (remaining > 0) {
+      long cached = this.cache.following(idx);
+      if (cached == BreakCache.UNKNOWN) {
+        break;
+      }
+      if (cached >= limit) {
+        return limit;
       }
+      idx = cached;
+      remaining--;
     }
-    int preceding = this.getPreceding(offset);
-    this.backwardCache.put(Range.openClosed(Math.max(0, preceding), following), preceding);
-    this.forwardCache.put(Range.closedOpen(Math.max(0, preceding), following), following);
-    return preceding;
+    if (remaining == 0) {
+      return idx;
+    }
+    if (idx >= this.text.length()) {
+      return limit;
+    }
+    long[] breaks = new long[remaining];
+    int numBreaks = this.getFollowing(idx, breaks, limit);
+    // The breaks are consecutive, so the intervals between them are break-free. The interval
+    // before the first one only is if the search started on a break.
+    long previous = remaining < n || this.cache.isBreak(idx) ? idx : breaks[0];
+    for (int i = 0; i < numBreaks; i++) {
+      this.cache.put(previous, breaks[i]);
+      previous = breaks[i];
+    }
+    this.text.recordScan(scanLength(idx, previous));
+    if (numBreaks < remaining || previous >= limit) {
+      return limit;
+    }
+    return previous;
+  }
+
+  @Override
+  public long preceding(long offset, int n, long limit) throws IOException {
+    if (offset <= 0) {
+      return limit;
+    }
+    long idx = offset;
+    int remaining = n;
+    while (remaining > 0) {
+      long cached = this.cache.preceding(idx);
+      if (cached == BreakCache.UNKNOWN) {
+        break;
+      }
+      if (cached <= limit) {
+        return limit;
+      }
+      idx = cached;
+      remaining--;
+    }
+    if (remaining == 0) {
+      return idx;
+    }
+    if (idx <= 0) {
+      return limit;
+    }
+    long[] breaks = new long[remaining];
+    int numBreaks = this.getPreceding(idx, breaks, limit);
+    long previous = remaining < n || this.cache.isBreak(idx) ? idx : breaks[0];
+    for (int i = 0; i < numBreaks; i++) {
+      this.cache.put(Math.max(0, breaks[i]), previous);
+      previous = breaks[i];
+    }
+    this.text.recordScan(scanLength(Math.max(0, previous), idx));
+    if (numBreaks < remaining || previous <= limit) {
+      return limit;
+    }
+    return previous;
+  }
+
+  private static int scanLength(long preceding, long following) {
+    return (int) Math.min(Integer.MAX_VALUE, following - preceding);
   }
 
-  protected abstract int getPreceding(int offset) throws IOException;
+  protected abstract long getPreceding(long offset) throws IOException;
 
-  protected abstract int getFollowing(int offset) throws IOException;
+  protected abstract long getFollowing(long offset) throws IOException;
+
+  /**
+   * Find consecutive breaks after the offset, in ascending order, until {@code breaks} is full or a
+   * break at or after {@code limit} was found. The end of the text counts as the last break.
+   *
+   * <p>The default repeats {@link #getFollowing(long)}, implementations should override this to
+   * find all breaks with a single search.
+   *
+   * @return the number of breaks stored in {@code breaks}
+   */
+  protected int getFollowing(long offset, long[] breaks, long limit) throws IOException {
+    int numBreaks = 0;
+    long idx = offset;
+    while (numBreaks < breaks.length) {
+      idx = this.getFollowing(idx);
+      breaks[numBreaks++] = idx;
+      if (idx >= limit || idx >= this.text.length()) {
+        break;
+      }
+    }
+    return numBreaks;
+  }
+
+  /**
+   * Find consecutive breaks before the offset, in descending order, until {@code breaks} is full
+   * or a break at or before {@code limit} was found. The start of the text counts as the last
+   * break.
+   *
+   * <p>The default repeats {@link #getPreceding(long)}, implementations should override this to
+   * find all breaks with a single search.
+   *
+   * @return the number of breaks stored in {@code breaks}
+   */
+  protected int getPreceding(long offset, long[] breaks, long limit) throws IOException {
+    int numBreaks = 0;
+    long idx = offset;
+    while (numBreaks < breaks.length) {
+      idx = this.getPreceding(idx);
+      breaks[numBreaks++] = idx;
+      if (idx <= limit || idx <= 0) {
+        break;
+      }
+    }
+    return numBreaks;
+  }
 }
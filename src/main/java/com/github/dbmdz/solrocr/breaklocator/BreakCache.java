@@ -0,0 +1,106 @@
+package com.github.dbmdz.solrocr.breaklocator;
+
+import java.util.Arrays;
+
+/**
+ * Memoizes the breaks found by a {@link BaseBreakLocator}, as a sorted array of break offsets and
+ * a flag for every break that tells if it is known to be directly followed by the next break in
+ * the array.
+ *
+ * <p>All lookups are binary searches on primitive arrays, so answering from the cache doesn't
+ * allocate, and the same data answers both forward and backward lookups.
+ */
+final class BreakCache {
+  /** Returned by the lookups if the cache doesn't know the answer. */
+  static final long UNKNOWN = Long.MIN_VALUE;
+
+  private long[] breaks = new long[16];
+
+  /** {@code linked[i]} is set if there is no break between {@code breaks[i]} and the next one */
+  private boolean[] linked = new boolean[16];
+
+  private int size = 0;
+
+  private int search(long offset) {
+    return Arrays.binarySearch(breaks, 0, size, offset);
+  }
+
+  /** Get the index of the last break at or before the offset, or -1 if there is none. */
+  private int floorIdx(long offset) {
+    int idx = search(offset);
+    return idx >= 0 ? idx : -idx - 2;
+  }
+
+  /** Get the first break after the offset, or {@link #UNKNOWN}. */
+  long following(long offset) {
+    int floor = floorIdx(offset);
+    if (floor >= 0 && floor < size - 1 && linked[floor]) {
+      return breaks[floor + 1];
+    }
+    return UNKNOWN;
+  }
+
+  /** Get the last break before the offset, or {@link #UNKNOWN}. */
+  long preceding(long offset) {
+    int idx = search(offset);
+    int ceil = idx >= 0 ? idx : -idx - 1;
+    if (ceil > 0 && ceil < size && linked[ceil - 1]) {
+      return breaks[ceil - 1];
+    }
+    return UNKNOWN;
+  }
+
+  /** Check if the offset is known to be a break. */
+  boolean isBreak(long offset) {
+    return search(offset) >= 0;
+  }
+
+  /** Check if there is known to be no break between {@code from} and {@code to}, exclusively. */
+  boolean isBreakFree(long from, long to) {
+    if (to <= from + 1) {
+      return true;
+    }
+    int floor = floorIdx(from);
+    return floor >= 0 && floor < size - 1 && linked[floor] && breaks[floor + 1] >= to;
+  }
+
+  /** Record that {@code from} and {@code to} are breaks and there is no break between them. */
+  void put(long from, long to) {
+    if (from >= to) {
+      return;
+    }
+    int fromIdx = insert(from);
+    int toIdx = insert(to);
+    if (toIdx - fromIdx > 1) {
+      // Breaks we knew about between the two contradict the new information, drop them
+      int numRemoved = toIdx - fromIdx - 1;
+      System.arraycopy(breaks, toIdx, breaks, fromIdx + 1, size - toIdx);
+      System.arraycopy(linked, toIdx, linked, fromIdx + 1, size - toIdx);
+      size -= numRemoved;
+    }
+    linked[fromIdx] = true;
+  }
+
+  /** Insert a break if it's not known yet and return its index. */
+  private int insert(long offset) {
+    int idx = search(offset);
+    if (idx >= 0) {
+      return idx;
+    }
+    idx = -idx - 1;
+    if (size == breaks.length) {
+      breaks = Arrays.copyOf(breaks, size * 2);
+      linked = Arrays.copyOf(linked, size * 2);
+    }
+    System.arraycopy(breaks, idx, breaks, idx + 1, size - idx);
+    System.arraycopy(linked, idx, linked, idx + 1, size - idx);
+    breaks[idx] = offset;
+    linked[idx] = false;
+    if (idx > 0) {
+      // The gap the new break was inserted into is no longer break-free
+      linked[idx - 1] = false;
+    }
+    size++;
+    return idx;
+  }
+}
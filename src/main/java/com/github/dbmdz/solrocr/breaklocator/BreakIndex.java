@@ -0,0 +1,140 @@
+package com.github.dbmdz.solrocr.breaklocator;
+
+import com.github.dbmdz.solrocr.breaklocator.HierarchicalBreakLocator.TagClassifier;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import java.lang.invoke.MethodHandles;
+import java.util.Objects;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Byte-bounded, node-wide index of the breaks that were found in sources, shared across documents
+ * and requests.
+ *
+ * <p>The break offsets of a source never change as long as the source itself doesn't. Every {@link
+ * HierarchicalBreakLocator} adds the ranges it scanned to the index, and starts out with the ranges
+ * that were scanned for the same source before. Lookups around popular matches thus don't need to
+ * read and scan the source again.
+ *
+ * <p>Entries are keyed by the identifier of their source, its version (e.g. the modification time
+ * of a file) and the format-specific classifier of the tags, so a changed source never produces
+ * stale breaks. Eviction is LRU by source.
+ */
+public class BreakIndex {
+  private static final Logger log = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+
+  /** Estimated per-entry overhead for the key and the cache entry. */
+  private static final int ENTRY_OVERHEAD_BYTES = 128;
+
+  private static volatile BreakIndex shared;
+
+  private final Cache<Key, ScannedSections> cache;
+  private final long maxSizeBytes;
+
+  public BreakIndex(long maxSizeBytes) {
+    this.maxSizeBytes = maxSizeBytes;
+    this.cache =
+        CacheBuilder.newBuilder()
+            .maximumWeight(maxSizeBytes)
+            .weigher(
+                (Key k, ScannedSections v) ->
+                    (int) Math.min(Integer.MAX_VALUE, v.sizeInBytes() + ENTRY_OVERHEAD_BYTES))
+            .recordStats()
+            .build();
+  }
+
+  /** Get the node-wide index instance, or {@code null} if none was configured. */
+  public static BreakIndex getShared() {
+    return shared;
+  }
+
+  /**
+   * Configure the node-wide index instance.
+   *
+   * <p>If an index with the same settings already exists, it is kept.
+   *
+   * @param maxSizeBytes maximum size of the index in bytes, a value {@code <= 0} disables the index
+   */
+  public static synchronized void configureShared(long maxSizeBytes) {
+    if (maxSizeBytes <= 0) {
+      if (shared != null) {
+        log.info("Disabling shared break index.");
+      }
+      shared = null;
+      return;
+    }
+    if (shared != null && shared.maxSizeBytes == maxSizeBytes) {
+      return;
+    }
+    log.info("Configuring shared break index with a maximum size of {} bytes.", maxSizeBytes);
+    shared = new BreakIndex(maxSizeBytes);
+  }
+
+  /** Get the ranges of the source that were scanned so far, or {@code null} if there are none. */
+  ScannedSections get(Key key) {
+    return cache.getIfPresent(key);
+  }
+
+  /** Add the breaks of a scanned range of the source to the index. */
+  void add(Key key, long start, long end, int[] breaks, byte[] masks) {
+    cache
+        .asMap()
+        .compute(
+            key,
+            (k, sections) ->
+                (sections == null ? ScannedSections.EMPTY : sections)
+                    .with(start, end, breaks, masks));
+  }
+
+  public long getMaxSizeBytes() {
+    return maxSizeBytes;
+  }
+
+  /** Get the approximate number of sources in the index. */
+  public long size() {
+    return cache.size();
+  }
+
+  public CacheStats stats() {
+    return cache.stats();
+  }
+
+  /** Remove all sources from the index. */
+  public void clear() {
+    cache.invalidateAll();
+  }
+
+  /** Identifies a specific version of a source, as split into blocks by a specific classifier. */
+  static final class Key {
+    final String identifier;
+    final long version;
+    final TagClassifier classifier;
+
+    Key(String identifier, long version, TagClassifier classifier) {
+      this.identifier = identifier;
+      this.version = version;
+      this.classifier = classifier;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (o == null || getClass() != o.getClass()) {
+        return false;
+      }
+      Key key = (Key) o;
+      return version == key.version
+          && classifier.equals(key.classifier)
+          && identifier.equals(key.identifier);
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(identifier, version, classifier);
+    }
+  }
+}
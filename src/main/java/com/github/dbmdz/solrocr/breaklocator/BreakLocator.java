@@ -6,9 +6,41 @@ import java.io.IOException;
 public interface BreakLocator {
   int DONE = -1;
 
-  int following(int offset) throws IOException;
+  long following(long offset) throws IOException;
 
-  int preceding(int offset) throws IOException;
+  long preceding(long offset) throws IOException;
+
+  /**
+   * Get the {@code n}-th break after the offset, or {@code limit} if there are fewer than {@code
+   * n} breaks between the offset and the limit.
+   */
+  default long following(long offset, int n, long limit) throws IOException {
+    long idx = offset;
+    for (int i = 0; i < n; i++) {
+      long next = following(idx);
+      if (next == DONE || next >= limit) {
+        return limit;
+      }
+      idx = next;
+    }
+    return idx;
+  }
+
+  /**
+   * Get the {@code n}-th break before the offset, or {@code limit} if there are fewer than {@code
+   * n} breaks between the limit and the offset.
+   */
+  default long preceding(long offset, int n, long limit) throws IOException {
+    long idx = offset;
+    for (int i = 0; i < n; i++) {
+      long next = preceding(idx);
+      if (next == DONE || next <= limit) {
+        return limit;
+      }
+      idx = next;
+    }
+    return idx;
+  }
 
   SourceReader getText();
 }
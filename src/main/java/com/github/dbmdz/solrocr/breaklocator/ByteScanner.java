@@ -0,0 +1,138 @@
+package com.github.dbmdz.solrocr.breaklocator;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Byte searches that test eight bytes at a time, by loading them as a {@code long} and finding
+ * matching bytes with bit arithmetic ("SIMD within a register").
+ *
+ * <p>Loading a {@code long} from a heap {@link ByteBuffer} is compiled to a single unaligned load
+ * on current JVMs, so this works without any platform specific code.
+ */
+public final class ByteScanner {
+  private static final long LOW_BITS = 0x7F7F7F7F7F7F7F7FL;
+  private static final long ONES = 0x0101010101010101L;
+
+  private ByteScanner() {}
+
+  /**
+   * Get a mask with the high bit of every byte of {@code word} set that is equal to {@code
+   * needle}.
+   *
+   * <p>Unlike the common {@code (x - 0x01..) & ~x & 0x80..} variant, this has no false positives
+   * caused by borrows, so the mask can be used to locate both the first and the last match.
+   */
+  private static long matchMask(long word, long needle) {
+    long x = word ^ needle;
+    return ~(((x & LOW_BITS) + LOW_BITS) | x | LOW_BITS);
+  }
+
+  private static ByteBuffer view(byte[] haystack) {
+    return ByteBuffer.wrap(haystack).order(ByteOrder.LITTLE_ENDIAN);
+  }
+
+  /** Find the first occurrence of a byte in {@code [fromIdx, toIdx)}, or -1 if there is none. */
+  public static int indexOf(byte[] haystack, byte needle, int fromIdx, int toIdx) {
+    int i = Math.max(0, fromIdx);
+    int end = Math.min(haystack.length, toIdx);
+    if (end - i >= Long.BYTES) {
+      ByteBuffer buf = view(haystack);
+      long pattern = (needle & 0xFFL) * ONES;
+      for (; i <= end - Long.BYTES; i += Long.BYTES) {
+        long mask = matchMask(buf.getLong(i), pattern);
+        if (mask != 0) {
+          // Little endian, so the lowest set bit belongs to the first byte
+          return i + (Long.numberOfTrailingZeros(mask) >>> 3);
+        }
+      }
+    }
+    for (; i < end; i++) {
+      if (haystack[i] == needle) {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  /**
+   * Find the last occurrence of a byte at or before {@code fromIdx} and at or after {@code
+   * minIdx}, or -1 if there is none.
+   */
+  public static int lastIndexOf(byte[] haystack, byte needle, int fromIdx, int minIdx) {
+    int i = Math.min(fromIdx, haystack.length - 1);
+    int min = Math.max(0, minIdx);
+    if (i - min + 1 >= Long.BYTES) {
+      ByteBuffer buf = view(haystack);
+      long pattern = (needle & 0xFFL) * ONES;
+      for (; i - Long.BYTES + 1 >= min; i -= Long.BYTES) {
+        int wordStart = i - Long.BYTES + 1;
+        long mask = matchMask(buf.getLong(wordStart), pattern);
+        if (mask != 0) {
+          // Little endian, so the highest set bit belongs to the last byte
+          return wordStart + ((63 - Long.numberOfLeadingZeros(mask)) >>> 3);
+        }
+      }
+    }
+    for (; i >= min; i--) {
+      if (haystack[i] == needle) {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  /**
+   * Find the first occurrence of a byte sequence at or after {@code fromIdx}, like {@link
+   * String#indexOf(String, int)}.
+   */
+  public static int indexOf(byte[] haystack, byte[] needle, int fromIdx) {
+    byte first = needle[0];
+    int max = haystack.length - needle.length;
+    int i = Math.max(0, fromIdx);
+    while (i <= max) {
+      i = indexOf(haystack, first, i, max + 1);
+      if (i < 0) {
+        return -1;
+      }
+      if (regionMatches(haystack, i, needle)) {
+        return i;
+      }
+      i++;
+    }
+    return -1;
+  }
+
+  /**
+   * Find the last occurrence of a byte sequence that starts <strong>before</strong> {@code
+   * beforeIdx}, the match can extend beyond {@code beforeIdx}.
+   */
+  public static int lastIndexOf(byte[] haystack, byte[] needle, int beforeIdx) {
+    byte first = needle[0];
+    int i = Math.min(beforeIdx - 1, haystack.length - needle.length);
+    while (i >= 0) {
+      i = lastIndexOf(haystack, first, i, 0);
+      if (i < 0) {
+        return -1;
+      }
+      if (regionMatches(haystack, i, needle)) {
+        return i;
+      }
+      i--;
+    }
+    return -1;
+  }
+
+  /** Check if the haystack contains the needle at the given offset. */
+  public static boolean regionMatches(byte[] haystack, int offset, byte[] needle) {
+    if (offset < 0 || offset + needle.length > haystack.length) {
+      return false;
+    }
+    for (int i = 0; i < needle.length; i++) {
+      if (haystack[offset + i] != needle[i]) {
+        return false;
+      }
+    }
+    return true;
+  }
+}
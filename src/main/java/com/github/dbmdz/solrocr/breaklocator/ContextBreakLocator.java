@@ -21,44 +21,22 @@ public class ContextBreakLocator implements BreakLocator {
   }
 
   @Override
-  public int following(int offset) throws IOException {
-    int limit = getText().length();
+  public long following(long offset) throws IOException {
+    long limit = getText().length();
     if (limitLocator != null) {
       limit = limitLocator.following(offset);
     }
-
-    int idx = baseLocator.following(offset);
-    if (idx >= limit) {
-      return limit;
-    }
-    for (int i = 0; i < contextSize; i++) {
-      int next = baseLocator.following(idx);
-      if (next >= limit) {
-        return limit;
-      }
-      idx = next;
-    }
-    return idx;
+    // The break after the offset and the ones of the context, located with a single search
+    return baseLocator.following(offset, contextSize + 1, limit);
   }
 
   @Override
-  public int preceding(int offset) throws IOException {
-    int limit = 0;
+  public long preceding(long offset) throws IOException {
+    long limit = 0;
     if (limitLocator != null) {
       limit = limitLocator.preceding(offset);
     }
-    int idx = baseLocator.preceding(offset);
-    if (idx <= limit) {
-      return limit;
-    }
-    for (int i = 0; i < contextSize; i++) {
-      int next = baseLocator.preceding(idx);
-      if (next <= limit) {
-        return limit;
-      }
-      idx = next;
-    }
-    return idx;
+    return baseLocator.preceding(offset, contextSize + 1, limit);
   }
 
   @Override
@@ -0,0 +1,272 @@
+package com.github.dbmdz.solrocr.breaklocator;
+
+import com.github.dbmdz.solrocr.model.OcrBlock;
+import com.github.dbmdz.solrocr.reader.SourceReader;
+import com.github.dbmdz.solrocr.reader.SourceReader.Section;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Locates the boundaries of all OCR block types together, with a single scan over every section
+ * of the input.
+ *
+ * <p>When a section is needed for the first time, the start offsets of all tags in it that open a
+ * block are recorded along with the block types they open. The {@link BreakLocator}s returned by
+ * {@link #forBlocks(OcrBlock...)} answer their lookups from these records, so locators for the
+ * context, the limit and the page of a passage don't scan the same sections again for their own
+ * tags.
+ *
+ * <p>If a {@link BreakIndex} is configured, the records are also shared with all other locators for
+ * the same version of the source, and sections that were scanned by one of them before are not
+ * read again.
+ *
+ * <p>Instances are not thread-safe and are meant to be used for a single document.
+ */
+public class HierarchicalBreakLocator {
+
+  /** Determines the block types opened by a tag, specific to an OCR format. */
+  public interface TagClassifier {
+    /**
+     * Get the block types that are opened by a tag, as a bit set of {@link OcrBlock} ordinals.
+     *
+     * @param bytes bytes containing the tag
+     * @param from offset of the tag's {@code '<'}
+     * @param to end offset of the tag, exclusive, i.e. after its {@code '>'}, or the end of the
+     *     available bytes if the tag is truncated
+     * @return the bit set of block types, 0 if the tag doesn't open a block
+     */
+    int classify(byte[] bytes, int from, int to);
+
+    /**
+     * Get the block types to break on when breaks for the given block types are requested, as a
+     * bit set of {@link OcrBlock} ordinals.
+     *
+     * <p>The default breaks on all of the given block types.
+     */
+    default int getBreakMask(OcrBlock... blockTypes) {
+      return blockMask(blockTypes);
+    }
+  }
+
+  private static final int INITIAL_CAPACITY = 16;
+  private static final int[] NO_BREAKS = new int[0];
+  private static final byte[] NO_MASKS = new byte[0];
+
+  private final SourceReader text;
+  private final TagClassifier classifier;
+
+  /** Scanned sections, {@code null} until the first lookup */
+  private ScannedSections sections;
+
+  /** Key of the source in the {@link BreakIndex}, {@code null} if its breaks are not shared */
+  private BreakIndex.Key indexKey;
+
+  /** Locators by break mask, so locators for the same blocks share their caches */
+  private final BlockLocator[] locators = new BlockLocator[1 << OcrBlock.values().length];
+
+  public HierarchicalBreakLocator(SourceReader text, TagClassifier classifier) {
+    this.text = text;
+    this.classifier = classifier;
+  }
+
+  /** Get a bit set of {@link OcrBlock} ordinals for the given block types. */
+  public static int blockMask(OcrBlock... blockTypes) {
+    int mask = 0;
+    for (OcrBlock block : blockTypes) {
+      mask |= 1 << block.ordinal();
+    }
+    return mask;
+  }
+
+  public SourceReader getText() {
+    return text;
+  }
+
+  /** Get a {@link BreakLocator} that splits the input on the given block types. */
+  public BreakLocator forBlocks(OcrBlock... blockTypes) {
+    int mask = classifier.getBreakMask(blockTypes);
+    if (locators[mask] == null) {
+      locators[mask] = new BlockLocator(mask);
+    }
+    return locators[mask];
+  }
+
+  /** Get the index of the scanned section that contains the offset, scanning it if needed. */
+  private int sectionIdx(long offset) throws IOException {
+    if (sections == null) {
+      sections = ScannedSections.EMPTY;
+      BreakIndex index = BreakIndex.getShared();
+      long version = index == null ? -1 : this.text.getVersion();
+      if (version >= 0) {
+        indexKey = new BreakIndex.Key(this.text.getIdentifier(), version, classifier);
+        ScannedSections learned = index.get(indexKey);
+        if (learned != null) {
+          sections = learned;
+        }
+      }
+    }
+    int idx = sections.indexOf(offset);
+    if (idx < 0) {
+      scanSection(offset);
+      idx = sections.indexOf(offset);
+    }
+    return idx;
+  }
+
+  /** Record the breaks of all block types in the unscanned part of the section with the offset. */
+  private void scanSection(long offset) throws IOException {
+    Section section = this.text.getAsciiSection(offset);
+    byte[] bytes = section.bytes;
+    // Sections from the index can be aligned differently than the ones of our reader, so only the
+    // gap between them is scanned
+    long from = Math.max(section.start, sections.gapStart(offset));
+    long to = Math.min(section.start + bytes.length, sections.gapEnd(offset));
+    int scanStart = (int) (from - section.start);
+    int scanEnd = (int) (to - section.start);
+
+    int[] breaks = NO_BREAKS;
+    byte[] masks = NO_MASKS;
+    int numBreaks = 0;
+    int tagStart = ByteScanner.indexOf(bytes, (byte) '<', scanStart, scanEnd);
+    while (tagStart >= 0) {
+      int nextTagStart = ByteScanner.indexOf(bytes, (byte) '<', tagStart + 1, bytes.length);
+      int tagClose = ByteScanner.indexOf(bytes, (byte) '>', tagStart + 1, bytes.length);
+      int mask;
+      if (tagClose >= 0 && (nextTagStart < 0 || tagClose < nextTagStart)) {
+        mask = classifier.classify(bytes, tagStart, tagClose + 1);
+      } else if (nextTagStart >= 0) {
+        // Malformed markup, the tag ends where the next one starts
+        mask = classifier.classify(bytes, tagStart, nextTagStart);
+      } else {
+        // Tag extends into the next section
+        byte[] splitTag = readSplitTag(section, tagStart);
+        mask = classifier.classify(splitTag, 0, splitTag.length);
+      }
+      if (mask != 0) {
+        if (numBreaks == breaks.length) {
+          breaks = Arrays.copyOf(breaks, Math.max(INITIAL_CAPACITY, numBreaks * 2));
+          masks = Arrays.copyOf(masks, breaks.length);
+        }
+        breaks[numBreaks] = tagStart - scanStart;
+        // There are fewer than eight block types, so the mask fits into a byte
+        masks[numBreaks] = (byte) mask;
+        numBreaks++;
+      }
+      tagStart = nextTagStart < scanEnd ? nextTagStart : -1;
+    }
+
+    breaks = Arrays.copyOf(breaks, numBreaks);
+    masks = Arrays.copyOf(masks, numBreaks);
+    sections = sections.with(from, to, breaks, masks);
+    BreakIndex index = BreakIndex.getShared();
+    if (index != null && indexKey != null) {
+      index.add(indexKey, from, to, breaks, masks);
+    }
+  }
+
+  /** Get the bytes of a tag that starts in the section and is continued in the next one. */
+  private byte[] readSplitTag(Section section, int tagStart) throws IOException {
+    long nextStart = section.start + section.bytes.length;
+    if (nextStart >= this.text.length()) {
+      return Arrays.copyOfRange(section.bytes, tagStart, section.bytes.length);
+    }
+    byte[] next = this.text.getAsciiSection(nextStart).bytes;
+    int tagClose = ByteScanner.indexOf(next, (byte) '>', 0, next.length);
+    byte[] tag = new byte[section.bytes.length - tagStart + tagClose + 1];
+    System.arraycopy(section.bytes, tagStart, tag, 0, section.bytes.length - tagStart);
+    System.arraycopy(next, 0, tag, section.bytes.length - tagStart, tagClose + 1);
+    return tag;
+  }
+
+  /**
+   * Find consecutive breaks for the block types in the mask at or after {@code fromOffset}, until
+   * {@code out} is full or a break at or after {@code limit} was found.
+   */
+  private int nextBreaks(long fromOffset, int mask, long[] out, long limit) throws IOException {
+    int numFound = 0;
+    long offset = fromOffset;
+    long length = this.text.length();
+    while (offset < length) {
+      int idx = sectionIdx(offset);
+      long start = sections.starts[idx];
+      int[] breaks = sections.breaks[idx];
+      byte[] masks = sections.masks[idx];
+      int i = Arrays.binarySearch(breaks, (int) (offset - start));
+      for (i = i >= 0 ? i : -i - 1; i < breaks.length; i++) {
+        if ((masks[i] & mask) != 0) {
+          out[numFound++] = start + breaks[i];
+          if (numFound == out.length || start + breaks[i] >= limit) {
+            return numFound;
+          }
+        }
+      }
+      offset = sections.ends[idx];
+    }
+    out[numFound++] = length;
+    return numFound;
+  }
+
+  /**
+   * Find consecutive breaks for the block types in the mask at or before {@code fromOffset}, until
+   * {@code out} is full or a break at or before {@code limit} was found.
+   */
+  private int previousBreaks(long fromOffset, int mask, long[] out, long limit)
+      throws IOException {
+    int numFound = 0;
+    long offset = Math.min(fromOffset, this.text.length() - 1);
+    while (offset >= 0) {
+      int idx = sectionIdx(offset);
+      long start = sections.starts[idx];
+      int[] breaks = sections.breaks[idx];
+      byte[] masks = sections.masks[idx];
+      int i = Arrays.binarySearch(breaks, (int) (offset - start));
+      for (i = i >= 0 ? i : -i - 2; i >= 0; i--) {
+        if ((masks[i] & mask) != 0) {
+          out[numFound++] = start + breaks[i];
+          if (numFound == out.length || start + breaks[i] <= limit) {
+            return numFound;
+          }
+        }
+      }
+      offset = start - 1;
+    }
+    if (numFound == 0 || out[numFound - 1] > 0) {
+      out[numFound++] = 0;
+    }
+    return numFound;
+  }
+
+  /** Locator for a set of block types, backed by the shared scan results. */
+  private class BlockLocator extends BaseBreakLocator {
+    private final int mask;
+
+    BlockLocator(int mask) {
+      super(HierarchicalBreakLocator.this.text);
+      this.mask = mask;
+    }
+
+    @Override
+    protected long getFollowing(long offset) throws IOException {
+      long[] breaks = new long[1];
+      nextBreaks(offset + 1, mask, breaks, Long.MAX_VALUE);
+      return breaks[0];
+    }
+
+    @Override
+    protected long getPreceding(long offset) throws IOException {
+      long[] breaks = new long[1];
+      previousBreaks(offset - 1, mask, breaks, Long.MIN_VALUE);
+      return breaks[0];
+    }
+
+    @Override
+    protected int getFollowing(long offset, long[] breaks, long limit) throws IOException {
+      return nextBreaks(offset + 1, mask, breaks, limit);
+    }
+
+    @Override
+    protected int getPreceding(long offset, long[] breaks, long limit) throws IOException {
+      return previousBreaks(offset - 1, mask, breaks, limit);
+    }
+  }
+}
@@ -0,0 +1,113 @@
+package com.github.dbmdz.solrocr.breaklocator;
+
+import java.util.Arrays;
+
+/**
+ * Immutable set of non-overlapping ranges of a source that were scanned for breaks, with the
+ * offsets and block types of the breaks found in them, see {@link HierarchicalBreakLocator}.
+ *
+ * <p>Break offsets are stored relative to the start of their range, so they fit into compact
+ * {@code int} arrays regardless of the size of the source. Adding a range creates a new instance
+ * that shares the arrays of all other ranges, so instances can be shared between threads without
+ * any locking.
+ */
+final class ScannedSections {
+  static final ScannedSections EMPTY =
+      new ScannedSections(new long[0], new long[0], new int[0][], new byte[0][]);
+
+  /** Estimated overhead per range for the array headers and the references to them */
+  private static final int RANGE_OVERHEAD_BYTES = 64;
+
+  /** Start offsets of the ranges, inclusive and in ascending order */
+  final long[] starts;
+
+  /** End offsets of the ranges, exclusive */
+  final long[] ends;
+
+  /** Break offsets in every range relative to its start, in ascending order */
+  final int[][] breaks;
+
+  /** Bit sets of the {@link com.github.dbmdz.solrocr.model.OcrBlock} ordinals of every break */
+  final byte[][] masks;
+
+  private ScannedSections(long[] starts, long[] ends, int[][] breaks, byte[][] masks) {
+    this.starts = starts;
+    this.ends = ends;
+    this.breaks = breaks;
+    this.masks = masks;
+  }
+
+  /** Get the index of the range that contains the offset, or -1 if it was not scanned yet. */
+  int indexOf(long offset) {
+    int idx = Arrays.binarySearch(starts, offset);
+    if (idx >= 0) {
+      return idx;
+    }
+    int floor = -idx - 2;
+    return floor >= 0 && offset < ends[floor] ? floor : -1;
+  }
+
+  /**
+   * Get the end of the gap of unscanned ranges that contains the offset, i.e. the start of the
+   * next scanned range, or {@link Long#MAX_VALUE} if there is none.
+   */
+  long gapEnd(long offset) {
+    int idx = Arrays.binarySearch(starts, offset);
+    idx = idx >= 0 ? idx : -idx - 1;
+    return idx < starts.length ? starts[idx] : Long.MAX_VALUE;
+  }
+
+  /**
+   * Get the start of the gap of unscanned ranges that contains the offset, i.e. the end of the
+   * previous scanned range, or 0 if there is none.
+   */
+  long gapStart(long offset) {
+    int idx = Arrays.binarySearch(starts, offset);
+    int floor = idx >= 0 ? idx : -idx - 2;
+    return floor >= 0 ? ends[floor] : 0;
+  }
+
+  /**
+   * Get a copy with an additional range, or this instance if the range overlaps a range that was
+   * already scanned.
+   */
+  ScannedSections with(long start, long end, int[] rangeBreaks, byte[] rangeMasks) {
+    int idx = Arrays.binarySearch(starts, start);
+    if (idx >= 0) {
+      return this;
+    }
+    idx = -idx - 1;
+    if ((idx > 0 && ends[idx - 1] > start) || (idx < starts.length && starts[idx] < end)) {
+      return this;
+    }
+    return new ScannedSections(
+        insert(starts, idx, start),
+        insert(ends, idx, end),
+        insert(breaks, idx, rangeBreaks),
+        insert(masks, idx, rangeMasks));
+  }
+
+  /** Estimate the number of bytes used by the scan results. */
+  long sizeInBytes() {
+    long size = 0;
+    for (int[] rangeBreaks : breaks) {
+      size += (long) rangeBreaks.length * (Integer.BYTES + 1) + RANGE_OVERHEAD_BYTES;
+    }
+    return size;
+  }
+
+  private static long[] insert(long[] arr, int idx, long value) {
+    long[] out = new long[arr.length + 1];
+    System.arraycopy(arr, 0, out, 0, idx);
+    out[idx] = value;
+    System.arraycopy(arr, idx, out, idx + 1, arr.length - idx);
+    return out;
+  }
+
+  private static <T> T[] insert(T[] arr, int idx, T value) {
+    T[] out = Arrays.copyOf(arr, arr.length + 1);
+    out[idx] = value;
+    System.arraycopy(arr, idx, out, idx + 1, arr.length - idx);
+    return out;
+  }
+}
@@ -3,10 +3,12 @@ package com.github.dbmdz.solrocr.breaklocator;
 import com.github.dbmdz.solrocr.reader.SourceReader;
 import com.github.dbmdz.solrocr.reader.SourceReader.Section;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
 
 /** A {@link BreakLocator} that splits an XML-like document on a specific opening or closing tag. */
 public class TagBreakLocator extends BaseBreakLocator {
-  private final String breakTag;
+  private final byte[] breakTag;
 
   public TagBreakLocator(SourceReader reader, String tagName) {
     this(reader, tagName, false);
@@ -15,43 +17,63 @@ public class TagBreakLocator extends BaseBreakLocator {
   public TagBreakLocator(SourceReader reader, String tagName, boolean closing) {
     super(reader);
     if (closing) {
-      this.breakTag = ("</" + tagName + ">");
+      this.breakTag = ("</" + tagName + ">").getBytes(StandardCharsets.UTF_8);
     } else {
-      this.breakTag = ("<" + tagName);
+      this.breakTag = ("<" + tagName).getBytes(StandardCharsets.UTF_8);
     }
   }
 
   @Override
-  protected int getFollowing(int offset) throws IOException {
-    String overlapHead = null;
-    int globalStart = Math.min(offset + 1, this.text.length());
-    // Read the source section-wise  to cut down on String allocations and improve the chance of
-    // cache hits in the reader
+  protected long getFollowing(long offset) throws IOException {
+    long[] breaks = new long[1];
+    getFollowing(offset, breaks, Long.MAX_VALUE);
+    return breaks[0];
+  }
+
+  @Override
+  protected long getPreceding(long offset) throws IOException {
+    long[] breaks = new long[1];
+    getPreceding(offset, breaks, Long.MIN_VALUE);
+    return breaks[0];
+  }
+
+  @Override
+  protected int getFollowing(long offset, long[] breaks, long limit) throws IOException {
+    int numBreaks = 0;
+    byte[] overlapHead = null;
+    long globalStart = Math.min(offset + 1, this.text.length());
+    // Read the source section-wise and search the raw bytes to avoid any String allocations and
+    // improve the chance of cache hits in the reader
     while (globalStart < this.text.length()) {
       Section section = this.text.getAsciiSection(globalStart);
-      String block = section.text;
-      int blockStart = globalStart - section.start;
+      byte[] block = section.bytes;
+      int blockStart = (int) (globalStart - section.start);
 
       if (overlapHead != null) {
         // If the previous section ended with a partial tag, we need to check if the overlapHead
         // combined with the new section until the closing tag contains the breakTag
-        int firstTagClose = block.indexOf('>');
-        int overlapStart = globalStart - overlapHead.length();
-        String overlap = overlapHead.concat(block.substring(0, firstTagClose + 1));
-        int overlapMatch = overlap.indexOf(breakTag);
-        if (overlapMatch >= 0) {
-          return overlapStart + overlapMatch;
+        int firstTagClose = indexOf(block, (byte) '>', 0);
+        long overlapStart = globalStart - overlapHead.length;
+        byte[] overlap = concat(overlapHead, 0, overlapHead.length, block, 0, firstTagClose + 1);
+        int overlapMatch = indexOf(overlap, breakTag, 0);
+        // The tag might have been matched in the previous section already
+        if (overlapMatch >= 0
+            && (numBreaks == 0 || breaks[numBreaks - 1] != overlapStart + overlapMatch)) {
+          breaks[numBreaks++] = overlapStart + overlapMatch;
+          if (numBreaks == breaks.length || overlapStart + overlapMatch >= limit) {
+            return numBreaks;
+          }
         }
         blockStart = firstTagClose + 1;
         overlapHead = null;
       }
       // Truncate block to last '>' and keep the rest for the next iteration if needed
-      int blockEnd = block.length();
-      int lastTagOpen = block.lastIndexOf('<');
+      int blockEnd = block.length;
+      int lastTagOpen = lastIndexOf(block, (byte) '<', blockEnd);
       if (lastTagOpen < blockStart) {
         lastTagOpen = -1;
       }
-      int lastTagClose = block.lastIndexOf('>');
+      int lastTagClose = lastIndexOf(block, (byte) '>', blockEnd);
       if (lastTagClose < blockStart) {
         lastTagClose = -1;
       }
@@ -59,72 +81,102 @@ public class TagBreakLocator extends BaseBreakLocator {
           (lastTagOpen >= 0 && lastTagClose < 0)
               || (lastTagClose >= 0 && lastTagClose < lastTagOpen);
       if (partialTag) {
-        overlapHead = block.substring(lastTagOpen, blockEnd);
+        overlapHead = Arrays.copyOfRange(block, lastTagOpen, blockEnd);
         blockEnd = lastTagOpen + 1;
       }
 
-      int idx = block.indexOf(breakTag, blockStart);
-      if (idx >= 0 && idx < blockEnd) {
-        return section.start + idx;
+      // Continue the search in the same section until enough breaks were found
+      int idx = indexOf(block, breakTag, blockStart);
+      while (idx >= 0 && idx < blockEnd) {
+        breaks[numBreaks++] = section.start + idx;
+        if (numBreaks == breaks.length || section.start + idx >= limit) {
+          return numBreaks;
+        }
+        idx = indexOf(block, breakTag, idx + 1);
       }
 
       globalStart = section.end;
     }
-    return this.text.length();
+    breaks[numBreaks++] = this.text.length();
+    return numBreaks;
   }
 
   @Override
-  protected int getPreceding(int offset) throws IOException {
-    String overlapTail = null;
-    int globalEnd = offset;
+  protected int getPreceding(long offset, long[] breaks, long limit) throws IOException {
+    int numBreaks = 0;
+    byte[] overlapTail = null;
+    long globalEnd = offset;
 
-    // Read the source section-wise  to cut down on String allocations and improve the chance of
-    // cache hits in the reader
+    // Read the source section-wise and search the raw bytes to avoid any String allocations and
+    // improve the chance of cache hits in the reader
     while (globalEnd > 0) {
       Section section = this.text.getAsciiSection(globalEnd);
-      String block = section.text;
-      int blockEnd = globalEnd - section.start;
+      byte[] block = section.bytes;
+      int blockEnd = (int) (globalEnd - section.start);
+
+      if (globalEnd == offset) {
+        // The last tag before the offset might extend into the next section
+        int splitTagStart = findUnclosedTag(section, blockEnd);
+        if (splitTagStart >= 0
+            && regionMatches(readSplitTag(section, splitTagStart), 0, breakTag)) {
+          breaks[numBreaks++] = section.start + splitTagStart;
+          if (numBreaks == breaks.length || section.start + splitTagStart <= limit) {
+            return numBreaks;
+          }
+          blockEnd = splitTagStart;
+        }
+      }
 
       if (overlapTail != null) {
         // If the previous section started with a partial tag, we need to check if the overlapTail
-        // combined with the new section until the opening tag contains the breakTag
-        int lastTagOpen = block.lastIndexOf('<');
-        String overlapHead = block.substring(lastTagOpen);
-        String overlap = overlapHead.concat(overlapTail);
-        int overlapMatch = optimizedLastIndexOf(overlap, breakTag, overlap.length());
+        // combined with the new section from the opening tag contains the breakTag
+        int lastTagOpen = lastIndexOf(block, (byte) '<', block.length);
+        int overlapStart = Math.max(lastTagOpen, 0);
+        byte[] overlap =
+            concat(block, overlapStart, block.length, overlapTail, 0, overlapTail.length);
+        int overlapMatch = lastIndexOf(overlap, breakTag, overlap.length);
         if (overlapMatch >= 0) {
-          return section.start + lastTagOpen + overlapMatch;
+          long match = section.start + overlapStart + overlapMatch;
+          breaks[numBreaks++] = match;
+          if (numBreaks == breaks.length || match <= limit) {
+            return numBreaks;
+          }
+        }
+        if (lastTagOpen >= 0) {
+          blockEnd = lastTagOpen;
         }
-        blockEnd = lastTagOpen;
         overlapTail = null;
       }
 
+      // The partial tag check has to look beyond blockEnd, since a tag that starts in the
+      // previous section can extend beyond the offset
       int blockStart = 0;
-      int firstTagOpen = block.indexOf('<');
-      if (firstTagOpen > blockEnd) {
-        firstTagOpen = -1;
-      }
-      int firstTagClose = block.indexOf('>');
-      if (firstTagClose > blockEnd) {
-        firstTagClose = -1;
-      }
+      int firstTagOpen = indexOf(block, (byte) '<', 0);
+      int firstTagClose = indexOf(block, (byte) '>', 0);
       boolean partialTag =
           (firstTagOpen < 0 && firstTagClose >= 0)
               || (firstTagClose >= 0 && firstTagClose < firstTagOpen);
       if (partialTag) {
         // Section starts on a partial tag, store it for the next iteration
         blockStart = firstTagClose + 1;
-        overlapTail = block.substring(0, firstTagClose + 1);
+        overlapTail = Arrays.copyOf(block, firstTagClose + 1);
       }
 
-      int match = optimizedLastIndexOf(block, breakTag, blockEnd);
-      if (match >= blockStart) {
-        return section.start + match;
+      int match = lastIndexOf(block, breakTag, blockEnd);
+      while (match >= blockStart) {
+        breaks[numBreaks++] = section.start + match;
+        if (numBreaks == breaks.length || section.start + match <= limit) {
+          return numBreaks;
+        }
+        match = lastIndexOf(block, breakTag, match);
       }
 
       globalEnd = section.start - 1;
     }
 
-    return 0;
+    if (numBreaks == 0 || breaks[numBreaks - 1] > 0) {
+      breaks[numBreaks++] = 0;
+    }
+    return numBreaks;
   }
 }
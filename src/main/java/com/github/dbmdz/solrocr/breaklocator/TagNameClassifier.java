@@ -0,0 +1,48 @@
+package com.github.dbmdz.solrocr.breaklocator;
+
+import com.github.dbmdz.solrocr.breaklocator.HierarchicalBreakLocator.TagClassifier;
+import com.github.dbmdz.solrocr.model.OcrBlock;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+/**
+ * Classifies tags by their element name, for formats where every block type has its own element,
+ * like ALTO and MiniOCR.
+ *
+ * <p>Like with {@link TagBreakLocator}, tags are matched by prefix, i.e. the element name has to
+ * directly follow the {@code '<'}.
+ */
+public class TagNameClassifier implements TagClassifier {
+  private final OcrBlock[] blocks;
+  private final byte[][] openingTags;
+
+  public TagNameClassifier(Map<OcrBlock, String> blockTagMapping) {
+    this.blocks = blockTagMapping.keySet().toArray(new OcrBlock[0]);
+    this.openingTags = new byte[blocks.length][];
+    for (int i = 0; i < blocks.length; i++) {
+      this.openingTags[i] =
+          ("<" + blockTagMapping.get(blocks[i])).getBytes(StandardCharsets.UTF_8);
+    }
+  }
+
+  @Override
+  public int classify(byte[] bytes, int from, int to) {
+    int mask = 0;
+    for (int i = 0; i < openingTags.length; i++) {
+      byte[] tag = openingTags[i];
+      if (from + tag.length <= to && ByteScanner.regionMatches(bytes, from, tag)) {
+        mask |= 1 << blocks[i].ordinal();
+      }
+    }
+    return mask;
+  }
+
+  /**
+   * Formats with element names per block type have a rigid hierarchy, so only the lowest of the
+   * requested block types is used, like the formats' {@code getBreakLocator} implementations do.
+   */
+  @Override
+  public int getBreakMask(OcrBlock... blockTypes) {
+    return HierarchicalBreakLocator.blockMask(blockTypes[0]);
+  }
+}
@@ -1,7 +1,9 @@
 package com.github.dbmdz.solrocr.formats.alto;
 
 import com.github.dbmdz.solrocr.breaklocator.BreakLocator;
+import com.github.dbmdz.solrocr.breaklocator.HierarchicalBreakLocator;
 import com.github.dbmdz.solrocr.breaklocator.TagBreakLocator;
+import com.github.dbmdz.solrocr.breaklocator.TagNameClassifier;
 import com.github.dbmdz.solrocr.formats.OcrParser;
 import com.github.dbmdz.solrocr.model.OcrBlock;
 import com.github.dbmdz.solrocr.model.OcrFormat;
@@ -23,6 +25,7 @@ public class AltoFormat implements OcrFormat {
           OcrBlock.BLOCK, "TextBlock",
           OcrBlock.LINE, "TextLine",
           OcrBlock.WORD, "String");
+  private static final TagNameClassifier TAG_CLASSIFIER = new TagNameClassifier(blockTagMapping);
 
   @Override
   public BreakLocator getBreakLocator(SourceReader reader, OcrBlock... blockTypes) {
@@ -32,6 +35,11 @@ public class AltoFormat implements OcrFormat {
     return new TagBreakLocator(reader, breakTag);
   }
 
+  @Override
+  public HierarchicalBreakLocator getHierarchicalBreakLocator(SourceReader reader) {
+    return new HierarchicalBreakLocator(reader, TAG_CLASSIFIER);
+  }
+
   @Override
   public OcrParser getParser(Reader input, OcrParser.ParsingFeature... features) {
     try {
@@ -1,15 +1,21 @@
 package com.github.dbmdz.solrocr.formats.hocr;
 
+import com.github.dbmdz.solrocr.breaklocator.AhoCorasickMatcher;
 import com.github.dbmdz.solrocr.breaklocator.BaseBreakLocator;
 import com.github.dbmdz.solrocr.reader.SourceReader;
 import com.github.dbmdz.solrocr.reader.SourceReader.Section;
 import com.google.common.collect.ImmutableList;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
 import java.util.List;
+import java.util.stream.Collectors;
 
 public class HocrClassBreakLocator extends BaseBreakLocator {
 
-  private final List<String> breakClasses;
+  private static final byte[] META = "meta".getBytes(StandardCharsets.US_ASCII);
+
+  private final AhoCorasickMatcher breakClasses;
 
   public HocrClassBreakLocator(SourceReader reader, String breakClass) {
     this(reader, ImmutableList.of(breakClass));
@@ -17,41 +23,63 @@ public class HocrClassBreakLocator extends BaseBreakLocator {
 
   public HocrClassBreakLocator(SourceReader reader, List<String> breakClasses) {
     super(reader);
-    this.breakClasses = breakClasses;
+    this.breakClasses =
+        new AhoCorasickMatcher(
+            breakClasses.stream()
+                .map(c -> c.getBytes(StandardCharsets.UTF_8))
+                .collect(Collectors.toList()));
   }
 
   @Override
-  protected int getFollowing(int offset) throws IOException {
-    int globalStart = Math.min(offset + 1, this.text.length());
-    String overlapHead = null;
-    // Read the source section-wise  to cut down on String allocations and improve the chance of
-    // cache hits in the reader
+  protected long getFollowing(long offset) throws IOException {
+    long[] breaks = new long[1];
+    getFollowing(offset, breaks, Long.MAX_VALUE);
+    return breaks[0];
+  }
+
+  @Override
+  protected long getPreceding(long offset) throws IOException {
+    long[] breaks = new long[1];
+    getPreceding(offset, breaks, Long.MIN_VALUE);
+    return breaks[0];
+  }
+
+  @Override
+  protected int getFollowing(long offset, long[] breaks, long limit) throws IOException {
+    int numBreaks = 0;
+    long globalStart = Math.min(offset + 1, this.text.length());
+    byte[] overlapHead = null;
+    // Read the source section-wise and search the raw bytes to avoid any String allocations and
+    // improve the chance of cache hits in the reader
     while (globalStart < this.text.length()) {
       Section section = this.text.getAsciiSection(globalStart);
-      String block = section.text;
-      int blockStart = globalStart - section.start;
+      byte[] block = section.bytes;
+      int blockStart = (int) (globalStart - section.start);
 
       // There was an overlap from the previous block, combine with the current block up until
       // the first tag close and see if there's a match
       if (overlapHead != null) {
-        int firstTagClose = block.indexOf('>');
-        int overlapStart = globalStart - overlapHead.length();
-        String overlap = overlapHead.concat(block.substring(0, firstTagClose + 1));
-        int overlapMatch = findForwardMatch(overlap, 0, overlap.length());
+        int firstTagClose = indexOf(block, (byte) '>', 0);
+        long overlapStart = globalStart - overlapHead.length;
+        byte[] overlap = concat(overlapHead, 0, overlapHead.length, block, 0, firstTagClose + 1);
+        int overlapMatch = findForwardMatch(overlap, 0, overlap.length);
         if (overlapMatch >= 0) {
-          return overlapStart + overlapMatch;
+          breaks[numBreaks++] = overlapStart + overlapMatch;
+          if (numBreaks == breaks.length || overlapStart + overlapMatch >= limit) {
+            return numBreaks;
+          }
         }
         blockStart = firstTagClose + 1;
         overlapHead = null;
       }
 
       // Truncate block to last '>' and keep the rest for the next iteration if needed
-      int blockEnd = block.length();
-      int lastTagOpen = block.lastIndexOf('<');
+      int blockEnd = block.length;
+      int lastTagOpen = lastIndexOf(block, (byte) '<', blockEnd);
       if (lastTagOpen < blockStart) {
         lastTagOpen = -1;
       }
-      int lastTagClose = block.lastIndexOf('>');
+      int lastTagClose = lastIndexOf(block, (byte) '>', blockEnd);
       if (lastTagClose < blockStart) {
         lastTagClose = -1;
       }
@@ -59,132 +87,161 @@ public class HocrClassBreakLocator extends BaseBreakLocator {
           (lastTagOpen >= 0 && lastTagClose < 0)
               || (lastTagClose >= 0 && lastTagClose < lastTagOpen);
       if (partialTag) {
-        overlapHead = block.substring(lastTagOpen, blockEnd);
+        overlapHead = Arrays.copyOfRange(block, lastTagOpen, blockEnd);
         blockEnd = lastTagOpen + 1;
       }
 
+      // Continue the search in the same section until enough breaks were found
       int match = findForwardMatch(block, blockStart, blockEnd);
-      if (match >= 0) {
-        return section.start + match;
+      while (match >= 0) {
+        breaks[numBreaks++] = section.start + match;
+        if (numBreaks == breaks.length || section.start + match >= limit) {
+          return numBreaks;
+        }
+        match = findForwardMatch(block, match + 1, blockEnd);
       }
 
       globalStart = section.end;
     }
-    return this.text.length();
+    breaks[numBreaks++] = this.text.length();
+    return numBreaks;
   }
 
   @Override
-  protected int getPreceding(int offset) throws IOException {
+  protected int getPreceding(long offset, long[] breaks, long limit) throws IOException {
+    int numBreaks = 0;
     if (offset <= 0) {
-      return 0;
+      breaks[numBreaks++] = 0;
+      return numBreaks;
     }
 
-    // Read the source section-wise  to cut down on String allocations and improve the chance of
-    // cache hits in the reader
-    String overlapTail = null;
-    int globalEnd = Math.max(0, offset - 1);
+    // Read the source section-wise and search the raw bytes to avoid any String allocations and
+    // improve the chance of cache hits in the reader
+    byte[] overlapTail = null;
+    int overlapTailLimit = 0;
+    long globalEnd = Math.max(0, offset - 1);
     while (globalEnd > 0) {
       Section section = this.text.getAsciiSection(globalEnd);
 
-      String block = section.text;
-      int blockEnd = globalEnd - section.start;
+      byte[] block = section.bytes;
+      int blockEnd = (int) (globalEnd - section.start);
+
+      if (globalEnd == offset - 1) {
+        // The last tag before the offset might extend into the next section
+        int splitTagStart = findUnclosedTag(section, blockEnd);
+        if (splitTagStart >= 0) {
+          byte[] splitTag = readSplitTag(section, splitTagStart);
+          int splitMatch = findBackwardMatch(splitTag, blockEnd - splitTagStart, 0);
+          if (splitMatch >= 0) {
+            long match = section.start + splitTagStart + splitMatch;
+            breaks[numBreaks++] = match;
+            if (numBreaks == breaks.length || match <= limit) {
+              return numBreaks;
+            }
+            blockEnd = splitTagStart;
+          }
+        }
+      }
 
       // There was an overlap from the previous block, combine with the current block up until
       // the first tag open and see if there's a match
       if (overlapTail != null) {
-        int lastTagOpen = block.lastIndexOf('<', blockEnd);
-        String overlapHead = block.substring(lastTagOpen);
-        int overlapStartOffset = globalEnd - overlapHead.length() + 1;
-        String overlap = overlapHead.concat(overlapTail);
-        int overlapMatch = findBackwardMatch(overlap, overlap.length(), 0);
+        int lastTagOpen = lastIndexOf(block, (byte) '<', blockEnd);
+        int overlapHeadStart = Math.max(lastTagOpen, 0);
+        long overlapStartOffset = globalEnd - (block.length - overlapHeadStart) + 1;
+        byte[] overlap =
+            concat(block, overlapHeadStart, block.length, overlapTail, 0, overlapTail.length);
+        // Like in the block itself, the class has to occur before the end offset
+        int overlapMatch =
+            findBackwardMatch(overlap, overlap.length - overlapTail.length + overlapTailLimit, 0);
         if (overlapMatch >= 0) {
-          return overlapStartOffset + overlapMatch;
+          breaks[numBreaks++] = overlapStartOffset + overlapMatch;
+          if (numBreaks == breaks.length || overlapStartOffset + overlapMatch <= limit) {
+            return numBreaks;
+          }
+        }
+        if (lastTagOpen >= 0) {
+          blockEnd = lastTagOpen;
         }
-        blockEnd = lastTagOpen;
         overlapTail = null;
       }
 
+      // The partial tag check has to look beyond blockEnd, since a tag that starts in the
+      // previous section can extend beyond the offset
       int blockStart = 0;
-      int firstTagOpen = block.indexOf('<');
-      if (firstTagOpen > blockEnd) {
-        firstTagOpen = -1;
-      }
-      int firstTagClose = block.indexOf('>');
-      if (firstTagClose > blockEnd) {
-        firstTagClose = -1;
-      }
+      int firstTagOpen = indexOf(block, (byte) '<', 0);
+      int firstTagClose = indexOf(block, (byte) '>', 0);
       boolean partialTag =
           (firstTagOpen < 0 && firstTagClose >= 0)
               || (firstTagClose >= 0 && firstTagClose < firstTagOpen);
       if (partialTag) {
         // Section starts on a partial tag, store it for the next iteration
         blockStart = firstTagClose + 1;
-        overlapTail = block.substring(0, firstTagClose + 1);
+        overlapTail = Arrays.copyOf(block, firstTagClose + 1);
+        overlapTailLimit = Math.min(blockEnd, overlapTail.length);
       }
 
-      int match = findBackwardMatch(block, blockEnd, blockStart);
-      if (match >= 0) {
-        return section.start + match;
+      int match = blockEnd > blockStart ? findBackwardMatch(block, blockEnd, blockStart) : -1;
+      while (match >= 0) {
+        breaks[numBreaks++] = section.start + match;
+        if (numBreaks == breaks.length || section.start + match <= limit) {
+          return numBreaks;
+        }
+        match = findBackwardMatch(block, match, blockStart);
       }
 
       globalEnd = section.start - 1;
     }
 
-    return 0;
+    if (numBreaks == 0 || breaks[numBreaks - 1] > 0) {
+      breaks[numBreaks++] = 0;
+    }
+    return numBreaks;
   }
 
-  /** Find a match for one of the break classes in the given String, seeking forward. */
-  private int findForwardMatch(String text, int fromOffset, int toOffset) {
-    int match = Integer.MAX_VALUE;
-    for (String breakClass : this.breakClasses) {
-      // Where to start looking from for a break in the next iteration
-      int fromIdx = fromOffset;
-      while (fromIdx < toOffset) {
-        int i = text.indexOf(breakClass, fromIdx);
-        if (i < 0 || i >= toOffset) {
-          // Not found, try next class
-          break;
-        }
-        int openIdx = text.lastIndexOf('<', i);
-        int closeIdx = text.indexOf('>', i);
-        if (openIdx < fromIdx && closeIdx < 0) {
-          // No match
-          break;
-        }
-        if (openIdx < fromOffset) {
-          // Incomplete element, try next position
-          fromIdx = closeIdx;
-          continue;
-        }
-        int nextOpenIdx = text.indexOf('<', i);
-        if (nextOpenIdx >= toOffset) {
-          nextOpenIdx = -1;
-        }
-        if (nextOpenIdx > 0 && closeIdx > nextOpenIdx) {
-          // Not inside an element tag, try next position
-          fromIdx = i + breakClass.length();
-          continue;
-        }
-        if (text.startsWith("meta", openIdx + 1)) {
-          // Block specification in meta tag, not a real block, try next position
-          fromIdx = closeIdx;
-          continue;
-        }
-        // Found a match, try next class to see whether there is a match closer to the offset
-        if (openIdx < match) {
-          match = openIdx;
-        }
-        break;
+  /** Find a match for one of the break classes in the given bytes, seeking forward. */
+  private int findForwardMatch(byte[] text, int fromOffset, int toOffset) {
+    // Where to start looking from for a break in the next iteration
+    int fromIdx = fromOffset;
+    while (fromIdx < toOffset) {
+      // Occurrences of all classes are found in a single pass, in order of their position
+      int i = this.breakClasses.indexOf(text, fromIdx, toOffset);
+      if (i < 0) {
+        return -1;
       }
+      int openIdx = lastIndexOf(text, (byte) '<', i);
+      int closeIdx = indexOf(text, (byte) '>', i);
+      if (closeIdx < 0 && (openIdx < fromIdx || regionMatches(text, openIdx + 1, META))) {
+        // No match
+        return -1;
+      }
+      if (openIdx < fromOffset) {
+        // Incomplete element, try next position
+        fromIdx = closeIdx;
+        continue;
+      }
+      int nextOpenIdx = indexOf(text, (byte) '<', i);
+      if (nextOpenIdx >= toOffset) {
+        nextOpenIdx = -1;
+      }
+      if (nextOpenIdx > 0 && closeIdx > nextOpenIdx) {
+        // Not inside an element tag, try next position
+        fromIdx = i + 1;
+        continue;
+      }
+      if (regionMatches(text, openIdx + 1, META)) {
+        // Block specification in meta tag, not a real block, try next position
+        fromIdx = closeIdx;
+        continue;
+      }
+      // Since the classes are matched in order, this is the match closest to the offset
+      return openIdx;
     }
-    if (match == Integer.MAX_VALUE) {
-      return -1;
-    }
-    return match;
+    return -1;
   }
 
-  /** Find a match for one of the break classes in the given String, seeking backwards. */
-  private int findBackwardMatch(String text, int fromOffset, int toOffset) {
+  /** Find a match for one of the break classes in the given bytes, seeking backwards. */
+  private int findBackwardMatch(byte[] text, int fromOffset, int toOffset) {
     if (fromOffset == 0 || fromOffset == toOffset) {
       return -1;
     }
@@ -192,31 +249,24 @@ public class HocrClassBreakLocator extends BaseBreakLocator {
     assert fromOffset > toOffset
         : "fromOffset must be greater than toOffset, we're looking backwards!";
 
-    int match = -1;
-    for (String breakClass : this.breakClasses) {
-      // Look for the class in the block
-      while (fromOffset > toOffset) {
-        int i = optimizedLastIndexOf(text, breakClass, fromOffset);
-        if (i < toOffset) {
-          // Not found, try next class
-          break;
-        }
-        int elemOpen = text.lastIndexOf('<', i);
-        int previousClose = text.lastIndexOf('>', i);
-        if (elemOpen < toOffset
-            || previousClose > elemOpen
-            || text.startsWith("meta", elemOpen + 1)) {
-          // Class was not part of a tag or in the "meta" tag, keep looking
-          fromOffset = Math.max(previousClose, elemOpen);
-          continue;
-        }
-        // Found match, try next class to see whether there is a match closer to the offset
-        if (elemOpen > match) {
-          match = elemOpen;
-        }
-        break;
+    while (fromOffset > toOffset) {
+      // Occurrences of all classes are found in a single pass, in reverse order of their position
+      int i = this.breakClasses.lastIndexOf(text, fromOffset, toOffset);
+      if (i < 0) {
+        return -1;
+      }
+      int elemOpen = lastIndexOf(text, (byte) '<', i);
+      int previousClose = lastIndexOf(text, (byte) '>', i);
+      if (elemOpen < toOffset
+          || previousClose > elemOpen
+          || regionMatches(text, elemOpen + 1, META)) {
+        // Class was not part of a tag or in the "meta" tag, keep looking
+        fromOffset = Math.max(previousClose, elemOpen);
+        continue;
       }
+      // Since the classes are matched in reverse order, this is the match closest to the offset
+      return elemOpen;
     }
-    return match;
+    return -1;
   }
 }
@@ -1,6 +1,7 @@
 package com.github.dbmdz.solrocr.formats.hocr;
 
 import com.github.dbmdz.solrocr.breaklocator.BreakLocator;
+import com.github.dbmdz.solrocr.breaklocator.HierarchicalBreakLocator;
 import com.github.dbmdz.solrocr.formats.OcrParser;
 import com.github.dbmdz.solrocr.model.OcrBlock;
 import com.github.dbmdz.solrocr.model.OcrFormat;
@@ -41,6 +42,8 @@ public class HocrFormat implements OcrFormat {
           .put(OcrBlock.LINE, ImmutableSet.of("ocr_line", "ocrx_line"))
           .put(OcrBlock.WORD, ImmutableSet.of("ocrx_word"))
           .build();
+  private static final HocrTagClassifier TAG_CLASSIFIER =
+      new HocrTagClassifier(blockClassMapping);
 
   @Override
   public BreakLocator getBreakLocator(SourceReader reader, OcrBlock... blockTypes) {
@@ -51,6 +54,11 @@ public class HocrFormat implements OcrFormat {
     return new HocrClassBreakLocator(reader, breakClasses);
   }
 
+  @Override
+  public HierarchicalBreakLocator getHierarchicalBreakLocator(SourceReader reader) {
+    return new HierarchicalBreakLocator(reader, TAG_CLASSIFIER);
+  }
+
   @Override
   public OcrParser getParser(Reader input, OcrParser.ParsingFeature... features) {
     try {
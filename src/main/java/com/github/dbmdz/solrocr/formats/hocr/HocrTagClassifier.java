@@ -0,0 +1,57 @@
+package com.github.dbmdz.solrocr.formats.hocr;
+
+import com.github.dbmdz.solrocr.breaklocator.AhoCorasickMatcher;
+import com.github.dbmdz.solrocr.breaklocator.ByteScanner;
+import com.github.dbmdz.solrocr.breaklocator.HierarchicalBreakLocator.TagClassifier;
+import com.github.dbmdz.solrocr.model.OcrBlock;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Classifies hOCR tags by the block classes they contain, with the same rules as {@link
+ * HocrClassBreakLocator}: any of the classes has to occur in the tag, and {@code meta} tags are
+ * ignored.
+ */
+class HocrTagClassifier implements TagClassifier {
+  private static final byte[] META = "<meta".getBytes(StandardCharsets.US_ASCII);
+
+  private final AhoCorasickMatcher matcher;
+  private final byte[][] classes;
+  private final int[] classMasks;
+
+  HocrTagClassifier(Map<OcrBlock, Set<String>> blockClassMapping) {
+    List<byte[]> classes = new ArrayList<>();
+    List<Integer> masks = new ArrayList<>();
+    blockClassMapping.forEach(
+        (block, blockClasses) -> {
+          for (String cls : blockClasses) {
+            classes.add(cls.getBytes(StandardCharsets.UTF_8));
+            masks.add(1 << block.ordinal());
+          }
+        });
+    this.matcher = new AhoCorasickMatcher(classes);
+    this.classes = classes.toArray(new byte[0][]);
+    this.classMasks = masks.stream().mapToInt(Integer::intValue).toArray();
+  }
+
+  @Override
+  public int classify(byte[] bytes, int from, int to) {
+    if (ByteScanner.regionMatches(bytes, from, META)) {
+      return 0;
+    }
+    int mask = 0;
+    int idx = matcher.indexOf(bytes, from, to);
+    while (idx >= 0) {
+      for (int i = 0; i < classes.length; i++) {
+        if (idx + classes[i].length <= to && ByteScanner.regionMatches(bytes, idx, classes[i])) {
+          mask |= classMasks[i];
+        }
+      }
+      idx = matcher.indexOf(bytes, idx + 1, to);
+    }
+    return mask;
+  }
+}
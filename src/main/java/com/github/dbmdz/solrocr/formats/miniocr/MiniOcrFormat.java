@@ -1,7 +1,9 @@
 package com.github.dbmdz.solrocr.formats.miniocr;
 
 import com.github.dbmdz.solrocr.breaklocator.BreakLocator;
+import com.github.dbmdz.solrocr.breaklocator.HierarchicalBreakLocator;
 import com.github.dbmdz.solrocr.breaklocator.TagBreakLocator;
+import com.github.dbmdz.solrocr.breaklocator.TagNameClassifier;
 import com.github.dbmdz.solrocr.formats.OcrParser;
 import com.github.dbmdz.solrocr.model.OcrBlock;
 import com.github.dbmdz.solrocr.model.OcrFormat;
@@ -26,6 +28,7 @@ public class MiniOcrFormat implements OcrFormat {
           OcrBlock.BLOCK, "b",
           OcrBlock.LINE, "l",
           OcrBlock.WORD, "w");
+  private static final TagNameClassifier TAG_CLASSIFIER = new TagNameClassifier(blockTagMapping);
 
   public MiniOcrFormat() {}
 
@@ -39,6 +42,11 @@ public class MiniOcrFormat implements OcrFormat {
     return new TagBreakLocator(reader, breakTag);
   }
 
+  @Override
+  public HierarchicalBreakLocator getHierarchicalBreakLocator(SourceReader reader) {
+    return new HierarchicalBreakLocator(reader, TAG_CLASSIFIER);
+  }
+
   @Override
   public OcrParser getParser(Reader input, OcrParser.ParsingFeature... features) {
     try {
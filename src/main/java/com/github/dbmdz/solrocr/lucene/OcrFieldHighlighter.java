@@ -27,6 +27,7 @@ package com.github.dbmdz.solrocr.lucene;
 import com.github.dbmdz.solrocr.breaklocator.BreakLocator;
 import com.github.dbmdz.solrocr.model.OcrSnippet;
 import com.github.dbmdz.solrocr.reader.SourceReader;
+import com.github.dbmdz.solrocr.util.OffsetUtils;
 import java.io.IOException;
 import java.util.Arrays;
 import java.util.Collections;
@@ -44,6 +45,15 @@ import org.apache.lucene.util.BytesRef;
 
 /** A customization of {@link FieldHighlighter} to support OCR fields */
 public class OcrFieldHighlighter {
+  /** Number of matches that are read ahead to plan the source reads for building passages. */
+  private static final int MATCH_WINDOW_SIZE = 64;
+
+  /**
+   * Number of bytes around a match that are likely to be needed for determining the passage
+   * boundaries and are thus read ahead.
+   */
+  private static final int PREFETCH_CONTEXT_BYTES = 4 * 1024;
+
   private final ConcurrentHashMap<Integer, Integer> numMatches;
 
   private final String field;
@@ -51,19 +61,26 @@ public class OcrFieldHighlighter {
   private final PassageScorer passageScorer;
   private final int maxPassages;
   private final int maxNoHighlightPassages;
+  private final int maxPrefetchSize;
 
+  /**
+   * @param maxPrefetchSize maximum number of bytes of the content that are loaded ahead of building
+   *     the passages, see {@link SourceReader#prefetch(long[], long[], int, int, int)}
+   */
   public OcrFieldHighlighter(
       String field,
       FieldOffsetStrategy fieldOffsetStrategy,
       PassageScorer passageScorer,
       int maxPassages,
-      int maxNoHighlightPassages) {
+      int maxNoHighlightPassages,
+      int maxPrefetchSize) {
     this.numMatches = new ConcurrentHashMap<>();
     this.field = field;
     this.fieldOffsetStrategy = fieldOffsetStrategy;
     this.passageScorer = passageScorer;
     this.maxPassages = maxPassages;
     this.maxNoHighlightPassages = maxNoHighlightPassages;
+    this.maxPrefetchSize = maxPrefetchSize;
   }
 
   /**
@@ -122,6 +139,36 @@ public class OcrFieldHighlighter {
     }
   }
 
+  /**
+   * Read ahead the parts of the content that are going to be needed first when highlighting the
+   * document, i.e. the head of the content (used for detecting the OCR format) and the surroundings
+   * of the first matches.
+   *
+   * <p>The match offsets are determined from the index alone, the content is not touched apart from
+   * the read-ahead itself. Only use this with offset sources that don't need to analyze the
+   * content.
+   */
+  public void readAhead(LeafReader reader, int readerDocId, SourceReader content)
+      throws IOException {
+    long[] starts = new long[MATCH_WINDOW_SIZE + 1];
+    long[] ends = new long[MATCH_WINDOW_SIZE + 1];
+    starts[0] = 0;
+    ends[0] = PREFETCH_CONTEXT_BYTES;
+    int numRanges = 1;
+    try (OffsetsEnum off = fieldOffsetStrategy.getOffsetsEnum(reader, readerDocId, null)) {
+      while (numRanges < starts.length && off.nextPosition()) {
+        int start = off.startOffset();
+        if (start < 0) {
+          break;
+        }
+        starts[numRanges] = start - PREFETCH_CONTEXT_BYTES;
+        ends[numRanges] = (long) off.endOffset() + PREFETCH_CONTEXT_BYTES;
+        numRanges++;
+      }
+    }
+    content.prefetch(starts, ends, 0, numRanges, maxPrefetchSize);
+  }
+
   protected Passage[] highlightOffsetsEnums(OffsetsEnum off) {
     throw new UnsupportedOperationException();
   }
@@ -161,7 +208,9 @@ public class OcrFieldHighlighter {
       int snippetLimit,
       boolean scorePassages)
       throws IOException {
-    final int contentLength = breakLocator.getText().length();
+    final long contentLength = breakLocator.getText().length();
+    // Only used for normalizing scores, where the exact length of huge sources doesn't matter
+    final int scoringLength = (int) Math.min(contentLength, Integer.MAX_VALUE);
     if (!off.nextPosition()) {
       return new Passage[0];
     }
@@ -204,55 +253,96 @@ public class OcrFieldHighlighter {
     // as a single passage.
     boolean limitReached = false;
     int numTotal = 0;
-    do {
-      limitReached = limitReached || numTotal >= snippetLimit;
-      int start = off.startOffset();
-      if (start == -1) {
-        throw new IllegalArgumentException(
-            "field '" + field + "' was indexed without offsets, cannot highlight");
-      }
-      if (pageId != null) {
-        String passagePageId = formatter.determineStartPage(start, breakLocator.getText()).id;
-        if (!passagePageId.equals(pageId)) {
-          continue;
+
+    // Matches are read ahead in windows, so the reads needed for building the passages of a window
+    // can be planned and coalesced by the source reader before we start working on the window.
+    final SourceReader text = breakLocator.getText();
+    final int[] starts = new int[MATCH_WINDOW_SIZE];
+    final int[] ends = new int[MATCH_WINDOW_SIZE];
+    final BytesRef[] terms = new BytesRef[MATCH_WINDOW_SIZE];
+    final int[] freqs = new int[MATCH_WINDOW_SIZE];
+    final long[] prefetchStarts = new long[MATCH_WINDOW_SIZE];
+    final long[] prefetchEnds = new long[MATCH_WINDOW_SIZE];
+    boolean exhausted = false;
+    boolean done = false;
+    while (!exhausted && !done) {
+      int numBuffered = 0;
+      do {
+        int start = off.startOffset();
+        if (start == -1) {
+          throw new IllegalArgumentException(
+              "field '" + field + "' was indexed without offsets, cannot highlight");
         }
-      }
-      int end = off.endOffset();
-      if (start < contentLength && end > contentLength) {
-        continue;
-      }
-      if (limitReached) {
-        // Only count the match, but don't build a passage
-        numTotal++;
-        continue;
-      }
-      // advance breakIterator
-      int passageStart = Math.max(breakLocator.preceding(start + 1), 0);
-      int passageEnd = Math.min(breakLocator.following(end), contentLength);
+        starts[numBuffered] = start;
+        ends[numBuffered] = off.endOffset();
+        terms[numBuffered] = off.getTerm(); // a reference; safe to refer to
+        freqs[numBuffered] = off.freq();
+        prefetchStarts[numBuffered] = start - PREFETCH_CONTEXT_BYTES;
+        prefetchEnds[numBuffered] =
+            Math.min((long) ends[numBuffered] + PREFETCH_CONTEXT_BYTES, contentLength);
+        numBuffered++;
+        exhausted = !off.nextPosition();
+      } while (!exhausted && numBuffered < MATCH_WINDOW_SIZE);
 
-      // See if this term should be part of a new passage.
-      if (passageStart >= passage.getEndOffset()) {
-        if (passage.getStartOffset() >= 0) {
+      int prefetchedUpTo = 0;
+      for (int i = 0; i < numBuffered; i++) {
+        limitReached = limitReached || numTotal >= snippetLimit;
+        if (!limitReached && i >= prefetchedUpTo) {
+          prefetchedUpTo =
+              text.prefetch(prefetchStarts, prefetchEnds, i, numBuffered, maxPrefetchSize);
+          if (prefetchedUpTo <= i) {
+            // Reader can't plan any further, fall back to reading on demand
+            prefetchedUpTo = numBuffered;
+          }
+        }
+        int start = starts[i];
+        if (pageId != null) {
+          String passagePageId = formatter.determineStartPage(start, text).id;
+          if (!passagePageId.equals(pageId)) {
+            continue;
+          }
+        }
+        int end = ends[i];
+        if (start < contentLength && end > contentLength) {
+          continue;
+        }
+        if (limitReached) {
+          // Only count the match, but don't build a passage
           numTotal++;
+          continue;
         }
-        passage =
-            maybeAddPassage(passageQueue, passageScorer, passage, contentLength, scorePassages);
-        // if we exceed the content size, we are done
-        if (start >= contentLength) {
-          break;
+        // advance breakIterator
+        // Breaks before a match always fit into a Lucene offset, breaks after it might not
+        int passageStart = (int) Math.max(breakLocator.preceding(start + 1L), 0);
+        int passageEnd =
+            OffsetUtils.toLuceneOffset(
+                Math.min(breakLocator.following(end), contentLength), text.getPointer());
+
+        // See if this term should be part of a new passage.
+        if (passageStart >= passage.getEndOffset()) {
+          if (passage.getStartOffset() >= 0) {
+            numTotal++;
+          }
+          passage =
+              maybeAddPassage(passageQueue, passageScorer, passage, scoringLength, scorePassages);
+          // if we exceed the content size, we are done
+          if (start >= contentLength) {
+            done = true;
+            break;
+          }
+          passage.setStartOffset(passageStart);
         }
-        passage.setStartOffset(passageStart);
+        passage.setEndOffset(passageEnd);
+        // Add this term to the passage.
+        BytesRef term = terms[i];
+        assert term != null;
+        passage.addMatch(start, end, term, freqs[i]);
       }
-      passage.setEndOffset(passageEnd);
-      // Add this term to the passage.
-      BytesRef term = off.getTerm(); // a reference; safe to refer to
-      assert term != null;
-      passage.addMatch(start, end, term, off.freq());
-    } while (off.nextPosition());
+    }
     if (passage.getStartOffset() >= 0) {
       numTotal++;
     }
-    maybeAddPassage(passageQueue, passageScorer, passage, contentLength, scorePassages);
+    maybeAddPassage(passageQueue, passageScorer, passage, scoringLength, scorePassages);
 
     this.numMatches.put(indexDocId, numTotal);
     Passage[] passages = passageQueue.toArray(new Passage[passageQueue.size()]);
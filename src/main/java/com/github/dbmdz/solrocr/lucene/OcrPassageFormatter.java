@@ -4,6 +4,7 @@ import static com.github.dbmdz.solrocr.formats.OcrParser.END_HL;
 import static com.github.dbmdz.solrocr.formats.OcrParser.START_HL;
 
 import com.github.dbmdz.solrocr.breaklocator.BreakLocator;
+import com.github.dbmdz.solrocr.breaklocator.HierarchicalBreakLocator;
 import com.github.dbmdz.solrocr.formats.OcrParser;
 import com.github.dbmdz.solrocr.lucene.filters.SanitizingXmlFilter;
 import com.github.dbmdz.solrocr.model.OcrBlock;
@@ -13,6 +14,7 @@ import com.github.dbmdz.solrocr.model.OcrPage;
 import com.github.dbmdz.solrocr.model.OcrSnippet;
 import com.github.dbmdz.solrocr.reader.SourceReader;
 import com.github.dbmdz.solrocr.reader.StringSourceReader;
+import com.github.dbmdz.solrocr.util.OffsetUtils;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Range;
 import java.io.IOException;
@@ -51,6 +53,9 @@ public class OcrPassageFormatter extends PassageFormatter {
   protected final boolean alignSpans;
   protected final boolean trackPages;
 
+  /** Boundaries of all block types in the document being formatted, shared with passage building */
+  private HierarchicalBreakLocator blockBreaks;
+
   public OcrPassageFormatter(
       String startHlTag,
       String endHlTag,
@@ -66,6 +71,21 @@ public class OcrPassageFormatter extends PassageFormatter {
     this.format = format;
   }
 
+  /**
+   * Locate page and line boundaries with the given locator, instead of scanning the document again
+   * with dedicated locators.
+   */
+  public void setBlockBreaks(HierarchicalBreakLocator blockBreaks) {
+    this.blockBreaks = blockBreaks;
+  }
+
+  private BreakLocator getBreakLocator(SourceReader reader, OcrBlock blockType) {
+    if (blockBreaks != null && blockBreaks.getText() == reader) {
+      return blockBreaks.forBlocks(blockType);
+    }
+    return this.format.getBreakLocator(reader, blockType);
+  }
+
   /** Merge overlapping matches. * */
   protected List<PassageMatch> mergeMatches(int numMatches, int[] matchStarts, int[] matchEnds) {
     Deque<PassageMatch> sortedMatches =
@@ -246,15 +266,15 @@ public class OcrPassageFormatter extends PassageFormatter {
       Passage passage, SourceReader reader, OcrPage initialPage, OcrBox finalBox)
       throws IOException {
     int passageEnd = passage.getStartOffset() + passage.getLength();
-    BreakLocator lineBreakLocator = this.format.getBreakLocator(reader, OcrBlock.LINE);
-    int lineEndOffset = lineBreakLocator.following(passageEnd);
+    BreakLocator lineBreakLocator = getBreakLocator(reader, OcrBlock.LINE);
+    long lineEndOffset = lineBreakLocator.following(passageEnd);
     if (lineEndOffset == BreakLocator.DONE) {
       // This means that the last part of the hyphenation does not exist in the
       // input, which is weird (and likely due to an error during indexing), but we can't do
       // anything about it, so we just return the original passage
       lineEndOffset = passageEnd;
     }
-    passage.setEndOffset(lineEndOffset);
+    passage.setEndOffset(OffsetUtils.toLuceneOffset(lineEndOffset, reader.getPointer()));
     String expandedFragment = getHighlightedFragment(passage, reader);
     List<OcrBox> parsed = this.parseWords(expandedFragment, initialPage);
     OcrBox hyphenStart =
@@ -283,15 +303,15 @@ public class OcrPassageFormatter extends PassageFormatter {
 
   /** Determine the page an OCR fragment resides on. */
   OcrPage determineStartPage(int startOffset, SourceReader reader) throws IOException {
-    BreakLocator pageBreakLocator = this.format.getBreakLocator(reader, OcrBlock.PAGE);
-    int pageOffset = pageBreakLocator.preceding(startOffset);
+    BreakLocator pageBreakLocator = getBreakLocator(reader, OcrBlock.PAGE);
+    long pageOffset = pageBreakLocator.preceding(startOffset);
     if (pageOffset == BreakLocator.DONE) {
       // This means the page is, if present, part of the passage, and will be determined during
       // parsing anyway
       return null;
     }
     String pageFragment =
-        reader.readUtf8String(pageOffset, Math.min(512, reader.length() - pageOffset));
+        reader.readUtf8String(pageOffset, (int) Math.min(512, reader.length() - pageOffset));
     return this.format.parsePageFragment(pageFragment);
   }
 
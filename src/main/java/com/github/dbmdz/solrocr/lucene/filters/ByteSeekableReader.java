@@ -25,8 +25,8 @@ public class ByteSeekableReader extends Reader {
   }
 
   /** Return the current byte position in the underlying channel. */
-  public int position() throws IOException {
-    return (int) this.channel.position();
+  public long position() throws IOException {
+    return this.channel.position();
   }
 
   /**
@@ -34,7 +34,7 @@ public class ByteSeekableReader extends Reader {
    *
    * <p>This will also reset the decoder.
    */
-  public void position(int newPosition) throws IOException {
+  public void position(long newPosition) throws IOException {
     this.channel.position(newPosition);
     this.decoder = StreamDecoder.forDecoder(channel, StandardCharsets.UTF_8.newDecoder(), -1);
   }
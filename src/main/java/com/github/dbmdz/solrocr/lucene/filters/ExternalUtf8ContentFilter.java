@@ -2,6 +2,7 @@ package com.github.dbmdz.solrocr.lucene.filters;
 
 import com.github.dbmdz.solrocr.model.SourcePointer;
 import com.github.dbmdz.solrocr.model.SourcePointer.Region;
+import com.github.dbmdz.solrocr.util.OffsetUtils;
 import com.github.dbmdz.solrocr.util.SourceAwareReader;
 import com.github.dbmdz.solrocr.util.Utf8;
 import com.google.common.collect.ImmutableList;
@@ -27,13 +28,16 @@ public class ExternalUtf8ContentFilter extends BaseCharFilter implements SourceA
    * currentInputByteOffset = currentOutCharOffset + cumulativeOffsetDifference
    * </pre>
    */
-  private int cumulativeOffsetDifference;
+  private long cumulativeOffsetDifference;
 
   /**
    * The current <strong>byte</strong> offset in the <strong>full</strong> input, i.e. the
    * concatenated content of all files in the source pointer.
+   *
+   * <p>Sources can be larger than 2GiB, but the corrected offsets are stored in the index and thus
+   * must not exceed {@link Integer#MAX_VALUE}, which is checked whenever the offset advances.
    */
-  private int currentInByteOffset;
+  private long currentInByteOffset;
 
   /**
    * The current <strong>char</strong> offset in the output, i.e. the concatenated and decoded
@@ -57,7 +61,7 @@ public class ExternalUtf8ContentFilter extends BaseCharFilter implements SourceA
     // based on a SeekableByteChannel.
     super(new ByteSeekableReader(channel));
     if (regions == null || regions.isEmpty()) {
-      regions = ImmutableList.of(new Region(0, (int) channel.size()));
+      regions = ImmutableList.of(new Region(0, channel.size()));
     }
     this.pointer = pointer;
     this.currentOutCharOffset = 0;
@@ -66,8 +70,8 @@ public class ExternalUtf8ContentFilter extends BaseCharFilter implements SourceA
     this.remainingRegions = new LinkedList<>(regions);
     currentRegion = remainingRegions.remove();
     if (currentRegion.start > 0) {
-      this.addOffCorrectMap(currentOutCharOffset, currentRegion.start);
       this.cumulativeOffsetDifference += currentRegion.start;
+      this.addOffCorrectMap(currentOutCharOffset, correctedDifference());
       this.currentInByteOffset = currentRegion.start;
       ((ByteSeekableReader) this.input).position(currentInByteOffset);
     }
@@ -90,7 +94,8 @@ public class ExternalUtf8ContentFilter extends BaseCharFilter implements SourceA
 
     int numCharsRead = 0;
     while (requestedCharLen - numCharsRead > 0) {
-      int bytesRemainingInRegion = currentRegion.end - currentInByteOffset;
+      int bytesRemainingInRegion =
+          (int) Math.min(currentRegion.end - currentInByteOffset, Integer.MAX_VALUE);
       int charsToRead = requestedCharLen - numCharsRead;
       if (charsToRead > bytesRemainingInRegion) {
         charsToRead = bytesRemainingInRegion;
@@ -115,7 +120,7 @@ public class ExternalUtf8ContentFilter extends BaseCharFilter implements SourceA
         currentRegion = remainingRegions.remove();
 
         cumulativeOffsetDifference = currentRegion.start - currentOutCharOffset;
-        this.addOffCorrectMap(currentOutCharOffset, cumulativeOffsetDifference);
+        this.addOffCorrectMap(currentOutCharOffset, correctedDifference());
         if (this.currentRegion.start > this.currentInByteOffset) {
           this.currentInByteOffset = currentRegion.start;
         }
@@ -135,7 +140,7 @@ public class ExternalUtf8ContentFilter extends BaseCharFilter implements SourceA
   private void correctOffsets(char[] decodedChars, int bufOffset, int numChars) {
     for (int i = bufOffset; i < bufOffset + numChars; ) {
       if (lastCharHadMultipleBytes) {
-        this.addOffCorrectMap(currentOutCharOffset, cumulativeOffsetDifference);
+        this.addOffCorrectMap(currentOutCharOffset, correctedDifference());
         lastCharHadMultipleBytes = false;
       }
       int cp = Character.codePointAt(decodedChars, i);
@@ -149,6 +154,16 @@ public class ExternalUtf8ContentFilter extends BaseCharFilter implements SourceA
         lastCharHadMultipleBytes = true;
       }
     }
+    OffsetUtils.toLuceneOffset(currentInByteOffset, pointer);
+  }
+
+  /**
+   * Get the offset difference for the offset correction map, failing if the corrected offset at the
+   * current position can't be stored in the index.
+   */
+  private int correctedDifference() {
+    OffsetUtils.toLuceneOffset(currentOutCharOffset + cumulativeOffsetDifference, pointer);
+    return (int) cumulativeOffsetDifference;
   }
 
   @Override
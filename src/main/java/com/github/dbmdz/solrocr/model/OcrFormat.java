@@ -1,6 +1,7 @@
 package com.github.dbmdz.solrocr.model;
 
 import com.github.dbmdz.solrocr.breaklocator.BreakLocator;
+import com.github.dbmdz.solrocr.breaklocator.HierarchicalBreakLocator;
 import com.github.dbmdz.solrocr.formats.OcrParser;
 import com.github.dbmdz.solrocr.lucene.OcrPassageFormatter;
 import com.github.dbmdz.solrocr.lucene.filters.OcrCharFilter;
@@ -27,6 +28,17 @@ public interface OcrFormat {
    */
   BreakLocator getBreakLocator(SourceReader reader, OcrBlock... blockTypes);
 
+  /**
+   * Get a {@link HierarchicalBreakLocator} that locates the boundaries of all block types in a
+   * single scan over the input.
+   *
+   * <p>The locators it returns for different block types split the input like the ones from {@link
+   * #getBreakLocator(SourceReader, OcrBlock...)}, but share the scan of the input and its results.
+   *
+   * @return the {@link HierarchicalBreakLocator} instance
+   */
+  HierarchicalBreakLocator getHierarchicalBreakLocator(SourceReader reader);
+
   /**
    * Get the parser for the format.
    *
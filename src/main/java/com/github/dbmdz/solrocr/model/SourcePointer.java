@@ -1,12 +1,24 @@
 package com.github.dbmdz.solrocr.model;
 
+import com.github.dbmdz.solrocr.reader.BgzfIndex;
+import com.github.dbmdz.solrocr.reader.BgzfSourceReader;
+import com.github.dbmdz.solrocr.reader.ConcatenatedSourceReader;
+import com.github.dbmdz.solrocr.reader.FileMetadataCache;
+import com.github.dbmdz.solrocr.reader.FileReadMode;
 import com.github.dbmdz.solrocr.reader.FileSourceReader;
+import com.github.dbmdz.solrocr.reader.HttpSourceReader;
+import com.github.dbmdz.solrocr.reader.MappedFileSourceReader;
 import com.github.dbmdz.solrocr.reader.MultiFileSourceReader;
+import com.github.dbmdz.solrocr.reader.OffsetSourceReader;
 import com.github.dbmdz.solrocr.reader.SourceReader;
+import com.github.dbmdz.solrocr.reader.SourceReaderProvider;
+import com.github.dbmdz.solrocr.reader.SourceReaderProviders;
+import com.github.dbmdz.solrocr.reader.ZipArchiveIndex;
+import com.github.dbmdz.solrocr.reader.ZipMemberSourceReader;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.lang.invoke.MethodHandles;
-import java.nio.file.Files;
+import java.net.URL;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.ArrayList;
@@ -25,8 +37,25 @@ public class SourcePointer {
 
   public enum SourceType {
     FILESYSTEM,
+    /** BGZF-compressed file on the filesystem, offsets refer to the uncompressed data */
+    BGZF,
+    /** Member of a ZIP archive on the filesystem, offsets refer to the uncompressed data */
+    ZIP,
+    /** Resource on a HTTP(S) server that supports range requests */
+    HTTP,
+    /** Target that is claimed by an enabled {@link SourceReaderProvider} */
+    CUSTOM,
   };
 
+  /** Separates the path of a ZIP archive from the name of the member in a source target */
+  public static final String ZIP_MEMBER_SEPARATOR = "!/";
+
+  /**
+   * Size of the sections of the readers for the individual sources of a pointer to multiple
+   * sources, only their raw reads are used, so the size does not matter.
+   */
+  private static final int NESTED_SECTION_SIZE = 512;
+
   public static class Source {
 
     public final SourceType type;
@@ -34,18 +63,44 @@ public class SourcePointer {
     public List<Region> regions;
     public boolean isAscii;
 
+    /** Provider for the reader of {@link SourceType#CUSTOM} targets, else {@code null} */
+    public final SourceReaderProvider provider;
+
     public Source(String target, List<Region> regions, boolean isAscii) throws IOException {
-      this.type = determineType(target);
-      Source.validateTarget(target, this.type);
+      this.provider = SourceReaderProviders.forTarget(target);
+      if (this.provider != null) {
+        this.type = SourceType.CUSTOM;
+        this.provider.validate(target);
+      } else {
+        this.type = determineType(target);
+        Source.validateTarget(target, this.type);
+      }
       this.target = target;
       this.regions = regions;
       this.isAscii = isAscii;
     }
 
+    /** Copy the source without validating its target again. */
+    private Source(Source other) {
+      this.provider = other.provider;
+      this.type = other.type;
+      this.target = other.target;
+      this.regions =
+          other.regions.stream().map(r -> new Region(r.start, r.end)).collect(Collectors.toList());
+      this.isAscii = other.isAscii;
+    }
+
     static SourceType determineType(String target) throws IOException {
-      if (target.startsWith("/")) {
+      String lowerTarget = target.toLowerCase(Locale.US);
+      if (lowerTarget.startsWith("http://") || lowerTarget.startsWith("https://")) {
+        return SourceType.HTTP;
+      } else if (zipSeparatorIdx(target) > 0) {
+        return SourceType.ZIP;
+      } else if (lowerTarget.endsWith(".bgz") || lowerTarget.endsWith(".gz")) {
+        return SourceType.BGZF;
+      } else if (target.startsWith("/")) {
         return SourceType.FILESYSTEM;
-      } else if (Files.exists(Paths.get(target))) {
+      } else if (FileMetadataCache.get(Paths.get(target)).exists) {
         return SourceType.FILESYSTEM;
       } else {
         throw new IOException(
@@ -55,20 +110,95 @@ public class SourcePointer {
 
     static void validateTarget(String target, SourceType type) throws IOException {
       if (type == SourceType.FILESYSTEM) {
-        Path path = Paths.get(target);
-        if (!Files.exists(path)) {
+        FileMetadataCache.Metadata metadata = FileMetadataCache.get(Paths.get(target));
+        if (!metadata.exists) {
           throw new FileNotFoundException(
               String.format(Locale.US, "File at %s does not exist.", target));
         }
-        if (Files.size(path) == 0) {
+        if (metadata.size == 0) {
           throw new IOException(String.format(Locale.US, "File at %s is empty.", target));
         }
+      } else if (type == SourceType.BGZF) {
+        Path path = Paths.get(target);
+        if (!FileMetadataCache.get(path).exists) {
+          throw new FileNotFoundException(
+              String.format(Locale.US, "File at %s does not exist.", target));
+        }
+        if (!BgzfIndex.isBgzfFile(path)) {
+          throw new IOException(
+              String.format(
+                  Locale.US,
+                  "File at %s is not BGZF-compressed, only gzip files created with bgzip are"
+                      + " supported.",
+                  target));
+        }
+      } else if (type == SourceType.ZIP) {
+        Path path = Paths.get(target.substring(0, zipSeparatorIdx(target)));
+        if (!FileMetadataCache.get(path).exists) {
+          throw new FileNotFoundException(
+              String.format(Locale.US, "ZIP archive at %s does not exist.", path));
+        }
+        String memberName =
+            target.substring(zipSeparatorIdx(target) + ZIP_MEMBER_SEPARATOR.length());
+        ZipArchiveIndex.Member member = ZipArchiveIndex.forFile(path).getMember(memberName);
+        if (member == null) {
+          throw new FileNotFoundException(
+              String.format(Locale.US, "ZIP archive at %s has no member %s.", path, memberName));
+        }
+        if (member.isEncrypted
+            || (member.method != ZipArchiveIndex.METHOD_STORED
+                && member.method != ZipArchiveIndex.METHOD_DEFLATED)) {
+          throw new IOException(
+              String.format(
+                  Locale.US,
+                  "ZIP member %s is encrypted or uses an unsupported compression method, only"
+                      + " stored and deflated members are supported.",
+                  target));
+        }
+      } else if (type == SourceType.HTTP) {
+        // Only the syntax and the allowed prefixes are checked, since sources are parsed for every
+        // highlighted document and the resource is only requested once it is actually read from
+        if (!HttpSourceReader.isAllowed(new URL(target))) {
+          throw new IOException(
+              String.format(
+                  Locale.US,
+                  "URL %s does not match any of the allowed HTTP prefixes, see the"
+                      + " 'allowedHttpPrefixes' option.",
+                  target));
+        }
       } else {
         throw new IOException(
             String.format(Locale.US, "Target %s is currently not supported.", target));
       }
     }
 
+    /** Get the index of the separator between archive path and member name, or -1 if none. */
+    private static int zipSeparatorIdx(String target) {
+      int idx = target.toLowerCase(Locale.US).indexOf(".zip" + ZIP_MEMBER_SEPARATOR);
+      return idx < 0 ? -1 : idx + ".zip".length();
+    }
+
+    /**
+     * Get the path of the file on the filesystem, i.e. the archive for ZIP members, or {@code null}
+     * for remote and custom sources.
+     */
+    public Path getPath() {
+      if (this.type == SourceType.HTTP || this.type == SourceType.CUSTOM) {
+        return null;
+      } else if (this.type == SourceType.ZIP) {
+        return Paths.get(target.substring(0, zipSeparatorIdx(target)));
+      }
+      return Paths.get(target);
+    }
+
+    /** Get the name of the member inside of the archive for ZIP members, else {@code null}. */
+    public String getMemberName() {
+      if (this.type != SourceType.ZIP) {
+        return null;
+      }
+      return target.substring(zipSeparatorIdx(target) + ZIP_MEMBER_SEPARATOR.length());
+    }
+
     static Source parse(String pointer) {
       Matcher m = POINTER_PAT.matcher(pointer);
       if (!m.find()) {
@@ -80,7 +210,7 @@ public class SourcePointer {
         regions =
             Arrays.stream(m.group("regions").split(","))
                 .map(Region::parse)
-                .sorted(Comparator.comparingInt(r -> r.start))
+                .sorted(Comparator.comparingLong(r -> r.start))
                 .collect(Collectors.toList());
       }
       try {
@@ -88,14 +218,29 @@ public class SourcePointer {
       } catch (FileNotFoundException e) {
         throw new RuntimeException("Could not locate file at '" + target + ".");
       } catch (IOException e) {
-        throw new RuntimeException("Could not read target at '" + target + ".");
+        throw new RuntimeException(
+            "Could not read target at '" + target + "': " + e.getMessage(), e);
       }
     }
 
     public SourceReader getReader(int sectionSize, int maxCacheEntries) throws IOException {
+      return getReader(SourcePointer.parse(this.target), sectionSize, maxCacheEntries);
+    }
+
+    /** Create a reader for this source that reports the given pointer as its pointer. */
+    SourceReader getReader(SourcePointer ptr, int sectionSize, int maxCacheEntries)
+        throws IOException {
       if (this.type == SourceType.FILESYSTEM) {
-        return new FileSourceReader(
-            Paths.get(this.target), SourcePointer.parse(this.target), sectionSize, maxCacheEntries);
+        return new FileSourceReader(getPath(), ptr, sectionSize, maxCacheEntries);
+      } else if (this.type == SourceType.BGZF) {
+        return new BgzfSourceReader(getPath(), ptr, sectionSize, maxCacheEntries);
+      } else if (this.type == SourceType.ZIP) {
+        return new ZipMemberSourceReader(
+            getPath(), getMemberName(), ptr, sectionSize, maxCacheEntries);
+      } else if (this.type == SourceType.HTTP) {
+        return new HttpSourceReader(new URL(this.target), ptr, sectionSize, maxCacheEntries);
+      } else if (this.type == SourceType.CUSTOM) {
+        return provider.getReader(this.target, ptr, sectionSize, maxCacheEntries);
       } else {
         throw new UnsupportedOperationException("Unsupported source type '" + this.type + "'.");
       }
@@ -122,21 +267,21 @@ public class SourcePointer {
 
   public static class Region {
 
-    public int start;
-    public int end;
+    public long start;
+    public long end;
 
     public static Region parse(String r) {
       if (r.startsWith(":")) {
-        return new SourcePointer.Region(0, Integer.parseInt(r.substring(1)));
+        return new SourcePointer.Region(0, Long.parseLong(r.substring(1)));
       } else if (r.endsWith(":")) {
-        return new SourcePointer.Region(Integer.parseInt(r.substring(0, r.length() - 1)), -1);
+        return new SourcePointer.Region(Long.parseLong(r.substring(0, r.length() - 1)), -1);
       } else {
         String[] offsets = r.split(":");
-        return new SourcePointer.Region(Integer.parseInt(offsets[0]), Integer.parseInt(offsets[1]));
+        return new SourcePointer.Region(Long.parseLong(offsets[0]), Long.parseLong(offsets[1]));
       }
     }
 
-    public Region(int start, int end) {
+    public Region(long start, long end) {
       this.start = start;
       this.end = end;
     }
@@ -161,7 +306,9 @@ public class SourcePointer {
   }
 
   public static SourcePointer parse(String pointer) {
-    if (!isPointer(pointer)) {
+    // The syntax of the individual sources is checked when parsing them, no need to match them
+    // twice by calling isPointer
+    if (pointer.startsWith("<")) {
       throw new RuntimeException("Could not parse pointer: " + pointer);
     }
     String[] sourceTokens = pointer.split("\\+");
@@ -178,6 +325,11 @@ public class SourcePointer {
     this.sources = sources;
   }
 
+  /** Create a copy of the pointer whose sources and regions can be modified independently. */
+  public SourcePointer copy() {
+    return new SourcePointer(sources.stream().map(Source::new).collect(Collectors.toList()));
+  }
+
   @Override
   public String toString() {
     return sources.stream().map(Source::toString).collect(Collectors.joining("+"));
@@ -185,23 +337,79 @@ public class SourcePointer {
 
   /** Create a reader for the data pointed at by this source pointer. */
   public SourceReader getReader(int sectionSize, int maxCacheEntries) throws IOException {
+    return getReader(sectionSize, maxCacheEntries, FileReadMode.CHANNEL);
+  }
+
+  /**
+   * Create a reader for the data pointed at by this source pointer, reading local files with the
+   * given {@link FileReadMode}.
+   *
+   * <p>Memory-mapping is only used for pointers to a single file, pointers to multiple files are
+   * read via {@link java.nio.channels.FileChannel}s, with direct I/O if requested. Pointers to
+   * multiple sources that are not all plain files, e.g. members of a ZIP archive, are read by
+   * concatenating the readers for the individual sources.
+   *
+   * <p>Offsets of the reader are the offsets in the index, i.e. for pointers that are indexed
+   * relative to the start of their regions (see {@link #getIndexBase(long)}), the reader is a view
+   * that starts at the first region.
+   */
+  public SourceReader getReader(int sectionSize, int maxCacheEntries, FileReadMode readMode)
+      throws IOException {
+    SourceReader reader = openReader(sectionSize, maxCacheEntries, readMode);
+    boolean hasOpenRegion =
+        sources.size() == 1 && sources.get(0).regions.stream().anyMatch(r -> r.end < 0);
+    long base = getIndexBase(hasOpenRegion ? reader.length() : -1);
+    return base > 0 ? new OffsetSourceReader(reader, base) : reader;
+  }
+
+  /**
+   * Get the offset in the source that the offsets of this pointer in the index are relative to.
+   *
+   * <p>Lucene can only store offsets below 2GiB, so pointers to a single source with regions that
+   * end beyond that are indexed relative to the start of their first region. All other pointers
+   * are indexed with the offsets in their (concatenated) sources, i.e. relative to 0, and are
+   * rejected during indexing if their content extends beyond 2GiB.
+   *
+   * @param sourceLength length of the source, needed for regions that extend to the end of it
+   */
+  public long getIndexBase(long sourceLength) {
+    if (sources.size() != 1 || sources.get(0).regions.isEmpty()) {
+      return 0;
+    }
+    List<Region> regions = sources.get(0).regions;
+    long end = 0;
+    for (Region region : regions) {
+      end = Math.max(end, region.end < 0 ? sourceLength : region.end);
+    }
+    return end > Integer.MAX_VALUE ? regions.get(0).start : 0;
+  }
+
+  private SourceReader openReader(int sectionSize, int maxCacheEntries, FileReadMode readMode)
+      throws IOException {
     if (this.sources.stream().allMatch(s -> s.type == SourceType.FILESYSTEM)) {
       if (this.sources.size() == 1) {
+        Path path = Paths.get(this.sources.get(0).target);
+        if (readMode == FileReadMode.MMAP) {
+          return new MappedFileSourceReader(path, this, sectionSize, maxCacheEntries);
+        }
         return new FileSourceReader(
-            Paths.get(this.sources.get(0).target), this, sectionSize, maxCacheEntries);
+            path, this, sectionSize, maxCacheEntries, readMode == FileReadMode.DIRECT);
       } else {
         return new MultiFileSourceReader(
             this.sources.stream().map(s -> Paths.get(s.target)).collect(Collectors.toList()),
             this,
             sectionSize,
-            maxCacheEntries);
+            maxCacheEntries,
+            readMode == FileReadMode.DIRECT);
       }
+    } else if (this.sources.size() == 1) {
+      return this.sources.get(0).getReader(this, sectionSize, maxCacheEntries);
     } else {
-      throw new IOException(
-          String.format(
-              Locale.US,
-              "Pointer %s contains unsupported target types or a mix of target types.",
-              this));
+      List<SourceReader> readers = new ArrayList<>(this.sources.size());
+      for (Source source : this.sources) {
+        readers.add(source.getReader(this, NESTED_SECTION_SIZE, 0));
+      }
+      return new ConcatenatedSourceReader(readers, this, sectionSize, maxCacheEntries);
     }
   }
 }
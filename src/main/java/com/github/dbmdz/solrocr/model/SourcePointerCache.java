@@ -0,0 +1,143 @@
+package com.github.dbmdz.solrocr.model;
+
+import com.github.dbmdz.solrocr.reader.FileMetadataCache;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Node-wide cache for parsed source pointers, used during highlighting.
+ *
+ * <p>Parsing a pointer involves matching it against a regular expression and validating all of its
+ * sources, i.e. checking that the files exist and are not empty. Cached pointers are re-used as
+ * long as they are younger than the time-to-live and the modification times of their files are
+ * unchanged. The modification times are taken from the {@link FileMetadataCache}, so with both
+ * caches enabled, a repeated pointer needs no filesystem access.
+ *
+ * <p>Only pass values that are pointers (see {@link SourcePointer#isPointer(String)}), since the
+ * values are hashed for the lookup. Every caller gets its own copy of a cached pointer, so their
+ * regions can be modified without affecting other users.
+ */
+public class SourcePointerCache {
+  private static final Logger log = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+
+  private static volatile SourcePointerCache shared;
+
+  private static final class Entry {
+    final SourcePointer pointer;
+    final Path[] paths;
+    final long[] lastModified;
+
+    Entry(SourcePointer pointer, Path[] paths, long[] lastModified) {
+      this.pointer = pointer;
+      this.paths = paths;
+      this.lastModified = lastModified;
+    }
+  }
+
+  private final Cache<String, Entry> cache;
+  private final long ttlMs;
+  private final long maxEntries;
+
+  public SourcePointerCache(long ttlMs, long maxEntries) {
+    this.ttlMs = ttlMs;
+    this.maxEntries = maxEntries;
+    this.cache =
+        CacheBuilder.newBuilder()
+            .expireAfterWrite(ttlMs, TimeUnit.MILLISECONDS)
+            .maximumSize(maxEntries)
+            .recordStats()
+            .build();
+  }
+
+  /** Get the node-wide cache instance, or {@code null} if none was configured. */
+  public static SourcePointerCache getShared() {
+    return shared;
+  }
+
+  /**
+   * Configure the node-wide cache instance, a TTL {@code <= 0} disables the cache.
+   *
+   * <p>If a cache with the same settings already exists, it is kept.
+   */
+  public static synchronized void configureShared(long ttlMs, long maxEntries) {
+    SourcePointerCache previous = shared;
+    if (previous != null && previous.ttlMs == ttlMs && previous.maxEntries == maxEntries) {
+      return;
+    }
+    if (ttlMs <= 0 || maxEntries <= 0) {
+      if (previous != null) {
+        log.info("Disabling source pointer cache.");
+      }
+      shared = null;
+    } else {
+      log.info(
+          "Configuring source pointer cache for up to {} pointers with a TTL of {}ms.",
+          maxEntries,
+          ttlMs);
+      shared = new SourcePointerCache(ttlMs, maxEntries);
+    }
+  }
+
+  /**
+   * Get the cached pointer for the value, if a cache is configured and the pointer is cached and
+   * still up to date, else {@code null}.
+   */
+  public static SourcePointer getIfValid(String pointer) throws IOException {
+    SourcePointerCache cache = shared;
+    if (cache == null) {
+      return null;
+    }
+    Entry entry = cache.cache.getIfPresent(pointer);
+    if (entry == null) {
+      return null;
+    }
+    for (int i = 0; i < entry.paths.length; i++) {
+      FileMetadataCache.Metadata metadata = FileMetadataCache.get(entry.paths[i]);
+      if (!metadata.exists || metadata.lastModified != entry.lastModified[i]) {
+        cache.cache.invalidate(pointer);
+        return null;
+      }
+    }
+    return entry.pointer.copy();
+  }
+
+  /** Parse the pointer and add it to the node-wide cache, if one is configured. */
+  public static SourcePointer parse(String pointer) throws IOException {
+    SourcePointer parsed = SourcePointer.parse(pointer);
+    SourcePointerCache cache = shared;
+    if (cache == null || parsed == null) {
+      return parsed;
+    }
+    List<Path> paths = new ArrayList<>(parsed.sources.size());
+    for (SourcePointer.Source source : parsed.sources) {
+      Path path = source.getPath();
+      if (path != null && !paths.contains(path)) {
+        paths.add(path);
+      }
+    }
+    long[] lastModified = new long[paths.size()];
+    for (int i = 0; i < lastModified.length; i++) {
+      lastModified[i] = FileMetadataCache.getLastModified(paths.get(i));
+    }
+    cache.cache.put(
+        pointer, new Entry(parsed.copy(), paths.toArray(new Path[0]), lastModified));
+    return parsed;
+  }
+
+  public CacheStats getStats() {
+    return cache.stats();
+  }
+
+  public long size() {
+    return cache.size();
+  }
+}
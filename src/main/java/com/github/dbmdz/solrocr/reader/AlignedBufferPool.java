@@ -0,0 +1,196 @@
+package com.github.dbmdz.solrocr.reader;
+
+import java.io.Closeable;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.nio.ByteBuffer;
+import java.util.Locale;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Bounded pool of block-aligned direct buffers, used for reading files with direct I/O (see {@link
+ * FileReadMode#DIRECT}).
+ *
+ * <p>Direct I/O requires the memory that is read into to be aligned to the block size of the
+ * filesystem, which is why these buffers can't simply be allocated per read. Buffers are allocated
+ * on demand and at most {@code maxPooledBuffers} of them are kept around once they are released, so
+ * the pool never blocks.
+ */
+public class AlignedBufferPool {
+  private static final Logger log = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+
+  /** Alignment of the buffers, large enough for the block sizes of all common filesystems. */
+  public static final int ALIGNMENT = 4096;
+
+  /** Buffer size that is used if no node-wide pool was configured */
+  static final int DEFAULT_BUFFER_SIZE = 64 * 1024;
+
+  /** {@code ByteBuffer#alignedSlice(int)}, only available from Java 9 on */
+  private static final MethodHandle ALIGNED_SLICE;
+
+  static {
+    MethodHandle alignedSlice;
+    try {
+      alignedSlice =
+          MethodHandles.publicLookup()
+              .findVirtual(
+                  ByteBuffer.class,
+                  "alignedSlice",
+                  MethodType.methodType(ByteBuffer.class, int.class));
+    } catch (NoSuchMethodException | IllegalAccessException e) {
+      alignedSlice = null;
+    }
+    ALIGNED_SLICE = alignedSlice;
+  }
+
+  private static volatile AlignedBufferPool shared;
+
+  private final int bufferSize;
+  private final int maxPooledBuffers;
+  private final BlockingQueue<ByteBuffer> idle;
+  private final AtomicLong numAllocated = new AtomicLong();
+
+  public AlignedBufferPool(int bufferSize, int maxPooledBuffers) {
+    if (bufferSize <= 0 || bufferSize % ALIGNMENT != 0) {
+      throw new IllegalArgumentException(
+          String.format(
+              Locale.US,
+              "Buffer size must be a positive multiple of %d: %d",
+              ALIGNMENT,
+              bufferSize));
+    }
+    this.bufferSize = bufferSize;
+    this.maxPooledBuffers = maxPooledBuffers;
+    this.idle = new ArrayBlockingQueue<>(Math.max(1, maxPooledBuffers));
+  }
+
+  /** Get the node-wide pool instance, or {@code null} if none was configured. */
+  public static AlignedBufferPool getShared() {
+    return shared;
+  }
+
+  /**
+   * Configure the node-wide pool instance.
+   *
+   * <p>If a pool with the same settings already exists, it is kept.
+   *
+   * @param bufferSize size of the buffers in bytes, will be rounded up to a multiple of {@link
+   *     #ALIGNMENT}
+   * @param maxPooledBuffers maximum number of idle buffers that are kept, a value {@code <= 0}
+   *     disables the pool
+   */
+  public static synchronized void configureShared(int bufferSize, int maxPooledBuffers) {
+    int alignedSize = ((Math.max(bufferSize, 1) + ALIGNMENT - 1) / ALIGNMENT) * ALIGNMENT;
+    AlignedBufferPool previous = shared;
+    if (previous != null
+        && previous.bufferSize == alignedSize
+        && previous.maxPooledBuffers == maxPooledBuffers) {
+      return;
+    }
+    if (maxPooledBuffers <= 0) {
+      if (previous != null) {
+        log.info("Disabling aligned buffer pool.");
+      }
+      shared = null;
+    } else {
+      log.info(
+          "Configuring aligned buffer pool for up to {} buffers of {} bytes.",
+          maxPooledBuffers,
+          alignedSize);
+      shared = new AlignedBufferPool(alignedSize, maxPooledBuffers);
+    }
+  }
+
+  /** Check if aligned buffers can be allocated on this JVM. */
+  public static boolean isSupported() {
+    return ALIGNED_SLICE != null;
+  }
+
+  /**
+   * Acquire a buffer from the node-wide pool if one is configured, otherwise a fresh one that is
+   * discarded after use.
+   */
+  public static Lease acquireShared() {
+    AlignedBufferPool pool = shared;
+    if (pool == null) {
+      return new Lease(allocate(DEFAULT_BUFFER_SIZE), null);
+    }
+    return pool.acquire();
+  }
+
+  /** Acquire an idle buffer, allocating a new one if there is none. */
+  public Lease acquire() {
+    ByteBuffer buf = idle.poll();
+    if (buf == null) {
+      buf = allocate(bufferSize);
+      numAllocated.incrementAndGet();
+    }
+    buf.clear();
+    return new Lease(buf, this);
+  }
+
+  private void release(ByteBuffer buf) {
+    if (!idle.offer(buf)) {
+      // Pool is full, leave the buffer to the GC
+      numAllocated.decrementAndGet();
+    }
+  }
+
+  private static ByteBuffer allocate(int size) {
+    if (ALIGNED_SLICE == null) {
+      throw new UnsupportedOperationException("Aligned buffers require Java 9 or newer.");
+    }
+    try {
+      return (ByteBuffer)
+          ALIGNED_SLICE.invoke(ByteBuffer.allocateDirect(size + ALIGNMENT), ALIGNMENT);
+    } catch (Throwable t) {
+      throw new IllegalStateException("Could not allocate aligned buffer", t);
+    }
+  }
+
+  public int getBufferSize() {
+    return bufferSize;
+  }
+
+  /** Get the number of buffers owned by the pool, both idle and in use. */
+  public long getNumAllocated() {
+    return numAllocated.get();
+  }
+
+  /** Get the number of idle buffers in the pool. */
+  public int size() {
+    return idle.size();
+  }
+
+  /** A buffer that is borrowed from the pool and has to be closed once it is no longer needed. */
+  public static final class Lease implements Closeable {
+    private final ByteBuffer buffer;
+    private final AlignedBufferPool pool;
+    private boolean closed = false;
+
+    private Lease(ByteBuffer buffer, AlignedBufferPool pool) {
+      this.buffer = buffer;
+      this.pool = pool;
+    }
+
+    public ByteBuffer buffer() {
+      return buffer;
+    }
+
+    @Override
+    public void close() {
+      if (closed) {
+        return;
+      }
+      closed = true;
+      if (pool != null) {
+        pool.release(buffer);
+      }
+    }
+  }
+}
@@ -9,30 +9,41 @@ import java.util.Arrays;
  * Base class that provides caching and section reading for source readers.
  *
  * <p>Implementers should inherit from this and simply implement the {@link
- * BaseSourceReader#readBytes(byte[], int, int, int)} method.
+ * SourceReader#readBytes(java.nio.ByteBuffer, long)} method.
+ *
+ * <p>Sections are cached per reader and, if the source is versioned (see {@link
+ * SourceReader#getVersion()}), in the node-wide {@link SectionCache}, if one is configured.
  */
 public abstract class BaseSourceReader implements SourceReader {
   private static final int UNUSED = -1;
 
   protected final SourcePointer pointer;
   protected final int sectionSize;
-  private final byte[] copyBuf;
   private final int maxCacheEntries;
 
   /**
    * Array with a slot for every possible section in the source, of which only {@link
-   * BaseSourceReader#maxCacheEntries} slots will ever be non-null
+   * BaseSourceReader#cacheCapacity} slots will ever be non-null
    */
   CachedSection[] cache;
 
   /**
-   * Array of length {@link BaseSourceReader#maxCacheEntries} with the indexes of the sections that
+   * Array of length {@link BaseSourceReader#cacheCapacity} with the indexes of the sections that
    * are currently cached
    */
   int[] cachedSectionIdxes;
 
+  /**
+   * Maximum number of cached sections, starts out as {@link BaseSourceReader#maxCacheEntries} and
+   * is grown to make room for prefetched sections
+   */
+  int cacheCapacity;
+
   int cacheSlotsUsed = 0;
 
+  /** Storage tier that reads and scans are reported to, if section sizes are adapted */
+  private SectionSizePolicy.Tier tier;
+
   private enum AdjustDirection {
     LEFT,
     RIGHT
@@ -51,12 +62,23 @@ public abstract class BaseSourceReader implements SourceReader {
   public BaseSourceReader(SourcePointer pointer, int sectionSize, int maxCacheEntries) {
     this.pointer = pointer;
     this.sectionSize = sectionSize;
-    this.copyBuf = new byte[sectionSize];
     this.maxCacheEntries = maxCacheEntries;
   }
 
+  /** Report reads and break locator scans to the tier, see {@link SectionSizePolicy}. */
+  void setTier(SectionSizePolicy.Tier tier) {
+    this.tier = tier;
+  }
+
   @Override
-  public abstract int length() throws IOException;
+  public void recordScan(int numBytes) {
+    if (tier != null) {
+      tier.recordScan(numBytes);
+    }
+  }
+
+  @Override
+  public abstract long length() throws IOException;
 
   @Override
   public abstract void close() throws IOException;
@@ -82,15 +104,27 @@ public abstract class BaseSourceReader implements SourceReader {
     // with `null` entries for unused slots plus a timestamp array to track LRU
     // The memory impact is not too bad, even for small section sizes like 1KiB, the
     // cache will only occupy around 40KiB for a 10MiB file
-    int numSections = (int) Math.ceil((double) this.length() / sectionSize);
+    int numSections = Math.toIntExact((this.length() + sectionSize - 1) / sectionSize);
     this.cache = new CachedSection[numSections];
+    this.cacheCapacity = maxCacheEntries;
     this.cachedSectionIdxes = new int[maxCacheEntries];
     Arrays.fill(cachedSectionIdxes, UNUSED);
   }
 
+  /** Grow the cache so it can hold at least the given number of sections. */
+  private void ensureCacheCapacity(int capacity) {
+    capacity = Math.min(capacity, cache.length);
+    if (capacity <= cacheCapacity) {
+      return;
+    }
+    cachedSectionIdxes = Arrays.copyOf(cachedSectionIdxes, capacity);
+    Arrays.fill(cachedSectionIdxes, cacheCapacity, capacity, UNUSED);
+    cacheCapacity = capacity;
+  }
+
   /** If the cache is full, remove the least recently used section */
   private void purgeLeastRecentlyUsed() {
-    if (this.cache.length == 0 || cacheSlotsUsed < maxCacheEntries) {
+    if (this.cache.length == 0 || cacheSlotsUsed < cacheCapacity) {
       return;
     }
 
@@ -114,33 +148,34 @@ public abstract class BaseSourceReader implements SourceReader {
   }
 
   @Override
-  public String readAsciiString(int start, int len) throws IOException {
+  public String readAsciiString(long start, int len) throws IOException {
     if (start < 0) {
       throw new IllegalArgumentException("start must be >= 0");
     }
     if (start + len > this.length()) {
-      len = this.length() - start;
+      len = (int) (this.length() - start);
     }
-    StringBuilder sb = new StringBuilder(len);
+    byte[] buf = new byte[len];
     int numRead = 0;
     while (numRead < len) {
       Section section = getAsciiSection(start + numRead);
-      int sectionStart = (start + numRead) - section.start;
-      int sectionEnd = Math.min(sectionStart + (len - numRead), section.end - section.start);
-      sb.append(section.text, sectionStart, sectionEnd);
+      int sectionStart = (int) ((start + numRead) - section.start);
+      int sectionEnd = Math.min(sectionStart + (len - numRead), section.length());
+      System.arraycopy(section.bytes, sectionStart, buf, numRead, sectionEnd - sectionStart);
       numRead += (sectionEnd - sectionStart);
     }
-    return sb.toString();
+    // See Section#getText for why we use the deprecated constructor
+    return new String(buf, 0, 0, len);
   }
 
   @Override
-  public String readUtf8String(int start, int byteLen) throws IOException {
+  public String readUtf8String(long start, int byteLen) throws IOException {
     // NOTE: This is currently not on any of the hot paths, so we don't bother with caching
     if (start < 0) {
       throw new IllegalArgumentException("start must be >= 0");
     }
     if (start + byteLen > this.length()) {
-      byteLen = this.length() - start;
+      byteLen = (int) (this.length() - start);
     }
     byte[] data = new byte[byteLen];
     int numRead = 0;
@@ -200,14 +235,14 @@ public abstract class BaseSourceReader implements SourceReader {
     return offset;
   }
 
-  public Section getAsciiSection(int offset) throws IOException {
+  public Section getAsciiSection(long offset) throws IOException {
     if (offset < 0) {
       throw new IllegalArgumentException("offset must be >= 0");
     }
     if (offset >= this.length()) {
       throw new IllegalArgumentException("offset must be < length");
     }
-    int sectionIndex = offset / sectionSize;
+    int sectionIndex = (int) (offset / sectionSize);
     if (cache == null) {
       initializeCache();
     }
@@ -215,31 +250,176 @@ public abstract class BaseSourceReader implements SourceReader {
       cache[sectionIndex].lastUsedTimestampNs = System.nanoTime();
       return cache[sectionIndex].section;
     }
-    int startOffset = sectionIndex * sectionSize;
-    int readLen = Math.min(sectionSize, this.length() - startOffset);
-    int numRead = 0;
-    while (numRead < readLen) {
-      numRead += this.readBytes(copyBuf, numRead, startOffset + numRead, readLen - numRead);
-    }
-    // Construct a String without going through a decoder to save on CPU.
-    // Given that the method has been deprecated since Java 1.1 and was never removed, I don't think
-    // this is very risky 😅
-    Section section =
-        new Section(startOffset, startOffset + sectionSize, new String(copyBuf, 0, 0, readLen));
-    if (cache.length > 0 && cacheSlotsUsed == maxCacheEntries) {
+    Section section;
+    SectionCache sharedCache = SectionCache.getShared();
+    long version = sharedCache == null ? -1 : this.getVersion();
+    if (version >= 0) {
+      section =
+          sharedCache.get(
+              new SectionCache.Key(getIdentifier(), version, sectionSize, sectionIndex),
+              () -> readSection(sectionIndex));
+    } else {
+      section = readSection(sectionIndex);
+    }
+    cacheLocally(sectionIndex, section);
+    return section;
+  }
+
+  /** Add a section to the per-reader cache, evicting the least recently used one if needed. */
+  private void cacheLocally(int sectionIndex, Section section) {
+    if (cache.length == 0 || cacheCapacity == 0) {
+      return;
+    }
+    if (cacheSlotsUsed == cacheCapacity) {
       purgeLeastRecentlyUsed();
     }
-    if (cache.length > 0) {
-      for (int i = 0; i < cachedSectionIdxes.length; i++) {
-        if (cachedSectionIdxes[i] < 0) {
-          cachedSectionIdxes[i] = sectionIndex;
-          break;
+    for (int i = 0; i < cachedSectionIdxes.length; i++) {
+      if (cachedSectionIdxes[i] < 0) {
+        cachedSectionIdxes[i] = sectionIndex;
+        break;
+      }
+    }
+    cache[sectionIndex] = new CachedSection(section);
+    cacheSlotsUsed++;
+  }
+
+  /**
+   * Load the sections covering the ranges with one read per run of adjacent sections.
+   *
+   * <p>Half of the per-reader cache is reserved for the sections that are currently being worked
+   * on. The cache is grown by the budget for the prefetched sections, so that they don't evict the
+   * reserved ones.
+   */
+  @Override
+  public int prefetch(long[] starts, long[] ends, int fromIdx, int toIdx, int maxBytes)
+      throws IOException {
+    if (cache == null) {
+      initializeCache();
+    }
+    int budget = (int) Math.min(maxBytes / sectionSize, cache.length);
+    if (budget == 0 || maxCacheEntries == 0) {
+      return toIdx;
+    }
+    ensureCacheCapacity(maxCacheEntries - maxCacheEntries / 2 + budget);
+    long length = this.length();
+    int[] planned = new int[budget];
+    int numPlanned = 0;
+    int rangeIdx = fromIdx;
+    rangeLoop:
+    for (; rangeIdx < toIdx; rangeIdx++) {
+      long start = Math.max(0, starts[rangeIdx]);
+      long end = Math.min(length, ends[rangeIdx]);
+      if (start >= end) {
+        continue;
+      }
+      int lastIdx = (int) ((end - 1) / sectionSize);
+      for (int idx = (int) (start / sectionSize); idx <= lastIdx; idx++) {
+        if (cache[idx] == null && !contains(planned, numPlanned, idx)) {
+          if (numPlanned == budget) {
+            // The range is only partially planned, so the caller has to come back for it
+            break rangeLoop;
+          }
+          planned[numPlanned++] = idx;
         }
       }
-      cache[sectionIndex] = new CachedSection(section);
-      cacheSlotsUsed++;
     }
+    if (numPlanned == 0) {
+      return rangeIdx;
+    }
+    Arrays.sort(planned, 0, numPlanned);
 
-    return section;
+    SectionCache sharedCache = SectionCache.getShared();
+    long version = sharedCache == null ? -1 : this.getVersion();
+    int runStart = -1;
+    int runEnd = -1;
+    for (int i = 0; i < numPlanned; i++) {
+      int idx = planned[i];
+      if (version >= 0) {
+        Section shared =
+            sharedCache.getIfPresent(
+                new SectionCache.Key(getIdentifier(), version, sectionSize, idx));
+        if (shared != null) {
+          cacheLocally(idx, shared);
+          continue;
+        }
+      }
+      if (runStart >= 0 && idx == runEnd + 1) {
+        runEnd = idx;
+        continue;
+      }
+      if (runStart >= 0) {
+        readSections(runStart, runEnd, sharedCache, version);
+      }
+      runStart = idx;
+      runEnd = idx;
+    }
+    if (runStart >= 0) {
+      readSections(runStart, runEnd, sharedCache, version);
+    }
+    return rangeIdx;
+  }
+
+  private static boolean contains(int[] values, int numValues, int value) {
+    for (int i = 0; i < numValues; i++) {
+      if (values[i] == value) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Read the sections from {@code firstIdx} to {@code lastIdx} (inclusive) with a single read and
+   * add them to the caches.
+   */
+  private void readSections(int firstIdx, int lastIdx, SectionCache sharedCache, long version)
+      throws IOException {
+    if (firstIdx == lastIdx) {
+      Section section = readSection(firstIdx);
+      cacheLocally(firstIdx, section);
+      if (version >= 0) {
+        sharedCache.put(
+            new SectionCache.Key(getIdentifier(), version, sectionSize, firstIdx), section);
+      }
+      return;
+    }
+    long startOffset = (long) firstIdx * sectionSize;
+    int readLen =
+        (int) Math.min((long) (lastIdx - firstIdx + 1) * sectionSize, this.length() - startOffset);
+    byte[] buf = new byte[readLen];
+    readFully(buf, startOffset);
+    for (int idx = firstIdx; idx <= lastIdx; idx++) {
+      int bufOffset = (idx - firstIdx) * sectionSize;
+      long sectionStart = startOffset + bufOffset;
+      Section section =
+          new Section(
+              sectionStart,
+              sectionStart + sectionSize,
+              Arrays.copyOfRange(buf, bufOffset, Math.min(bufOffset + sectionSize, readLen)));
+      cacheLocally(idx, section);
+      if (version >= 0) {
+        sharedCache.put(new SectionCache.Key(getIdentifier(), version, sectionSize, idx), section);
+      }
+    }
+  }
+
+  /** Read the section with the given index from the source. */
+  private Section readSection(int sectionIndex) throws IOException {
+    long startOffset = (long) sectionIndex * sectionSize;
+    byte[] buf = new byte[(int) Math.min(sectionSize, this.length() - startOffset)];
+    readFully(buf, startOffset);
+    return new Section(startOffset, startOffset + sectionSize, buf);
+  }
+
+  /** Fill the buffer with the bytes starting at {@code startOffset}. */
+  private void readFully(byte[] buf, long startOffset) throws IOException {
+    long startNs = tier != null ? System.nanoTime() : 0;
+    int numRead = 0;
+    while (numRead < buf.length) {
+      numRead += this.readBytes(buf, numRead, startOffset + numRead, buf.length - numRead);
+    }
+    if (tier != null) {
+      tier.recordRead(buf.length, System.nanoTime() - startNs);
+    }
   }
 }
@@ -0,0 +1,301 @@
+package com.github.dbmdz.solrocr.reader;
+
+import com.github.dbmdz.solrocr.util.ArrayUtils;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Index of the blocks in a BGZF file, i.e. a gzip file that consists of independently compressed
+ * blocks of at most 64KiB each, as produced by {@code bgzip} from htslib.
+ *
+ * <p>The index is read from the {@code .gzi} file next to the compressed file, if it exists, and
+ * otherwise built by walking the headers of all blocks. Indexes are cached for the whole node,
+ * keyed by the path and the modification time of the compressed file.
+ */
+public class BgzfIndex {
+  /** Size of the BGZF block header, including the mandatory {@code BC} extra subfield */
+  static final int HEADER_SIZE = 18;
+
+  /** Size of the gzip footer with the CRC32 and the uncompressed size of the block */
+  static final int FOOTER_SIZE = 8;
+
+  /** Maximum size of a single BGZF block, both compressed and uncompressed */
+  static final int MAX_BLOCK_SIZE = 64 * 1024;
+
+  /** Maximum accumulated size of the cached indexes, 16 bytes per block */
+  private static final long MAX_CACHE_SIZE_BYTES = 32 * 1024 * 1024;
+
+  private static final Cache<CacheKey, BgzfIndex> cache =
+      CacheBuilder.newBuilder()
+          .maximumWeight(MAX_CACHE_SIZE_BYTES)
+          .weigher((CacheKey k, BgzfIndex v) -> 64 + v.numBlocks() * 20)
+          .build();
+
+  /** Results of {@link #isBgzfFile(Path)}, so pointers can be validated without reading the file */
+  private static final Cache<CacheKey, Boolean> formatCache =
+      CacheBuilder.newBuilder().maximumSize(100_000).build();
+
+  /** Offsets of the non-empty blocks in the compressed file */
+  private final long[] compressedOffsets;
+
+  /** Sizes of the non-empty blocks in the compressed file, including header and footer */
+  private final int[] compressedSizes;
+
+  /** Offsets of the non-empty blocks in the uncompressed data */
+  private final long[] uncompressedOffsets;
+
+  /** Size of the uncompressed data */
+  private final long uncompressedSize;
+
+  private BgzfIndex(
+      long[] compressedOffsets,
+      int[] compressedSizes,
+      long[] uncompressedOffsets,
+      long uncompressedSize) {
+    this.compressedOffsets = compressedOffsets;
+    this.compressedSizes = compressedSizes;
+    this.uncompressedOffsets = uncompressedOffsets;
+    this.uncompressedSize = uncompressedSize;
+  }
+
+  /** Check if the data starts with a BGZF block header. */
+  public static boolean isBgzfHeader(ByteBuffer header) {
+    if (header.remaining() < HEADER_SIZE) {
+      return false;
+    }
+    int pos = header.position();
+    return (header.get(pos) & 0xFF) == 0x1f
+        && (header.get(pos + 1) & 0xFF) == 0x8b
+        && header.get(pos + 2) == 8 // Deflate
+        && (header.get(pos + 3) & 0x04) != 0 // FEXTRA
+        && header.get(pos + 12) == 'B'
+        && header.get(pos + 13) == 'C'
+        && header.get(pos + 14) == 2
+        && header.get(pos + 15) == 0;
+  }
+
+  /**
+   * Check if the file starts with a BGZF block header.
+   *
+   * <p>The result is cached for the whole node, keyed by the path and the modification time of the
+   * file.
+   */
+  public static boolean isBgzfFile(Path path) throws IOException {
+    long lastModified = FileMetadataCache.getLastModified(path);
+    try {
+      return formatCache.get(new CacheKey(path, lastModified), () -> readIsBgzf(path));
+    } catch (ExecutionException | UncheckedExecutionException e) {
+      if (e.getCause() instanceof IOException) {
+        throw (IOException) e.getCause();
+      }
+      throw new IOException(e.getCause());
+    }
+  }
+
+  private static boolean readIsBgzf(Path path) throws IOException {
+    try (FileChannel chan = FileChannel.open(path, StandardOpenOption.READ)) {
+      ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+      while (header.hasRemaining() && chan.read(header) >= 0) {}
+      header.flip();
+      return isBgzfHeader(header);
+    }
+  }
+
+  /** Get the index for the file, from the node-wide cache if possible. */
+  public static BgzfIndex forFile(Path path, FileChannel chan, long lastModified)
+      throws IOException {
+    try {
+      return cache.get(new CacheKey(path, lastModified), () -> load(path, chan));
+    } catch (ExecutionException | UncheckedExecutionException e) {
+      if (e.getCause() instanceof IOException) {
+        throw (IOException) e.getCause();
+      }
+      throw new IOException(e.getCause());
+    }
+  }
+
+  private static BgzfIndex load(Path path, FileChannel chan) throws IOException {
+    long[] compressed;
+    long[] uncompressed;
+    int numBlocks;
+    Path indexPath = Paths.get(path.toString() + ".gzi");
+    if (Files.exists(indexPath)
+        && Files.getLastModifiedTime(indexPath).compareTo(Files.getLastModifiedTime(path)) >= 0) {
+      // The .gzi consists of the number of entries, followed by pairs of compressed and
+      // uncompressed offsets for every block but the first one, all as unsigned 64 bit little
+      // endian integers.
+      ByteBuffer buf =
+          ByteBuffer.wrap(Files.readAllBytes(indexPath)).order(ByteOrder.LITTLE_ENDIAN);
+      long numEntries = buf.remaining() >= 8 ? buf.getLong() : -1;
+      if (numEntries < 0 || numEntries >= Integer.MAX_VALUE || buf.remaining() != numEntries * 16) {
+        throw new IOException(
+            String.format(
+                Locale.US, "Index at %s is corrupt, invalid number of entries.", indexPath));
+      }
+      compressed = new long[(int) numEntries + 16];
+      uncompressed = new long[(int) numEntries + 16];
+      for (int i = 1; i <= numEntries; i++) {
+        compressed[i] = buf.getLong();
+        uncompressed[i] = buf.getLong();
+      }
+      // The index doesn't include the size of the uncompressed data, so we continue walking the
+      // blocks from the last indexed block on, usually that's just the last data block and the
+      // empty EOF block.
+      numBlocks = (int) numEntries;
+    } else {
+      compressed = new long[16];
+      uncompressed = new long[16];
+      numBlocks = 0;
+    }
+
+    long compressedSize = chan.size();
+    ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+    ByteBuffer footer = ByteBuffer.allocate(4).order(ByteOrder.LITTLE_ENDIAN);
+    long compressedOffset = compressed[numBlocks];
+    long uncompressedOffset = uncompressed[numBlocks];
+    while (compressedOffset < compressedSize) {
+      int blockSize = readBlockSize(path, chan, compressedOffset, header);
+      footer.clear();
+      readFully(chan, footer, compressedOffset + blockSize - 4);
+      if (numBlocks == compressed.length) {
+        compressed = Arrays.copyOf(compressed, numBlocks * 2);
+        uncompressed = Arrays.copyOf(uncompressed, numBlocks * 2);
+      }
+      compressed[numBlocks] = compressedOffset;
+      uncompressed[numBlocks] = uncompressedOffset;
+      numBlocks++;
+      compressedOffset += blockSize;
+      uncompressedOffset += Integer.toUnsignedLong(footer.getInt(0));
+    }
+    return build(path, compressed, uncompressed, numBlocks, uncompressedOffset, compressedSize);
+  }
+
+  /** Build the index from the raw offsets, dropping empty blocks. */
+  private static BgzfIndex build(
+      Path path,
+      long[] compressed,
+      long[] uncompressed,
+      int numBlocks,
+      long uncompressedSize,
+      long compressedSize)
+      throws IOException {
+    long[] compressedOffsets = new long[numBlocks];
+    int[] compressedSizes = new int[numBlocks];
+    long[] uncompressedOffsets = new long[numBlocks];
+    int numNonEmpty = 0;
+    for (int i = 0; i < numBlocks; i++) {
+      long nextUncompressed = i + 1 < numBlocks ? uncompressed[i + 1] : uncompressedSize;
+      if (nextUncompressed == uncompressed[i]) {
+        continue;
+      }
+      long nextCompressed = i + 1 < numBlocks ? compressed[i + 1] : compressedSize;
+      compressedOffsets[numNonEmpty] = compressed[i];
+      compressedSizes[numNonEmpty] = (int) (nextCompressed - compressed[i]);
+      uncompressedOffsets[numNonEmpty] = uncompressed[i];
+      numNonEmpty++;
+    }
+    return new BgzfIndex(
+        Arrays.copyOf(compressedOffsets, numNonEmpty),
+        Arrays.copyOf(compressedSizes, numNonEmpty),
+        Arrays.copyOf(uncompressedOffsets, numNonEmpty),
+        uncompressedSize);
+  }
+
+  /** Read the header of the block at the given offset and return the total size of the block. */
+  static int readBlockSize(Path path, FileChannel chan, long offset, ByteBuffer header)
+      throws IOException {
+    header.clear();
+    readFully(chan, header, offset);
+    header.flip();
+    if (!isBgzfHeader(header)) {
+      throw new IOException(
+          String.format(Locale.US, "Invalid BGZF block header in %s at offset %d.", path, offset));
+    }
+    return (header.getShort(16) & 0xFFFF) + 1;
+  }
+
+  static void readFully(FileChannel chan, ByteBuffer dst, long offset) throws IOException {
+    while (dst.hasRemaining()) {
+      int read = chan.read(dst, offset);
+      if (read < 0) {
+        throw new IOException("Unexpected end of BGZF file.");
+      }
+      offset += read;
+    }
+  }
+
+  public int numBlocks() {
+    return compressedOffsets.length;
+  }
+
+  /** Get the index of the block that contains the given uncompressed offset. */
+  public int blockIndexFor(long uncompressedOffset) {
+    return ArrayUtils.binaryFloorIdxSearch(uncompressedOffsets, uncompressedOffset);
+  }
+
+  public long compressedOffset(int blockIdx) {
+    return compressedOffsets[blockIdx];
+  }
+
+  /** Get the size of the compressed block, including header and footer. */
+  public int compressedSize(int blockIdx) {
+    return compressedSizes[blockIdx];
+  }
+
+  public long uncompressedOffset(int blockIdx) {
+    return uncompressedOffsets[blockIdx];
+  }
+
+  public int uncompressedSize(int blockIdx) {
+    long end =
+        blockIdx + 1 < uncompressedOffsets.length
+            ? uncompressedOffsets[blockIdx + 1]
+            : uncompressedSize;
+    return (int) (end - uncompressedOffsets[blockIdx]);
+  }
+
+  /** Get the size of the uncompressed data. */
+  public long uncompressedSize() {
+    return uncompressedSize;
+  }
+
+  private static final class CacheKey {
+    final Path path;
+    final long lastModified;
+
+    CacheKey(Path path, long lastModified) {
+      this.path = path.toAbsolutePath();
+      this.lastModified = lastModified;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (o == null || getClass() != o.getClass()) {
+        return false;
+      }
+      CacheKey cacheKey = (CacheKey) o;
+      return lastModified == cacheKey.lastModified && path.equals(cacheKey.path);
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(path, lastModified);
+    }
+  }
+}
@@ -0,0 +1,155 @@
+package com.github.dbmdz.solrocr.reader;
+
+import com.github.dbmdz.solrocr.model.SourcePointer;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.util.Locale;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+/**
+ * Reads the uncompressed data from a BGZF-compressed file, i.e. a gzip file that consists of
+ * independently compressed blocks, as produced by {@code bgzip} from htslib.
+ *
+ * <p>All offsets refer to the uncompressed data. Only the blocks that are needed for a read are
+ * decompressed, the most recently decompressed block is kept around, since sections are usually
+ * smaller than a block.
+ */
+public class BgzfSourceReader extends BaseSourceReader {
+  private final Path path;
+  private FileChannelPool.Lease lease;
+  private BgzfIndex index;
+  private long lastModified = -1;
+
+  private Inflater inflater;
+  private final byte[] compressedBuf = new byte[BgzfIndex.MAX_BLOCK_SIZE];
+  private final byte[] blockBuf = new byte[BgzfIndex.MAX_BLOCK_SIZE];
+  private int bufferedBlockIdx = -1;
+
+  public BgzfSourceReader(Path path, SourcePointer ptr, int sectionSize, int maxCacheEntries) {
+    super(ptr, sectionSize, maxCacheEntries);
+    this.path = path;
+  }
+
+  /** Get the channel for the file, opening it if needed. */
+  private FileChannel channel() throws IOException {
+    if (this.lease == null) {
+      this.lease = FileChannelPool.open(path);
+      if (this.lastModified < 0) {
+        this.lastModified = lease.lastModified();
+      }
+    }
+    return this.lease.channel();
+  }
+
+  private BgzfIndex index() throws IOException {
+    if (this.index == null) {
+      FileChannel chan = this.channel();
+      this.index = BgzfIndex.forFile(path, chan, this.getVersion());
+    }
+    return this.index;
+  }
+
+  @Override
+  public int readBytes(ByteBuffer dst, long start) throws IOException {
+    BgzfIndex index = this.index();
+    if (start >= index.uncompressedSize()) {
+      return -1;
+    }
+    int numRead = 0;
+    while (dst.hasRemaining() && start < index.uncompressedSize()) {
+      int blockIdx = index.blockIndexFor(start);
+      inflateBlock(blockIdx);
+      int blockOffset = (int) (start - index.uncompressedOffset(blockIdx));
+      int len = Math.min(dst.remaining(), index.uncompressedSize(blockIdx) - blockOffset);
+      dst.put(blockBuf, blockOffset, len);
+      start += len;
+      numRead += len;
+    }
+    return numRead;
+  }
+
+  /** Decompress the block into the block buffer, unless it's already there. */
+  private void inflateBlock(int blockIdx) throws IOException {
+    if (blockIdx == bufferedBlockIdx) {
+      return;
+    }
+    int compressedSize = index.compressedSize(blockIdx);
+    ByteBuffer compressed = ByteBuffer.wrap(compressedBuf, 0, compressedSize);
+    BgzfIndex.readFully(this.channel(), compressed, index.compressedOffset(blockIdx));
+    if (inflater == null) {
+      // BGZF blocks are raw deflate streams wrapped in a gzip header and footer
+      inflater = new Inflater(true);
+    }
+    inflater.reset();
+    inflater.setInput(
+        compressedBuf,
+        BgzfIndex.HEADER_SIZE,
+        compressedSize - BgzfIndex.HEADER_SIZE - BgzfIndex.FOOTER_SIZE);
+    int expectedSize = index.uncompressedSize(blockIdx);
+    int numInflated = 0;
+    try {
+      while (numInflated < expectedSize && !inflater.finished()) {
+        int n = inflater.inflate(blockBuf, numInflated, expectedSize - numInflated);
+        if (n == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+          break;
+        }
+        numInflated += n;
+      }
+    } catch (DataFormatException e) {
+      bufferedBlockIdx = -1;
+      throw new IOException(
+          String.format(Locale.US, "Corrupt BGZF block #%d in %s: %s", blockIdx, path, e), e);
+    }
+    if (numInflated != expectedSize) {
+      bufferedBlockIdx = -1;
+      throw new IOException(
+          String.format(
+              Locale.US,
+              "Corrupt BGZF block #%d in %s, expected %d uncompressed bytes, got %d.",
+              blockIdx,
+              path,
+              expectedSize,
+              numInflated));
+    }
+    bufferedBlockIdx = blockIdx;
+  }
+
+  @Override
+  public long length() throws IOException {
+    return this.index().uncompressedSize();
+  }
+
+  @Override
+  public void close() throws IOException {
+    this.releaseResources();
+    if (this.inflater != null) {
+      this.inflater.end();
+      this.inflater = null;
+    }
+  }
+
+  @Override
+  public void releaseResources() throws IOException {
+    if (this.lease != null) {
+      FileChannelPool.Lease released = this.lease;
+      this.lease = null;
+      released.close();
+    }
+  }
+
+  @Override
+  public long getVersion() throws IOException {
+    if (this.lastModified < 0) {
+      this.lastModified = FileMetadataCache.getLastModified(this.path);
+    }
+    return this.lastModified;
+  }
+
+  @Override
+  public String getIdentifier() {
+    return this.path.toString();
+  }
+}
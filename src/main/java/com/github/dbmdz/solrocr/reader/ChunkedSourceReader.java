@@ -0,0 +1,278 @@
+package com.github.dbmdz.solrocr.reader;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+import org.apache.lucene.util.BytesRef;
+
+/**
+ * Reads OCR markup that is stored inside of the index, as a binary value that consists of
+ * independently compressed chunks (see {@link #encode(byte[], int, int)}).
+ *
+ * <p>Only the chunks that are needed for a read are decompressed, the most recently decompressed
+ * chunk is kept around, since sections are usually smaller than a chunk.
+ *
+ * <p>Markup from external sources is stored as its UTF-8 bytes, so offsets are byte offsets, just
+ * like for the external source. Markup that was indexed as a string is stored as UTF-16 and
+ * addressed by character offsets, just like with a stored string value.
+ *
+ * <pre>
+ * +-------+---------+------+-----------+--------+-----------+-------------------+--------+
+ * | magic | version | unit | chunkSize | length | numChunks | chunkEnds[] (int) | chunks |
+ * | int   | byte    | byte | int       | long   | int       |                   |        |
+ * +-------+---------+------+-----------+--------+-----------+-------------------+--------+
+ * </pre>
+ *
+ * The chunk size and the length are in units, i.e. bytes or characters, the chunk ends are the
+ * offsets of the end of every compressed chunk, relative to the start of the first chunk.
+ */
+public class ChunkedSourceReader extends BaseSourceReader {
+  /** "OCRC" */
+  private static final int MAGIC = 0x4F435243;
+
+  private static final byte VERSION = 1;
+  private static final byte UNIT_BYTES = 0;
+  private static final byte UNIT_CHARS = 1;
+  private static final int HEADER_SIZE = 4 + 1 + 1 + 4 + 8 + 4;
+
+  /** Default number of units per chunk, a tradeoff between compression ratio and read overhead */
+  public static final int DEFAULT_CHUNK_SIZE = 64 * 1024;
+
+  private final ByteBuffer data;
+  private final String identifier;
+  private final boolean isChars;
+  private final int chunkSize;
+  private final long length;
+  private final int[] chunkEnds;
+  private final int dataStart;
+
+  private Inflater inflater;
+  private final byte[] chunkBuf;
+  private int bufferedChunkIdx = -1;
+
+  /**
+   * @param data the chunked value, as stored in the index
+   * @param identifier identifies the value in logs, e.g. the field and the document
+   */
+  public ChunkedSourceReader(BytesRef data, String identifier, int sectionSize, int maxCacheEntries)
+      throws IOException {
+    super(null, sectionSize, maxCacheEntries);
+    this.identifier = identifier;
+    this.data = ByteBuffer.wrap(data.bytes, data.offset, data.length).slice();
+    if (data.length < HEADER_SIZE || this.data.getInt(0) != MAGIC) {
+      throw new IOException(
+          String.format(Locale.US, "%s does not contain chunked OCR markup.", identifier));
+    }
+    if (this.data.get(4) != VERSION) {
+      throw new IOException(
+          String.format(
+              Locale.US,
+              "Unsupported version %d of chunked OCR markup in %s.",
+              this.data.get(4),
+              identifier));
+    }
+    this.isChars = this.data.get(5) == UNIT_CHARS;
+    this.chunkSize = this.data.getInt(6);
+    this.length = this.data.getLong(10);
+    int numChunks = this.data.getInt(18);
+    this.chunkEnds = new int[numChunks];
+    for (int i = 0; i < numChunks; i++) {
+      this.chunkEnds[i] = this.data.getInt(HEADER_SIZE + 4 * i);
+    }
+    this.dataStart = HEADER_SIZE + 4 * numChunks;
+    this.chunkBuf = new byte[chunkSize * (isChars ? 2 : 1)];
+  }
+
+  /** Encode UTF-8 encoded markup from an external source into independently compressed chunks. */
+  public static byte[] encode(byte[] utf8, int chunkSize, int compressionLevel) {
+    return encode(utf8, UNIT_BYTES, utf8.length, chunkSize, compressionLevel);
+  }
+
+  /**
+   * Encode markup that is indexed as a string into independently compressed chunks, offsets in the
+   * stored value are character offsets.
+   */
+  public static byte[] encode(String markup, int chunkSize, int compressionLevel) {
+    return encode(
+        markup.getBytes(StandardCharsets.UTF_16BE),
+        UNIT_CHARS,
+        markup.length(),
+        chunkSize,
+        compressionLevel);
+  }
+
+  private static byte[] encode(
+      byte[] content, byte unit, long length, int chunkSize, int compressionLevel) {
+    if (chunkSize <= 0) {
+      throw new IllegalArgumentException("chunkSize must be > 0");
+    }
+    int unitBytes = unit == UNIT_CHARS ? 2 : 1;
+    int chunkBytes = chunkSize * unitBytes;
+    int numChunks = Math.toIntExact((content.length + chunkBytes - 1L) / chunkBytes);
+    int[] chunkEnds = new int[numChunks];
+    ByteArrayOutputStream chunks = new ByteArrayOutputStream(content.length / 4);
+    Deflater deflater = new Deflater(compressionLevel);
+    byte[] buf = new byte[chunkBytes + 64];
+    try {
+      for (int i = 0; i < numChunks; i++) {
+        int offset = i * chunkBytes;
+        deflater.reset();
+        deflater.setInput(content, offset, Math.min(chunkBytes, content.length - offset));
+        deflater.finish();
+        while (!deflater.finished()) {
+          int n = deflater.deflate(buf);
+          chunks.write(buf, 0, n);
+        }
+        chunkEnds[i] = chunks.size();
+      }
+    } finally {
+      deflater.end();
+    }
+    ByteBuffer out = ByteBuffer.allocate(HEADER_SIZE + 4 * numChunks + chunks.size());
+    out.putInt(MAGIC).put(VERSION).put(unit).putInt(chunkSize).putLong(length).putInt(numChunks);
+    for (int end : chunkEnds) {
+      out.putInt(end);
+    }
+    out.put(chunks.toByteArray());
+    return out.array();
+  }
+
+  @Override
+  public int readBytes(ByteBuffer dst, long start) throws IOException {
+    if (start >= length) {
+      return -1;
+    }
+    int numRead = 0;
+    while (dst.hasRemaining() && start < length) {
+      int chunkIdx = (int) (start / chunkSize);
+      int chunkLen = inflateChunk(chunkIdx);
+      int chunkOffset = (int) (start - (long) chunkIdx * chunkSize);
+      int len = Math.min(dst.remaining(), chunkLen - chunkOffset);
+      if (isChars) {
+        // One byte per character, like sections created from a String
+        for (int i = chunkOffset; i < chunkOffset + len; i++) {
+          char c = bufferedChar(i);
+          dst.put(c <= 0xFF ? (byte) c : (byte) 0xFF);
+        }
+      } else {
+        dst.put(chunkBuf, chunkOffset, len);
+      }
+      start += len;
+      numRead += len;
+    }
+    return numRead;
+  }
+
+  /**
+   * For markup that was indexed as a string, offsets are character offsets, so the characters are
+   * read directly instead of decoding the bytes.
+   */
+  @Override
+  public String readUtf8String(long start, int byteLen) throws IOException {
+    if (!isChars) {
+      return super.readUtf8String(start, byteLen);
+    }
+    if (start < 0) {
+      throw new IllegalArgumentException("start must be >= 0");
+    }
+    int len = (int) Math.min(byteLen, length - start);
+    // Characters are copied as-is, like String#substring, since surrogate pairs can be split
+    // across chunks
+    char[] buf = new char[len];
+    int numRead = 0;
+    while (numRead < len) {
+      long pos = start + numRead;
+      int chunkIdx = (int) (pos / chunkSize);
+      int chunkLen = inflateChunk(chunkIdx);
+      int chunkOffset = (int) (pos - (long) chunkIdx * chunkSize);
+      int n = Math.min(chunkLen - chunkOffset, len - numRead);
+      for (int i = 0; i < n; i++) {
+        buf[numRead + i] = bufferedChar(chunkOffset + i);
+      }
+      numRead += n;
+    }
+    return new String(buf);
+  }
+
+  /** Get the character at the index in the buffered chunk of a string value. */
+  private char bufferedChar(int idx) {
+    return (char) (((chunkBuf[2 * idx] & 0xFF) << 8) | (chunkBuf[2 * idx + 1] & 0xFF));
+  }
+
+  /**
+   * Decompress the chunk into the chunk buffer, unless it's already there.
+   *
+   * @return the number of units in the chunk
+   */
+  private int inflateChunk(int chunkIdx) throws IOException {
+    int numUnits = (int) Math.min(chunkSize, length - (long) chunkIdx * chunkSize);
+    if (chunkIdx == bufferedChunkIdx) {
+      return numUnits;
+    }
+    if (inflater == null) {
+      inflater = new Inflater();
+    }
+    int compressedStart = chunkIdx == 0 ? 0 : chunkEnds[chunkIdx - 1];
+    inflater.reset();
+    inflater.setInput(
+        data.array(),
+        data.arrayOffset() + dataStart + compressedStart,
+        chunkEnds[chunkIdx] - compressedStart);
+    int expectedSize = numUnits * (isChars ? 2 : 1);
+    int numInflated = 0;
+    try {
+      while (numInflated < expectedSize && !inflater.finished()) {
+        int n = inflater.inflate(chunkBuf, numInflated, expectedSize - numInflated);
+        if (n == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+          break;
+        }
+        numInflated += n;
+      }
+    } catch (DataFormatException e) {
+      bufferedChunkIdx = -1;
+      throw new IOException(
+          String.format(Locale.US, "Corrupt chunk #%d in %s: %s", chunkIdx, identifier, e), e);
+    }
+    if (numInflated != expectedSize) {
+      bufferedChunkIdx = -1;
+      throw new IOException(
+          String.format(
+              Locale.US,
+              "Corrupt chunk #%d in %s, expected %d uncompressed bytes, got %d.",
+              chunkIdx,
+              identifier,
+              expectedSize,
+              numInflated));
+    }
+    bufferedChunkIdx = chunkIdx;
+    return numUnits;
+  }
+
+  @Override
+  public boolean isInMemory() {
+    return true;
+  }
+
+  @Override
+  public long length() {
+    return length;
+  }
+
+  @Override
+  public void close() {
+    if (this.inflater != null) {
+      this.inflater.end();
+      this.inflater = null;
+    }
+  }
+
+  @Override
+  public String getIdentifier() {
+    return identifier;
+  }
+}
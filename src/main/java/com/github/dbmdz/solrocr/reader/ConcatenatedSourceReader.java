@@ -0,0 +1,122 @@
+package com.github.dbmdz.solrocr.reader;
+
+import com.github.dbmdz.solrocr.model.SourcePointer;
+import com.github.dbmdz.solrocr.util.ArrayUtils;
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Reads from multiple sources of any type, treating them as a single large chunk of data.
+ *
+ * <p>Used for pointers that combine sources that can't be read by {@link MultiFileSourceReader},
+ * e.g. members of a ZIP archive. Only the raw byte reads of the underlying readers are used, the
+ * sections are cached by this reader.
+ */
+public class ConcatenatedSourceReader extends BaseSourceReader {
+  private static final Logger log = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+
+  private final SourceReader[] readers;
+  private long[] startOffsets;
+  private long numBytes = -1;
+  private long version = Long.MIN_VALUE;
+
+  public ConcatenatedSourceReader(
+      List<SourceReader> readers, SourcePointer ptr, int sectionSize, int maxCacheEntries) {
+    super(ptr, sectionSize, maxCacheEntries);
+    this.readers = readers.toArray(new SourceReader[0]);
+  }
+
+  private long[] startOffsets() throws IOException {
+    if (this.startOffsets == null) {
+      long[] offsets = new long[readers.length];
+      long offset = 0;
+      for (int i = 0; i < readers.length; i++) {
+        offsets[i] = offset;
+        offset += readers[i].length();
+      }
+      this.numBytes = offset;
+      this.startOffsets = offsets;
+    }
+    return this.startOffsets;
+  }
+
+  @Override
+  public int readBytes(ByteBuffer dst, long start) throws IOException {
+    long[] startOffsets = this.startOffsets();
+    if (start >= numBytes) {
+      return -1;
+    }
+    int readerIdx = ArrayUtils.binaryFloorIdxSearch(startOffsets, start);
+    if (readerIdx < 0) {
+      throw new RuntimeException(String.format("Offset %d is out of bounds", start));
+    }
+    int numRead = 0;
+    while (dst.hasRemaining() && readerIdx < readers.length) {
+      int read = readers[readerIdx].readBytes(dst, (start + numRead) - startOffsets[readerIdx]);
+      if (read > 0) {
+        numRead += read;
+      }
+      if (start + numRead >= startOffsets[readerIdx] + readers[readerIdx].length() || read < 0) {
+        readerIdx++;
+      }
+    }
+    return numRead;
+  }
+
+  @Override
+  public long length() throws IOException {
+    this.startOffsets();
+    return this.numBytes;
+  }
+
+  @Override
+  public void close() throws IOException {
+    for (SourceReader reader : readers) {
+      try {
+        reader.close();
+      } catch (IOException e) {
+        log.error(
+            String.format("Failed to close %s: %s", reader.getIdentifier(), e.getMessage()), e);
+      }
+    }
+  }
+
+  @Override
+  public void releaseResources() throws IOException {
+    for (SourceReader reader : readers) {
+      reader.releaseResources();
+    }
+  }
+
+  /** The version of the concatenated sources is the most recent version of any source. */
+  @Override
+  public long getVersion() throws IOException {
+    if (this.version == Long.MIN_VALUE) {
+      long version = -1;
+      for (SourceReader reader : readers) {
+        long readerVersion = reader.getVersion();
+        if (readerVersion < 0) {
+          // At least one source is unversioned, so the concatenation is as well
+          version = -1;
+          break;
+        }
+        version = Math.max(version, readerVersion);
+      }
+      this.version = version;
+    }
+    return this.version;
+  }
+
+  @Override
+  public String getIdentifier() {
+    return String.format(
+        "{%s}",
+        Arrays.stream(readers).map(SourceReader::getIdentifier).collect(Collectors.joining(", ")));
+  }
+}
@@ -0,0 +1,125 @@
+package com.github.dbmdz.solrocr.reader;
+
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.FileStore;
+import java.nio.file.Files;
+import java.nio.file.OpenOption;
+import java.nio.file.Path;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Helpers for reading files with direct I/O, i.e. bypassing the operating system's page cache.
+ *
+ * <p>The open option ({@code com.sun.nio.file.ExtendedOpenOption#DIRECT}) and the block size of a
+ * file store are only available from Java 10 on, so both are looked up via reflection.
+ */
+public final class DirectIo {
+  private static final Logger log = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+
+  private static final OpenOption DIRECT_OPTION;
+  private static final Method GET_BLOCK_SIZE;
+  private static final AtomicBoolean warnedAboutFallback = new AtomicBoolean(false);
+
+  static {
+    OpenOption direct = null;
+    Method getBlockSize = null;
+    try {
+      Class<?> extendedOptions = Class.forName("com.sun.nio.file.ExtendedOpenOption");
+      for (Object option : extendedOptions.getEnumConstants()) {
+        if (((Enum<?>) option).name().equals("DIRECT")) {
+          direct = (OpenOption) option;
+        }
+      }
+      getBlockSize = FileStore.class.getMethod("getBlockSize");
+    } catch (ClassNotFoundException | NoSuchMethodException e) {
+      // Not supported by this JVM
+    }
+    DIRECT_OPTION = direct;
+    GET_BLOCK_SIZE = getBlockSize;
+  }
+
+  private DirectIo() {}
+
+  /** Check if direct I/O is supported by the JVM. */
+  public static boolean isSupported() {
+    return DIRECT_OPTION != null && GET_BLOCK_SIZE != null && AlignedBufferPool.isSupported();
+  }
+
+  /** Get the open option for direct I/O, or {@code null} if it is not supported. */
+  static OpenOption openOption() {
+    return isSupported() ? DIRECT_OPTION : null;
+  }
+
+  /**
+   * Get the block size of the file store the file is located on, which all direct reads have to be
+   * aligned to, or -1 if it can't be used with the buffers from the {@link AlignedBufferPool}.
+   */
+  static int getBlockSize(Path path) throws IOException {
+    if (GET_BLOCK_SIZE == null) {
+      return -1;
+    }
+    long blockSize;
+    try {
+      blockSize = (long) GET_BLOCK_SIZE.invoke(Files.getFileStore(path));
+    } catch (ReflectiveOperationException | UnsupportedOperationException e) {
+      return -1;
+    }
+    if (blockSize <= 0 || AlignedBufferPool.ALIGNMENT % blockSize != 0) {
+      return -1;
+    }
+    return (int) blockSize;
+  }
+
+  /** Log that direct I/O is not available for a file, only once per node to avoid log spam. */
+  static void warnAboutFallback(Path path, String reason) {
+    if (warnedAboutFallback.compareAndSet(false, true)) {
+      log.warn(
+          "Could not use direct I/O for {} ({}), falling back to regular reads. This message is only"
+              + " logged once.",
+          path,
+          reason);
+    }
+  }
+
+  /**
+   * Read into {@code dst} from a channel that was opened for direct I/O, starting at {@code
+   * position}, returning the number of bytes read or -1 if the position is beyond the end of the
+   * file.
+   *
+   * <p>The reads are widened to the block size and go through an aligned buffer from the node-wide
+   * {@link AlignedBufferPool}, from where the requested range is copied into {@code dst}.
+   */
+  static int read(FileChannel chan, ByteBuffer dst, long position, int blockSize)
+      throws IOException {
+    int numRead = 0;
+    try (AlignedBufferPool.Lease lease = AlignedBufferPool.acquireShared()) {
+      ByteBuffer buf = lease.buffer();
+      while (dst.hasRemaining()) {
+        long pos = position + numRead;
+        long alignedPos = pos - (pos % blockSize);
+        int skip = (int) (pos - alignedPos);
+        int toRead = skip + dst.remaining();
+        // Round up to the block size, reads beyond the end of the file are fine
+        toRead = Math.min(buf.capacity(), ((toRead + blockSize - 1) / blockSize) * blockSize);
+        buf.clear();
+        buf.limit(toRead);
+        int read = chan.read(buf, alignedPos);
+        if (read <= skip) {
+          break;
+        }
+        buf.flip();
+        buf.position(skip);
+        buf.limit(Math.min(read, skip + dst.remaining()));
+        numRead += buf.remaining();
+        dst.put(buf);
+      }
+    }
+    return numRead == 0 && dst.hasRemaining() ? -1 : numRead;
+  }
+}
@@ -44,6 +44,11 @@ public class ExitingSourceReader implements SourceReader {
     input.close();
   }
 
+  @Override
+  public void releaseResources() throws IOException {
+    input.releaseResources();
+  }
+
   @Override
   public SourcePointer getPointer() {
     return input.getPointer();
@@ -55,30 +60,52 @@ public class ExitingSourceReader implements SourceReader {
   }
 
   @Override
-  public int length() throws IOException {
+  public boolean isInMemory() {
+    return input.isInMemory();
+  }
+
+  @Override
+  public long length() throws IOException {
     return input.length();
   }
 
   @Override
-  public String readAsciiString(int start, int len) throws IOException {
+  public long getVersion() throws IOException {
+    return input.getVersion();
+  }
+
+  @Override
+  public String readAsciiString(long start, int len) throws IOException {
     checkAndThrow();
     return input.readAsciiString(start, len);
   }
 
   @Override
-  public String readUtf8String(int start, int byteLen) throws IOException {
+  public String readUtf8String(long start, int byteLen) throws IOException {
     checkAndThrow();
     return input.readUtf8String(start, byteLen);
   }
 
   @Override
-  public Section getAsciiSection(int offset) throws IOException {
+  public Section getAsciiSection(long offset) throws IOException {
     checkAndThrow();
     return input.getAsciiSection(offset);
   }
 
   @Override
-  public int readBytes(ByteBuffer dst, int start) throws IOException {
+  public int prefetch(long[] starts, long[] ends, int fromIdx, int toIdx, int maxBytes)
+      throws IOException {
+    checkAndThrow();
+    return input.prefetch(starts, ends, fromIdx, toIdx, maxBytes);
+  }
+
+  @Override
+  public void recordScan(int numBytes) {
+    input.recordScan(numBytes);
+  }
+
+  @Override
+  public int readBytes(ByteBuffer dst, long start) throws IOException {
     checkAndThrow();
     return input.readBytes(dst, start);
   }
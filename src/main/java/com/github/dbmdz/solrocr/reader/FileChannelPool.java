@@ -0,0 +1,286 @@
+package com.github.dbmdz.solrocr.reader;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.nio.channels.FileChannel;
+import java.nio.file.OpenOption;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Objects;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Bounded pool of open read-only {@link FileChannel}s that is shared across readers and requests.
+ *
+ * <p>Channels are keyed by their path and reference-counted, every user acquires a {@link Lease}
+ * that has to be closed once the channel is no longer needed. A channel is only closed once it has
+ * been evicted from the pool (least recently used first, or because the modification time of the
+ * file changed) and the last lease for it has been released. This saves the {@code open}/{@code
+ * close} syscalls (and round-trips on network filesystems) for files that are highlighted often.
+ *
+ * <p>Since positional reads on a {@link FileChannel} are thread-safe, a pooled channel can be used
+ * by multiple readers at the same time. Channels that were opened for direct I/O (see {@link
+ * DirectIo}) are pooled separately from regular ones.
+ */
+public class FileChannelPool {
+  private static final Logger log = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+
+  private static volatile FileChannelPool shared;
+
+  private final int maxOpenChannels;
+
+  /** Pooled channels in LRU order, guarded by {@code this}. */
+  private final LinkedHashMap<ChannelKey, PooledChannel> channels;
+
+  private long hits = 0;
+  private long misses = 0;
+
+  public FileChannelPool(int maxOpenChannels) {
+    this.maxOpenChannels = maxOpenChannels;
+    this.channels = new LinkedHashMap<>(16, 0.75f, true);
+  }
+
+  /** Get the node-wide pool instance, or {@code null} if none was configured. */
+  public static FileChannelPool getShared() {
+    return shared;
+  }
+
+  /**
+   * Configure the node-wide pool instance.
+   *
+   * <p>If a pool with the same settings already exists, it is kept.
+   *
+   * @param maxOpenChannels maximum number of channels in the pool, a value {@code <= 0} disables
+   *     pooling. Evicted channels that are still in use stay open until they are released.
+   */
+  public static synchronized void configureShared(int maxOpenChannels) {
+    FileChannelPool previous = shared;
+    if (previous != null && previous.maxOpenChannels == maxOpenChannels) {
+      return;
+    }
+    if (maxOpenChannels <= 0) {
+      if (previous != null) {
+        log.info("Disabling file channel pool.");
+      }
+      shared = null;
+    } else {
+      log.info("Configuring file channel pool for up to {} open files.", maxOpenChannels);
+      shared = new FileChannelPool(maxOpenChannels);
+    }
+    if (previous != null) {
+      previous.clear();
+    }
+  }
+
+  /**
+   * Open a channel for the file, from the node-wide pool if one is configured, otherwise a fresh
+   * one that is owned by the returned lease.
+   */
+  public static Lease open(Path path) throws IOException {
+    return open(path, false);
+  }
+
+  /**
+   * Open a channel for the file like {@link #open(Path)}, optionally for direct I/O.
+   *
+   * @throws UnsupportedOperationException if direct I/O is not supported by the JVM
+   */
+  public static Lease open(Path path, boolean direct) throws IOException {
+    FileChannelPool pool = shared;
+    if (pool == null) {
+      return new Lease(openChannel(path, direct), -1, null, null);
+    }
+    return pool.acquire(path, direct);
+  }
+
+  private static FileChannel openChannel(Path path, boolean direct) throws IOException {
+    if (!direct) {
+      return FileChannel.open(path, StandardOpenOption.READ);
+    }
+    OpenOption directOption = DirectIo.openOption();
+    if (directOption == null) {
+      throw new UnsupportedOperationException("Direct I/O is not supported by this JVM.");
+    }
+    return FileChannel.open(path, StandardOpenOption.READ, directOption);
+  }
+
+  /** Acquire a lease for a channel to the file, opening the file only if needed. */
+  public Lease acquire(Path path) throws IOException {
+    return acquire(path, false);
+  }
+
+  /** Acquire a lease for a channel to the file, optionally opened for direct I/O. */
+  public Lease acquire(Path path, boolean direct) throws IOException {
+    long lastModified = FileMetadataCache.getLastModified(path);
+    ChannelKey key = new ChannelKey(path, direct);
+    synchronized (this) {
+      PooledChannel pooled = channels.get(key);
+      if (pooled != null && pooled.lastModified == lastModified && pooled.channel.isOpen()) {
+        hits++;
+        pooled.refCount++;
+        return new Lease(pooled.channel, lastModified, this, pooled);
+      }
+      misses++;
+    }
+    FileChannel chan = openChannel(path, direct);
+    PooledChannel pooled = new PooledChannel(path, chan, lastModified);
+    synchronized (this) {
+      PooledChannel previous = channels.put(key, pooled);
+      if (previous != null) {
+        retire(previous);
+      }
+      Iterator<PooledChannel> it = channels.values().iterator();
+      while (channels.size() > maxOpenChannels && it.hasNext()) {
+        PooledChannel eldest = it.next();
+        if (eldest == pooled) {
+          continue;
+        }
+        it.remove();
+        retire(eldest);
+      }
+      return new Lease(chan, lastModified, this, pooled);
+    }
+  }
+
+  /** Mark the channel as no longer pooled, closing it if it is not in use. */
+  private void retire(PooledChannel pooled) {
+    pooled.retired = true;
+    if (pooled.refCount == 0) {
+      pooled.close();
+    }
+  }
+
+  private synchronized void release(PooledChannel pooled) {
+    pooled.refCount--;
+    if (pooled.retired && pooled.refCount == 0) {
+      pooled.close();
+    }
+  }
+
+  /** Remove all channels from the pool, closing them once they are no longer in use. */
+  public synchronized void clear() {
+    for (PooledChannel pooled : channels.values()) {
+      retire(pooled);
+    }
+    channels.clear();
+  }
+
+  /** Get the number of channels in the pool. */
+  public synchronized int size() {
+    return channels.size();
+  }
+
+  public synchronized long getHits() {
+    return hits;
+  }
+
+  public synchronized long getMisses() {
+    return misses;
+  }
+
+  public int getMaxOpenChannels() {
+    return maxOpenChannels;
+  }
+
+  private static final class ChannelKey {
+    final Path path;
+    final boolean direct;
+
+    private ChannelKey(Path path, boolean direct) {
+      this.path = path;
+      this.direct = direct;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (o == null || getClass() != o.getClass()) {
+        return false;
+      }
+      ChannelKey key = (ChannelKey) o;
+      return direct == key.direct && path.equals(key.path);
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(path, direct);
+    }
+  }
+
+  private static final class PooledChannel {
+    final Path path;
+    final FileChannel channel;
+    final long lastModified;
+    int refCount = 1;
+    boolean retired = false;
+
+    private PooledChannel(Path path, FileChannel channel, long lastModified) {
+      this.path = path;
+      this.channel = channel;
+      this.lastModified = lastModified;
+    }
+
+    void close() {
+      try {
+        channel.close();
+      } catch (IOException e) {
+        log.warn("Failed to close pooled channel for {}: {}", path, e.getMessage());
+      }
+    }
+  }
+
+  /**
+   * A handle on an open channel. The channel must not be closed directly, close the lease instead.
+   */
+  public static final class Lease implements Closeable {
+    private final FileChannel channel;
+    private final long lastModified;
+    private final FileChannelPool pool;
+    private final PooledChannel pooled;
+    private boolean closed = false;
+
+    private Lease(
+        FileChannel channel, long lastModified, FileChannelPool pool, PooledChannel pooled) {
+      this.channel = channel;
+      this.lastModified = lastModified;
+      this.pool = pool;
+      this.pooled = pooled;
+    }
+
+    public FileChannel channel() {
+      return channel;
+    }
+
+    /**
+     * Modification time of the file in milliseconds when the channel was acquired, or {@code -1} if
+     * it was not determined.
+     */
+    public long lastModified() {
+      return lastModified;
+    }
+
+    /** Whether the channel is shared with other users. */
+    public boolean isPooled() {
+      return pooled != null;
+    }
+
+    @Override
+    public void close() throws IOException {
+      if (closed) {
+        return;
+      }
+      closed = true;
+      if (pooled == null) {
+        channel.close();
+      } else {
+        pool.release(pooled);
+      }
+    }
+  }
+}
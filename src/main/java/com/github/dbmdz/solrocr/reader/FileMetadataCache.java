@@ -0,0 +1,138 @@
+package com.github.dbmdz.solrocr.reader;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Node-wide cache for the size and modification time of source files.
+ *
+ * <p>Validating pointers and determining the versions of sources needs a {@code stat} call for
+ * every file of every highlighted document, which can take a large share of the highlighting time
+ * on network filesystems. With this cache, the metadata of a file is only fetched again once it is
+ * older than the configured time-to-live. Changes to a file are thus only picked up after at most
+ * that much time, which includes the versions of the sections in the {@link SectionCache}.
+ *
+ * <p>If no cache is configured, the metadata is fetched from the filesystem on every call.
+ */
+public class FileMetadataCache {
+  private static final Logger log = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+
+  private static volatile FileMetadataCache shared;
+
+  /** Size and modification time of a file. */
+  public static final class Metadata {
+    static final Metadata MISSING = new Metadata(false, -1, -1);
+
+    public final boolean exists;
+    public final long size;
+    public final long lastModified;
+
+    Metadata(boolean exists, long size, long lastModified) {
+      this.exists = exists;
+      this.size = size;
+      this.lastModified = lastModified;
+    }
+  }
+
+  private final Cache<Path, Metadata> cache;
+  private final long ttlMs;
+  private final long maxEntries;
+
+  public FileMetadataCache(long ttlMs, long maxEntries) {
+    this.ttlMs = ttlMs;
+    this.maxEntries = maxEntries;
+    this.cache =
+        CacheBuilder.newBuilder()
+            .expireAfterWrite(ttlMs, TimeUnit.MILLISECONDS)
+            .maximumSize(maxEntries)
+            .recordStats()
+            .build();
+  }
+
+  /** Get the node-wide cache instance, or {@code null} if none was configured. */
+  public static FileMetadataCache getShared() {
+    return shared;
+  }
+
+  /**
+   * Configure the node-wide cache instance, a TTL {@code <= 0} disables the cache.
+   *
+   * <p>If a cache with the same settings already exists, it is kept.
+   */
+  public static synchronized void configureShared(long ttlMs, long maxEntries) {
+    FileMetadataCache previous = shared;
+    if (previous != null && previous.ttlMs == ttlMs && previous.maxEntries == maxEntries) {
+      return;
+    }
+    if (ttlMs <= 0 || maxEntries <= 0) {
+      if (previous != null) {
+        log.info("Disabling file metadata cache.");
+      }
+      shared = null;
+    } else {
+      log.info(
+          "Configuring file metadata cache for up to {} files with a TTL of {}ms.",
+          maxEntries,
+          ttlMs);
+      shared = new FileMetadataCache(ttlMs, maxEntries);
+    }
+  }
+
+  /** Get the metadata of the file, from the node-wide cache if one is configured. */
+  public static Metadata get(Path path) throws IOException {
+    FileMetadataCache cache = shared;
+    if (cache == null) {
+      return stat(path);
+    }
+    return cache.getOrLoad(path);
+  }
+
+  /** Get the modification time of the file, from the node-wide cache if one is configured. */
+  public static long getLastModified(Path path) throws IOException {
+    Metadata metadata = get(path);
+    if (!metadata.exists) {
+      throw new NoSuchFileException(path.toString());
+    }
+    return metadata.lastModified;
+  }
+
+  private Metadata getOrLoad(Path path) throws IOException {
+    try {
+      return cache.get(path, () -> stat(path));
+    } catch (ExecutionException | UncheckedExecutionException e) {
+      if (e.getCause() instanceof IOException) {
+        throw (IOException) e.getCause();
+      }
+      throw new IOException(e.getCause());
+    }
+  }
+
+  private static Metadata stat(Path path) throws IOException {
+    try {
+      BasicFileAttributes attrs = Files.readAttributes(path, BasicFileAttributes.class);
+      return new Metadata(true, attrs.size(), attrs.lastModifiedTime().toMillis());
+    } catch (NoSuchFileException e) {
+      return Metadata.MISSING;
+    }
+  }
+
+  public CacheStats getStats() {
+    return cache.stats();
+  }
+
+  public long size() {
+    return cache.size();
+  }
+}
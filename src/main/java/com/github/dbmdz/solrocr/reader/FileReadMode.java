@@ -0,0 +1,34 @@
+package com.github.dbmdz.solrocr.reader;
+
+import java.util.Locale;
+
+/** How OCR files on the local filesystem are read during highlighting. */
+public enum FileReadMode {
+  /** Positional reads via a {@link java.nio.channels.FileChannel}, the default. */
+  CHANNEL,
+  /**
+   * Map the whole file into memory and serve all reads from the mapping, avoiding a syscall per
+   * read. Best suited for fast local storage where most of the OCR files are in the page cache.
+   */
+  MMAP,
+  /**
+   * Positional reads with direct I/O ({@code O_DIRECT}), bypassing the operating system's page
+   * cache, so that highlighting lots of cold OCR files does not evict the pages of the index. Reads
+   * go through block-aligned buffers from the node-wide {@link AlignedBufferPool}. Files on
+   * filesystems without support for direct I/O are read like with {@link #CHANNEL}.
+   */
+  DIRECT;
+
+  /** Parse a read mode from its (case-insensitive) name, as used in {@code solrconfig.xml}. */
+  public static FileReadMode fromString(String mode) {
+    try {
+      return FileReadMode.valueOf(mode.trim().toUpperCase(Locale.US));
+    } catch (IllegalArgumentException e) {
+      throw new IllegalArgumentException(
+          String.format(
+              Locale.US,
+              "Unknown file read mode '%s', must be one of 'channel', 'mmap' or 'direct'.",
+              mode));
+    }
+  }
+}
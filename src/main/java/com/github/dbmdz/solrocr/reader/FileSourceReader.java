@@ -3,41 +3,132 @@ package com.github.dbmdz.solrocr.reader;
 import com.github.dbmdz.solrocr.model.SourcePointer;
 import java.io.IOException;
 import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
 import java.nio.channels.FileChannel;
 import java.nio.channels.SeekableByteChannel;
-import java.nio.file.Files;
+import java.nio.file.FileSystemException;
 import java.nio.file.Path;
-import java.nio.file.StandardOpenOption;
 
-/** Reads from a single file source using a {@link FileChannel}. */
+/**
+ * Reads from a single file source using a {@link FileChannel}.
+ *
+ * <p>The file is only opened once its data is first accessed. The channel is taken from the
+ * node-wide {@link FileChannelPool}, if one is configured.
+ *
+ * <p>With direct I/O enabled, reads bypass the page cache (see {@link FileReadMode#DIRECT}). If the
+ * filesystem does not support direct I/O, the file is read regularly.
+ */
 public class FileSourceReader extends BaseSourceReader {
   private final Path path;
-  private final FileChannel chan;
-  private int fileSizeBytes = -1;
+  private boolean directIo;
+  private int blockSize = -1;
+  private FileChannelPool.Lease lease;
+  private FileChannel chan;
+  private long fileSizeBytes = -1;
+  private long lastModified = -1;
 
   public FileSourceReader(Path path, SourcePointer ptr, int sectionSize, int maxCacheEntries)
       throws IOException {
+    this(path, ptr, sectionSize, maxCacheEntries, false);
+  }
+
+  public FileSourceReader(
+      Path path, SourcePointer ptr, int sectionSize, int maxCacheEntries, boolean directIo)
+      throws IOException {
     super(ptr, sectionSize, maxCacheEntries);
     this.path = path;
-    this.chan = (FileChannel) Files.newByteChannel(path, StandardOpenOption.READ);
+    this.directIo = directIo;
+  }
+
+  /** Get the channel for the file, opening it if needed. */
+  private FileChannel channel() throws IOException {
+    if (this.lease == null) {
+      if (this.directIo) {
+        this.lease = openDirect();
+      }
+      if (this.lease == null) {
+        this.lease = FileChannelPool.open(path);
+      }
+      this.chan = lease.channel();
+      if (this.lastModified < 0) {
+        this.lastModified = lease.lastModified();
+      }
+    }
+    return this.chan;
+  }
+
+  /** Open the file for direct I/O, or return {@code null} and disable it if that's not possible. */
+  private FileChannelPool.Lease openDirect() throws IOException {
+    if (this.blockSize < 0) {
+      this.blockSize = DirectIo.isSupported() ? DirectIo.getBlockSize(path) : -1;
+    }
+    if (this.blockSize < 0) {
+      DirectIo.warnAboutFallback(path, "unsupported by the JVM or the filesystem");
+      this.directIo = false;
+      return null;
+    }
+    try {
+      return FileChannelPool.open(path, true);
+    } catch (FileSystemException e) {
+      // e.g. EINVAL from filesystems without support for O_DIRECT, like tmpfs
+      DirectIo.warnAboutFallback(path, e.getMessage());
+      this.directIo = false;
+      return null;
+    }
+  }
+
+  private int read(ByteBuffer dst, long start) throws IOException {
+    FileChannel chan = this.channel();
+    if (this.directIo) {
+      return DirectIo.read(chan, dst, start, blockSize);
+    }
+    return chan.read(dst, start);
   }
 
   @Override
-  public int readBytes(ByteBuffer dst, int start) throws IOException {
-    return this.chan.read(dst, start);
+  public int readBytes(ByteBuffer dst, long start) throws IOException {
+    try {
+      return this.read(dst, start);
+    } catch (ClosedChannelException e) {
+      // A pooled channel is closed for all of its users if a thread reading from it is
+      // interrupted, unless that was us, get a fresh channel and try again.
+      if (!lease.isPooled() || Thread.currentThread().isInterrupted()) {
+        throw e;
+      }
+      this.releaseResources();
+      return this.read(dst, start);
+    }
   }
 
   @Override
-  public int length() throws IOException {
+  public long length() throws IOException {
     if (this.fileSizeBytes < 0) {
-      this.fileSizeBytes = (int) this.chan.size();
+      this.fileSizeBytes = this.channel().size();
     }
     return this.fileSizeBytes;
   }
 
   @Override
   public void close() throws IOException {
-    this.chan.close();
+    this.releaseResources();
+  }
+
+  @Override
+  public void releaseResources() throws IOException {
+    if (this.lease != null) {
+      FileChannelPool.Lease released = this.lease;
+      this.lease = null;
+      this.chan = null;
+      released.close();
+    }
+  }
+
+  @Override
+  public long getVersion() throws IOException {
+    if (this.lastModified < 0) {
+      this.lastModified = FileMetadataCache.getLastModified(this.path);
+    }
+    return this.lastModified;
   }
 
   @Override
@@ -47,6 +138,12 @@ public class FileSourceReader extends BaseSourceReader {
 
   @Override
   public SeekableByteChannel getByteChannel() throws IOException {
-    return this.chan;
+    FileChannel chan = this.channel();
+    if (lease.isPooled() || this.directIo) {
+      // Closing the pooled channel would close it for all other users as well, and direct reads
+      // need to be aligned
+      return super.getByteChannel();
+    }
+    return chan;
   }
 }
@@ -0,0 +1,314 @@
+package com.github.dbmdz.solrocr.reader;
+
+import com.github.dbmdz.solrocr.model.SourcePointer;
+import com.google.common.hash.Hashing;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.invoke.MethodHandles;
+import java.net.HttpURLConnection;
+import java.net.MalformedURLException;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.stream.Collectors;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Reads from a resource on a HTTP(S) server, fetching only the needed byte ranges with {@code
+ * Range} requests.
+ *
+ * <p>Connections are kept alive and re-used across requests to the same server by the JDK's
+ * connection cache, as long as the response bodies are consumed completely, which we always do.
+ * Adjacent sections are fetched with a single request during prefetching (see {@link
+ * BaseSourceReader#prefetch(long[], long[], int, int, int)}) and end up in the node-wide {@link
+ * SectionCache}, if one is configured. The version of the resource for the cache is derived from
+ * its {@code Last-Modified} or {@code ETag} header, resources without either are not cached across
+ * requests.
+ *
+ * <p>Since source pointers come from the indexed documents, HTTP sources are disabled unless the
+ * URL prefixes they may be read from were explicitly allowed with {@link #allowPrefixes(String)}.
+ * Otherwise anybody who can send documents to the index could make the node request arbitrary
+ * URLs, including ones on its internal network. Redirects are not followed for the same reason.
+ */
+public class HttpSourceReader extends BaseSourceReader {
+  private static final Logger log = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+
+  private static volatile List<URL> allowedPrefixes = Collections.emptyList();
+
+  /** Timeout for establishing a connection to the server */
+  static final int CONNECT_TIMEOUT_MS = 10 * 1000;
+
+  /** Timeout for waiting on data from the server */
+  static final int READ_TIMEOUT_MS = 30 * 1000;
+
+  private final URL url;
+  private long contentLength = -1;
+  private long version = Long.MIN_VALUE;
+
+  public HttpSourceReader(URL url, SourcePointer ptr, int sectionSize, int maxCacheEntries) {
+    super(ptr, sectionSize, maxCacheEntries);
+    this.url = url;
+  }
+
+  /**
+   * Allow reading from URLs that start with one of the given prefixes.
+   *
+   * <p>Prefixes are allowed by both the highlighting component and the indexing components, so
+   * allowing is additive: a prefix that was allowed once stays allowed for the whole node. A prefix
+   * without a path allows all resources on the server, prefixes with a path should end with a
+   * {@code /} to only allow the resources below it.
+   *
+   * @param prefixes comma-separated URL prefixes, e.g. {@code https://ocr.example.com/files/}, can
+   *     be {@code null} or empty
+   * @throws IllegalArgumentException if one of the prefixes is not a HTTP(S) URL
+   */
+  public static synchronized void allowPrefixes(String prefixes) {
+    List<String> toAllow =
+        prefixes == null
+            ? Collections.emptyList()
+            : Arrays.stream(prefixes.split(","))
+                .map(String::trim)
+                .filter(p -> !p.isEmpty())
+                .collect(Collectors.toList());
+    if (toAllow.isEmpty()) {
+      return;
+    }
+    List<URL> allowed = new ArrayList<>(allowedPrefixes);
+    for (String prefix : toAllow) {
+      URL prefixUrl;
+      try {
+        prefixUrl = new URL(prefix);
+      } catch (MalformedURLException e) {
+        throw new IllegalArgumentException(
+            String.format(Locale.US, "Allowed HTTP prefix '%s' is not a valid URL.", prefix), e);
+      }
+      if (!isHttp(prefixUrl) || prefixUrl.getHost().isEmpty()) {
+        throw new IllegalArgumentException(
+            String.format(
+                Locale.US, "Allowed HTTP prefix '%s' is not a http(s) URL with a host.", prefix));
+      }
+      if (allowed.stream().noneMatch(u -> u.toString().equals(prefixUrl.toString()))) {
+        log.info("Allowing HTTP sources with prefix {}.", prefixUrl);
+        allowed.add(prefixUrl);
+      }
+    }
+    allowedPrefixes = Collections.unmodifiableList(allowed);
+  }
+
+  /**
+   * Check if the URL may be read from, i.e. if it is on the same server as one of the allowed
+   * prefixes and its normalized path starts with the path of the prefix.
+   */
+  public static boolean isAllowed(URL url) {
+    if (!isHttp(url) || url.getUserInfo() != null) {
+      return false;
+    }
+    String path;
+    try {
+      path = new URI(url.toString()).normalize().getPath();
+    } catch (URISyntaxException e) {
+      return false;
+    }
+    if (path == null
+        || path.equals("..")
+        || path.startsWith("../")
+        || path.contains("/../")
+        || path.endsWith("/..")) {
+      return false;
+    }
+    for (URL prefix : allowedPrefixes) {
+      if (prefix.getProtocol().equalsIgnoreCase(url.getProtocol())
+          && prefix.getHost().equalsIgnoreCase(url.getHost())
+          && effectivePort(prefix) == effectivePort(url)
+          && path.startsWith(prefix.getPath())) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private static boolean isHttp(URL url) {
+    String protocol = url.getProtocol().toLowerCase(Locale.US);
+    return protocol.equals("http") || protocol.equals("https");
+  }
+
+  private static int effectivePort(URL url) {
+    return url.getPort() < 0 ? url.getDefaultPort() : url.getPort();
+  }
+
+  private HttpURLConnection openConnection(String method) throws IOException {
+    HttpURLConnection conn = (HttpURLConnection) url.openConnection();
+    conn.setRequestMethod(method);
+    conn.setConnectTimeout(CONNECT_TIMEOUT_MS);
+    conn.setReadTimeout(READ_TIMEOUT_MS);
+    conn.setUseCaches(false);
+    // Redirects could lead to URLs that are not allowed
+    conn.setInstanceFollowRedirects(false);
+    // Compressed responses would break the byte offsets
+    conn.setRequestProperty("Accept-Encoding", "identity");
+    return conn;
+  }
+
+  /** Fetch length and version of the resource with a {@code HEAD} request. */
+  private void fetchMetadata() throws IOException {
+    HttpURLConnection conn = openConnection("HEAD");
+    try {
+      int status = conn.getResponseCode();
+      if (status != HttpURLConnection.HTTP_OK) {
+        throw new IOException(
+            String.format(Locale.US, "Could not access %s, server returned HTTP %d.", url, status));
+      }
+      long length = conn.getContentLengthLong();
+      if (length < 0) {
+        throw new IOException(
+            String.format(Locale.US, "Server did not return a length for %s.", url));
+      }
+      this.contentLength = length;
+      long lastModified = conn.getLastModified();
+      String etag = conn.getHeaderField("ETag");
+      if (lastModified > 0) {
+        this.version = lastModified;
+      } else if (etag != null && !etag.startsWith("W/")) {
+        // Weak ETags don't guarantee byte-identical content, so only strong ones are used
+        this.version =
+            Hashing.murmur3_128().hashString(etag, StandardCharsets.UTF_8).asLong()
+                & Long.MAX_VALUE;
+      } else {
+        this.version = -1;
+      }
+    } finally {
+      drain(conn);
+    }
+  }
+
+  @Override
+  public int readBytes(ByteBuffer dst, long start) throws IOException {
+    long length = this.length();
+    if (start >= length) {
+      return -1;
+    }
+    int len = (int) Math.min(dst.remaining(), length - start);
+    if (len == 0) {
+      return 0;
+    }
+    HttpURLConnection conn = openConnection("GET");
+    conn.setRequestProperty(
+        "Range", String.format(Locale.US, "bytes=%d-%d", start, start + len - 1));
+    boolean reuseConnection = true;
+    try {
+      int status = conn.getResponseCode();
+      if (status == HttpURLConnection.HTTP_OK && (start > 0 || len < length)) {
+        // Server ignored the range and sends the complete resource. Skipping to the requested
+        // range would download everything in front of it again for every section, so we fail
+        // instead of silently degrading to reading the whole resource over and over. We also
+        // don't want to download the rest of it just to be able to re-use the connection.
+        reuseConnection = false;
+        throw new IOException(
+            String.format(
+                Locale.US,
+                "Server for %s does not support range requests, which are required for HTTP"
+                    + " sources.",
+                url));
+      } else if (status == 416) {
+        return -1;
+      } else if (status != HttpURLConnection.HTTP_PARTIAL && status != HttpURLConnection.HTTP_OK) {
+        throw new IOException(
+            String.format(
+                Locale.US,
+                "Could not read bytes %d-%d from %s, server returned HTTP %d.",
+                start,
+                start + len - 1,
+                url,
+                status));
+      }
+      return read(conn.getInputStream(), dst, len);
+    } finally {
+      if (reuseConnection) {
+        drain(conn);
+      } else {
+        conn.disconnect();
+      }
+    }
+  }
+
+  private static int read(InputStream is, ByteBuffer dst, int len) throws IOException {
+    int numRead = 0;
+    if (dst.hasArray()) {
+      byte[] arr = dst.array();
+      int offset = dst.arrayOffset() + dst.position();
+      while (numRead < len) {
+        int read = is.read(arr, offset + numRead, len - numRead);
+        if (read < 0) {
+          break;
+        }
+        numRead += read;
+      }
+      dst.position(dst.position() + numRead);
+    } else {
+      byte[] buf = new byte[Math.min(len, 8192)];
+      while (numRead < len) {
+        int read = is.read(buf, 0, Math.min(buf.length, len - numRead));
+        if (read < 0) {
+          break;
+        }
+        dst.put(buf, 0, read);
+        numRead += read;
+      }
+    }
+    return numRead == 0 ? -1 : numRead;
+  }
+
+  /**
+   * Consume and close the response body, so the JDK can re-use the connection for subsequent
+   * requests.
+   */
+  private static void drain(HttpURLConnection conn) {
+    try {
+      InputStream is = conn.getErrorStream();
+      if (is == null) {
+        is = conn.getInputStream();
+      }
+      try (InputStream toClose = is) {
+        byte[] buf = new byte[8192];
+        while (toClose.read(buf) >= 0) {}
+      }
+    } catch (IOException e) {
+      // Connection is not re-usable, nothing we can do about that
+      conn.disconnect();
+    }
+  }
+
+  @Override
+  public long length() throws IOException {
+    if (this.contentLength < 0) {
+      this.fetchMetadata();
+    }
+    return this.contentLength;
+  }
+
+  @Override
+  public long getVersion() throws IOException {
+    if (this.version == Long.MIN_VALUE) {
+      this.fetchMetadata();
+    }
+    return this.version;
+  }
+
+  @Override
+  public void close() {
+    // Connections are managed by the JDK, nothing to do here
+  }
+
+  @Override
+  public String getIdentifier() {
+    return this.url.toString();
+  }
+}
@@ -0,0 +1,251 @@
+package com.github.dbmdz.solrocr.reader;
+
+import com.github.dbmdz.solrocr.model.SourcePointer;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.lang.invoke.MethodHandles;
+import java.nio.ByteBuffer;
+import java.nio.channels.SeekableByteChannel;
+import java.util.Locale;
+import java.util.concurrent.Semaphore;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Decorator that only creates the underlying reader once its data is first accessed.
+ *
+ * <p>Before the reader is used, a permit is acquired from the request-wide and the node-wide limit
+ * on open sources (if any), waiting until one becomes available. The permits are released once the
+ * reader is closed. This bounds the number of sources that are open at the same time, no matter how
+ * many documents are waiting to be highlighted.
+ */
+public class LazySourceReader implements SourceReader {
+  private static final Logger log = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+
+  private static volatile Semaphore nodePermits;
+  private static int maxOpenPerNode = 0;
+
+  /** Creates the actual reader. */
+  @FunctionalInterface
+  public interface ReaderFactory {
+    SourceReader create() throws IOException;
+  }
+
+  private final SourcePointer pointer;
+  private final ReaderFactory factory;
+  private final Semaphore requestPermits;
+  private Semaphore acquiredNodePermits;
+  private boolean holdsRequestPermit = false;
+  private SourceReader input;
+  private boolean active = false;
+  private boolean closed = false;
+
+  /**
+   * @param pointer the pointer the reader is going to read from
+   * @param factory creates the actual reader
+   * @param requestPermits limits the number of open sources of the current request, can be {@code
+   *     null}
+   */
+  public LazySourceReader(SourcePointer pointer, ReaderFactory factory, Semaphore requestPermits) {
+    this.pointer = pointer;
+    this.factory = factory;
+    this.requestPermits = requestPermits;
+  }
+
+  /**
+   * Configure the maximum number of lazily opened sources that can be open at the same time across
+   * the whole node, a value {@code <= 0} disables the limit.
+   *
+   * <p>Readers that are open while the limit changes return their permit to the limit they were
+   * opened under.
+   */
+  public static synchronized void configureMaxOpenPerNode(int maxOpen) {
+    if (maxOpen == maxOpenPerNode) {
+      return;
+    }
+    if (maxOpen > 0) {
+      log.info("Limiting the number of open OCR sources on this node to {}.", maxOpen);
+    }
+    maxOpenPerNode = maxOpen;
+    nodePermits = maxOpen > 0 ? new Semaphore(maxOpen, true) : null;
+  }
+
+  /** Get the reader, waiting for permits and creating it if needed. */
+  private SourceReader input() throws IOException {
+    if (!active) {
+      activate(true);
+    }
+    return input;
+  }
+
+  /**
+   * Acquire the permits and create the reader, if needed.
+   *
+   * @param wait whether to wait for permits to become available
+   * @return whether the reader is active, i.e. can be used
+   */
+  private boolean activate(boolean wait) throws IOException {
+    if (closed) {
+      throw new IOException(String.format(Locale.US, "Reader for %s is already closed.", pointer));
+    }
+    try {
+      if (requestPermits != null && !holdsRequestPermit) {
+        holdsRequestPermit = acquire(requestPermits, wait);
+        if (!holdsRequestPermit) {
+          return false;
+        }
+      }
+      Semaphore node = nodePermits;
+      if (node != null && acquiredNodePermits == null) {
+        if (!acquire(node, wait)) {
+          releasePermits();
+          return false;
+        }
+        acquiredNodePermits = node;
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      releasePermits();
+      throw new InterruptedIOException(
+          String.format(Locale.US, "Interrupted while waiting to open %s.", pointer));
+    }
+    if (input == null) {
+      try {
+        this.input = factory.create();
+      } catch (IOException | RuntimeException e) {
+        releasePermits();
+        throw e;
+      }
+    }
+    active = true;
+    return true;
+  }
+
+  private static boolean acquire(Semaphore permits, boolean wait) throws InterruptedException {
+    if (wait) {
+      permits.acquire();
+      return true;
+    }
+    return permits.tryAcquire();
+  }
+
+  private boolean holdsPermits() {
+    return acquiredNodePermits != null || holdsRequestPermit;
+  }
+
+  private void releasePermits() {
+    if (acquiredNodePermits != null) {
+      acquiredNodePermits.release();
+      acquiredNodePermits = null;
+    }
+    if (holdsRequestPermit) {
+      requestPermits.release();
+      holdsRequestPermit = false;
+    }
+  }
+
+  @Override
+  public void close() throws IOException {
+    if (closed) {
+      return;
+    }
+    closed = true;
+    active = false;
+    try {
+      if (input != null) {
+        input.close();
+      }
+    } finally {
+      releasePermits();
+    }
+  }
+
+  @Override
+  public void releaseResources() throws IOException {
+    if (input != null) {
+      input.releaseResources();
+    }
+    active = false;
+    releasePermits();
+  }
+
+  @Override
+  public SourcePointer getPointer() {
+    return pointer;
+  }
+
+  @Override
+  public String getIdentifier() {
+    if (input == null) {
+      return pointer.toString();
+    }
+    return input.getIdentifier();
+  }
+
+  @Override
+  public long length() throws IOException {
+    return input().length();
+  }
+
+  @Override
+  public long getVersion() throws IOException {
+    return input().getVersion();
+  }
+
+  @Override
+  public String readAsciiString(long start, int len) throws IOException {
+    return input().readAsciiString(start, len);
+  }
+
+  @Override
+  public String readUtf8String(long start, int byteLen) throws IOException {
+    return input().readUtf8String(start, byteLen);
+  }
+
+  @Override
+  public Section getAsciiSection(long offset) throws IOException {
+    return input().getAsciiSection(offset);
+  }
+
+  /**
+   * Prefetching is only a hint, so if the reader is not in use yet, we don't wait for permits and
+   * skip the prefetching if none are available. Afterwards, the permits and the resources of the
+   * reader are released again, so a read-ahead never holds on to permits while its reader waits to
+   * be highlighted, which could block the readers that are next in line indefinitely.
+   */
+  @Override
+  public int prefetch(long[] starts, long[] ends, int fromIdx, int toIdx, int maxBytes)
+      throws IOException {
+    if (active) {
+      return input.prefetch(starts, ends, fromIdx, toIdx, maxBytes);
+    }
+    if (!activate(false)) {
+      return toIdx;
+    }
+    try {
+      return input.prefetch(starts, ends, fromIdx, toIdx, maxBytes);
+    } finally {
+      if (holdsPermits()) {
+        releaseResources();
+      }
+    }
+  }
+
+  @Override
+  public void recordScan(int numBytes) {
+    // Only called after a scan, so there's no need to open the source for this
+    if (input != null) {
+      input.recordScan(numBytes);
+    }
+  }
+
+  @Override
+  public int readBytes(ByteBuffer dst, long start) throws IOException {
+    return input().readBytes(dst, start);
+  }
+
+  @Override
+  public SeekableByteChannel getByteChannel() throws IOException {
+    return input().getByteChannel();
+  }
+}
@@ -0,0 +1,174 @@
+package com.github.dbmdz.solrocr.reader;
+
+import com.github.dbmdz.solrocr.model.SourcePointer;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Locale;
+
+/**
+ * Reads from a single file source that is mapped into memory as a whole.
+ *
+ * <p>All reads are served straight from the mapping, i.e. there is no syscall per read and no
+ * intermediate copy buffer. This is most useful when the OCR files mostly reside in the page cache,
+ * where the cost of positional reads through a {@link FileChannel} dominates.
+ *
+ * <p>Sections are copied from the mapping with a single bulk copy and then cached like with any
+ * other reader, so sections that are used over and over again while building passages are only
+ * copied once. Prefetching is a no-op, since there are no reads to coalesce: the pages of the
+ * mapping are loaded by the operating system on the first access.
+ *
+ * <p>A single mapping can span at most 2 GiB, so larger files are mapped in multiple chunks.
+ *
+ * <p>Note that Java 8 offers no portable way to unmap a file, the mapping is released once the
+ * reader has been garbage-collected.
+ */
+public class MappedFileSourceReader extends BaseSourceReader {
+  /** Size of the chunks that files larger than 2 GiB are mapped in */
+  static final int CHUNK_SIZE = 1 << 30;
+
+  private final Path path;
+  private MappedByteBuffer[] chunks;
+  private final long fileSizeBytes;
+  private long lastModified = -1;
+
+  public MappedFileSourceReader(Path path, SourcePointer ptr, int sectionSize, int maxCacheEntries)
+      throws IOException {
+    super(ptr, sectionSize, maxCacheEntries);
+    this.path = path;
+    try (FileChannel chan = FileChannel.open(path, StandardOpenOption.READ)) {
+      this.fileSizeBytes = chan.size();
+      // The mappings stay valid after the channel has been closed
+      this.chunks = new MappedByteBuffer[(int) ((fileSizeBytes + CHUNK_SIZE - 1) / CHUNK_SIZE)];
+      for (int i = 0; i < chunks.length; i++) {
+        long chunkStart = (long) i * CHUNK_SIZE;
+        chunks[i] =
+            chan.map(
+                FileChannel.MapMode.READ_ONLY,
+                chunkStart,
+                Math.min(CHUNK_SIZE, fileSizeBytes - chunkStart));
+      }
+    }
+  }
+
+  /**
+   * Get a view of the chunk that contains {@code start} for the range, leaving the chunk's own
+   * state untouched. The range must not cross the end of the chunk.
+   */
+  private ByteBuffer view(long start, int len) throws IOException {
+    if (chunks == null) {
+      throw new IOException(String.format(Locale.US, "Reader for %s is already closed.", path));
+    }
+    ByteBuffer view = chunks[(int) (start / CHUNK_SIZE)].duplicate();
+    int chunkOffset = (int) (start % CHUNK_SIZE);
+    view.position(chunkOffset);
+    view.limit(chunkOffset + len);
+    return view;
+  }
+
+  @Override
+  public int readBytes(ByteBuffer dst, long start) throws IOException {
+    if (start >= fileSizeBytes) {
+      return -1;
+    }
+    int numRead = 0;
+    while (dst.hasRemaining() && start + numRead < fileSizeBytes) {
+      long pos = start + numRead;
+      long chunkEnd = Math.min(fileSizeBytes, (pos / CHUNK_SIZE + 1) * CHUNK_SIZE);
+      int len = (int) Math.min(dst.remaining(), chunkEnd - pos);
+      dst.put(view(pos, len));
+      numRead += len;
+    }
+    return numRead;
+  }
+
+  /** Sections are read from the mapping on demand, so there is nothing to plan. */
+  @Override
+  public int prefetch(long[] starts, long[] ends, int fromIdx, int toIdx, int maxBytes) {
+    return toIdx;
+  }
+
+  @Override
+  public String readUtf8String(long start, int byteLen) throws IOException {
+    if (start < 0) {
+      throw new IllegalArgumentException("start must be >= 0");
+    }
+    if (start + byteLen > fileSizeBytes) {
+      byteLen = (int) (fileSizeBytes - start);
+    }
+    if (byteLen <= 0) {
+      return "";
+    }
+    if (start / CHUNK_SIZE != (start + byteLen - 1) / CHUNK_SIZE) {
+      // Ranges across chunks are rare enough to not bother with avoiding the copy
+      return super.readUtf8String(start, byteLen);
+    }
+    // Skip partial UTF8 multi-byte sequences at the start and the end of the range, the decoder
+    // operates directly on the mapping, so there's no intermediate copy of the raw bytes.
+    ByteBuffer buf = view(start, byteLen);
+    return decodeUtf8(buf);
+  }
+
+  /** Decode the buffer between its position and limit, skipping partial sequences at both ends. */
+  private static String decodeUtf8(ByteBuffer buf) {
+    int start = buf.position();
+    int end = buf.limit();
+    while (start < end && isContinuationByte(buf.get(start))) {
+      start++;
+    }
+    int lastLeadIdx = end - 1;
+    while (lastLeadIdx > start && isContinuationByte(buf.get(lastLeadIdx))) {
+      lastLeadIdx--;
+    }
+    if (lastLeadIdx >= start && end - lastLeadIdx < sequenceLength(buf.get(lastLeadIdx))) {
+      end = lastLeadIdx;
+    }
+    buf.position(start);
+    buf.limit(end);
+    return StandardCharsets.UTF_8.decode(buf).toString();
+  }
+
+  private static boolean isContinuationByte(byte b) {
+    return (b & 0xC0) == 0x80;
+  }
+
+  /** Number of bytes in the UTF8 sequence introduced by the given lead byte. */
+  private static int sequenceLength(byte lead) {
+    int b = lead & 0xFF;
+    if (b >> 5 == 0b110) {
+      return 2;
+    } else if (b >> 4 == 0b1110) {
+      return 3;
+    } else if (b >> 3 == 0b11110) {
+      return 4;
+    }
+    return 1;
+  }
+
+  @Override
+  public long length() {
+    return this.fileSizeBytes;
+  }
+
+  @Override
+  public void close() {
+    this.chunks = null;
+  }
+
+  @Override
+  public long getVersion() throws IOException {
+    if (this.lastModified < 0) {
+      this.lastModified = FileMetadataCache.getLastModified(this.path);
+    }
+    return this.lastModified;
+  }
+
+  @Override
+  public String getIdentifier() {
+    return this.path.toString();
+  }
+}
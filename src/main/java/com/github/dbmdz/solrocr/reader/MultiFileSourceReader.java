@@ -5,10 +5,10 @@ import com.github.dbmdz.solrocr.util.ArrayUtils;
 import java.io.IOException;
 import java.lang.invoke.MethodHandles;
 import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
 import java.nio.channels.FileChannel;
-import java.nio.file.Files;
+import java.nio.file.FileSystemException;
 import java.nio.file.Path;
-import java.nio.file.StandardOpenOption;
 import java.util.Arrays;
 import java.util.List;
 import java.util.stream.Collectors;
@@ -18,47 +18,90 @@ import org.slf4j.LoggerFactory;
 /**
  * Reads from multiple file sources, treating them as a single large chunk of data, using a {@link
  * FileChannel}.
+ *
+ * <p>With direct I/O enabled, reads bypass the page cache (see {@link FileReadMode#DIRECT}). Files
+ * on filesystems without support for direct I/O are read regularly.
  */
 public class MultiFileSourceReader extends BaseSourceReader {
   private static final Logger log = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
 
   /** A single file that has been opened, responsible for a subsection of the concattenated data */
   private static final class OpenFile {
-    private final FileChannel channel;
-    final int startOffset;
+    private FileChannelPool.Lease lease;
+    final long startOffset;
     final Path path;
+    private final int blockSize;
 
-    private OpenFile(Path p, int startOffset) throws IOException {
+    private OpenFile(Path p, long startOffset, boolean directIo) throws IOException {
       this.path = p;
-      channel = FileChannel.open(p, StandardOpenOption.READ);
       this.startOffset = startOffset;
+      FileChannelPool.Lease directLease = null;
+      int blockSize = directIo && DirectIo.isSupported() ? DirectIo.getBlockSize(p) : -1;
+      if (directIo && blockSize < 0) {
+        DirectIo.warnAboutFallback(p, "unsupported by the JVM or the filesystem");
+      } else if (directIo) {
+        try {
+          directLease = FileChannelPool.open(p, true);
+        } catch (FileSystemException e) {
+          // See FileSourceReader#openDirect
+          DirectIo.warnAboutFallback(p, e.getMessage());
+          blockSize = -1;
+        }
+      }
+      this.blockSize = blockSize;
+      this.lease = directLease != null ? directLease : FileChannelPool.open(p);
+    }
+
+    private int readFromChannel(ByteBuffer dst, long start) throws IOException {
+      if (blockSize > 0) {
+        return DirectIo.read(this.lease.channel(), dst, start, blockSize);
+      }
+      return this.lease.channel().read(dst, start);
     }
 
-    public int read(ByteBuffer dst, int start) throws IOException {
-      return this.channel.read(dst, start);
+    public int read(ByteBuffer dst, long start) throws IOException {
+      try {
+        return this.readFromChannel(dst, start);
+      } catch (ClosedChannelException e) {
+        // See FileSourceReader#readBytes
+        if (!lease.isPooled() || Thread.currentThread().isInterrupted()) {
+          throw e;
+        }
+        this.lease.close();
+        this.lease = FileChannelPool.open(path, blockSize > 0);
+        return this.readFromChannel(dst, start);
+      }
     }
 
     public void close() throws IOException {
-      this.channel.close();
+      this.lease.close();
     }
   }
 
   private final Path[] paths;
   private final OpenFile[] openFiles;
-  private final int[] startOffsets;
-  private final int numBytes;
+  private final long[] startOffsets;
+  private final long numBytes;
+  private final boolean directIo;
+  private long lastModified = -1;
 
   public MultiFileSourceReader(
       List<Path> paths, SourcePointer ptr, int sectionSize, int maxCacheEntries) {
+    this(paths, ptr, sectionSize, maxCacheEntries, false);
+  }
+
+  public MultiFileSourceReader(
+      List<Path> paths, SourcePointer ptr, int sectionSize, int maxCacheEntries, boolean directIo) {
     super(ptr, sectionSize, maxCacheEntries);
+    this.directIo = directIo;
     this.paths = paths.toArray(new Path[0]);
     this.openFiles = new OpenFile[paths.size()];
-    this.startOffsets = new int[paths.size()];
-    int offset = 0;
+    this.startOffsets = new long[paths.size()];
+    long offset = 0;
     try {
       for (int i = 0; i < paths.size(); i++) {
         startOffsets[i] = offset;
-        offset += (int) Files.size(this.paths[i]);
+        offset += FileMetadataCache.get(this.paths[i]).size;
       }
     } catch (IOException e) {
       // Should've been caught by SourcePointer validation
@@ -68,14 +111,14 @@ public class MultiFileSourceReader extends BaseSourceReader {
   }
 
   @Override
-  public int readBytes(ByteBuffer dst, int start) throws IOException {
+  public int readBytes(ByteBuffer dst, long start) throws IOException {
     int fileIdx = ArrayUtils.binaryFloorIdxSearch(startOffsets, start);
     if (fileIdx < 0) {
       throw new RuntimeException(String.format("Offset %d is out of bounds", start));
     }
-    int fileOffset = startOffsets[fileIdx];
+    long fileOffset = startOffsets[fileIdx];
     if (openFiles[fileIdx] == null) {
-      openFiles[fileIdx] = new OpenFile(paths[fileIdx], fileOffset);
+      openFiles[fileIdx] = new OpenFile(paths[fileIdx], fileOffset, directIo);
     }
     OpenFile file = openFiles[fileIdx];
 
@@ -89,7 +132,7 @@ public class MultiFileSourceReader extends BaseSourceReader {
           break;
         }
         if (openFiles[fileIdx] == null) {
-          openFiles[fileIdx] = new OpenFile(paths[fileIdx], start + numRead);
+          openFiles[fileIdx] = new OpenFile(paths[fileIdx], start + numRead, directIo);
         }
         file = openFiles[fileIdx];
         fileOffset = startOffsets[fileIdx];
@@ -99,16 +142,23 @@ public class MultiFileSourceReader extends BaseSourceReader {
   }
 
   @Override
-  public int length() {
+  public long length() {
     return this.numBytes;
   }
 
   @Override
   public void close() throws IOException {
-    for (OpenFile file : openFiles) {
+    this.releaseResources();
+  }
+
+  @Override
+  public void releaseResources() {
+    for (int i = 0; i < openFiles.length; i++) {
+      OpenFile file = openFiles[i];
       if (file == null) {
         continue;
       }
+      openFiles[i] = null;
       try {
         file.close();
       } catch (IOException e) {
@@ -117,6 +167,17 @@ public class MultiFileSourceReader extends BaseSourceReader {
     }
   }
 
+  /** The version of the concatenated sources is the most recent modification time of any file. */
+  @Override
+  public long getVersion() throws IOException {
+    if (this.lastModified < 0) {
+      for (Path p : paths) {
+        this.lastModified = Math.max(this.lastModified, FileMetadataCache.getLastModified(p));
+      }
+    }
+    return this.lastModified;
+  }
+
   @Override
   public String getIdentifier() {
     return String.format(
@@ -0,0 +1,108 @@
+package com.github.dbmdz.solrocr.reader;
+
+import com.github.dbmdz.solrocr.model.SourcePointer;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * View of a source that starts at a byte offset in it, i.e. offset 0 of the view is offset {@code
+ * base} of the source.
+ *
+ * <p>Used for pointers that are indexed relative to the start of their regions, see {@link
+ * SourcePointer#getIndexBase(long)}. The view has its own identifier, so offsets of the view and
+ * of the complete source never get mixed up in node-wide caches.
+ */
+public class OffsetSourceReader implements SourceReader {
+  final SourceReader input;
+  private final long base;
+
+  public OffsetSourceReader(SourceReader input, long base) {
+    this.input = input;
+    this.base = base;
+  }
+
+  /** Get the offset in the source that offset 0 of the view corresponds to. */
+  public long getBase() {
+    return base;
+  }
+
+  @Override
+  public void close() throws IOException {
+    input.close();
+  }
+
+  @Override
+  public void releaseResources() throws IOException {
+    input.releaseResources();
+  }
+
+  @Override
+  public SourcePointer getPointer() {
+    return input.getPointer();
+  }
+
+  @Override
+  public String getIdentifier() {
+    return input.getIdentifier() + "@" + base;
+  }
+
+  @Override
+  public boolean isInMemory() {
+    return input.isInMemory();
+  }
+
+  @Override
+  public long length() throws IOException {
+    return Math.max(0, input.length() - base);
+  }
+
+  @Override
+  public long getVersion() throws IOException {
+    return input.getVersion();
+  }
+
+  @Override
+  public String readAsciiString(long start, int len) throws IOException {
+    return input.readAsciiString(start + base, len);
+  }
+
+  @Override
+  public String readUtf8String(long start, int byteLen) throws IOException {
+    return input.readUtf8String(start + base, byteLen);
+  }
+
+  @Override
+  public Section getAsciiSection(long offset) throws IOException {
+    Section section = input.getAsciiSection(offset + base);
+    if (section.start >= base) {
+      return new Section(section.start - base, section.end - base, section.bytes);
+    }
+    // Section of the source that starts in front of the view, cut off the part outside of it
+    byte[] bytes =
+        Arrays.copyOfRange(section.bytes, (int) (base - section.start), section.length());
+    return new Section(0, section.end - base, bytes);
+  }
+
+  @Override
+  public int prefetch(long[] starts, long[] ends, int fromIdx, int toIdx, int maxBytes)
+      throws IOException {
+    long[] sourceStarts = new long[toIdx];
+    long[] sourceEnds = new long[toIdx];
+    for (int i = fromIdx; i < toIdx; i++) {
+      sourceStarts[i] = starts[i] + base;
+      sourceEnds[i] = ends[i] + base;
+    }
+    return input.prefetch(sourceStarts, sourceEnds, fromIdx, toIdx, maxBytes);
+  }
+
+  @Override
+  public void recordScan(int numBytes) {
+    input.recordScan(numBytes);
+  }
+
+  @Override
+  public int readBytes(ByteBuffer dst, long start) throws IOException {
+    return input.readBytes(dst, start + base);
+  }
+}
@@ -0,0 +1,216 @@
+package com.github.dbmdz.solrocr.reader;
+
+import com.github.dbmdz.solrocr.reader.SourceReader.Section;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.nio.ByteBuffer;
+import java.util.Objects;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Byte-bounded cache for source sections that is shared across readers, documents and requests.
+ *
+ * <p>Sections are keyed by the identifier of their source, its version (e.g. the modification time
+ * of a file), the section size and the index of the section in the source. A changed source thus
+ * never produces stale hits, the outdated sections simply age out of the cache.
+ *
+ * <p>Eviction is LRU with constant cost per operation. Sections can optionally be stored off-heap,
+ * in which case they are copied back onto the heap on every hit. Note that off-heap memory is only
+ * released once the evicted buffers have been garbage-collected, size {@code
+ * -XX:MaxDirectMemorySize} accordingly.
+ */
+public class SectionCache {
+  private static final Logger log = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+
+  /** Estimated per-entry overhead for the key, the cache entry and the value wrapper. */
+  private static final int ENTRY_OVERHEAD_BYTES = 128;
+
+  private static volatile SectionCache shared;
+
+  private final Cache<Key, Object> cache;
+  private final long maxSizeBytes;
+  private final boolean offHeap;
+
+  public SectionCache(long maxSizeBytes, boolean offHeap) {
+    this.maxSizeBytes = maxSizeBytes;
+    this.offHeap = offHeap;
+    this.cache =
+        CacheBuilder.newBuilder()
+            .maximumWeight(maxSizeBytes)
+            .weigher((Key k, Object v) -> weigh(v))
+            .recordStats()
+            .build();
+  }
+
+  /** Get the node-wide cache instance, or {@code null} if none was configured. */
+  public static SectionCache getShared() {
+    return shared;
+  }
+
+  /**
+   * Configure the node-wide cache instance.
+   *
+   * <p>If a cache with the same settings already exists, it is kept, so that cores that are
+   * (re-)loaded don't throw away the cached sections of all other cores.
+   *
+   * @param maxSizeBytes maximum size of the cache in bytes, a value {@code <= 0} disables the cache
+   * @param offHeap whether to store the cached sections outside of the Java heap
+   */
+  public static synchronized void configureShared(long maxSizeBytes, boolean offHeap) {
+    if (maxSizeBytes <= 0) {
+      if (shared != null) {
+        log.info("Disabling shared section cache.");
+      }
+      shared = null;
+      return;
+    }
+    if (shared != null && shared.maxSizeBytes == maxSizeBytes && shared.offHeap == offHeap) {
+      return;
+    }
+    log.info(
+        "Configuring shared section cache with a maximum size of {} bytes (off-heap: {}).",
+        maxSizeBytes,
+        offHeap);
+    shared = new SectionCache(maxSizeBytes, offHeap);
+  }
+
+  private static int weigh(Object value) {
+    int len;
+    if (value instanceof ByteBuffer) {
+      len = ((ByteBuffer) value).capacity();
+    } else {
+      len = ((Section) value).length();
+    }
+    return len + ENTRY_OVERHEAD_BYTES;
+  }
+
+  /**
+   * Get the section from the cache, loading it with {@code loader} if it is not present.
+   *
+   * <p>Concurrent requests for the same section only load it once.
+   */
+  public Section get(Key key, Callable<Section> loader) throws IOException {
+    Object cached;
+    try {
+      cached = cache.get(key, offHeap ? () -> toOffHeap(loader.call()) : loader::call);
+    } catch (ExecutionException | UncheckedExecutionException e) {
+      if (e.getCause() instanceof IOException) {
+        throw (IOException) e.getCause();
+      } else if (e.getCause() instanceof RuntimeException) {
+        throw (RuntimeException) e.getCause();
+      }
+      throw new IOException(e.getCause());
+    }
+    if (cached instanceof ByteBuffer) {
+      return fromOffHeap(key, (ByteBuffer) cached);
+    }
+    return (Section) cached;
+  }
+
+  /** Get the section from the cache, or {@code null} if it is not present. */
+  public Section getIfPresent(Key key) {
+    Object cached = cache.getIfPresent(key);
+    if (cached instanceof ByteBuffer) {
+      return fromOffHeap(key, (ByteBuffer) cached);
+    }
+    return (Section) cached;
+  }
+
+  /** Add a section to the cache. */
+  public void put(Key key, Section section) {
+    cache.put(key, offHeap ? toOffHeap(section) : section);
+  }
+
+  private static ByteBuffer toOffHeap(Section section) {
+    ByteBuffer buf = ByteBuffer.allocateDirect(section.length());
+    buf.put(section.bytes);
+    buf.flip();
+    return buf;
+  }
+
+  private static Section fromOffHeap(Key key, ByteBuffer buf) {
+    byte[] data = new byte[buf.capacity()];
+    buf.duplicate().get(data);
+    long start = (long) key.sectionIdx * key.sectionSize;
+    return new Section(start, start + key.sectionSize, data);
+  }
+
+  public long getMaxSizeBytes() {
+    return maxSizeBytes;
+  }
+
+  public boolean isOffHeap() {
+    return offHeap;
+  }
+
+  /** Get the approximate number of sections in the cache. */
+  public long size() {
+    return cache.size();
+  }
+
+  public CacheStats stats() {
+    return cache.stats();
+  }
+
+  /** Remove all sections from the cache. */
+  public void clear() {
+    cache.invalidateAll();
+  }
+
+  /** Identifies a single section of a specific version of a source. */
+  public static final class Key {
+    final String identifier;
+    final long version;
+    final int sectionSize;
+    final int sectionIdx;
+
+    public Key(String identifier, long version, int sectionSize, int sectionIdx) {
+      this.identifier = identifier;
+      this.version = version;
+      this.sectionSize = sectionSize;
+      this.sectionIdx = sectionIdx;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (o == null || getClass() != o.getClass()) {
+        return false;
+      }
+      Key key = (Key) o;
+      return version == key.version
+          && sectionSize == key.sectionSize
+          && sectionIdx == key.sectionIdx
+          && identifier.equals(key.identifier);
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(identifier, version, sectionSize, sectionIdx);
+    }
+
+    @Override
+    public String toString() {
+      return "Key{"
+          + "identifier='"
+          + identifier
+          + '\''
+          + ", version="
+          + version
+          + ", sectionSize="
+          + sectionSize
+          + ", sectionIdx="
+          + sectionIdx
+          + '}';
+    }
+  }
+}
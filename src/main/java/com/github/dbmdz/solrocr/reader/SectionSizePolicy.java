@@ -0,0 +1,314 @@
+package com.github.dbmdz.solrocr.reader;
+
+import com.github.dbmdz.solrocr.model.SourcePointer;
+import com.github.dbmdz.solrocr.model.SourcePointer.Source;
+import com.github.dbmdz.solrocr.model.SourcePointer.SourceType;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Picks the section size for every source that is highlighted, instead of using the same size for
+ * all sources.
+ *
+ * <p>Sources are grouped into storage tiers by their type and location, i.e. the file store for
+ * local files and the host for HTTP sources. For every tier, the sizes and durations of all section
+ * reads are tracked, from which the fixed overhead per read (seek, syscall, network round-trip) and
+ * the time per byte are estimated with an exponentially weighted linear regression. Additionally,
+ * the number of bytes that break locators have to scan to find a break is tracked.
+ *
+ * <p>The section size for a tier is then chosen so that the time spent on transferring a section is
+ * at least as large as the fixed overhead of reading it, and so that a break locator typically only
+ * needs a single section. The size is rounded to a power of two, clamped to the configured limits
+ * and never larger than the source itself. As long as there is not enough data for a tier, the
+ * configured base size is used.
+ *
+ * <p>Since almost all reads are of exactly the section size, the fixed and per-byte costs could
+ * never be told apart if every reader used the chosen size. Every {@link #PROBE_INTERVAL}-th
+ * reader of a tier thus probes with twice or half of the chosen size, alternately.
+ */
+public class SectionSizePolicy {
+  private static final Logger log = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+
+  /** Minimum number of reads in a tier before the size is adapted */
+  static final int MIN_SAMPLES = 32;
+
+  /** Weight of new observations in the moving averages */
+  static final double ALPHA = 0.02;
+
+  /** Every n-th reader of a tier reads with a different section size to probe the storage */
+  static final int PROBE_INTERVAL = 4;
+
+  private static volatile SectionSizePolicy shared;
+
+  private final int baseSize;
+  private final int minSize;
+  private final int maxSize;
+  private final Map<String, Tier> tiers = new ConcurrentHashMap<>();
+
+  /** File store names by directory, to avoid looking up the file store for every source */
+  private final Cache<Path, String> fileStores =
+      CacheBuilder.newBuilder().maximumSize(10_000).build();
+
+  public SectionSizePolicy(int baseSize, int minSize, int maxSize) {
+    if (minSize <= 0 || minSize > maxSize) {
+      throw new IllegalArgumentException(
+          String.format(
+              Locale.US,
+              "Invalid section size limits, must be 0 < min <= max: min=%d, max=%d",
+              minSize,
+              maxSize));
+    }
+    this.baseSize = baseSize;
+    this.minSize = minSize;
+    this.maxSize = maxSize;
+  }
+
+  /** Get the node-wide policy, or {@code null} if adaptive section sizes are disabled. */
+  public static SectionSizePolicy getShared() {
+    return shared;
+  }
+
+  /**
+   * Configure the node-wide policy.
+   *
+   * <p>If a policy with the same settings already exists, it is kept along with its statistics.
+   *
+   * @param enabled whether to adapt the section size, if not, {@code baseSize} is used for all
+   *     sources
+   * @param baseSize section size to use for tiers without enough statistics
+   * @param minSize smallest section size to use
+   * @param maxSize largest section size to use
+   */
+  public static synchronized void configureShared(
+      boolean enabled, int baseSize, int minSize, int maxSize) {
+    SectionSizePolicy previous = shared;
+    if (!enabled) {
+      if (previous != null) {
+        log.info("Disabling adaptive section sizes.");
+      }
+      shared = null;
+      return;
+    }
+    if (previous != null
+        && previous.baseSize == baseSize
+        && previous.minSize == minSize
+        && previous.maxSize == maxSize) {
+      return;
+    }
+    log.info(
+        "Enabling adaptive section sizes between {} and {} bytes, starting at {} bytes.",
+        minSize,
+        maxSize,
+        baseSize);
+    shared = new SectionSizePolicy(baseSize, minSize, maxSize);
+  }
+
+  /**
+   * Create a reader for the pointer, with the section size picked by the node-wide policy, if one
+   * is configured.
+   *
+   * <p>The per-reader cache keeps the memory budget of {@code sectionSize * maxCacheEntries} bytes,
+   * i.e. readers with larger sections cache fewer of them.
+   */
+  public static SourceReader getReader(
+      SourcePointer pointer, int sectionSize, int maxCacheEntries, FileReadMode readMode)
+      throws IOException {
+    SectionSizePolicy policy = shared;
+    if (policy == null) {
+      return pointer.getReader(sectionSize, maxCacheEntries, readMode);
+    }
+    Tier tier = policy.getTier(pointer);
+    int size = policy.chooseSize(tier, getSourceLength(pointer));
+    long cacheBudget = (long) sectionSize * maxCacheEntries;
+    int numEntries = (int) Math.max(2, (cacheBudget + size - 1) / size);
+    SourceReader reader = pointer.getReader(size, numEntries, readMode);
+    SourceReader source =
+        reader instanceof OffsetSourceReader ? ((OffsetSourceReader) reader).input : reader;
+    if (source instanceof BaseSourceReader) {
+      ((BaseSourceReader) source).setTier(tier);
+    }
+    return reader;
+  }
+
+  /**
+   * Get the number of bytes in a pointer's sources, or -1 if it can't be determined cheaply, i.e.
+   * without the {@link FileMetadataCache} or for sources other than local files.
+   */
+  private static long getSourceLength(SourcePointer pointer) throws IOException {
+    if (FileMetadataCache.getShared() == null) {
+      return -1;
+    }
+    long length = 0;
+    for (Source source : pointer.sources) {
+      if (source.type != SourceType.FILESYSTEM) {
+        return -1;
+      }
+      length += FileMetadataCache.get(source.getPath()).size;
+    }
+    return length;
+  }
+
+  /** Get the storage tier of a pointer, determined by its first source. */
+  Tier getTier(SourcePointer pointer) {
+    Source source = pointer.sources.get(0);
+    String location;
+    if (source.type == SourceType.HTTP) {
+      try {
+        URL url = new URL(source.target);
+        location = url.getHost() + (url.getPort() >= 0 ? ":" + url.getPort() : "");
+      } catch (MalformedURLException e) {
+        location = "unknown";
+      }
+    } else if (source.provider != null) {
+      location = source.provider.getName();
+    } else if (source.getPath() != null) {
+      location = getFileStore(source.getPath());
+    } else {
+      location = "unknown";
+    }
+    String name = source.type.name().toLowerCase(Locale.US) + ":" + location;
+    return tiers.computeIfAbsent(name, Tier::new);
+  }
+
+  private String getFileStore(Path path) {
+    Path dir = path.toAbsolutePath().getParent();
+    if (dir == null) {
+      return "unknown";
+    }
+    try {
+      return fileStores.get(
+          dir,
+          () -> {
+            try {
+              return Files.getFileStore(dir).toString();
+            } catch (IOException e) {
+              return "unknown";
+            }
+          });
+    } catch (ExecutionException e) {
+      return "unknown";
+    }
+  }
+
+  /** Pick the section size for a source of the given length in the tier. */
+  int chooseSize(Tier tier, long sourceLength) {
+    double size = tier.estimateIdealSize();
+    if (Double.isNaN(size)) {
+      size = baseSize;
+    }
+    long readerNumber = tier.numReaders.getAndIncrement();
+    boolean isProbe = readerNumber % PROBE_INTERVAL == PROBE_INTERVAL - 1;
+    if (isProbe) {
+      size = (readerNumber / PROBE_INTERVAL) % 2 == 0 ? size * 2 : size / 2;
+    }
+    if (sourceLength > 0) {
+      size = Math.min(size, sourceLength);
+    }
+    // Round to the nearest power of two
+    int rounded = Integer.highestOneBit((int) Math.min(Integer.MAX_VALUE, Math.max(1, size)));
+    if (rounded < Integer.MAX_VALUE / 2 && size - rounded > (rounded << 1) - size) {
+      rounded <<= 1;
+    }
+    int chosen = Math.max(minSize, Math.min(maxSize, rounded));
+    if (!isProbe) {
+      tier.lastChosenSize = chosen;
+    }
+    return chosen;
+  }
+
+  /** Get the most recently chosen section size for every tier. */
+  public Map<String, Integer> getChosenSizes() {
+    Map<String, Integer> sizes = new TreeMap<>();
+    for (Tier tier : tiers.values()) {
+      if (tier.lastChosenSize > 0) {
+        sizes.put(tier.name, tier.lastChosenSize);
+      }
+    }
+    return sizes;
+  }
+
+  /** Get the smallest section size that is currently chosen for any tier. */
+  public int getSmallestChosenSize() {
+    return getChosenSizes().values().stream().mapToInt(i -> i).min().orElse(baseSize);
+  }
+
+  /** Get the largest section size that is currently chosen for any tier. */
+  public int getLargestChosenSize() {
+    return getChosenSizes().values().stream().mapToInt(i -> i).max().orElse(baseSize);
+  }
+
+  /** Read and scan statistics for a storage tier. */
+  static final class Tier {
+    final String name;
+    volatile int lastChosenSize = -1;
+    final AtomicLong numReaders = new AtomicLong();
+
+    private long numReads = 0;
+    // Weighted moments of bytes (x) and nanoseconds (y) per read
+    private double meanX = 0;
+    private double meanY = 0;
+    private double meanXX = 0;
+    private double meanXY = 0;
+
+    private long numScans = 0;
+    private double meanScan = 0;
+
+    Tier(String name) {
+      this.name = name;
+    }
+
+    /** Record a read of {@code numBytes} bytes from the storage that took {@code nanos}. */
+    synchronized void recordRead(int numBytes, long nanos) {
+      numReads++;
+      double alpha = Math.max(ALPHA, 1.0 / numReads);
+      double x = numBytes;
+      double y = nanos;
+      meanX += alpha * (x - meanX);
+      meanY += alpha * (y - meanY);
+      meanXX += alpha * (x * x - meanXX);
+      meanXY += alpha * (x * y - meanXY);
+    }
+
+    /** Record that a break locator had to scan {@code numBytes} bytes to find a break. */
+    synchronized void recordScan(int numBytes) {
+      numScans++;
+      meanScan += Math.max(ALPHA, 1.0 / numScans) * (numBytes - meanScan);
+    }
+
+    /**
+     * Estimate the ideal section size from the statistics, or {@code NaN} if there's not enough
+     * data.
+     */
+    synchronized double estimateIdealSize() {
+      if (numReads < MIN_SAMPLES) {
+        return Double.NaN;
+      }
+      double varX = meanXX - meanX * meanX;
+      double covXY = meanXY - meanX * meanY;
+      // Without enough variation in the read sizes, overhead and throughput can't be told apart
+      if (varX < 0.01 * meanX * meanX || covXY <= 0) {
+        return Double.NaN;
+      }
+      double nanosPerByte = covXY / varX;
+      double nanosPerRead = meanY - nanosPerByte * meanX;
+      if (nanosPerRead <= 0) {
+        return Double.NaN;
+      }
+      return Math.max(nanosPerRead / nanosPerByte, meanScan);
+    }
+  }
+}
@@ -0,0 +1,153 @@
+package com.github.dbmdz.solrocr.reader;
+
+import com.github.dbmdz.solrocr.model.SourcePointer;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * Decorator that shares a single reader and its cached sections between multiple users, e.g. the
+ * highlighters of several fields of a document that point to the same source.
+ *
+ * <p>Every user gets its own handle via {@link #share()}, all access to the underlying reader is
+ * serialized, so handles can be used from different threads at the same time. The underlying reader
+ * is only closed once all handles have been closed.
+ *
+ * <p>When a handle is closed while others are still open, the resources of the underlying reader
+ * are released, since the remaining handles might not be used for a while. Otherwise, a shared
+ * {@link LazySourceReader} would keep its permit until its last handle is closed, and the readers
+ * of other documents that wait for the permit could block the remaining handles indefinitely.
+ */
+public class SharedSourceReader implements SourceReader {
+  private static final class Shared {
+    final SourceReader input;
+    int numHandles = 1;
+
+    Shared(SourceReader input) {
+      this.input = input;
+    }
+  }
+
+  private final Shared shared;
+  private boolean closed = false;
+
+  public SharedSourceReader(SourceReader input) {
+    this(new Shared(input));
+  }
+
+  private SharedSourceReader(Shared shared) {
+    this.shared = shared;
+  }
+
+  /** Get another handle for the underlying reader, which has to be closed by its user. */
+  public SharedSourceReader share() {
+    synchronized (shared) {
+      if (shared.numHandles == 0) {
+        throw new IllegalStateException("Reader for " + getIdentifier() + " is already closed.");
+      }
+      shared.numHandles++;
+      return new SharedSourceReader(shared);
+    }
+  }
+
+  @Override
+  public void close() throws IOException {
+    synchronized (shared) {
+      if (closed) {
+        return;
+      }
+      closed = true;
+      shared.numHandles--;
+      if (shared.numHandles == 0) {
+        shared.input.close();
+      } else {
+        shared.input.releaseResources();
+      }
+    }
+  }
+
+  @Override
+  public void releaseResources() throws IOException {
+    synchronized (shared) {
+      shared.input.releaseResources();
+    }
+  }
+
+  @Override
+  public SourcePointer getPointer() {
+    return shared.input.getPointer();
+  }
+
+  @Override
+  public String getIdentifier() {
+    return shared.input.getIdentifier();
+  }
+
+  @Override
+  public boolean isInMemory() {
+    return shared.input.isInMemory();
+  }
+
+  @Override
+  public long length() throws IOException {
+    synchronized (shared) {
+      return shared.input.length();
+    }
+  }
+
+  @Override
+  public long getVersion() throws IOException {
+    synchronized (shared) {
+      return shared.input.getVersion();
+    }
+  }
+
+  @Override
+  public String readAsciiString(long start, int len) throws IOException {
+    synchronized (shared) {
+      return shared.input.readAsciiString(start, len);
+    }
+  }
+
+  @Override
+  public String readUtf8String(long start, int byteLen) throws IOException {
+    synchronized (shared) {
+      return shared.input.readUtf8String(start, byteLen);
+    }
+  }
+
+  @Override
+  public Section getAsciiSection(long offset) throws IOException {
+    synchronized (shared) {
+      return shared.input.getAsciiSection(offset);
+    }
+  }
+
+  @Override
+  public int prefetch(long[] starts, long[] ends, int fromIdx, int toIdx, int maxBytes)
+      throws IOException {
+    synchronized (shared) {
+      return shared.input.prefetch(starts, ends, fromIdx, toIdx, maxBytes);
+    }
+  }
+
+  @Override
+  public void recordScan(int numBytes) {
+    synchronized (shared) {
+      shared.input.recordScan(numBytes);
+    }
+  }
+
+  @Override
+  public int readBytes(ByteBuffer dst, long start) throws IOException {
+    synchronized (shared) {
+      return shared.input.readBytes(dst, start);
+    }
+  }
+
+  @Override
+  public int readBytes(byte[] dst, int dstOffset, long start, int len) throws IOException {
+    synchronized (shared) {
+      return shared.input.readBytes(dst, dstOffset, start, len);
+    }
+  }
+}
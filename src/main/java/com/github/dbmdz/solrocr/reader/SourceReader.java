@@ -11,6 +11,14 @@ public interface SourceReader extends AutoCloseable {
   @Override
   void close() throws IOException;
 
+  /**
+   * Release resources like open file handles that can be re-acquired on demand, while keeping
+   * cached data around. The reader can still be used afterwards.
+   *
+   * <p>The default implementation does nothing.
+   */
+  default void releaseResources() throws IOException {}
+
   /** Get the pointer this reader is reading from. */
   SourcePointer getPointer();
 
@@ -18,7 +26,27 @@ public interface SourceReader extends AutoCloseable {
   String getIdentifier();
 
   /** Get the number of bytes in the source. */
-  int length() throws IOException;
+  long length() throws IOException;
+
+  /**
+   * Whether all data of the source is already held in memory, so reading it ahead is pointless.
+   *
+   * <p>The default implementation returns {@code false}.
+   */
+  default boolean isInMemory() {
+    return false;
+  }
+
+  /**
+   * Get the version of the source, e.g. its modification time, or a negative value if the source is
+   * not versioned.
+   *
+   * <p>Used to check whether data that was cached for the source across requests is still valid,
+   * unversioned sources are never cached across requests.
+   */
+  default long getVersion() throws IOException {
+    return -1;
+  }
 
   /**
    * Read a section from the source as an ASCII/Latin1 string.
@@ -26,10 +54,10 @@ public interface SourceReader extends AutoCloseable {
    * <p>This method should be implemented as fast as possible, ideally without going through a
    * decoder.
    */
-  String readAsciiString(int start, int len) throws IOException;
+  String readAsciiString(long start, int len) throws IOException;
 
   /** Read a section from the source as an UTF8 string. */
-  String readUtf8String(int start, int byteLen) throws IOException;
+  String readUtf8String(long start, int byteLen) throws IOException;
 
   /**
    * Read a section aligned to this reader's section size.
@@ -37,15 +65,44 @@ public interface SourceReader extends AutoCloseable {
    * <p>This method should be implemented as efficiently as possible, since it's called in the
    * hottest loop of the highlighting logic (passage formation)
    */
-  Section getAsciiSection(int offset) throws IOException;
+  Section getAsciiSection(long offset) throws IOException;
+
+  /**
+   * Plan reads for the byte ranges {@code [starts[i], ends[i])} for {@code fromIdx <= i < toIdx},
+   * which are going to be needed soon, in ascending order.
+   *
+   * <p>Implementations should load the sections covering the ranges with as few, large reads as
+   * possible, but are free to only plan for a prefix of the ranges, e.g. because the budget is
+   * exhausted. The caller is then expected to call this method again for the remaining ranges once
+   * they are about to be needed.
+   *
+   * <p>The default implementation does nothing.
+   *
+   * @param maxBytes maximum number of bytes that are loaded by this call and kept in memory in
+   *     addition to the sections that are currently being worked on
+   * @return the index of the first range that was <strong>not</strong> planned for, i.e. {@code
+   *     toIdx} if all ranges were handled
+   */
+  default int prefetch(long[] starts, long[] ends, int fromIdx, int toIdx, int maxBytes)
+      throws IOException {
+    return toIdx;
+  }
+
+  /**
+   * Record that a break locator had to scan {@code numBytes} bytes of the source to find a break,
+   * used to adapt the section size (see {@link SectionSizePolicy}).
+   *
+   * <p>The default implementation does nothing.
+   */
+  default void recordScan(int numBytes) {}
 
   /**
    * Read into {@param dst} starting at {@param start} from the source. , returning the number of
    * bytes read.
    */
-  int readBytes(ByteBuffer dst, int start) throws IOException;
+  int readBytes(ByteBuffer dst, long start) throws IOException;
 
-  default int readBytes(byte[] dst, int dstOffset, int start, int len) throws IOException {
+  default int readBytes(byte[] dst, int dstOffset, long start, int len) throws IOException {
     return readBytes(ByteBuffer.wrap(dst, dstOffset, len), start);
   }
 
@@ -57,7 +114,7 @@ public interface SourceReader extends AutoCloseable {
    */
   default SeekableByteChannel getByteChannel() throws IOException {
     return new SeekableByteChannel() {
-      int position = 0;
+      long position = 0;
       boolean closed = false;
 
       @Override
@@ -79,7 +136,7 @@ public interface SourceReader extends AutoCloseable {
 
       @Override
       public SeekableByteChannel position(long newPosition) throws IOException {
-        this.position = (int) newPosition;
+        this.position = newPosition;
         return this;
       }
 
@@ -106,20 +163,71 @@ public interface SourceReader extends AutoCloseable {
     };
   }
 
+  /**
+   * A section of the source, as raw bytes.
+   *
+   * <p>Break locating works on the bytes directly, the ASCII/Latin1 text of the section is only
+   * materialized if it is requested via {@link Section#getText()}.
+   */
   class Section {
-    public final int start;
-    public final int end;
-    public final String text;
+    /** Start byte offset of the section, inclusive */
+    public final long start;
 
-    public Section(int start, int end, String text) {
-      /* Start byte offset of the section, inclusive */
+    /** End byte offset of the section, exclusive */
+    public final long end;
+
+    /**
+     * Bytes of the section, can be shorter than {@code end - start} for the last section of a
+     * source. Sections are shared between readers, so this <strong>must not be modified</strong>.
+     */
+    public final byte[] bytes;
+
+    private String text;
+
+    public Section(long start, long end, byte[] bytes) {
       this.start = start;
-      /* End byte offset of the section, exclusive */
       this.end = end;
-      /* ASCII text of the section */
+      this.bytes = bytes;
+    }
+
+    /**
+     * Create a section from a String, with one byte per character.
+     *
+     * <p>Characters outside of the Latin1 range are mapped to {@code 0xFF}, which never occurs in
+     * UTF-8 and thus can't be mistaken for markup.
+     */
+    public Section(long start, long end, String text) {
+      this.start = start;
+      this.end = end;
+      this.bytes = new byte[text.length()];
+      for (int i = 0; i < text.length(); i++) {
+        char c = text.charAt(i);
+        this.bytes[i] = c <= 0xFF ? (byte) c : (byte) 0xFF;
+      }
       this.text = text;
     }
 
+    /** Get the number of bytes in the section. */
+    public int length() {
+      return bytes.length;
+    }
+
+    /** Get a read-only {@link ByteBuffer} view of the section's bytes. */
+    public ByteBuffer asByteBuffer() {
+      return ByteBuffer.wrap(bytes).asReadOnlyBuffer();
+    }
+
+    /** Get the ASCII/Latin1 text of the section. */
+    public String getText() {
+      if (text == null) {
+        // Construct a String without going through a decoder to save on CPU.
+        // Given that the method has been deprecated since Java 1.1 and was never removed, I don't
+        // think this is very risky 😅
+        text = new String(bytes, 0, 0, bytes.length);
+      }
+      return text;
+    }
+
     @Override
     public String toString() {
       return "Section{" + "start=" + start + ", end=" + end + '}';
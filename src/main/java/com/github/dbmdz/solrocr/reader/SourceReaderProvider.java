@@ -0,0 +1,49 @@
+package com.github.dbmdz.solrocr.reader;
+
+import com.github.dbmdz.solrocr.model.SourcePointer;
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Provides readers for source targets with custom prefixes, e.g. {@code s3://}, without having to
+ * patch the plugin.
+ *
+ * <p>Providers are discovered with {@link java.util.ServiceLoader}, i.e. they need to be listed in
+ * {@code META-INF/services/com.github.dbmdz.solrocr.reader.SourceReaderProvider} in their JAR.
+ * Discovered providers are only used once they have been enabled by their name, see {@link
+ * SourceReaderProviders#enable(ClassLoader, String)}.
+ *
+ * <p>Implementations need to have a public no-arg constructor and must be thread-safe, a single
+ * instance is shared across the whole node.
+ */
+public interface SourceReaderProvider {
+  /** Name of the provider, used to enable it in the configuration. */
+  String getName();
+
+  /**
+   * Target prefixes that are claimed by this provider, e.g. {@code s3://}. Prefixes take precedence
+   * over the built-in source types, if multiple providers claim a target, the one with the longest
+   * matching prefix is used.
+   */
+  List<String> getPrefixes();
+
+  /**
+   * Check if the target is valid, called whenever a pointer with the target is parsed. Since this
+   * happens for every highlighted document, this should be cheap.
+   *
+   * @throws IOException if the target is invalid or does not exist
+   */
+  default void validate(String target) throws IOException {}
+
+  /**
+   * Create a reader for the target.
+   *
+   * @param target the target of the source, without regions and modifiers
+   * @param pointer the pointer the reader belongs to, to be returned from {@link
+   *     SourceReader#getPointer()}
+   * @param sectionSize size of the sections, see {@link BaseSourceReader}
+   * @param maxCacheEntries maximum number of sections to cache in the reader
+   */
+  SourceReader getReader(String target, SourcePointer pointer, int sectionSize, int maxCacheEntries)
+      throws IOException;
+}
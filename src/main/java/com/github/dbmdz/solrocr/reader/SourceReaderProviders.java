@@ -0,0 +1,89 @@
+package com.github.dbmdz.solrocr.reader;
+
+import java.lang.invoke.MethodHandles;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.ServiceLoader;
+import java.util.stream.Collectors;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Node-wide registry of the enabled {@link SourceReaderProvider}s.
+ *
+ * <p>Providers are enabled by both the highlighting component and the indexing char filter, so
+ * enabling is additive: a provider that was enabled once stays enabled for the whole node.
+ */
+public final class SourceReaderProviders {
+  private static final Logger log = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+
+  private static volatile List<SourceReaderProvider> enabled = Collections.emptyList();
+
+  private SourceReaderProviders() {}
+
+  /**
+   * Enable the providers with the given names.
+   *
+   * @param loader class loader to discover the providers with
+   * @param names comma-separated names of the providers to enable, can be {@code null} or empty
+   * @throws IllegalArgumentException if no provider with one of the names could be found
+   */
+  public static synchronized void enable(ClassLoader loader, String names) {
+    List<String> toEnable =
+        names == null
+            ? Collections.emptyList()
+            : Arrays.stream(names.split(","))
+                .map(String::trim)
+                .filter(n -> !n.isEmpty())
+                .collect(Collectors.toList());
+    if (toEnable.isEmpty()) {
+      return;
+    }
+    Map<String, SourceReaderProvider> available = new LinkedHashMap<>();
+    for (SourceReaderProvider provider : ServiceLoader.load(SourceReaderProvider.class, loader)) {
+      available.putIfAbsent(provider.getName(), provider);
+    }
+    List<SourceReaderProvider> providers = new ArrayList<>(enabled);
+    for (String name : toEnable) {
+      if (providers.stream().anyMatch(p -> p.getName().equals(name))) {
+        continue;
+      }
+      SourceReaderProvider provider = available.get(name);
+      if (provider == null) {
+        throw new IllegalArgumentException(
+            String.format(
+                Locale.US,
+                "No source reader provider named '%s' found, available providers: %s",
+                name,
+                available.keySet()));
+      }
+      log.info(
+          "Enabling source reader provider '{}' for prefixes {}.", name, provider.getPrefixes());
+      providers.add(provider);
+    }
+    enabled = Collections.unmodifiableList(providers);
+  }
+
+  /**
+   * Get the provider that claims the target, i.e. the enabled provider with the longest prefix that
+   * matches the target, or {@code null} if there is none.
+   */
+  public static SourceReaderProvider forTarget(String target) {
+    SourceReaderProvider match = null;
+    int matchLength = -1;
+    for (SourceReaderProvider provider : enabled) {
+      for (String prefix : provider.getPrefixes()) {
+        if (prefix.length() > matchLength && target.startsWith(prefix)) {
+          match = provider;
+          matchLength = prefix.length();
+        }
+      }
+    }
+    return match;
+  }
+}
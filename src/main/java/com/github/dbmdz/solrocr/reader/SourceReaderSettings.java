@@ -0,0 +1,53 @@
+package com.github.dbmdz.solrocr.reader;
+
+/** Settings for the readers that are opened on the OCR sources of the highlighted documents. */
+public class SourceReaderSettings {
+  private final int sectionSize;
+  private final int maxCacheEntries;
+  private final int maxPrefetchSize;
+  private final FileReadMode fileReadMode;
+  private final int maxOpenSourcesPerRequest;
+
+  /**
+   * @param sectionSize size of the sections that are read from the sources, in bytes
+   * @param maxCacheEntries maximum number of sections that are cached per reader
+   * @param maxPrefetchSize maximum number of bytes that are loaded ahead of building the passages
+   *     for a batch of matches, in addition to the cached sections
+   * @param fileReadMode how OCR files on the local filesystem are read
+   * @param maxOpenSourcesPerRequest maximum number of OCR sources that are open at the same time
+   *     while highlighting a request, documents wait for a free slot once it has been reached, a
+   *     value {@code <= 0} disables the limit
+   */
+  public SourceReaderSettings(
+      int sectionSize,
+      int maxCacheEntries,
+      int maxPrefetchSize,
+      FileReadMode fileReadMode,
+      int maxOpenSourcesPerRequest) {
+    this.sectionSize = sectionSize;
+    this.maxCacheEntries = maxCacheEntries;
+    this.maxPrefetchSize = maxPrefetchSize;
+    this.fileReadMode = fileReadMode;
+    this.maxOpenSourcesPerRequest = maxOpenSourcesPerRequest;
+  }
+
+  public int getSectionSize() {
+    return sectionSize;
+  }
+
+  public int getMaxCacheEntries() {
+    return maxCacheEntries;
+  }
+
+  public int getMaxPrefetchSize() {
+    return maxPrefetchSize;
+  }
+
+  public FileReadMode getFileReadMode() {
+    return fileReadMode;
+  }
+
+  public int getMaxOpenSourcesPerRequest() {
+    return maxOpenSourcesPerRequest;
+  }
+}
@@ -8,30 +8,34 @@ import java.nio.charset.StandardCharsets;
 public class StringSourceReader implements SourceReader {
 
   private final String str;
+  private Section section;
 
   public StringSourceReader(String str) {
     this.str = str;
   }
 
   @Override
-  public String readAsciiString(int start, int len) {
+  public String readAsciiString(long start, int len) {
     // This is semantically incorrect, but it doesn't cause any harm
-    return this.str.substring(start, start + len);
+    return this.str.substring((int) start, (int) start + len);
   }
 
   @Override
-  public String readUtf8String(int start, int byteLen) {
+  public String readUtf8String(long start, int byteLen) {
     // This is semantically incorrect, but it doesn't cause any harm
-    return this.str.substring(start, start + byteLen);
+    return this.str.substring((int) start, (int) start + byteLen);
   }
 
   @Override
-  public Section getAsciiSection(int offset) {
-    return new Section(0, str.length(), str);
+  public Section getAsciiSection(long offset) {
+    if (section == null) {
+      section = new Section(0, str.length(), str);
+    }
+    return section;
   }
 
   @Override
-  public int readBytes(ByteBuffer dst, int start) {
+  public int readBytes(ByteBuffer dst, long start) {
     byte[] bytes = str.getBytes(StandardCharsets.UTF_8);
     int limit = Math.min(dst.remaining(), bytes.length);
     dst.put(bytes, 0, limit);
@@ -39,7 +43,12 @@ public class StringSourceReader implements SourceReader {
   }
 
   @Override
-  public int length() {
+  public boolean isInMemory() {
+    return true;
+  }
+
+  @Override
+  public long length() {
     return this.str.length();
   }
 
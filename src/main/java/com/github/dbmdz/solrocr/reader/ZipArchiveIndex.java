@@ -0,0 +1,307 @@
+package com.github.dbmdz.solrocr.reader;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * The parsed central directory of a ZIP archive, i.e. the names, sizes and locations of all of its
+ * members.
+ *
+ * <p>Directories are cached for the whole node, keyed by the path and the modification time of the
+ * archive, so archives with hundreds of members only need to be parsed once, no matter how many
+ * documents point into them.
+ */
+public class ZipArchiveIndex {
+  /** Compression method for members that are stored without compression */
+  public static final int METHOD_STORED = 0;
+
+  /** Compression method for deflated members */
+  public static final int METHOD_DEFLATED = 8;
+
+  private static final int LOCAL_HEADER_SIG = 0x04034b50;
+  private static final int LOCAL_HEADER_SIZE = 30;
+  private static final int CENTRAL_HEADER_SIG = 0x02014b50;
+  private static final int CENTRAL_HEADER_SIZE = 46;
+  private static final int EOCD_SIG = 0x06054b50;
+  private static final int EOCD_SIZE = 22;
+  private static final int ZIP64_EOCD_LOCATOR_SIG = 0x07064b50;
+  private static final int ZIP64_EOCD_LOCATOR_SIZE = 20;
+  private static final int ZIP64_EOCD_SIG = 0x06064b50;
+  private static final int ZIP64_EOCD_SIZE = 56;
+  private static final int ZIP64_EXTRA_ID = 0x0001;
+  private static final int MAX_COMMENT_SIZE = 0xFFFF;
+
+  /** Maximum accumulated size of the cached directories, estimated from the member names */
+  private static final long MAX_CACHE_SIZE_BYTES = 64 * 1024 * 1024;
+
+  private static final Cache<CacheKey, ZipArchiveIndex> cache =
+      CacheBuilder.newBuilder()
+          .maximumWeight(MAX_CACHE_SIZE_BYTES)
+          .weigher((CacheKey k, ZipArchiveIndex v) -> v.weight)
+          .build();
+
+  /** A single member of the archive */
+  public static final class Member {
+    public final String name;
+    public final int method;
+    public final boolean isEncrypted;
+    public final long compressedSize;
+    public final long uncompressedSize;
+    final long localHeaderOffset;
+
+    /** Offset of the member data, only known once the local header has been read */
+    private volatile long dataOffset = -1;
+
+    private Member(
+        String name,
+        int method,
+        boolean isEncrypted,
+        long compressedSize,
+        long uncompressedSize,
+        long localHeaderOffset) {
+      this.name = name;
+      this.method = method;
+      this.isEncrypted = isEncrypted;
+      this.compressedSize = compressedSize;
+      this.uncompressedSize = uncompressedSize;
+      this.localHeaderOffset = localHeaderOffset;
+    }
+
+    /**
+     * Get the offset of the member data in the archive.
+     *
+     * <p>The local header that precedes the data can have a different extra field than the entry in
+     * the central directory, so we need to read it once to find out where the data starts.
+     */
+    public long getDataOffset(FileChannel chan) throws IOException {
+      long offset = this.dataOffset;
+      if (offset < 0) {
+        ByteBuffer header = ByteBuffer.allocate(LOCAL_HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        readFully(chan, header, localHeaderOffset);
+        if (header.getInt(0) != LOCAL_HEADER_SIG) {
+          throw new IOException(
+              String.format(
+                  Locale.US,
+                  "Invalid local header for ZIP member %s at offset %d.",
+                  name,
+                  localHeaderOffset));
+        }
+        offset =
+            localHeaderOffset
+                + LOCAL_HEADER_SIZE
+                + (header.getShort(26) & 0xFFFF)
+                + (header.getShort(28) & 0xFFFF);
+        this.dataOffset = offset;
+      }
+      return offset;
+    }
+  }
+
+  private final Map<String, Member> members;
+  private final int weight;
+
+  private ZipArchiveIndex(Map<String, Member> members, int weight) {
+    this.members = members;
+    this.weight = weight;
+  }
+
+  /** Get the directory of the archive, from the node-wide cache if possible. */
+  public static ZipArchiveIndex forFile(Path path, FileChannel chan, long lastModified)
+      throws IOException {
+    return get(new CacheKey(path, lastModified), () -> load(path, chan));
+  }
+
+  /**
+   * Get the directory of the archive at the given path, from the node-wide cache if possible. The
+   * archive is only opened if the directory is not cached yet.
+   */
+  public static ZipArchiveIndex forFile(Path path) throws IOException {
+    long lastModified = FileMetadataCache.getLastModified(path);
+    return get(
+        new CacheKey(path, lastModified),
+        () -> {
+          try (FileChannelPool.Lease lease = FileChannelPool.open(path)) {
+            return load(path, lease.channel());
+          }
+        });
+  }
+
+  private static ZipArchiveIndex get(CacheKey key, Callable<ZipArchiveIndex> loader)
+      throws IOException {
+    try {
+      return cache.get(key, loader);
+    } catch (ExecutionException | UncheckedExecutionException e) {
+      if (e.getCause() instanceof IOException) {
+        throw (IOException) e.getCause();
+      }
+      throw new IOException(e.getCause());
+    }
+  }
+
+  private static ZipArchiveIndex load(Path path, FileChannel chan) throws IOException {
+    long fileSize = chan.size();
+    int tailSize = (int) Math.min(fileSize, EOCD_SIZE + MAX_COMMENT_SIZE);
+    ByteBuffer tail = ByteBuffer.allocate(tailSize).order(ByteOrder.LITTLE_ENDIAN);
+    long tailOffset = fileSize - tailSize;
+    readFully(chan, tail, tailOffset);
+
+    // The end of central directory record is followed by a comment of variable size, so we have to
+    // search for it from the end on
+    int eocdPos = -1;
+    for (int pos = tailSize - EOCD_SIZE; pos >= 0; pos--) {
+      if (tail.getInt(pos) == EOCD_SIG
+          && pos + EOCD_SIZE + (tail.getShort(pos + 20) & 0xFFFF) == tailSize) {
+        eocdPos = pos;
+        break;
+      }
+    }
+    if (eocdPos < 0) {
+      throw new IOException(
+          String.format(Locale.US, "%s is not a ZIP archive, no central directory found.", path));
+    }
+    long numEntries = tail.getShort(eocdPos + 10) & 0xFFFF;
+    long dirSize = Integer.toUnsignedLong(tail.getInt(eocdPos + 12));
+    long dirOffset = Integer.toUnsignedLong(tail.getInt(eocdPos + 16));
+
+    long locatorOffset = tailOffset + eocdPos - ZIP64_EOCD_LOCATOR_SIZE;
+    if (locatorOffset >= 0) {
+      ByteBuffer locator =
+          ByteBuffer.allocate(ZIP64_EOCD_LOCATOR_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+      readFully(chan, locator, locatorOffset);
+      if (locator.getInt(0) == ZIP64_EOCD_LOCATOR_SIG) {
+        ByteBuffer eocd64 = ByteBuffer.allocate(ZIP64_EOCD_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        readFully(chan, eocd64, locator.getLong(8));
+        if (eocd64.getInt(0) != ZIP64_EOCD_SIG) {
+          throw new IOException(
+              String.format(Locale.US, "Invalid ZIP64 end of central directory in %s.", path));
+        }
+        numEntries = eocd64.getLong(32);
+        dirSize = eocd64.getLong(40);
+        dirOffset = eocd64.getLong(48);
+      }
+    }
+    if (dirSize > Integer.MAX_VALUE || numEntries > Integer.MAX_VALUE) {
+      throw new IOException(
+          String.format(Locale.US, "Central directory of %s is too large.", path));
+    }
+
+    ByteBuffer dir = ByteBuffer.allocate((int) dirSize).order(ByteOrder.LITTLE_ENDIAN);
+    readFully(chan, dir, dirOffset);
+    Map<String, Member> members = new HashMap<>((int) (numEntries * 4 / 3) + 1);
+    int weight = 64;
+    int pos = 0;
+    for (long i = 0; i < numEntries; i++) {
+      if (pos + CENTRAL_HEADER_SIZE > dirSize || dir.getInt(pos) != CENTRAL_HEADER_SIG) {
+        throw new IOException(
+            String.format(Locale.US, "Invalid central directory entry #%d in %s.", i, path));
+      }
+      int flags = dir.getShort(pos + 8) & 0xFFFF;
+      int method = dir.getShort(pos + 10) & 0xFFFF;
+      long compressedSize = Integer.toUnsignedLong(dir.getInt(pos + 20));
+      long uncompressedSize = Integer.toUnsignedLong(dir.getInt(pos + 24));
+      int nameLen = dir.getShort(pos + 28) & 0xFFFF;
+      int extraLen = dir.getShort(pos + 30) & 0xFFFF;
+      int commentLen = dir.getShort(pos + 32) & 0xFFFF;
+      long localHeaderOffset = Integer.toUnsignedLong(dir.getInt(pos + 42));
+      String name =
+          new String(dir.array(), pos + CENTRAL_HEADER_SIZE, nameLen, StandardCharsets.UTF_8);
+
+      // Sizes and offsets that don't fit into 32 bits are stored in the ZIP64 extra field, but only
+      // those that are set to 0xFFFFFFFF in the regular entry, in this order
+      int extraPos = pos + CENTRAL_HEADER_SIZE + nameLen;
+      int extraEnd = extraPos + extraLen;
+      while (extraPos + 4 <= extraEnd) {
+        int id = dir.getShort(extraPos) & 0xFFFF;
+        int size = dir.getShort(extraPos + 2) & 0xFFFF;
+        if (id == ZIP64_EXTRA_ID) {
+          int valuePos = extraPos + 4;
+          if (uncompressedSize == 0xFFFFFFFFL) {
+            uncompressedSize = dir.getLong(valuePos);
+            valuePos += 8;
+          }
+          if (compressedSize == 0xFFFFFFFFL) {
+            compressedSize = dir.getLong(valuePos);
+            valuePos += 8;
+          }
+          if (localHeaderOffset == 0xFFFFFFFFL) {
+            localHeaderOffset = dir.getLong(valuePos);
+          }
+          break;
+        }
+        extraPos += 4 + size;
+      }
+
+      members.put(
+          name,
+          new Member(
+              name,
+              method,
+              (flags & 0x01) != 0,
+              compressedSize,
+              uncompressedSize,
+              localHeaderOffset));
+      weight += 64 + 2 * nameLen;
+      pos += CENTRAL_HEADER_SIZE + nameLen + extraLen + commentLen;
+    }
+    return new ZipArchiveIndex(members, weight);
+  }
+
+  static void readFully(FileChannel chan, ByteBuffer dst, long offset) throws IOException {
+    while (dst.hasRemaining()) {
+      int read = chan.read(dst, offset);
+      if (read < 0) {
+        throw new IOException("Unexpected end of ZIP archive.");
+      }
+      offset += read;
+    }
+  }
+
+  /** Get the member with the given name, or {@code null} if the archive does not contain it. */
+  public Member getMember(String name) {
+    return members.get(name);
+  }
+
+  public int numMembers() {
+    return members.size();
+  }
+
+  private static final class CacheKey {
+    final Path path;
+    final long lastModified;
+
+    CacheKey(Path path, long lastModified) {
+      this.path = path.toAbsolutePath();
+      this.lastModified = lastModified;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (o == null || getClass() != o.getClass()) {
+        return false;
+      }
+      CacheKey cacheKey = (CacheKey) o;
+      return lastModified == cacheKey.lastModified && path.equals(cacheKey.path);
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(path, lastModified);
+    }
+  }
+}
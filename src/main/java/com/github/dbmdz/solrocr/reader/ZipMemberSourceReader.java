@@ -0,0 +1,197 @@
+package com.github.dbmdz.solrocr.reader;
+
+import com.github.dbmdz.solrocr.model.SourcePointer;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.util.Locale;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+/**
+ * Reads a single member of a ZIP archive.
+ *
+ * <p>Members that are stored without compression are read directly from the archive at their
+ * offset. Deflated members can't be read at arbitrary offsets, so they are inflated completely on
+ * first access and kept in memory until the reader is closed. Releasing the resources of the reader
+ * only returns the archive's channel, so a member that was inflated during read-ahead doesn't have
+ * to be inflated again.
+ */
+public class ZipMemberSourceReader extends BaseSourceReader {
+  private static final int INFLATE_BUFFER_SIZE = 64 * 1024;
+
+  private final Path archivePath;
+  private final String memberName;
+  private FileChannelPool.Lease lease;
+  private long lastModified = -1;
+  private ZipArchiveIndex.Member member;
+  private long dataOffset = -1;
+  private byte[] inflated;
+
+  public ZipMemberSourceReader(
+      Path archivePath,
+      String memberName,
+      SourcePointer ptr,
+      int sectionSize,
+      int maxCacheEntries) {
+    super(ptr, sectionSize, maxCacheEntries);
+    this.archivePath = archivePath;
+    this.memberName = memberName;
+  }
+
+  /** Get the channel for the archive, opening it if needed. */
+  private FileChannel channel() throws IOException {
+    if (this.lease == null) {
+      this.lease = FileChannelPool.open(archivePath);
+      if (this.lastModified < 0) {
+        this.lastModified = lease.lastModified();
+      }
+    }
+    return this.lease.channel();
+  }
+
+  private ZipArchiveIndex.Member member() throws IOException {
+    if (this.member == null) {
+      ZipArchiveIndex index = ZipArchiveIndex.forFile(archivePath, channel(), getVersion());
+      ZipArchiveIndex.Member member = index.getMember(memberName);
+      if (member == null) {
+        throw new IOException(
+            String.format(
+                Locale.US, "ZIP archive at %s has no member %s.", archivePath, memberName));
+      }
+      if (member.method != ZipArchiveIndex.METHOD_STORED
+          && member.uncompressedSize > Integer.MAX_VALUE) {
+        // Deflated members are inflated into a single array
+        throw new IOException(
+            String.format(
+                Locale.US,
+                "Compressed ZIP member %s is too large (%d bytes), only up to 2GiB are supported,"
+                    + " larger members need to be stored without compression.",
+                getIdentifier(),
+                member.uncompressedSize));
+      }
+      this.member = member;
+    }
+    return this.member;
+  }
+
+  @Override
+  public int readBytes(ByteBuffer dst, long start) throws IOException {
+    ZipArchiveIndex.Member member = this.member();
+    if (start >= member.uncompressedSize) {
+      return -1;
+    }
+    int len = (int) Math.min(dst.remaining(), member.uncompressedSize - start);
+    if (member.method == ZipArchiveIndex.METHOD_STORED) {
+      return readStored(dst, start, len);
+    }
+    if (this.inflated == null) {
+      this.inflated = inflate(member);
+    }
+    dst.put(this.inflated, (int) start, len);
+    return len;
+  }
+
+  private int readStored(ByteBuffer dst, long start, int len) throws IOException {
+    ByteBuffer limited = dst.duplicate();
+    limited.limit(limited.position() + len);
+    FileChannel chan = this.channel();
+    if (dataOffset < 0) {
+      dataOffset = member.getDataOffset(chan);
+    }
+    int numRead;
+    try {
+      numRead = chan.read(limited, dataOffset + start);
+    } catch (ClosedChannelException e) {
+      // See FileSourceReader#readBytes
+      if (!lease.isPooled() || Thread.currentThread().isInterrupted()) {
+        throw e;
+      }
+      this.releaseResources();
+      numRead = this.channel().read(limited, dataOffset + start);
+    }
+    if (numRead > 0) {
+      dst.position(dst.position() + numRead);
+    }
+    return numRead;
+  }
+
+  private byte[] inflate(ZipArchiveIndex.Member member) throws IOException {
+    FileChannel chan = this.channel();
+    long offset = member.getDataOffset(chan);
+    long end = offset + member.compressedSize;
+    byte[] out = new byte[(int) member.uncompressedSize];
+    ByteBuffer in = ByteBuffer.allocate(INFLATE_BUFFER_SIZE);
+    Inflater inflater = new Inflater(true);
+    try {
+      int numInflated = 0;
+      while (numInflated < out.length && !inflater.finished()) {
+        if (inflater.needsInput()) {
+          if (offset >= end) {
+            break;
+          }
+          in.clear();
+          in.limit((int) Math.min(in.capacity(), end - offset));
+          ZipArchiveIndex.readFully(chan, in, offset);
+          offset += in.limit();
+          inflater.setInput(in.array(), 0, in.limit());
+        }
+        int n = inflater.inflate(out, numInflated, out.length - numInflated);
+        if (n == 0 && inflater.needsDictionary()) {
+          break;
+        }
+        numInflated += n;
+      }
+      if (numInflated != out.length) {
+        throw new IOException(
+            String.format(
+                Locale.US,
+                "Corrupt ZIP member %s, expected %d uncompressed bytes, got %d.",
+                getIdentifier(),
+                out.length,
+                numInflated));
+      }
+    } catch (DataFormatException e) {
+      throw new IOException(
+          String.format(Locale.US, "Corrupt ZIP member %s: %s", getIdentifier(), e), e);
+    } finally {
+      inflater.end();
+    }
+    return out;
+  }
+
+  @Override
+  public long length() throws IOException {
+    return this.member().uncompressedSize;
+  }
+
+  @Override
+  public void close() throws IOException {
+    this.inflated = null;
+    this.releaseResources();
+  }
+
+  @Override
+  public void releaseResources() throws IOException {
+    if (this.lease != null) {
+      FileChannelPool.Lease released = this.lease;
+      this.lease = null;
+      released.close();
+    }
+  }
+
+  @Override
+  public long getVersion() throws IOException {
+    if (this.lastModified < 0) {
+      this.lastModified = FileMetadataCache.getLastModified(this.archivePath);
+    }
+    return this.lastModified;
+  }
+
+  @Override
+  public String getIdentifier() {
+    return this.archivePath + SourcePointer.ZIP_MEMBER_SEPARATOR + this.memberName;
+  }
+}
@@ -20,6 +20,8 @@ public interface OcrHighlightParams {
   String TIME_ALLOWED = "hl.ocr.timeAllowed";
   String ALIGN_SPANS = "hl.ocr.alignSpans";
   String TRACK_PAGES = "hl.ocr.trackPages";
+  String CHUNKED_FIELD = "hl.ocr.chunkedField";
+  String POINTER_FIELD = "hl.ocr.pointerField";
 
   /**
    * Get a boolean value from a `hl.ocr.*` parameter. If no value is given for the parameter, try to
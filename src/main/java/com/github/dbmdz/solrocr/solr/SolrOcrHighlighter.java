@@ -25,6 +25,8 @@
 package com.github.dbmdz.solrocr.solr;
 
 import com.github.dbmdz.solrocr.model.OcrHighlightResult;
+import com.github.dbmdz.solrocr.reader.FileReadMode;
+import com.github.dbmdz.solrocr.reader.SourceReaderSettings;
 import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import java.io.IOException;
 import java.lang.invoke.MethodHandles;
@@ -53,18 +55,33 @@ public class SolrOcrHighlighter extends UnifiedSolrHighlighter {
   private static final Logger log = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
 
   private final Executor hlExecutor;
-  private final int readerSectionSize;
-  private final int readerMaxCacheEntries;
+  private final ThreadPoolExecutor readAheadExecutor;
+  private final SourceReaderSettings readerSettings;
 
   public SolrOcrHighlighter() {
-    this(Runtime.getRuntime().availableProcessors(), 8, 8 * 1024, 64 * 1024);
+    this(
+        Runtime.getRuntime().availableProcessors(),
+        8,
+        0,
+        new SourceReaderSettings(8 * 1024, 64 * 1024, 256 * 1024, FileReadMode.CHANNEL, 0));
   }
 
+  /**
+   * @param numHlThreads number of threads that highlight documents, {@code 0} to highlight on the
+   *     request thread
+   * @param maxQueuedPerThread number of documents that are queued per highlighting and read-ahead
+   *     thread, before the request thread takes over
+   * @param numReadAheadThreads number of threads that read ahead the sources of a batch of
+   *     documents, {@code 0} to disable the read-ahead
+   * @param readerSettings settings for the readers that are opened on the OCR sources
+   */
   public SolrOcrHighlighter(
-      int numHlThreads, int maxQueuedPerThread, int readerSectionSize, int readerMaxCacheEntries) {
+      int numHlThreads,
+      int maxQueuedPerThread,
+      int numReadAheadThreads,
+      SourceReaderSettings readerSettings) {
     super();
-    this.readerSectionSize = readerSectionSize;
-    this.readerMaxCacheEntries = readerMaxCacheEntries;
+    this.readerSettings = readerSettings;
     if (numHlThreads > 0) {
       this.hlExecutor =
           new ThreadPoolExecutor(
@@ -78,12 +95,27 @@ public class SolrOcrHighlighter extends UnifiedSolrHighlighter {
       // Executors.newDirectExecutorService() for Java 8
       this.hlExecutor = Runnable::run;
     }
+    if (numReadAheadThreads > 0) {
+      this.readAheadExecutor =
+          new ThreadPoolExecutor(
+              numReadAheadThreads,
+              numReadAheadThreads,
+              120L,
+              TimeUnit.SECONDS,
+              new LinkedBlockingQueue<>(numReadAheadThreads * maxQueuedPerThread),
+              new ThreadFactoryBuilder().setNameFormat("OcrReadAhead-%d").build());
+    } else {
+      this.readAheadExecutor = null;
+    }
   }
 
   public void shutdownThreadPool() {
     if (hlExecutor instanceof ThreadPoolExecutor) {
       ((ThreadPoolExecutor) hlExecutor).shutdown();
     }
+    if (readAheadExecutor != null) {
+      readAheadExecutor.shutdown();
+    }
   }
 
   public NamedList<Object> doHighlighting(
@@ -116,11 +148,16 @@ public class SolrOcrHighlighter extends UnifiedSolrHighlighter {
             req.getSearcher(),
             req.getSchema().getIndexAnalyzer(),
             req,
-            readerSectionSize,
-            readerMaxCacheEntries);
+            readerSettings);
     OcrHighlightResult[] ocrSnippets =
         ocrHighlighter.highlightOcrFields(
-            ocrFieldNames, query, docIDs, maxPassagesOcr, respHeader, hlExecutor);
+            ocrFieldNames,
+            query,
+            docIDs,
+            maxPassagesOcr,
+            respHeader,
+            hlExecutor,
+            readAheadExecutor);
 
     // Assemble output data
     SimpleOrderedMap<Object> out = new SimpleOrderedMap<>();
@@ -5,7 +5,7 @@ public class ArrayUtils {
    * Find the index of the largest element in {@param arr} that is smaller than or equal to {@param
    * x} or -1 if none was found.
    */
-  public static int binaryFloorIdxSearch(int[] arr, int x) {
+  public static int binaryFloorIdxSearch(long[] arr, long x) {
     if (arr == null || arr.length == 0) {
       return -1;
     }
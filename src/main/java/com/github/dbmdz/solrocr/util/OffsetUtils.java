@@ -0,0 +1,28 @@
+package com.github.dbmdz.solrocr.util;
+
+import java.util.Locale;
+
+/**
+ * Helpers for the boundary between the 64-bit byte offsets used for reading sources and the 32-bit
+ * offsets that Lucene stores in the index and uses for passages.
+ */
+public class OffsetUtils {
+  /**
+   * Convert a byte offset in a source to a Lucene offset.
+   *
+   * @throws IllegalArgumentException if the offset is beyond the largest offset Lucene can store,
+   *     instead of silently overflowing
+   */
+  public static int toLuceneOffset(long offset, Object source) {
+    if (offset > Integer.MAX_VALUE) {
+      throw new IllegalArgumentException(
+          String.format(
+              Locale.US,
+              "Offset %d in %s is beyond 2GiB, the largest offset that can be stored in the index."
+                  + " Split the source across multiple documents with regions.",
+              offset,
+              source));
+    }
+    return (int) offset;
+  }
+}
@@ -0,0 +1,204 @@
+package solrocr;
+
+import com.github.dbmdz.solrocr.model.SourcePointer;
+import com.github.dbmdz.solrocr.model.SourcePointer.Region;
+import com.github.dbmdz.solrocr.reader.ChunkedSourceReader;
+import com.github.dbmdz.solrocr.reader.HttpSourceReader;
+import com.github.dbmdz.solrocr.reader.SourceReader;
+import com.github.dbmdz.solrocr.reader.SourceReaderProviders;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.zip.Deflater;
+import org.apache.solr.common.SolrException;
+import org.apache.solr.common.SolrException.ErrorCode;
+import org.apache.solr.common.SolrInputDocument;
+import org.apache.solr.common.util.NamedList;
+import org.apache.solr.core.SolrCore;
+import org.apache.solr.request.SolrQueryRequest;
+import org.apache.solr.response.SolrQueryResponse;
+import org.apache.solr.update.AddUpdateCommand;
+import org.apache.solr.update.processor.UpdateRequestProcessor;
+import org.apache.solr.update.processor.UpdateRequestProcessorFactory;
+import org.apache.solr.util.plugin.SolrCoreAware;
+
+/**
+ * Stores the OCR markup of a field inside of the index, as a binary value that consists of
+ * independently compressed chunks, so that only the parts of the markup that are needed for a
+ * snippet have to be decompressed during highlighting.
+ *
+ * <p>The markup is taken from the {@code sourceField}, which can either contain the markup itself
+ * or a source pointer. The chunked markup is written to the {@code chunkedField}, which should be a
+ * {@code solr.BinaryField} with {@code docValues="true"}. During highlighting, the field has to be
+ * passed with the {@code hl.ocr.chunkedField} parameter, e.g. {@code
+ * f.ocr_text.hl.ocr.chunkedField=ocr_chunks}.
+ *
+ * <p>For source pointers with regions, only the markup of the regions is stored. Since the offsets
+ * of a pointer in the index refer to the complete source, the value of the {@code sourceField} is
+ * replaced with that markup, so that it is indexed with offsets in the stored markup.
+ *
+ * <pre>
+ * &lt;processor class="solrocr.ChunkedOcrStorageProcessorFactory"&gt;
+ *   &lt;str name="sourceField"&gt;ocr_text&lt;/str&gt;
+ *   &lt;str name="chunkedField"&gt;ocr_chunks&lt;/str&gt;
+ *   &lt;int name="chunkSizeKiB"&gt;64&lt;/int&gt;
+ * &lt;/processor&gt;
+ * </pre>
+ */
+public class ChunkedOcrStorageProcessorFactory extends UpdateRequestProcessorFactory
+    implements SolrCoreAware {
+  private String sourceField;
+  private String chunkedField;
+  private int chunkSize = ChunkedSourceReader.DEFAULT_CHUNK_SIZE;
+  private int compressionLevel = Deflater.DEFAULT_COMPRESSION;
+  private String sourceReaderProviders;
+  private String allowedHttpPrefixes;
+
+  @Override
+  public void init(NamedList<?> args) {
+    this.sourceField = (String) args.get("sourceField");
+    this.chunkedField = (String) args.get("chunkedField");
+    if (sourceField == null || chunkedField == null) {
+      throw new SolrException(
+          ErrorCode.SERVER_ERROR,
+          "ChunkedOcrStorageProcessorFactory needs a 'sourceField' and a 'chunkedField'.");
+    }
+    Object chunkSizeKiB = args.get("chunkSizeKiB");
+    if (chunkSizeKiB != null) {
+      this.chunkSize = Integer.parseInt(chunkSizeKiB.toString()) * 1024;
+    }
+    Object level = args.get("compressionLevel");
+    if (level != null) {
+      this.compressionLevel = Integer.parseInt(level.toString());
+    }
+    this.sourceReaderProviders = (String) args.get("sourceReaderProviders");
+    this.allowedHttpPrefixes = (String) args.get("allowedHttpPrefixes");
+  }
+
+  @Override
+  public void inform(SolrCore core) {
+    try {
+      SourceReaderProviders.enable(
+          core.getResourceLoader().getClassLoader(), sourceReaderProviders);
+      HttpSourceReader.allowPrefixes(allowedHttpPrefixes);
+    } catch (IllegalArgumentException e) {
+      throw new SolrException(ErrorCode.SERVER_ERROR, e.getMessage(), e);
+    }
+  }
+
+  @Override
+  public UpdateRequestProcessor getInstance(
+      SolrQueryRequest req, SolrQueryResponse rsp, UpdateRequestProcessor next) {
+    return new UpdateRequestProcessor(next) {
+      @Override
+      public void processAdd(AddUpdateCommand cmd) throws IOException {
+        SolrInputDocument doc = cmd.getSolrInputDocument();
+        Object value = doc.getFieldValue(sourceField);
+        if (value != null && !value.toString().isEmpty()) {
+          String str = value.toString();
+          byte[] chunked;
+          if (!SourcePointer.isPointer(str)) {
+            chunked = ChunkedSourceReader.encode(str, chunkSize, compressionLevel);
+          } else {
+            SourcePointer pointer = parsePointer(str);
+            if (pointer.sources.stream().allMatch(src -> src.regions.isEmpty())) {
+              chunked = encode(pointer, str);
+            } else {
+              // Offsets of the pointer would refer to the complete sources, so the markup of the
+              // regions is indexed instead
+              String markup = readRegions(pointer, str);
+              doc.setField(sourceField, markup);
+              chunked = ChunkedSourceReader.encode(markup, chunkSize, compressionLevel);
+            }
+          }
+          doc.setField(chunkedField, chunked);
+        }
+        super.processAdd(cmd);
+      }
+    };
+  }
+
+  private static SourcePointer parsePointer(String value) {
+    SourcePointer pointer = SourcePointer.parse(value);
+    if (pointer == null || pointer.sources.isEmpty()) {
+      throw new SolrException(
+          ErrorCode.BAD_REQUEST,
+          String.format(Locale.US, "Could not read OCR markup from pointer '%s'.", value));
+    }
+    return pointer;
+  }
+
+  /**
+   * Encode the complete content of all sources of a pointer without regions, the indexed offsets
+   * refer to their concatenated content.
+   */
+  private byte[] encode(SourcePointer pointer, String value) throws IOException {
+    // Section size and cache size don't matter, since we read everything at once
+    try (SourceReader reader = pointer.getReader(512 * 1024, 0)) {
+      byte[] content = new byte[toArrayLength(reader.length(), value)];
+      int numRead = 0;
+      while (numRead < content.length) {
+        int n = reader.readBytes(content, numRead, numRead, content.length - numRead);
+        if (n < 0) {
+          break;
+        }
+        numRead += n;
+      }
+      return ChunkedSourceReader.encode(content, chunkSize, compressionLevel);
+    }
+  }
+
+  /**
+   * Read the markup of the regions of a pointer, and the complete content of its sources without
+   * regions, like {@link ExternalUtf8ContentFilterFactory} does during indexing.
+   */
+  private static String readRegions(SourcePointer pointer, String value) throws IOException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    byte[] buf = new byte[64 * 1024];
+    for (SourcePointer.Source source : pointer.sources) {
+      // Section size and cache size don't matter, since we only do raw reads
+      try (SourceReader reader = source.getReader(512, 0)) {
+        long length = reader.length();
+        List<Region> regions =
+            source.regions.isEmpty()
+                ? Collections.singletonList(new Region(0, length))
+                : source.regions;
+        for (Region region : regions) {
+          long start = region.start;
+          long end = region.end < 0 ? length : Math.min(region.end, length);
+          if (start == 0 && !source.isAscii && end >= 3) {
+            reader.readBytes(buf, 0, 0, 3);
+            if (buf[0] == (byte) 0xEF && buf[1] == (byte) 0xBB && buf[2] == (byte) 0xBF) {
+              start = 3;
+            }
+          }
+          toArrayLength(out.size() + Math.max(0, end - start), value);
+          while (start < end) {
+            int n = reader.readBytes(buf, 0, start, (int) Math.min(buf.length, end - start));
+            if (n < 0) {
+              break;
+            }
+            out.write(buf, 0, n);
+            start += n;
+          }
+        }
+      }
+    }
+    return new String(out.toByteArray(), StandardCharsets.UTF_8);
+  }
+
+  private static int toArrayLength(long length, String value) {
+    if (length > Integer.MAX_VALUE - 8) {
+      throw new SolrException(
+          ErrorCode.BAD_REQUEST,
+          String.format(
+              Locale.US,
+              "OCR markup from pointer '%s' is too large to store in the index.",
+              value));
+    }
+    return (int) length;
+  }
+}
@@ -5,14 +5,16 @@ import com.github.dbmdz.solrocr.model.SourcePointer;
 import com.github.dbmdz.solrocr.model.SourcePointer.Region;
 import com.github.dbmdz.solrocr.model.SourcePointer.Source;
 import com.github.dbmdz.solrocr.model.SourcePointer.SourceType;
+import com.github.dbmdz.solrocr.reader.HttpSourceReader;
+import com.github.dbmdz.solrocr.reader.OffsetSourceReader;
 import com.github.dbmdz.solrocr.reader.SourceReader;
+import com.github.dbmdz.solrocr.reader.SourceReaderProviders;
 import java.io.File;
 import java.io.IOException;
 import java.io.Reader;
 import java.io.StringReader;
 import java.nio.ByteBuffer;
 import java.nio.channels.SeekableByteChannel;
-import java.nio.file.Paths;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Locale;
@@ -20,8 +22,11 @@ import java.util.Map;
 import java.util.stream.Collectors;
 import org.apache.commons.io.IOUtils;
 import org.apache.lucene.analysis.CharFilterFactory;
+import org.apache.lucene.util.ResourceLoader;
+import org.apache.lucene.util.ResourceLoaderAware;
 import org.apache.solr.common.SolrException;
 import org.apache.solr.common.SolrException.ErrorCode;
+import org.apache.solr.core.SolrResourceLoader;
 
 /**
  * A CharFilter implementation that loads the field value from an external UTF8-encoded source and
@@ -29,12 +34,32 @@ import org.apache.solr.common.SolrException.ErrorCode;
  *
  * <p>For more information on these source pointers, refer to {@link SourcePointer}.
  */
-public class ExternalUtf8ContentFilterFactory extends CharFilterFactory {
+public class ExternalUtf8ContentFilterFactory extends CharFilterFactory
+    implements ResourceLoaderAware {
+  private final String sourceReaderProviders;
+  private final String allowedHttpPrefixes;
+
   public ExternalUtf8ContentFilterFactory(Map<String, String> args) {
     super(args);
     // TODO: Read allowed base directories from config
     // TODO: Read allowed filename patterns from config
     // TODO: Warn of security implications if neither is defined
+    this.sourceReaderProviders = args.get("sourceReaderProviders");
+    this.allowedHttpPrefixes = args.get("allowedHttpPrefixes");
+  }
+
+  @Override
+  public void inform(ResourceLoader loader) {
+    ClassLoader classLoader =
+        loader instanceof SolrResourceLoader
+            ? ((SolrResourceLoader) loader).getClassLoader()
+            : this.getClass().getClassLoader();
+    try {
+      SourceReaderProviders.enable(classLoader, sourceReaderProviders);
+      HttpSourceReader.allowPrefixes(allowedHttpPrefixes);
+    } catch (IllegalArgumentException e) {
+      throw new SolrException(ErrorCode.SERVER_ERROR, e.getMessage(), e);
+    }
   }
 
   @Override
@@ -72,12 +97,30 @@ public class ExternalUtf8ContentFilterFactory extends CharFilterFactory {
                 + "Pointer was: "
                 + ptrStr);
       }
-      adjustRegions(pointer);
       // Section size and cache size don't matter, since we don't use sectioned reads during
-      // indexing.
+      // indexing. The reader has to be created before the regions are adjusted, since it starts
+      // at the offset the pointer is indexed relative to, which is determined by the regions.
       SourceReader r = pointer.getReader(512 * 1024, 0);
+      long base = r instanceof OffsetSourceReader ? ((OffsetSourceReader) r).getBase() : 0;
+      adjustRegions(pointer);
       List<SourcePointer.Region> regions =
           pointer.sources.stream().flatMap(s -> s.regions.stream()).collect(Collectors.toList());
+      for (Region region : regions) {
+        region.start -= base;
+        region.end -= base;
+        if (region.end > Integer.MAX_VALUE) {
+          r.close();
+          throw new SolrException(
+              ErrorCode.BAD_REQUEST,
+              String.format(
+                  Locale.US,
+                  "Content of pointer '%s' ends at offset %d, but offsets in the index are"
+                      + " limited to 2GiB. Split the content across multiple documents, only"
+                      + " pointers to regions of a single file can be indexed beyond 2GiB.",
+                  ptrStr,
+                  region.end));
+        }
+      }
       return new ExternalUtf8ContentFilter(r.getByteChannel(), regions, ptrStr);
     } catch (IOException e) {
       throw new RuntimeException(
@@ -90,15 +133,17 @@ public class ExternalUtf8ContentFilterFactory extends CharFilterFactory {
   private void validateSource(Source src) {
     // TODO: Check if sourcePath is located under one of the allowed base directories, else abort
     // TODO: Check if sourcePath's filename matches one of the allowed filename patterns, else abort
-    if (src.type == SourceType.FILESYSTEM) {
-      File f = Paths.get(src.target).toFile();
+    if (src.type == SourceType.FILESYSTEM
+        || src.type == SourceType.BGZF
+        || src.type == SourceType.ZIP) {
+      File f = src.getPath().toFile();
       if (!f.exists() || !f.canRead()) {
         throw new SolrException(
             ErrorCode.BAD_REQUEST,
             String.format(
                 Locale.US, "File at %s either does not exist or cannot be read.", src.target));
       }
-    } else {
+    } else if (src.type != SourceType.HTTP && src.type != SourceType.CUSTOM) {
       throw new SolrException(
           ErrorCode.BAD_REQUEST,
           String.format(Locale.US, "Pointer has target with unsupported type: %s", src.target));
@@ -115,13 +160,13 @@ public class ExternalUtf8ContentFilterFactory extends CharFilterFactory {
    * on the beginning of the file to account for it.
    */
   private void adjustRegions(SourcePointer ptr) throws IOException {
-    int outByteOffset = 0;
+    long outByteOffset = 0;
     byte[] bomBuf = new byte[3];
     for (SourcePointer.Source src : ptr.sources) {
       // Again, section size and cache size don't matter, since we don't use sectioned reads during
       // indexing.
       try (SourceReader reader = src.getReader(512, 0)) {
-        int inputLen = reader.length();
+        long inputLen = reader.length();
 
         if (src.regions.isEmpty()) {
           src.regions.add(new Region(0, inputLen));
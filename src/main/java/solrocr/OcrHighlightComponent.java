@@ -1,15 +1,30 @@
 package solrocr;
 
+import com.github.dbmdz.solrocr.breaklocator.BreakIndex;
+import com.github.dbmdz.solrocr.model.SourcePointerCache;
+import com.github.dbmdz.solrocr.reader.AlignedBufferPool;
+import com.github.dbmdz.solrocr.reader.FileChannelPool;
+import com.github.dbmdz.solrocr.reader.FileMetadataCache;
+import com.github.dbmdz.solrocr.reader.FileReadMode;
+import com.github.dbmdz.solrocr.reader.HttpSourceReader;
+import com.github.dbmdz.solrocr.reader.LazySourceReader;
+import com.github.dbmdz.solrocr.reader.SectionCache;
+import com.github.dbmdz.solrocr.reader.SectionSizePolicy;
+import com.github.dbmdz.solrocr.reader.SourceReaderProviders;
+import com.github.dbmdz.solrocr.reader.SourceReaderSettings;
 import com.github.dbmdz.solrocr.solr.OcrHighlightParams;
 import com.github.dbmdz.solrocr.solr.SolrOcrHighlighter;
 import com.google.common.base.Strings;
 import java.io.IOException;
 import java.lang.invoke.MethodHandles;
 import java.util.Arrays;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
+import java.util.function.Function;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 import org.apache.lucene.search.Query;
@@ -19,12 +34,14 @@ import org.apache.solr.common.params.ModifiableSolrParams;
 import org.apache.solr.common.params.SolrParams;
 import org.apache.solr.common.util.NamedList;
 import org.apache.solr.common.util.SimpleOrderedMap;
+import org.apache.solr.core.CloseHook;
 import org.apache.solr.core.PluginInfo;
 import org.apache.solr.core.SolrCore;
 import org.apache.solr.handler.component.ResponseBuilder;
 import org.apache.solr.handler.component.SearchComponent;
 import org.apache.solr.handler.component.ShardRequest;
 import org.apache.solr.handler.component.ShardResponse;
+import org.apache.solr.metrics.SolrMetricsContext;
 import org.apache.solr.request.SolrQueryRequest;
 import org.apache.solr.search.QParser;
 import org.apache.solr.search.QParserPlugin;
@@ -42,9 +59,29 @@ public class OcrHighlightComponent extends SearchComponent
   public static final String HL_RESPONSE_FIELD = "ocrHighlighting";
   private static final Logger log = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
 
+  /**
+   * Settings of the components that are shared by all cores on the node, by component name. Only
+   * modified while holding the class lock.
+   */
+  private static final Map<String, NodeWideSetting> nodeWideSettings = new HashMap<>();
+
+  /** Number of loaded cores that use the node-wide components */
+  private static int numNodeWideUsers = 0;
+
   private PluginInfo info;
   private SolrOcrHighlighter ocrHighlighter;
 
+  /** Settings of a node-wide component and the core that configured it. */
+  private static final class NodeWideSetting {
+    final String value;
+    final String coreName;
+
+    NodeWideSetting(String value, String coreName) {
+      this.value = value;
+      this.coreName = coreName;
+    }
+  }
+
   @Override
   public String getDescription() {
     return "OCR Highlighting";
@@ -101,13 +138,326 @@ public class OcrHighlightComponent extends SearchComponent
     if (maxSectionCacheSize < 0) {
       maxSectionCacheSize = sectionReadSize * 10;
     }
+    int maxPrefetchSize =
+        Integer.parseInt(info.attributes.getOrDefault("maxPrefetchSizeKiB", "256")) * 1024;
+    useNodeWide(core);
+    FileReadMode fileReadMode;
+    try {
+      fileReadMode =
+          FileReadMode.fromString(info.attributes.getOrDefault("fileReadMode", "channel"));
+    } catch (IllegalArgumentException e) {
+      throw new SolrException(SolrException.ErrorCode.SERVER_ERROR, e.getMessage(), e);
+    }
+    if (fileReadMode == FileReadMode.DIRECT) {
+      int directIoBufferSize =
+          Integer.parseInt(info.attributes.getOrDefault("directIoBufferSizeKiB", "64")) * 1024;
+      int maxPooledDirectIoBuffers =
+          Integer.parseInt(
+              info.attributes.getOrDefault(
+                  "maxPooledDirectIoBuffers", String.valueOf(2 * numHlThreads)));
+      configureNodeWide(
+          core,
+          "directIoBufferPool",
+          directIoBufferSize + "," + maxPooledDirectIoBuffers,
+          () -> AlignedBufferPool.configureShared(directIoBufferSize, maxPooledDirectIoBuffers));
+    }
+    if (info.attributes.containsKey("adaptiveSectionSize")) {
+      boolean adaptiveSectionSize =
+          Boolean.parseBoolean(info.attributes.get("adaptiveSectionSize"));
+      int minSectionReadSize =
+          Integer.parseInt(info.attributes.getOrDefault("minSectionReadSizeKiB", "4")) * 1024;
+      int maxSectionReadSize =
+          Integer.parseInt(info.attributes.getOrDefault("maxSectionReadSizeKiB", "1024")) * 1024;
+      configureNodeWide(
+          core,
+          "adaptiveSectionSize",
+          adaptiveSectionSize
+              ? sectionReadSize + "," + minSectionReadSize + "," + maxSectionReadSize
+              : "false",
+          () ->
+              SectionSizePolicy.configureShared(
+                  adaptiveSectionSize, sectionReadSize, minSectionReadSize, maxSectionReadSize));
+    }
+    if (info.attributes.containsKey("sharedSectionCacheSizeMiB")) {
+      long sharedSectionCacheSize =
+          Long.parseLong(info.attributes.get("sharedSectionCacheSizeMiB")) * 1024 * 1024;
+      boolean sharedSectionCacheOffHeap =
+          Boolean.parseBoolean(
+              info.attributes.getOrDefault("sharedSectionCacheOffHeap", "false"));
+      configureNodeWide(
+          core,
+          "sharedSectionCache",
+          sharedSectionCacheSize + "," + sharedSectionCacheOffHeap,
+          () -> SectionCache.configureShared(sharedSectionCacheSize, sharedSectionCacheOffHeap));
+    }
+    if (info.attributes.containsKey("sharedBreakIndexSizeMiB")) {
+      long sharedBreakIndexSize =
+          Long.parseLong(info.attributes.get("sharedBreakIndexSizeMiB")) * 1024 * 1024;
+      configureNodeWide(
+          core,
+          "sharedBreakIndex",
+          String.valueOf(sharedBreakIndexSize),
+          () -> BreakIndex.configureShared(sharedBreakIndexSize));
+    }
+    if (info.attributes.containsKey("maxPooledFileChannels")) {
+      int maxPooledFileChannels = Integer.parseInt(info.attributes.get("maxPooledFileChannels"));
+      configureNodeWide(
+          core,
+          "fileChannelPool",
+          String.valueOf(maxPooledFileChannels),
+          () -> FileChannelPool.configureShared(maxPooledFileChannels));
+    }
+    if (info.attributes.containsKey("sourceMetadataCacheTtlMs")) {
+      long sourceMetadataCacheTtlMs =
+          Long.parseLong(info.attributes.get("sourceMetadataCacheTtlMs"));
+      long sourceMetadataCacheSize =
+          Long.parseLong(info.attributes.getOrDefault("sourceMetadataCacheSize", "100000"));
+      configureNodeWide(
+          core,
+          "sourceMetadataCache",
+          sourceMetadataCacheTtlMs + "," + sourceMetadataCacheSize,
+          () -> {
+            FileMetadataCache.configureShared(sourceMetadataCacheTtlMs, sourceMetadataCacheSize);
+            SourcePointerCache.configureShared(sourceMetadataCacheTtlMs, sourceMetadataCacheSize);
+          });
+    }
+    if (info.attributes.containsKey("maxOpenSourcesPerNode")) {
+      int maxOpenSourcesPerNode = Integer.parseInt(info.attributes.get("maxOpenSourcesPerNode"));
+      configureNodeWide(
+          core,
+          "maxOpenSourcesPerNode",
+          String.valueOf(maxOpenSourcesPerNode),
+          () -> LazySourceReader.configureMaxOpenPerNode(maxOpenSourcesPerNode));
+    }
+    int numReadAheadThreads =
+        Integer.parseInt(info.attributes.getOrDefault("numReadAheadThreads", "0"));
+    int maxOpenSourcesPerRequest =
+        Integer.parseInt(info.attributes.getOrDefault("maxOpenSourcesPerRequest", "0"));
+    try {
+      SourceReaderProviders.enable(
+          core.getResourceLoader().getClassLoader(), info.attributes.get("sourceReaderProviders"));
+      HttpSourceReader.allowPrefixes(info.attributes.get("allowedHttpPrefixes"));
+    } catch (IllegalArgumentException e) {
+      throw new SolrException(SolrException.ErrorCode.SERVER_ERROR, e.getMessage(), e);
+    }
 
     this.ocrHighlighter =
         new SolrOcrHighlighter(
             numHlThreads,
             maxQueuedPerThread,
-            sectionReadSize,
-            (int) Math.ceil((double) maxSectionCacheSize / sectionReadSize));
+            numReadAheadThreads,
+            new SourceReaderSettings(
+                sectionReadSize,
+                (int) Math.ceil((double) maxSectionCacheSize / sectionReadSize),
+                maxPrefetchSize,
+                fileReadMode,
+                maxOpenSourcesPerRequest));
+  }
+
+  /**
+   * Configure a component that is shared by all cores on the node.
+   *
+   * <p>The first loaded core that sets the attributes of a component explicitly configures it,
+   * cores that don't set them leave it alone. Different settings from other cores are refused with
+   * a warning, so that a core can't replace or disable a component that other cores rely on.
+   *
+   * @param value all settings of the component, to compare them with the ones of other cores
+   * @param configure configures the component with the settings
+   */
+  private static synchronized void configureNodeWide(
+      SolrCore core, String component, String value, Runnable configure) {
+    NodeWideSetting current = nodeWideSettings.get(component);
+    if (current != null) {
+      if (!current.value.equals(value)) {
+        log.warn(
+            "Ignoring settings '{}' for node-wide {} of core '{}', it was already configured with"
+                + " settings '{}' by core '{}'. Use the same settings in all cores or unload all of"
+                + " them to change them.",
+            value,
+            component,
+            core.getName(),
+            current.value,
+            current.coreName);
+      }
+      return;
+    }
+    try {
+      configure.run();
+    } catch (IllegalArgumentException e) {
+      throw new SolrException(SolrException.ErrorCode.SERVER_ERROR, e.getMessage(), e);
+    }
+    nodeWideSettings.put(component, new NodeWideSetting(value, core.getName()));
+  }
+
+  /**
+   * Register the core as a user of the node-wide components. The first user starts out with all of
+   * them disabled, and once the last user is closed, they can be configured anew.
+   */
+  private static void useNodeWide(SolrCore core) {
+    synchronized (OcrHighlightComponent.class) {
+      if (numNodeWideUsers == 0) {
+        resetNodeWide();
+      }
+      numNodeWideUsers++;
+    }
+    core.addCloseHook(
+        new CloseHook() {
+          @Override
+          public void postClose(SolrCore core) {
+            releaseNodeWide();
+          }
+        });
+  }
+
+  private static synchronized void releaseNodeWide() {
+    numNodeWideUsers--;
+    if (numNodeWideUsers == 0) {
+      resetNodeWide();
+    }
+  }
+
+  /** Disable all node-wide components, i.e. restore their defaults. */
+  private static void resetNodeWide() {
+    AlignedBufferPool.configureShared(0, 0);
+    SectionSizePolicy.configureShared(false, 0, 0, 0);
+    SectionCache.configureShared(0, false);
+    BreakIndex.configureShared(0);
+    FileChannelPool.configureShared(0);
+    FileMetadataCache.configureShared(0, 0);
+    SourcePointerCache.configureShared(0, 0);
+    LazySourceReader.configureMaxOpenPerNode(0);
+    nodeWideSettings.clear();
+  }
+
+  @Override
+  public void initializeMetrics(SolrMetricsContext parentContext, String scope) {
+    super.initializeMetrics(parentContext, scope);
+    try {
+      registerGauge(
+          scope, SectionCache::getShared, "sharedSectionCache", "hits", c -> c.stats().hitCount());
+      registerGauge(
+          scope,
+          SectionCache::getShared,
+          "sharedSectionCache",
+          "misses",
+          c -> c.stats().missCount());
+      registerGauge(
+          scope,
+          SectionCache::getShared,
+          "sharedSectionCache",
+          "hitRatio",
+          c -> c.stats().hitRate());
+      registerGauge(
+          scope,
+          SectionCache::getShared,
+          "sharedSectionCache",
+          "evictions",
+          c -> c.stats().evictionCount());
+      registerGauge(
+          scope, SectionCache::getShared, "sharedSectionCache", "size", SectionCache::size);
+      registerGauge(
+          scope, BreakIndex::getShared, "sharedBreakIndex", "hits", c -> c.stats().hitCount());
+      registerGauge(
+          scope, BreakIndex::getShared, "sharedBreakIndex", "misses", c -> c.stats().missCount());
+      registerGauge(
+          scope,
+          BreakIndex::getShared,
+          "sharedBreakIndex",
+          "evictions",
+          c -> c.stats().evictionCount());
+      registerGauge(scope, BreakIndex::getShared, "sharedBreakIndex", "size", BreakIndex::size);
+      registerGauge(
+          scope, FileChannelPool::getShared, "fileChannelPool", "hits", FileChannelPool::getHits);
+      registerGauge(
+          scope,
+          FileChannelPool::getShared,
+          "fileChannelPool",
+          "misses",
+          FileChannelPool::getMisses);
+      registerGauge(
+          scope, FileChannelPool::getShared, "fileChannelPool", "size", FileChannelPool::size);
+      registerGauge(
+          scope,
+          FileMetadataCache::getShared,
+          "fileMetadataCache",
+          "hits",
+          c -> c.getStats().hitCount());
+      registerGauge(
+          scope,
+          FileMetadataCache::getShared,
+          "fileMetadataCache",
+          "misses",
+          c -> c.getStats().missCount());
+      registerGauge(
+          scope,
+          SourcePointerCache::getShared,
+          "sourcePointerCache",
+          "hits",
+          c -> c.getStats().hitCount());
+      registerGauge(
+          scope,
+          SourcePointerCache::getShared,
+          "sourcePointerCache",
+          "misses",
+          c -> c.getStats().missCount());
+      registerGauge(
+          scope,
+          SourcePointerCache::getShared,
+          "sourcePointerCache",
+          "size",
+          SourcePointerCache::size);
+      registerGauge(
+          scope,
+          AlignedBufferPool::getShared,
+          "directIoBufferPool",
+          "allocated",
+          AlignedBufferPool::getNumAllocated);
+      registerGauge(
+          scope,
+          AlignedBufferPool::getShared,
+          "directIoBufferPool",
+          "idle",
+          AlignedBufferPool::size);
+      registerGauge(
+          scope,
+          SectionSizePolicy::getShared,
+          "adaptiveSectionSize",
+          "smallest",
+          SectionSizePolicy::getSmallestChosenSize);
+      registerGauge(
+          scope,
+          SectionSizePolicy::getShared,
+          "adaptiveSectionSize",
+          "largest",
+          SectionSizePolicy::getLargestChosenSize);
+      registerGauge(
+          scope,
+          SectionSizePolicy::getShared,
+          "adaptiveSectionSize",
+          "byTier",
+          SectionSizePolicy::getChosenSizes);
+    } catch (LinkageError e) {
+      // Metrics API differs between Solr versions, metrics are not essential, so just go on
+      log.warn("Could not register OCR highlighting metrics: {}", e.getMessage());
+    }
+  }
+
+  /**
+   * Register a gauge for a node-wide component, reporting -1 if the component is disabled, i.e. if
+   * {@code instance} returns {@code null}.
+   */
+  private <T> void registerGauge(
+      String scope, Supplier<T> instance, String component, String name, Function<T, ?> getter) {
+    solrMetricsContext.gauge(
+        () -> {
+          T inst = instance.get();
+          return inst == null ? -1 : getter.apply(inst);
+        },
+        true,
+        name,
+        getCategory().toString(),
+        scope,
+        component);
   }
 
   @Override
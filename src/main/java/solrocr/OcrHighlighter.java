@@ -26,6 +26,7 @@ package solrocr;
 
 import com.github.dbmdz.solrocr.breaklocator.BreakLocator;
 import com.github.dbmdz.solrocr.breaklocator.ContextBreakLocator;
+import com.github.dbmdz.solrocr.breaklocator.HierarchicalBreakLocator;
 import com.github.dbmdz.solrocr.formats.alto.AltoFormat;
 import com.github.dbmdz.solrocr.formats.hocr.HocrFormat;
 import com.github.dbmdz.solrocr.formats.miniocr.MiniOcrFormat;
@@ -37,14 +38,21 @@ import com.github.dbmdz.solrocr.model.OcrFormat;
 import com.github.dbmdz.solrocr.model.OcrHighlightResult;
 import com.github.dbmdz.solrocr.model.OcrSnippet;
 import com.github.dbmdz.solrocr.model.SourcePointer;
+import com.github.dbmdz.solrocr.model.SourcePointerCache;
+import com.github.dbmdz.solrocr.reader.ChunkedSourceReader;
 import com.github.dbmdz.solrocr.reader.ExitingSourceReader;
+import com.github.dbmdz.solrocr.reader.LazySourceReader;
 import com.github.dbmdz.solrocr.reader.LegacyBaseCompositeReader;
+import com.github.dbmdz.solrocr.reader.SectionSizePolicy;
+import com.github.dbmdz.solrocr.reader.SharedSourceReader;
 import com.github.dbmdz.solrocr.reader.SourceReader;
+import com.github.dbmdz.solrocr.reader.SourceReaderSettings;
 import com.github.dbmdz.solrocr.reader.StringSourceReader;
 import com.github.dbmdz.solrocr.solr.OcrHighlightParams;
 import com.github.dbmdz.solrocr.util.TimeAllowedLimit;
 import com.github.dbmdz.solrocr.util.VersionUtils;
 import com.google.common.collect.ImmutableSet;
+import com.google.common.util.concurrent.Uninterruptibles;
 import java.io.IOException;
 import java.lang.reflect.Constructor;
 import java.lang.reflect.InvocationTargetException;
@@ -53,6 +61,7 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.EnumSet;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Locale;
@@ -60,15 +69,21 @@ import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.Executor;
 import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.function.Function;
 import java.util.function.Predicate;
 import org.apache.lucene.analysis.Analyzer;
 import org.apache.lucene.document.Document;
 import org.apache.lucene.document.DocumentStoredFieldVisitor;
 import org.apache.lucene.index.BaseCompositeReader;
+import org.apache.lucene.index.BinaryDocValues;
+import org.apache.lucene.index.DocValuesType;
 import org.apache.lucene.index.ExitableDirectoryReader;
+import org.apache.lucene.index.FieldInfo;
 import org.apache.lucene.index.Fields;
 import org.apache.lucene.index.FilterLeafReader;
 import org.apache.lucene.index.IndexReader;
@@ -77,6 +92,7 @@ import org.apache.lucene.index.LeafReaderContext;
 import org.apache.lucene.index.MultiReader;
 import org.apache.lucene.index.QueryTimeout;
 import org.apache.lucene.index.ReaderUtil;
+import org.apache.lucene.index.SortedDocValues;
 import org.apache.lucene.index.Term;
 import org.apache.lucene.index.TermVectors;
 import org.apache.lucene.search.DocIdSetIterator;
@@ -252,20 +268,20 @@ public class OcrHighlighter extends UnifiedHighlighter {
 
   private final SolrParams params;
   private final SolrQueryRequest req;
-  private final int readerSectionSize;
-  private final int readerMaxCacheEntries;
+  private final SourceReaderSettings readerSettings;
+  private final Semaphore openSourcePermits;
 
   public OcrHighlighter(
       IndexSearcher indexSearcher,
       Analyzer indexAnalyzer,
       SolrQueryRequest req,
-      int readerSectionSize,
-      int readerMaxCacheEntries) {
+      SourceReaderSettings readerSettings) {
     super(indexSearcher, indexAnalyzer);
     this.params = req.getParams();
     this.req = req;
-    this.readerSectionSize = readerSectionSize;
-    this.readerMaxCacheEntries = readerMaxCacheEntries;
+    this.readerSettings = readerSettings;
+    int maxOpenSources = readerSettings.getMaxOpenSourcesPerRequest();
+    this.openSourcePermits = maxOpenSources > 0 ? new Semaphore(maxOpenSources, true) : null;
   }
 
   /**
@@ -348,6 +364,27 @@ public class OcrHighlighter extends UnifiedHighlighter {
       Map<String, Object> respHeader,
       Executor hlThreadPool)
       throws IOException {
+    return highlightOcrFields(
+        ocrFieldNames, query, docIDs, maxPassagesOcr, respHeader, hlThreadPool, null);
+  }
+
+  /**
+   * Highlight the OCR fields of the given documents.
+   *
+   * <p>If a {@code readAheadPool} is passed, the beginning of the OCR content and the surroundings
+   * of the first matches of every document in a batch are read ahead on that pool, while the
+   * documents before it are still being highlighted. This allows overlapping the storage latency
+   * with the highlighting work.
+   */
+  public OcrHighlightResult[] highlightOcrFields(
+      String[] ocrFieldNames,
+      Query query,
+      int[] docIDs,
+      int[] maxPassagesOcr,
+      Map<String, Object> respHeader,
+      Executor hlThreadPool,
+      Executor readAheadPool)
+      throws IOException {
     if (ocrFieldNames.length < 1) {
       throw new IllegalArgumentException("ocrFieldNames must not be empty");
     }
@@ -422,6 +459,11 @@ public class OcrHighlighter extends UnifiedHighlighter {
     docLoop:
     for (int batchDocIdx = 0; batchDocIdx < sortedDocIds.length; ) {
       List<SourceReader[]> fieldValsByDoc = loadOcrFieldValues(fields, docIdIter);
+      ReadAheadTask[][] readAheads =
+          readAheadPool == null
+              ? null
+              : readAhead(
+                  fieldValsByDoc, batchDocIdx, sortedDocIds, fieldHighlighters, readAheadPool);
 
       // Highlight in per-field order first, then by doc (better I/O pattern)
       for (int fieldIdx = 0; fieldIdx < fields.length; fieldIdx++) {
@@ -437,6 +479,8 @@ public class OcrHighlighter extends UnifiedHighlighter {
           if (content == null) {
             continue;
           }
+          final ReadAheadTask readAhead =
+              readAheads == null ? null : readAheads[docIdx - batchDocIdx][fieldIdx];
           QueryTimeout limits = getQueryLimits(req);
           if (limits != null) {
             // We only check against the limits when reading our field content (both from disk and
@@ -474,6 +518,11 @@ public class OcrHighlighter extends UnifiedHighlighter {
           Runnable hlFn =
               () -> {
                 try {
+                  if (readAhead != null) {
+                    // Never access the content concurrently with the read-ahead, but don't wait
+                    // for one that is still queued, we'll simply read on demand.
+                    readAhead.claimOrAwait();
+                  }
                   highlightDocField(
                       indexDocId,
                       readerDocIdFinal,
@@ -579,6 +628,101 @@ public class OcrHighlighter extends UnifiedHighlighter {
     return out;
   }
 
+  /**
+   * Start reading ahead the content of all documents and fields in the batch.
+   *
+   * @return the read-ahead futures by document in the batch and field, {@code null} where no
+   *     read-ahead was started
+   */
+  private ReadAheadTask[][] readAhead(
+      List<SourceReader[]> fieldValsByDoc,
+      int batchDocIdx,
+      int[] sortedDocIds,
+      OcrFieldHighlighter[] fieldHighlighters,
+      Executor readAheadPool) {
+    List<LeafReaderContext> leaves = searcher.getIndexReader().leaves();
+    ReadAheadTask[][] tasks = new ReadAheadTask[fieldValsByDoc.size()][];
+    // Allocate all rows up front, since we stop early if the pool is saturated
+    for (int i = 0; i < fieldValsByDoc.size(); i++) {
+      tasks[i] = new ReadAheadTask[fieldValsByDoc.get(i).length];
+    }
+    for (int i = 0; i < fieldValsByDoc.size(); i++) {
+      SourceReader[] contents = fieldValsByDoc.get(i);
+      int indexDocId = sortedDocIds[batchDocIdx + i];
+      LeafReaderContext leafReaderContext = leaves.get(ReaderUtil.subIndex(indexDocId, leaves));
+      int readerDocId = indexDocId - leafReaderContext.docBase;
+      for (int fieldIdx = 0; fieldIdx < contents.length; fieldIdx++) {
+        SourceReader content = contents[fieldIdx];
+        OcrFieldHighlighter fieldHighlighter = fieldHighlighters[fieldIdx];
+        OffsetSource offsetSource = fieldHighlighter.getOffsetSource();
+        if (content == null
+            || content.isInMemory()
+            || (offsetSource != OffsetSource.POSTINGS
+                && offsetSource != OffsetSource.POSTINGS_WITH_TERM_VECTORS
+                && offsetSource != OffsetSource.TERM_VECTORS)) {
+          continue;
+        }
+        ReadAheadTask task =
+            new ReadAheadTask(
+                () -> {
+                  try {
+                    fieldHighlighter.readAhead(leafReaderContext.reader(), readerDocId, content);
+                  } catch (IOException | RuntimeException e) {
+                    log.debug(
+                        "Could not read ahead OCR content at '{}': {}",
+                        content.getPointer(),
+                        e.getMessage());
+                  }
+                });
+        try {
+          readAheadPool.execute(task);
+        } catch (RejectedExecutionException e) {
+          // Read-ahead pool is saturated, the content will be read on demand
+          return tasks;
+        }
+        tasks[i][fieldIdx] = task;
+      }
+    }
+    return tasks;
+  }
+
+  /**
+   * Read-ahead of the content of a single document field, that is skipped if highlighting the
+   * field starts before the read-ahead does.
+   */
+  private static final class ReadAheadTask implements Runnable {
+    private final Runnable readAhead;
+    private final AtomicBoolean claimed = new AtomicBoolean(false);
+    private final CountDownLatch done = new CountDownLatch(1);
+
+    ReadAheadTask(Runnable readAhead) {
+      this.readAhead = readAhead;
+    }
+
+    @Override
+    public void run() {
+      if (!claimed.compareAndSet(false, true)) {
+        // Highlighting already started, the content is read on demand
+        return;
+      }
+      try {
+        readAhead.run();
+      } finally {
+        done.countDown();
+      }
+    }
+
+    /**
+     * Wait for the read-ahead if it has already started, otherwise prevent it from running at all,
+     * so the content is never accessed concurrently.
+     */
+    void claimOrAwait() {
+      if (!claimed.compareAndSet(false, true)) {
+        Uninterruptibles.awaitUninterruptibly(done);
+      }
+    }
+  }
+
   private void highlightDocField(
       int indexDocId, // index-wide docId
       int readerDocId, // docId relative to the leaf reader
@@ -610,9 +754,10 @@ public class OcrHighlighter extends UnifiedHighlighter {
         OcrBlock.valueOf(
             params.get(OcrHighlightParams.CONTEXT_BLOCK, "line").toUpperCase(Locale.US));
 
-    BreakLocator contextLocator = ocrFormat.getBreakLocator(reader, contextBlock);
-    BreakLocator limitLocator =
-        limitBlocks == null ? null : ocrFormat.getBreakLocator(reader, limitBlocks);
+    // Context, limit and page boundaries are located with a single scan over the OCR markup
+    HierarchicalBreakLocator blockBreaks = ocrFormat.getHierarchicalBreakLocator(reader);
+    BreakLocator contextLocator = blockBreaks.forBlocks(contextBlock);
+    BreakLocator limitLocator = limitBlocks == null ? null : blockBreaks.forBlocks(limitBlocks);
     BreakLocator breakLocator =
         new ContextBreakLocator(
             contextLocator, limitLocator, params.getInt(OcrHighlightParams.CONTEXT_SIZE, 2));
@@ -623,6 +768,7 @@ public class OcrHighlighter extends UnifiedHighlighter {
             params.getBool(OcrHighlightParams.ABSOLUTE_HIGHLIGHTS, false),
             params.getBool(OcrHighlightParams.ALIGN_SPANS, false),
             params.getBool(OcrHighlightParams.TRACK_PAGES, true));
+    formatter.setBlockBreaks(blockBreaks);
     boolean scorePassages = params.getBool(OcrHighlightParams.SCORE_PASSAGES, true);
 
     resultByDocIn[docInIndex] =
@@ -642,44 +788,174 @@ public class OcrHighlighter extends UnifiedHighlighter {
   protected List<SourceReader[]> loadOcrFieldValues(String[] fields, DocIdSetIterator docIter)
       throws IOException {
     List<SourceReader[]> fieldValues = new ArrayList<>((int) docIter.cost());
+    String[] chunkedFields = new String[fields.length];
+    // Documents are loaded in ascending order, so every DocValues field is read with a single
+    // iterator per segment for the whole batch
+    List<LeafReaderContext> leaves = searcher.getIndexReader().leaves();
+    Map<String, DocValuesCursor> cursorsByField = new HashMap<>();
+    DocValuesCursor[] chunkedCursors = new DocValuesCursor[fields.length];
+    DocValuesCursor[] pointerCursors = new DocValuesCursor[fields.length];
+    for (int fieldIdx = 0; fieldIdx < fields.length; fieldIdx++) {
+      chunkedFields[fieldIdx] =
+          params.getFieldParam(fields[fieldIdx], OcrHighlightParams.CHUNKED_FIELD);
+      if (chunkedFields[fieldIdx] != null) {
+        chunkedCursors[fieldIdx] =
+            cursorsByField.computeIfAbsent(
+                chunkedFields[fieldIdx], f -> new DocValuesCursor(leaves, f));
+      }
+      String pointerField =
+          params.getFieldParam(fields[fieldIdx], OcrHighlightParams.POINTER_FIELD);
+      if (pointerField != null) {
+        pointerCursors[fieldIdx] =
+            cursorsByField.computeIfAbsent(pointerField, f -> new DocValuesCursor(leaves, f));
+      }
+    }
     int docId;
     while ((docId = docIter.nextDoc()) != DocIdSetIterator.NO_MORE_DOCS) {
       SourceReader[] ocrVals = new SourceReader[fields.length];
-      Document doc = getDocWithFieldValues(searcher, docId, fields);
+      // Fields with the same source share a single reader, by the index of the first such field
+      Map<String, Integer> fieldIdxBySource = new HashMap<>();
+      // Values from DocValues are preferred, stored fields are only loaded for the remaining ones,
+      // since that requires decompressing a whole block of stored documents
+      List<String> storedFields = new ArrayList<>(fields.length);
+      int[] storedFieldIdxes = new int[fields.length];
       for (int fieldIdx = 0; fieldIdx < fields.length; fieldIdx++) {
-        String fieldName = fields[fieldIdx];
-        String fieldValue = doc.get(fieldName);
-        if (fieldValue == null) {
-          // No OCR content at all
-          ocrVals[fieldIdx] = null;
+        if (chunkedFields[fieldIdx] != null
+            && fieldIdxBySource.containsKey(chunkedFields[fieldIdx])) {
+          ocrVals[fieldIdx] = share(ocrVals, fieldIdxBySource.get(chunkedFields[fieldIdx]));
           continue;
         }
-        if (!SourcePointer.isPointer(fieldValue)) {
-          // OCR content as stored text
-          ocrVals[fieldIdx] = new StringSourceReader(fieldValue);
+        BytesRef chunked =
+            chunkedCursors[fieldIdx] == null
+                ? null
+                : getChunkedValue(docId, chunkedCursors[fieldIdx]);
+        if (chunked != null) {
+          fieldIdxBySource.put(chunkedFields[fieldIdx], fieldIdx);
+          ocrVals[fieldIdx] =
+              new ChunkedSourceReader(
+                  chunked,
+                  String.format(Locale.US, "%s[doc=%d]", chunkedFields[fieldIdx], docId),
+                  readerSettings.getSectionSize(),
+                  readerSettings.getMaxCacheEntries());
           continue;
         }
-        SourcePointer sourcePointer = null;
-        try {
-          sourcePointer = SourcePointer.parse(fieldValue);
-        } catch (RuntimeException e) {
-          log.error("Could not parse OCR pointer for document {}: {}", docId, fieldValue, e);
-        }
-        if (sourcePointer == null) {
-          // None of the files in the pointer exist or were readable, log should have warnings
-          ocrVals[fieldIdx] = null;
+        BytesRef pointerBytes =
+            pointerCursors[fieldIdx] == null ? null : pointerCursors[fieldIdx].get(docId);
+        String pointer = pointerBytes == null ? null : pointerBytes.utf8ToString();
+        if (pointer != null) {
+          ocrVals[fieldIdx] = createReader(docId, pointer, ocrVals, fieldIdx, fieldIdxBySource);
           continue;
         }
-        ocrVals[fieldIdx] = sourcePointer.getReader(readerSectionSize, readerMaxCacheEntries);
+        storedFieldIdxes[storedFields.size()] = fieldIdx;
+        storedFields.add(fields[fieldIdx]);
+      }
+      if (!storedFields.isEmpty()) {
+        Document doc = getDocWithFieldValues(searcher, docId, storedFields.toArray(new String[0]));
+        for (int i = 0; i < storedFields.size(); i++) {
+          String fieldValue = doc.get(storedFields.get(i));
+          // No OCR content at all if there's no value
+          int fieldIdx = storedFieldIdxes[i];
+          ocrVals[fieldIdx] =
+              fieldValue == null
+                  ? null
+                  : createReader(docId, fieldValue, ocrVals, fieldIdx, fieldIdxBySource);
+        }
       }
       fieldValues.add(ocrVals);
     }
     return fieldValues;
   }
 
+  /**
+   * Get another handle for the reader of the field at {@code idx}, so it can be used by another
+   * field with the same source.
+   */
+  private static SourceReader share(SourceReader[] ocrVals, int idx) {
+    SourceReader reader = ocrVals[idx];
+    if (reader == null) {
+      return null;
+    }
+    if (!(reader instanceof SharedSourceReader)) {
+      reader = new SharedSourceReader(reader);
+      ocrVals[idx] = reader;
+    }
+    return ((SharedSourceReader) reader).share();
+  }
+
+  /**
+   * Create a reader for the value of an OCR field, sharing the reader of a previous field of the
+   * document if it has the same value.
+   */
+  private SourceReader createReader(
+      int docId,
+      String fieldValue,
+      SourceReader[] ocrVals,
+      int fieldIdx,
+      Map<String, Integer> fieldIdxBySource)
+      throws IOException {
+    // Keyed on the raw value, so we don't have to check whether it's a pointer before looking it
+    // up in the pointer cache
+    Integer sharedIdx = fieldIdxBySource.putIfAbsent(fieldValue, fieldIdx);
+    if (sharedIdx != null) {
+      return share(ocrVals, sharedIdx);
+    }
+    return createReader(docId, fieldValue);
+  }
+
+  /**
+   * Create a reader for the value of an OCR field, i.e. either a source pointer or the OCR markup
+   * itself, or {@code null} if the pointer could not be resolved.
+   */
+  private SourceReader createReader(int docId, String fieldValue) throws IOException {
+    if (!SourcePointer.isPointer(fieldValue)) {
+      // OCR content as stored text
+      return new StringSourceReader(fieldValue);
+    }
+    SourcePointer sourcePointer = SourcePointerCache.getIfValid(fieldValue);
+    if (sourcePointer == null) {
+      try {
+        sourcePointer = SourcePointerCache.parse(fieldValue);
+      } catch (RuntimeException e) {
+        log.error("Could not parse OCR pointer for document {}: {}", docId, fieldValue, e);
+      }
+    }
+    if (sourcePointer == null) {
+      // None of the files in the pointer exist or were readable, log should have warnings
+      return null;
+    }
+    // Sources are only opened once they're highlighted, so we don't hold on to the file
+    // handles of all documents while waiting for a highlighting thread.
+    final SourcePointer ptr = sourcePointer;
+    return new LazySourceReader(
+        ptr,
+        () ->
+            SectionSizePolicy.getReader(
+                ptr,
+                readerSettings.getSectionSize(),
+                readerSettings.getMaxCacheEntries(),
+                readerSettings.getFileReadMode()),
+        openSourcePermits);
+  }
+
+  /**
+   * Get the chunked OCR markup of a document from a binary DocValues field or, if the field has no
+   * DocValues, from a stored binary field, or {@code null} if the document has no value.
+   */
+  private BytesRef getChunkedValue(int docId, DocValuesCursor cursor) throws IOException {
+    BytesRef value = cursor.get(docId);
+    if (value != null) {
+      return BytesRef.deepCopyOf(value);
+    }
+    if (cursor.getType() == null || cursor.getType() == DocValuesType.BINARY) {
+      return null;
+    }
+    return getDocWithFieldValues(searcher, docId, new String[] {cursor.field})
+        .getBinaryValue(cursor.field);
+  }
+
   private OcrFormat getFormat(SourceReader content) throws IOException {
     // Sample the first 4k characters to determine the format
-    String sampleChunk = content.readAsciiString(0, Math.min(4096, content.length()));
+    String sampleChunk = content.readAsciiString(0, (int) Math.min(4096, content.length()));
     return FORMATS.stream().filter(fmt -> fmt.hasFormat(sampleChunk)).findFirst().orElse(null);
   }
 
@@ -721,7 +997,8 @@ public class OcrHighlighter extends UnifiedHighlighter {
         getOffsetStrategy(offsetSource, components),
         getScorer(field),
         maxPassages,
-        getMaxNoHighlightPassages(field));
+        getMaxNoHighlightPassages(field),
+        readerSettings.getMaxPrefetchSize());
   }
 
   private OcrFieldHighlighter getOcrFieldHighlighterLegacy(
@@ -752,7 +1029,8 @@ public class OcrHighlighter extends UnifiedHighlighter {
         getOffsetStrategy(offsetSource, components),
         getScorer(field),
         maxPassages,
-        getMaxNoHighlightPassages(field));
+        getMaxNoHighlightPassages(field),
+        readerSettings.getMaxPrefetchSize());
   }
 
   private CharacterRunAutomaton[] getAutomataLegacy(
@@ -927,6 +1205,61 @@ public class OcrHighlighter extends UnifiedHighlighter {
     };
   }
 
+  /**
+   * Reads the values of a sorted or binary DocValues field for documents in ascending order, with a
+   * single iterator per segment.
+   */
+  private static final class DocValuesCursor {
+    final String field;
+    private final List<LeafReaderContext> leaves;
+    private LeafReaderContext leaf;
+    private DocValuesType type;
+    private SortedDocValues sorted;
+    private BinaryDocValues binary;
+    private int docId = -1;
+    private BytesRef value;
+
+    DocValuesCursor(List<LeafReaderContext> leaves, String field) {
+      this.leaves = leaves;
+      this.field = field;
+    }
+
+    /**
+     * Get the value of a document, or {@code null} if it has none. The document must not precede
+     * the document of the previous call, the returned value is only valid until the next call.
+     */
+    BytesRef get(int docId) throws IOException {
+      if (docId == this.docId) {
+        return value;
+      }
+      this.docId = docId;
+      if (leaf == null || docId >= leaf.docBase + leaf.reader().maxDoc()) {
+        leaf = leaves.get(ReaderUtil.subIndex(docId, leaves));
+        FieldInfo info = leaf.reader().getFieldInfos().fieldInfo(field);
+        type = info == null ? null : info.getDocValuesType();
+        sorted = type == DocValuesType.SORTED ? leaf.reader().getSortedDocValues(field) : null;
+        binary = type == DocValuesType.BINARY ? leaf.reader().getBinaryDocValues(field) : null;
+      }
+      int leafDocId = docId - leaf.docBase;
+      if (sorted != null && sorted.advanceExact(leafDocId)) {
+        value = sorted.lookupOrd(sorted.ordValue());
+      } else if (binary != null && binary.advanceExact(leafDocId)) {
+        value = binary.binaryValue();
+      } else {
+        value = null;
+      }
+      return value;
+    }
+
+    /**
+     * Get the DocValues type of the field in the segment of the current document, or {@code null}
+     * if the segment doesn't have the field.
+     */
+    DocValuesType getType() {
+      return type;
+    }
+  }
+
   /**
    * Wraps an IndexReader that remembers/caches the last call to {@link TermVectors#get(int)} so
    * that if the next call has the same ID, then it is reused. If TV's were column-stride (like
@@ -0,0 +1,80 @@
+package com.github.dbmdz.solrocr.breaklocator;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.Test;
+
+class BreakCacheTest {
+
+  @Test
+  void shouldAnswerBothDirections() {
+    BreakCache cache = new BreakCache();
+    cache.put(10, 20);
+    cache.put(20, 35);
+    assertThat(cache.following(10)).isEqualTo(20);
+    assertThat(cache.following(19)).isEqualTo(20);
+    assertThat(cache.following(20)).isEqualTo(35);
+    assertThat(cache.following(35)).isEqualTo(BreakCache.UNKNOWN);
+    assertThat(cache.following(9)).isEqualTo(BreakCache.UNKNOWN);
+    assertThat(cache.preceding(11)).isEqualTo(10);
+    assertThat(cache.preceding(20)).isEqualTo(10);
+    assertThat(cache.preceding(21)).isEqualTo(20);
+    assertThat(cache.preceding(35)).isEqualTo(20);
+    assertThat(cache.preceding(10)).isEqualTo(BreakCache.UNKNOWN);
+    assertThat(cache.preceding(36)).isEqualTo(BreakCache.UNKNOWN);
+  }
+
+  @Test
+  void shouldNotLinkUnrelatedIntervals() {
+    BreakCache cache = new BreakCache();
+    cache.put(10, 20);
+    cache.put(30, 40);
+    assertThat(cache.isBreak(20)).isTrue();
+    assertThat(cache.isBreak(25)).isFalse();
+    assertThat(cache.following(25)).isEqualTo(BreakCache.UNKNOWN);
+    assertThat(cache.preceding(25)).isEqualTo(BreakCache.UNKNOWN);
+    assertThat(cache.following(20)).isEqualTo(BreakCache.UNKNOWN);
+    assertThat(cache.preceding(30)).isEqualTo(BreakCache.UNKNOWN);
+  }
+
+  @Test
+  void shouldKnowBreakFreeRanges() {
+    BreakCache cache = new BreakCache();
+    cache.put(10, 20);
+    cache.put(20, 30);
+    assertThat(cache.isBreakFree(10, 20)).isTrue();
+    assertThat(cache.isBreakFree(12, 18)).isTrue();
+    assertThat(cache.isBreakFree(15, 25)).isFalse();
+    assertThat(cache.isBreakFree(5, 15)).isFalse();
+    assertThat(cache.isBreakFree(30, 40)).isFalse();
+    assertThat(cache.isBreakFree(30, 31)).isTrue();
+  }
+
+  @Test
+  void shouldForgetContradictedBreaks() {
+    BreakCache cache = new BreakCache();
+    cache.put(10, 30);
+    // A new break within a break-free gap invalidates the gap
+    cache.put(20, 25);
+    assertThat(cache.following(15)).isEqualTo(BreakCache.UNKNOWN);
+    assertThat(cache.following(20)).isEqualTo(25);
+    // Known breaks between two adjacent breaks are dropped
+    cache.put(5, 40);
+    assertThat(cache.isBreak(20)).isFalse();
+    assertThat(cache.following(20)).isEqualTo(40);
+    assertThat(cache.preceding(40)).isEqualTo(5);
+  }
+
+  @Test
+  void shouldGrow() {
+    BreakCache cache = new BreakCache();
+    // Insert in descending order to exercise shifting
+    for (int i = 1000; i > 0; i--) {
+      cache.put(i * 10L, i * 10L + 10);
+    }
+    for (int i = 1; i <= 1000; i++) {
+      assertThat(cache.following(i * 10L + 5)).isEqualTo(i * 10L + 10);
+      assertThat(cache.preceding(i * 10L + 5)).isEqualTo(i * 10L);
+    }
+  }
+}
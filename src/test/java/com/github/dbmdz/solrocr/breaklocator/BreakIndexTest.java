@@ -0,0 +1,90 @@
+package com.github.dbmdz.solrocr.breaklocator;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.github.dbmdz.solrocr.formats.miniocr.MiniOcrFormat;
+import com.github.dbmdz.solrocr.model.OcrBlock;
+import com.github.dbmdz.solrocr.reader.FileSourceReader;
+import com.github.dbmdz.solrocr.reader.SourceReader;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+class BreakIndexTest {
+  private static final Path path = Paths.get("src/test/resources/data/miniocr.xml");
+  private static final MiniOcrFormat format = new MiniOcrFormat();
+
+  /** Reader that counts how many sections were requested from it. */
+  private static class CountingReader extends FileSourceReader {
+    int numSectionReads = 0;
+
+    CountingReader(int sectionSize) throws IOException {
+      super(path, null, sectionSize, 8);
+    }
+
+    @Override
+    public Section getAsciiSection(long offset) throws IOException {
+      numSectionReads++;
+      return super.getAsciiSection(offset);
+    }
+  }
+
+  @AfterEach
+  void disableIndex() {
+    BreakIndex.configureShared(0);
+  }
+
+  @Test
+  void shouldReuseBreaksFromOtherLocators() throws IOException {
+    BreakIndex.configureShared(16 * 1024 * 1024);
+    long[] offsets = {16283, 8267, 250_000};
+
+    CountingReader first = new CountingReader(4096);
+    BreakLocator firstLines = format.getHierarchicalBreakLocator(first).forBlocks(OcrBlock.LINE);
+    long[] expected = new long[offsets.length * 2];
+    for (int i = 0; i < offsets.length; i++) {
+      expected[2 * i] = firstLines.following(offsets[i]);
+      expected[2 * i + 1] = firstLines.preceding(offsets[i]);
+    }
+    assertThat(first.numSectionReads).isGreaterThan(0);
+    assertThat(BreakIndex.getShared().size()).isEqualTo(1);
+
+    CountingReader second = new CountingReader(4096);
+    BreakLocator secondLines = format.getHierarchicalBreakLocator(second).forBlocks(OcrBlock.LINE);
+    for (int i = 0; i < offsets.length; i++) {
+      assertThat(secondLines.following(offsets[i])).isEqualTo(expected[2 * i]);
+      assertThat(secondLines.preceding(offsets[i])).isEqualTo(expected[2 * i + 1]);
+    }
+    assertThat(second.numSectionReads).isZero();
+  }
+
+  @Test
+  void shouldScanGapsBetweenDifferentlyAlignedSections() throws IOException {
+    SourceReader reader = new FileSourceReader(path, null, 64 * 1024, 8);
+    BreakLocator expected = format.getHierarchicalBreakLocator(reader).forBlocks(OcrBlock.WORD);
+
+    BreakIndex.configureShared(16 * 1024 * 1024);
+    for (int sectionSize : new int[] {512, 300, 8192}) {
+      BreakLocator words =
+          format
+              .getHierarchicalBreakLocator(new FileSourceReader(path, null, sectionSize, 8))
+              .forBlocks(OcrBlock.WORD);
+      for (long offset = sectionSize / 3; offset < 64 * 1024; offset += 97) {
+        assertThat(words.following(offset)).isEqualTo(expected.following(offset));
+        assertThat(words.preceding(offset)).isEqualTo(expected.preceding(offset));
+      }
+    }
+  }
+
+  @Test
+  void shouldKeepIndexWithSameSettings() {
+    BreakIndex.configureShared(1024);
+    BreakIndex index = BreakIndex.getShared();
+    BreakIndex.configureShared(1024);
+    assertThat(BreakIndex.getShared()).isSameAs(index);
+    BreakIndex.configureShared(0);
+    assertThat(BreakIndex.getShared()).isNull();
+  }
+}
@@ -4,6 +4,7 @@ import static org.assertj.core.api.Assertions.assertThat;
 
 import com.github.dbmdz.solrocr.reader.FileSourceReader;
 import com.github.dbmdz.solrocr.reader.SourceReader;
+import com.google.common.collect.ImmutableList;
 import java.io.IOException;
 import java.nio.file.Path;
 import java.nio.file.Paths;
@@ -17,9 +18,9 @@ class HocrClassBreakLocatorTest {
   void firstNext() throws IOException {
     SourceReader reader = new FileSourceReader(utf8Path, null, 8 * 1024, 8);
     HocrClassBreakLocator it = new HocrClassBreakLocator(reader, "ocrx_word");
-    int start = it.following(0);
-    int end = it.following(start);
-    String tag = reader.readUtf8String(start, end - start);
+    long start = it.following(0);
+    long end = it.following(start);
+    String tag = reader.readUtf8String(start, (int) (end - start));
     assertThat(tag).startsWith("<span class='ocrx_word'");
     assertThat(StringUtils.countMatches(tag, "ocrx_word")).isEqualTo(1);
   }
@@ -28,9 +29,9 @@ class HocrClassBreakLocatorTest {
   void next() throws IOException {
     SourceReader reader = new FileSourceReader(utf8Path, null, 8 * 1024, 8);
     HocrClassBreakLocator it = new HocrClassBreakLocator(reader, "ocrx_word");
-    int start = it.following(671024);
-    int end = it.following(start);
-    String tag = reader.readUtf8String(start, end - start);
+    long start = it.following(671024);
+    long end = it.following(start);
+    String tag = reader.readUtf8String(start, (int) (end - start));
     assertThat(tag).startsWith("<span class='ocrx_word'");
     assertThat(StringUtils.countMatches(tag, "ocrx_word")).isEqualTo(1);
     assertThat(tag).contains("Entſchuldigung");
@@ -40,9 +41,9 @@ class HocrClassBreakLocatorTest {
   void previous() throws IOException {
     SourceReader reader = new FileSourceReader(utf8Path, null, 8 * 1024, 8);
     HocrClassBreakLocator it = new HocrClassBreakLocator(reader, "ocrx_word");
-    int end = it.preceding(671287);
-    int start = it.preceding(end);
-    String tag = reader.readUtf8String(start, end - start);
+    long end = it.preceding(671287);
+    long start = it.preceding(end);
+    String tag = reader.readUtf8String(start, (int) (end - start));
     assertThat(tag).startsWith("<span class='ocrx_word'");
     assertThat(StringUtils.countMatches(tag, "ocrx_word")).isEqualTo(1);
     assertThat(tag).contains("Entſchuldigung");
@@ -52,9 +53,9 @@ class HocrClassBreakLocatorTest {
   void previousLast() throws IOException {
     SourceReader reader = new FileSourceReader(utf8Path, null, 8 * 1024, 8);
     HocrClassBreakLocator it = new HocrClassBreakLocator(reader, "ocrx_word");
-    int end = reader.length();
-    int start = it.preceding(end);
-    String tag = reader.readUtf8String(start, end - start);
+    long end = reader.length();
+    long start = it.preceding(end);
+    String tag = reader.readUtf8String(start, (int) (end - start));
     assertThat(tag).startsWith("<span class=\"ocrx_word\"");
     assertThat(StringUtils.countMatches(tag, "ocrx_word")).isEqualTo(1);
     assertThat(tag).contains("omnia.");
@@ -64,11 +65,55 @@ class HocrClassBreakLocatorTest {
   void previousFirst() throws IOException {
     SourceReader reader = new FileSourceReader(utf8Path, null, 8 * 1024, 8);
     HocrClassBreakLocator it = new HocrClassBreakLocator(reader, "ocrx_word");
-    int idx = it.preceding(1464);
-    int end = it.preceding(idx);
-    int start = it.preceding(end);
-    String tag = reader.readUtf8String(start, end - start);
+    long idx = it.preceding(1464);
+    long end = it.preceding(idx);
+    long start = it.preceding(end);
+    String tag = reader.readUtf8String(start, (int) (end - start));
     assertThat(tag).startsWith("<?xml");
     assertThat(StringUtils.countMatches(tag, "ocrx_word")).isEqualTo(1);
   }
+
+  @Test
+  void shouldMatchAcrossSectionBoundaries() throws IOException {
+    // Breaks must not depend on how the source is split into sections
+    Path path = Paths.get("src/test/resources/data/hocr_hyphen.html");
+    SourceReader reader = new FileSourceReader(path, null, 512, 8);
+    SourceReader singleSectionReader = new FileSourceReader(path, null, 64 * 1024, 1);
+    HocrClassBreakLocator it = new HocrClassBreakLocator(reader, "ocrx_word");
+    HocrClassBreakLocator expected = new HocrClassBreakLocator(singleSectionReader, "ocrx_word");
+    for (int offset = 1; offset < reader.length(); offset += 3) {
+      assertThat(it.following(offset)).isEqualTo(expected.following(offset));
+      assertThat(it.preceding(offset)).isEqualTo(expected.preceding(offset));
+    }
+  }
+
+  @Test
+  void shouldFindClosestBreakForMultipleClasses() throws IOException {
+    Path path = Paths.get("src/test/resources/data/chronicling_hocr/seq-1.html");
+    SourceReader reader = new FileSourceReader(path, null, 8 * 1024, 8);
+    HocrClassBreakLocator it =
+        new HocrClassBreakLocator(
+            reader, ImmutableList.of("ocr_page", "ocr_carea", "ocr_par", "ocr_line"));
+    long start = it.preceding(840);
+    assertThat(reader.readAsciiString(start, 18)).isEqualTo("<p class=\"ocr_par\"");
+    assertThat(it.following(start)).isGreaterThan(840);
+  }
+
+  @Test
+  void shouldFindNthBreakLikeRepeatedLookups() throws IOException {
+    Path path = Paths.get("src/test/resources/data/hocr_hyphen.html");
+    SourceReader reader = new FileSourceReader(path, null, 512, 8);
+    HocrClassBreakLocator expected = new HocrClassBreakLocator(reader, "ocrx_word");
+    long offset = reader.length() / 2;
+    long expectedFollowing = offset;
+    long expectedPreceding = offset;
+    for (int i = 0; i < 10; i++) {
+      expectedFollowing = expected.following(expectedFollowing);
+      expectedPreceding = expected.preceding(expectedPreceding);
+    }
+    HocrClassBreakLocator it = new HocrClassBreakLocator(reader, "ocrx_word");
+    assertThat(it.following(offset, 10, reader.length())).isEqualTo(expectedFollowing);
+    assertThat(it.preceding(offset, 10, 0)).isEqualTo(expectedPreceding);
+    assertThat(it.following(offset, 10, expectedFollowing - 1)).isEqualTo(expectedFollowing - 1);
+  }
 }
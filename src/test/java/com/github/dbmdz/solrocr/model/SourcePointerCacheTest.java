@@ -0,0 +1,80 @@
+package com.github.dbmdz.solrocr.model;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.github.dbmdz.solrocr.reader.FileMetadataCache;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.FileTime;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class SourcePointerCacheTest {
+  @TempDir Path tempDir;
+
+  @AfterEach
+  void disableCaches() {
+    SourcePointerCache.configureShared(0, 0);
+    FileMetadataCache.configureShared(0, 0);
+  }
+
+  @Test
+  void shouldNotCacheIfDisabled() throws IOException {
+    String ptr = "src/test/resources/data/miniocr.xml[100:200]";
+    assertThat(SourcePointerCache.parse(ptr).toString()).isEqualTo(ptr);
+    assertThat(SourcePointerCache.getIfValid(ptr)).isNull();
+  }
+
+  @Test
+  void shouldReuseParsedPointers() throws IOException {
+    SourcePointerCache.configureShared(60_000, 100);
+    String ptr = "src/test/resources/data/miniocr.xml[100:200]";
+    assertThat(SourcePointerCache.getIfValid(ptr)).isNull();
+    SourcePointer parsed = SourcePointerCache.parse(ptr);
+    assertThat(SourcePointerCache.getIfValid(ptr).toString()).isEqualTo(parsed.toString());
+    assertThat(SourcePointerCache.getShared().getStats().hitCount()).isEqualTo(1);
+  }
+
+  @Test
+  void shouldNotShareRegionsOfCachedPointers() throws IOException {
+    SourcePointerCache.configureShared(60_000, 100);
+    String ptr = "src/test/resources/data/miniocr.xml[100:200]";
+    SourcePointer parsed = SourcePointerCache.parse(ptr);
+    parsed.sources.get(0).regions.get(0).start = 0;
+    SourcePointer cached = SourcePointerCache.getIfValid(ptr);
+    assertThat(cached.toString()).isEqualTo(ptr);
+    cached.sources.get(0).regions.get(0).end = 300;
+    assertThat(SourcePointerCache.getIfValid(ptr).toString()).isEqualTo(ptr);
+  }
+
+  @Test
+  void shouldInvalidateModifiedFiles() throws IOException {
+    SourcePointerCache.configureShared(60_000, 100);
+    Path file =
+        Files.copy(Paths.get("src/test/resources/data/miniocr.xml"), tempDir.resolve("a.xml"));
+    SourcePointerCache.parse(file.toString());
+    assertThat(SourcePointerCache.getIfValid(file.toString())).isNotNull();
+    Files.setLastModifiedTime(
+        file, FileTime.fromMillis(Files.getLastModifiedTime(file).toMillis() + 60_000));
+    assertThat(SourcePointerCache.getIfValid(file.toString())).isNull();
+    Files.delete(file);
+    assertThat(SourcePointerCache.getIfValid(file.toString())).isNull();
+  }
+
+  @Test
+  void shouldTrustFileMetadataWithinTtl() throws IOException {
+    SourcePointerCache.configureShared(60_000, 100);
+    FileMetadataCache.configureShared(60_000, 100);
+    Path file =
+        Files.copy(Paths.get("src/test/resources/data/miniocr.xml"), tempDir.resolve("a.xml"));
+    SourcePointerCache.parse(file.toString());
+    Files.setLastModifiedTime(
+        file, FileTime.fromMillis(Files.getLastModifiedTime(file).toMillis() + 60_000));
+    // Changes are only picked up once the cached metadata expired
+    assertThat(SourcePointerCache.getIfValid(file.toString())).isNotNull();
+    assertThat(FileMetadataCache.getShared().getStats().hitCount()).isGreaterThan(0);
+  }
+}
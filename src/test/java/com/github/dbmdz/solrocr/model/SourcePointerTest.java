@@ -81,4 +81,30 @@ public class SourcePointerTest {
     // act + assert
     assertThrows(RuntimeException.class, () -> SourcePointer.parse(pointerStr));
   }
+
+  /** Regions can point beyond 2GiB into large sources */
+  @Test
+  public void testRegionsBeyond2GiB() {
+    SourcePointer.Region region = SourcePointer.Region.parse("3000000000:3000004096");
+    assertEquals(3_000_000_000L, region.start);
+    assertEquals(3_000_004_096L, region.end);
+    assertEquals(5_000_000_000L, SourcePointer.Region.parse("5000000000:").start);
+  }
+
+  /** Pointers with regions that end beyond 2GiB are indexed relative to their first region */
+  @Test
+  public void testIndexBase() {
+    String path = "src/test/resources/data/miniocr.xml";
+    assertEquals(0, SourcePointer.parse(path).getIndexBase(5_000_000_000L));
+    assertEquals(0, SourcePointer.parse(path + "[100:200]").getIndexBase(5_000_000_000L));
+    assertEquals(
+        3_000_000_000L,
+        SourcePointer.parse(path + "[3000100000:3000200000,3000000000:3000004096]")
+            .getIndexBase(-1));
+    assertEquals(
+        3_000_000_000L, SourcePointer.parse(path + "[3000000000:]").getIndexBase(5_000_000_000L));
+    assertEquals(0, SourcePointer.parse(path + "[100:]").getIndexBase(2_000_000_000L));
+    assertEquals(0, SourcePointer.parse(path + "[0:3000000000]").getIndexBase(-1));
+    assertEquals(0, SourcePointer.parse(path + "[3000000000:]+" + path).getIndexBase(-1));
+  }
 }
@@ -0,0 +1,137 @@
+package com.github.dbmdz.solrocr.reader;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+class BaseSourceReaderTest {
+
+  /** In-memory reader that counts the number of reads it has to serve. */
+  private static class CountingSourceReader extends BaseSourceReader {
+    private final byte[] data;
+    int numReads = 0;
+
+    CountingSourceReader(byte[] data, int sectionSize, int maxCacheEntries) {
+      super(null, sectionSize, maxCacheEntries);
+      this.data = data;
+    }
+
+    @Override
+    public int readBytes(ByteBuffer dst, long start) {
+      numReads++;
+      if (start >= data.length) {
+        return -1;
+      }
+      int len = (int) Math.min(dst.remaining(), data.length - start);
+      dst.put(data, (int) start, len);
+      return len;
+    }
+
+    @Override
+    public long length() {
+      return data.length;
+    }
+
+    @Override
+    public void close() {}
+
+    @Override
+    public String getIdentifier() {
+      return "memory";
+    }
+  }
+
+  private static byte[] randomAscii(int len) {
+    Random rand = new Random(42);
+    byte[] data = new byte[len];
+    for (int i = 0; i < len; i++) {
+      data[i] = (byte) ('a' + rand.nextInt(26));
+    }
+    return data;
+  }
+
+  @Test
+  void shouldCoalesceAdjacentSectionsIntoSingleRead() throws IOException {
+    byte[] data = randomAscii(64 * 1024 + 100);
+    CountingSourceReader reader = new CountingSourceReader(data, 1024, 20);
+    // Sections 2-5 and 8-9, out of order and overlapping
+    long[] starts = {4 * 1024 + 10, 2 * 1024 + 10, 8 * 1024 + 10};
+    long[] ends = {6 * 1024 - 10, 4 * 1024 + 20, 9 * 1024 + 20};
+    assertThat(reader.prefetch(starts, ends, 0, 3, 10 * 1024)).isEqualTo(3);
+    assertThat(reader.numReads).isEqualTo(2);
+    assertThat(reader.cacheSlotsUsed).isEqualTo(6);
+
+    for (int idx : new int[] {2, 3, 4, 5, 8, 9}) {
+      SourceReader.Section section = reader.getAsciiSection(idx * 1024 + 1);
+      assertThat(section.start).isEqualTo(idx * 1024);
+      assertThat(section.end).isEqualTo((idx + 1) * 1024);
+      assertThat(section.getText()).isEqualTo(new String(data, 0, idx * 1024, 1024));
+    }
+    assertThat(reader.numReads).isEqualTo(2);
+  }
+
+  @Test
+  void shouldOnlyPrefetchUpToTheBudget() throws IOException {
+    byte[] data = randomAscii(64 * 1024 + 100);
+    CountingSourceReader reader = new CountingSourceReader(data, 1024, 4);
+    long[] starts = {0, 10 * 1024, 20 * 1024, 30 * 1024};
+    long[] ends = {1, 10 * 1024 + 1, 20 * 1024 + 1, 30 * 1024 + 1};
+    assertThat(reader.prefetch(starts, ends, 0, 4, 2 * 1024)).isEqualTo(2);
+    assertThat(reader.cacheSlotsUsed).isEqualTo(2);
+    assertThat(reader.prefetch(starts, ends, 2, 4, 2 * 1024)).isEqualTo(4);
+    assertThat(reader.cacheSlotsUsed).isEqualTo(4);
+    assertThat(reader.numReads).isEqualTo(4);
+  }
+
+  @Test
+  void shouldGrowCacheForPrefetchedSections() throws IOException {
+    byte[] data = randomAscii(64 * 1024 + 100);
+    CountingSourceReader reader = new CountingSourceReader(data, 1024, 4);
+    reader.getAsciiSection(0);
+    reader.getAsciiSection(1024);
+    // Eight scattered sections, twice as many as the cache can hold by default
+    long[] starts = new long[8];
+    long[] ends = new long[8];
+    for (int i = 0; i < 8; i++) {
+      starts[i] = (10 + 2 * i) * 1024;
+      ends[i] = starts[i] + 1;
+    }
+    assertThat(reader.prefetch(starts, ends, 0, 8, 8 * 1024)).isEqualTo(8);
+    assertThat(reader.cacheSlotsUsed).isEqualTo(10);
+    assertThat(reader.numReads).isEqualTo(10);
+
+    // Neither the prefetched sections nor the ones that were in use before have been evicted
+    reader.getAsciiSection(0);
+    reader.getAsciiSection(1024);
+    for (long start : starts) {
+      reader.getAsciiSection(start);
+    }
+    assertThat(reader.numReads).isEqualTo(10);
+  }
+
+  @Test
+  void shouldReturnPartiallyPrefetchedRange() throws IOException {
+    byte[] data = randomAscii(64 * 1024 + 100);
+    CountingSourceReader reader = new CountingSourceReader(data, 1024, 4);
+    // The second range covers three sections, only one of them fits into the budget
+    long[] starts = {0, 10 * 1024, 20 * 1024};
+    long[] ends = {1, 13 * 1024, 20 * 1024 + 1};
+    assertThat(reader.prefetch(starts, ends, 0, 3, 2 * 1024)).isEqualTo(1);
+    assertThat(reader.cacheSlotsUsed).isEqualTo(2);
+  }
+
+  @Test
+  void shouldReadTrailingSectionWhenPrefetching() throws IOException {
+    byte[] data = randomAscii(4 * 1024 + 100);
+    CountingSourceReader reader = new CountingSourceReader(data, 1024, 10);
+    assertThat(reader.prefetch(new long[] {3000}, new long[] {Long.MAX_VALUE}, 0, 1, 5 * 1024))
+        .isEqualTo(1);
+    assertThat(reader.numReads).isEqualTo(1);
+    assertThat(reader.readAsciiString(3000, 2000))
+        .isEqualTo(new String(data, 0, 3000, data.length - 3000));
+    assertThat(reader.numReads).isEqualTo(1);
+  }
+}
@@ -0,0 +1,167 @@
+package com.github.dbmdz.solrocr.reader;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.github.dbmdz.solrocr.model.SourcePointer;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.FileTime;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPOutputStream;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class BgzfSourceReaderTest {
+  private final Path filePath = Paths.get("src/test/resources/data/miniocr.xml");
+
+  @TempDir Path tempDir;
+
+  /** Write the data as a BGZF file with the given uncompressed block size, like bgzip would. */
+  private static Path writeBgzf(byte[] data, Path target, int blockSize, boolean withIndex)
+      throws IOException {
+    ByteArrayOutputStream index = new ByteArrayOutputStream();
+    int numIndexEntries = 0;
+    long compressedOffset = 0;
+    try (OutputStream out = Files.newOutputStream(target)) {
+      for (int offset = 0; offset < data.length; offset += blockSize) {
+        if (offset > 0) {
+          index.write(littleEndian(compressedOffset, offset).array());
+          numIndexEntries++;
+        }
+        compressedOffset +=
+            writeBlock(out, data, offset, Math.min(blockSize, data.length - offset));
+      }
+      // Empty EOF marker block
+      writeBlock(out, data, 0, 0);
+    }
+    if (withIndex) {
+      try (OutputStream out = Files.newOutputStream(Paths.get(target + ".gzi"))) {
+        out.write(littleEndian(numIndexEntries).array());
+        index.writeTo(out);
+      }
+    }
+    return target;
+  }
+
+  private static int writeBlock(OutputStream out, byte[] data, int offset, int len)
+      throws IOException {
+    byte[] compressed = new byte[BgzfIndex.MAX_BLOCK_SIZE];
+    Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+    deflater.setInput(data, offset, len);
+    deflater.finish();
+    int compressedLen = deflater.deflate(compressed);
+    deflater.end();
+    CRC32 crc = new CRC32();
+    crc.update(data, offset, len);
+
+    int blockLen = BgzfIndex.HEADER_SIZE + compressedLen + BgzfIndex.FOOTER_SIZE;
+    ByteBuffer block = ByteBuffer.allocate(blockLen).order(ByteOrder.LITTLE_ENDIAN);
+    block.put(new byte[] {0x1f, (byte) 0x8b, 8, 4, 0, 0, 0, 0, 0, (byte) 0xff});
+    block.putShort((short) 6).put((byte) 'B').put((byte) 'C').putShort((short) 2);
+    block.putShort((short) (blockLen - 1));
+    block.put(compressed, 0, compressedLen);
+    block.putInt((int) crc.getValue()).putInt(len);
+    out.write(block.array());
+    return blockLen;
+  }
+
+  private static ByteBuffer littleEndian(long... values) {
+    ByteBuffer buf = ByteBuffer.allocate(values.length * 8).order(ByteOrder.LITTLE_ENDIAN);
+    for (long value : values) {
+      buf.putLong(value);
+    }
+    return buf;
+  }
+
+  private void assertReadsMatch(Path bgzfPath, byte[] expected) throws IOException {
+    SourcePointer pointer = SourcePointer.parse(bgzfPath.toString());
+    assertThat(pointer.sources.get(0).type).isEqualTo(SourcePointer.SourceType.BGZF);
+    try (SourceReader reader = pointer.getReader(512, 8)) {
+      assertThat(reader).isInstanceOf(BgzfSourceReader.class);
+      assertThat(reader.length()).isEqualTo(expected.length);
+      assertThat(reader.readAsciiString(0, expected.length))
+          .isEqualTo(new String(expected, StandardCharsets.ISO_8859_1));
+
+      Random rand = new Random(42);
+      for (int i = 0; i < 100; i++) {
+        int start = rand.nextInt(expected.length);
+        int len = Math.min(rand.nextInt(4096), expected.length - start);
+        byte[] buf = new byte[len];
+        assertThat(reader.readBytes(buf, 0, start, len)).isEqualTo(len);
+        assertThat(buf).isEqualTo(Arrays.copyOfRange(expected, start, start + len));
+
+        SourceReader.Section section = reader.getAsciiSection(start);
+        assertThat(section.getText())
+            .isEqualTo(
+                new String(
+                    expected,
+                    (int) section.start,
+                    (int) (section.end - section.start),
+                    StandardCharsets.ISO_8859_1));
+      }
+      assertThat(reader.readBytes(ByteBuffer.allocate(16), expected.length)).isEqualTo(-1);
+    }
+  }
+
+  @Test
+  void shouldReadUncompressedData() throws IOException {
+    byte[] data = Files.readAllBytes(filePath);
+    Path bgzfPath = writeBgzf(data, tempDir.resolve("miniocr.xml.gz"), 1000, false);
+    assertReadsMatch(bgzfPath, data);
+  }
+
+  @Test
+  void shouldUseGziIndex() throws IOException {
+    byte[] data = Files.readAllBytes(filePath);
+    Path bgzfPath = writeBgzf(data, tempDir.resolve("miniocr.xml.bgz"), 777, true);
+    assertReadsMatch(bgzfPath, data);
+  }
+
+  @Test
+  void shouldHandleBlockAlignedData() throws IOException {
+    byte[] data = Files.readAllBytes(filePath);
+    int blockSize = 32 * 1024;
+    data = Arrays.copyOf(data, blockSize * 16);
+    Path bgzfPath = writeBgzf(data, tempDir.resolve("aligned.xml.gz"), blockSize, true);
+    assertReadsMatch(bgzfPath, data);
+  }
+
+  @Test
+  void shouldRejectRegularGzip() throws IOException {
+    Path gzPath = tempDir.resolve("plain.xml.gz");
+    ByteArrayOutputStream bos = new ByteArrayOutputStream();
+    try (GZIPOutputStream gzOut = new GZIPOutputStream(bos)) {
+      gzOut.write(Files.readAllBytes(filePath));
+    }
+    Files.write(gzPath, bos.toByteArray());
+    assertThat(BgzfIndex.isBgzfFile(gzPath)).isFalse();
+    Assertions.assertThrows(RuntimeException.class, () -> SourcePointer.parse(gzPath.toString()));
+  }
+
+  @Test
+  void shouldRecheckFormatOfModifiedFile() throws IOException {
+    Path gzPath = tempDir.resolve("changing.xml.gz");
+    ByteArrayOutputStream bos = new ByteArrayOutputStream();
+    try (GZIPOutputStream gzOut = new GZIPOutputStream(bos)) {
+      gzOut.write(Files.readAllBytes(filePath));
+    }
+    Files.write(gzPath, bos.toByteArray());
+    Files.setLastModifiedTime(gzPath, FileTime.fromMillis(1_000_000));
+    assertThat(BgzfIndex.isBgzfFile(gzPath)).isFalse();
+
+    writeBgzf(Files.readAllBytes(filePath), gzPath, 16 * 1024, false);
+    Files.setLastModifiedTime(gzPath, FileTime.fromMillis(2_000_000));
+    assertThat(BgzfIndex.isBgzfFile(gzPath)).isTrue();
+  }
+}
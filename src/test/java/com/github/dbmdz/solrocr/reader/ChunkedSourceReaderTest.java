@@ -0,0 +1,65 @@
+package com.github.dbmdz.solrocr.reader;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.zip.Deflater;
+import org.apache.lucene.util.BytesRef;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+class ChunkedSourceReaderTest {
+  private final Path filePath = Paths.get("src/test/resources/data/miniocr.xml");
+
+  @Test
+  void shouldReadLikeFileReader() throws IOException {
+    byte[] data = Files.readAllBytes(filePath);
+    byte[] chunked = ChunkedSourceReader.encode(data, 4096, Deflater.DEFAULT_COMPRESSION);
+    assertThat(chunked.length).isLessThan(data.length);
+    Random rand = new Random(42);
+    try (SourceReader reader = new ChunkedSourceReader(new BytesRef(chunked), "chunked", 1024, 10);
+        SourceReader file = new FileSourceReader(filePath, null, 1024, 10)) {
+      assertThat(reader.length()).isEqualTo(data.length);
+      for (int i = 0; i < 200; i++) {
+        int start = rand.nextInt(data.length - 512);
+        int len = rand.nextInt(10_000) + 1;
+        assertThat(reader.readUtf8String(start, len)).isEqualTo(file.readUtf8String(start, len));
+        byte[] buf = new byte[Math.min(len, data.length - start)];
+        assertThat(reader.readBytes(buf, 0, start, buf.length)).isEqualTo(buf.length);
+        assertThat(buf).isEqualTo(Arrays.copyOfRange(data, start, start + buf.length));
+        assertThat(reader.getAsciiSection(start).getText())
+            .isEqualTo(file.getAsciiSection(start).getText());
+      }
+    }
+  }
+
+  @Test
+  void shouldAddressStringsByCharacters() throws IOException {
+    // Non-BMP characters are split across chunks, since they have two chars
+    String markup = "<l>Grüße 𝔊𝔬𝔱𝔱</l>";
+    byte[] chunked = ChunkedSourceReader.encode(markup, 7, Deflater.DEFAULT_COMPRESSION);
+    try (SourceReader reader = new ChunkedSourceReader(new BytesRef(chunked), "chunked", 4, 4)) {
+      assertThat(reader.length()).isEqualTo(markup.length());
+      for (int start = 0; start < markup.length(); start++) {
+        for (int end = start + 1; end <= markup.length(); end++) {
+          assertThat(reader.readUtf8String(start, end - start))
+              .isEqualTo(markup.substring(start, end));
+        }
+      }
+      assertThat(reader.readAsciiString(0, 12)).isEqualTo("<l>Grüße ÿÿÿ");
+    }
+  }
+
+  @Test
+  void shouldRejectOtherValues() {
+    BytesRef value = new BytesRef("not chunked at all".getBytes(StandardCharsets.UTF_8));
+    Assertions.assertThrows(
+        IOException.class, () -> new ChunkedSourceReader(value, "chunked", 1024, 10));
+  }
+}
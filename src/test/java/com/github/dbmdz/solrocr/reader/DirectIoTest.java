@@ -0,0 +1,81 @@
+package com.github.dbmdz.solrocr.reader;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.github.dbmdz.solrocr.model.SourcePointer;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Random;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+class DirectIoTest {
+  private final Path filePath = Paths.get("src/test/resources/data/miniocr.xml");
+
+  @AfterEach
+  void disablePool() {
+    AlignedBufferPool.configureShared(0, 0);
+  }
+
+  @Test
+  void shouldReadUnalignedRanges() throws IOException {
+    byte[] data = Files.readAllBytes(filePath);
+    AlignedBufferPool.configureShared(8 * 1024, 2);
+    Random rand = new Random(42);
+    // The alignment logic doesn't depend on the channel being opened for direct I/O
+    try (FileChannel chan = FileChannel.open(filePath, StandardOpenOption.READ)) {
+      for (int i = 0; i < 200; i++) {
+        int start = rand.nextInt(data.length);
+        // Also read across multiple pooled buffers and beyond the end of the file
+        ByteBuffer dst = ByteBuffer.allocate(rand.nextInt(32 * 1024) + 1);
+        int expectedLen = Math.min(dst.capacity(), data.length - start);
+        assertThat(DirectIo.read(chan, dst, start, 512)).isEqualTo(expectedLen);
+        assertThat(Arrays.copyOf(dst.array(), expectedLen))
+            .isEqualTo(Arrays.copyOfRange(data, start, start + expectedLen));
+      }
+      assertThat(DirectIo.read(chan, ByteBuffer.allocate(16), data.length, 512)).isEqualTo(-1);
+    }
+    assertThat(AlignedBufferPool.getShared().getNumAllocated()).isEqualTo(1);
+    assertThat(AlignedBufferPool.getShared().size()).isEqualTo(1);
+  }
+
+  @Test
+  void shouldReuseBuffers() {
+    AlignedBufferPool pool = new AlignedBufferPool(AlignedBufferPool.ALIGNMENT, 1);
+    ByteBuffer first;
+    try (AlignedBufferPool.Lease lease = pool.acquire()) {
+      first = lease.buffer();
+      assertThat(first.isDirect()).isTrue();
+      assertThat(first.capacity()).isGreaterThanOrEqualTo(AlignedBufferPool.ALIGNMENT);
+    }
+    try (AlignedBufferPool.Lease lease = pool.acquire();
+        AlignedBufferPool.Lease other = pool.acquire()) {
+      assertThat(lease.buffer()).isSameAs(first);
+      assertThat(other.buffer()).isNotSameAs(first);
+    }
+    // Only one idle buffer is kept
+    assertThat(pool.size()).isEqualTo(1);
+    assertThat(pool.getNumAllocated()).isEqualTo(1);
+  }
+
+  @Test
+  void shouldReadInDirectMode() throws IOException {
+    // Falls back to regular reads if the filesystem does not support direct I/O
+    byte[] data = Files.readAllBytes(filePath);
+    SourcePointer pointer = SourcePointer.parse(filePath.toString());
+    try (SourceReader reader = pointer.getReader(8 * 1024, 8, FileReadMode.DIRECT)) {
+      assertThat(reader.length()).isEqualTo(data.length);
+      assertThat(reader.readAsciiString(12345, 20000))
+          .isEqualTo(new String(data, 12345, 20000, StandardCharsets.ISO_8859_1));
+      assertThat(reader.readAsciiString(data.length - 100, 100))
+          .isEqualTo(new String(data, data.length - 100, 100, StandardCharsets.ISO_8859_1));
+    }
+  }
+}
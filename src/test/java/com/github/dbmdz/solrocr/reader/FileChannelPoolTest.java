@@ -0,0 +1,108 @@
+package com.github.dbmdz.solrocr.reader;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.github.dbmdz.solrocr.model.SourcePointer;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.FileTime;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class FileChannelPoolTest {
+  private final Path filePath = Paths.get("src/test/resources/data/miniocr.xml");
+
+  @TempDir Path tempDir;
+
+  @AfterEach
+  void disablePool() {
+    FileChannelPool.configureShared(0);
+  }
+
+  @Test
+  void shouldReuseChannels() throws IOException {
+    FileChannelPool pool = new FileChannelPool(4);
+    FileChannel first;
+    try (FileChannelPool.Lease lease = pool.acquire(filePath)) {
+      first = lease.channel();
+    }
+    assertThat(first.isOpen()).isTrue();
+    try (FileChannelPool.Lease lease = pool.acquire(filePath)) {
+      assertThat(lease.channel()).isSameAs(first);
+      assertThat(lease.isPooled()).isTrue();
+    }
+    assertThat(pool.getHits()).isEqualTo(1);
+    assertThat(pool.getMisses()).isEqualTo(1);
+    assertThat(pool.size()).isEqualTo(1);
+  }
+
+  @Test
+  void shouldCloseEvictedChannelsOnceReleased() throws IOException {
+    Path other = Files.copy(filePath, tempDir.resolve("other.xml"));
+    FileChannelPool pool = new FileChannelPool(1);
+    FileChannelPool.Lease inUse = pool.acquire(filePath);
+    try (FileChannelPool.Lease lease = pool.acquire(other)) {
+      assertThat(pool.size()).isEqualTo(1);
+      // Evicted, but still in use
+      assertThat(inUse.channel().isOpen()).isTrue();
+      assertThat(lease.channel().isOpen()).isTrue();
+    }
+    inUse.close();
+    assertThat(inUse.channel().isOpen()).isFalse();
+    // Closing a lease twice must not release the channel twice
+    inUse.close();
+
+    FileChannel idle;
+    try (FileChannelPool.Lease lease = pool.acquire(other)) {
+      idle = lease.channel();
+    }
+    pool.acquire(filePath).close();
+    assertThat(idle.isOpen()).isFalse();
+  }
+
+  @Test
+  void shouldReopenModifiedFiles() throws IOException {
+    Path copy = Files.copy(filePath, tempDir.resolve("copy.xml"));
+    FileChannelPool pool = new FileChannelPool(4);
+    FileChannel first;
+    try (FileChannelPool.Lease lease = pool.acquire(copy)) {
+      first = lease.channel();
+    }
+    Files.setLastModifiedTime(
+        copy, FileTime.fromMillis(Files.getLastModifiedTime(copy).toMillis() + 60_000));
+    try (FileChannelPool.Lease lease = pool.acquire(copy)) {
+      assertThat(lease.channel()).isNotSameAs(first);
+      assertThat(lease.lastModified()).isEqualTo(Files.getLastModifiedTime(copy).toMillis());
+    }
+    assertThat(first.isOpen()).isFalse();
+    assertThat(pool.size()).isEqualTo(1);
+  }
+
+  @Test
+  void shouldBeUsedBySourceReaders() throws IOException {
+    FileChannelPool.configureShared(4);
+    SourcePointer pointer = SourcePointer.parse(filePath.toString());
+    String expected;
+    try (SourceReader reader = new FileSourceReader(filePath, pointer, 8192, 10)) {
+      expected = reader.readAsciiString(1024, 512);
+    }
+    try (SourceReader reader = new FileSourceReader(filePath, pointer, 8192, 10)) {
+      assertThat(reader.readAsciiString(1024, 512)).isEqualTo(expected);
+    }
+    assertThat(FileChannelPool.getShared().getMisses()).isEqualTo(1);
+    assertThat(FileChannelPool.getShared().getHits()).isEqualTo(1);
+
+    try (SourceReader reader = pointer.getReader(8192, 10);
+        SourceReader other = pointer.getReader(8192, 10)) {
+      assertThat(other.readAsciiString(1024, 512)).isEqualTo(expected);
+      // Closing the byte channel must not close the pooled channel for other readers
+      reader.getByteChannel().close();
+      assertThat(other.readBytes(new byte[512], 0, 1024, 512)).isEqualTo(512);
+    }
+    assertThat(FileChannelPool.getShared().getMisses()).isEqualTo(1);
+  }
+}
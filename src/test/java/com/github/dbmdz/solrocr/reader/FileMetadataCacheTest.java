@@ -0,0 +1,48 @@
+package com.github.dbmdz.solrocr.reader;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class FileMetadataCacheTest {
+  private final Path filePath = Paths.get("src/test/resources/data/miniocr.xml");
+
+  @TempDir Path tempDir;
+
+  @AfterEach
+  void disableCache() {
+    FileMetadataCache.configureShared(0, 0);
+  }
+
+  @Test
+  void shouldReturnMetadata() throws IOException {
+    FileMetadataCache.Metadata metadata = FileMetadataCache.get(filePath);
+    assertThat(metadata.exists).isTrue();
+    assertThat(metadata.size).isEqualTo(Files.size(filePath));
+    assertThat(metadata.lastModified).isEqualTo(Files.getLastModifiedTime(filePath).toMillis());
+    assertThat(FileMetadataCache.get(tempDir.resolve("missing.xml")).exists).isFalse();
+    Assertions.assertThrows(
+        NoSuchFileException.class,
+        () -> FileMetadataCache.getLastModified(tempDir.resolve("missing.xml")));
+  }
+
+  @Test
+  void shouldCacheMetadataUntilExpired() throws Exception {
+    FileMetadataCache.configureShared(200, 10);
+    Path file = tempDir.resolve("file.xml");
+    assertThat(FileMetadataCache.get(file).exists).isFalse();
+    Files.copy(filePath, file);
+    assertThat(FileMetadataCache.get(file).exists).isFalse();
+    assertThat(FileMetadataCache.getShared().getStats().hitCount()).isEqualTo(1);
+    Thread.sleep(300);
+    assertThat(FileMetadataCache.get(file).exists).isTrue();
+  }
+}
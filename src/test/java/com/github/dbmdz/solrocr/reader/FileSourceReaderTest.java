@@ -88,6 +88,6 @@ class FileSourceReaderTest {
     String expectedStr = new String(expectedData, 0, 0, expectedData.length);
     assertThat(section.start).isEqualTo(sectionSize * 4);
     assertThat(section.end).isEqualTo(sectionSize * 5);
-    assertThat(section.text).isEqualTo(expectedStr);
+    assertThat(section.getText()).isEqualTo(expectedStr);
   }
 }
@@ -0,0 +1,176 @@
+package com.github.dbmdz.solrocr.reader;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.github.dbmdz.solrocr.model.SourcePointer;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class HttpSourceReaderTest {
+  private static final Pattern RANGE_PAT = Pattern.compile("bytes=(\\d+)-(\\d+)");
+
+  private final AtomicInteger numGets = new AtomicInteger();
+  private byte[] data;
+  private HttpServer server;
+  private String url;
+  private String baseUrl;
+
+  @BeforeEach
+  void startServer() throws IOException {
+    data = Files.readAllBytes(Paths.get("src/test/resources/data/miniocr.xml"));
+    server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+    server.createContext("/ocr/miniocr.xml", this::handle);
+    server.createContext("/norange/miniocr.xml", this::handleWithoutRanges);
+    server.start();
+    baseUrl = String.format(Locale.US, "http://127.0.0.1:%d", server.getAddress().getPort());
+    url = baseUrl + "/ocr/miniocr.xml";
+    HttpSourceReader.allowPrefixes(baseUrl + "/ocr/," + baseUrl + "/norange/");
+  }
+
+  @AfterEach
+  void stopServer() {
+    server.stop(0);
+    SectionCache.configureShared(0, false);
+  }
+
+  private void handle(HttpExchange exchange) throws IOException {
+    exchange.getResponseHeaders().add("Last-Modified", "Wed, 11 Feb 2026 10:00:00 GMT");
+    exchange.getResponseHeaders().add("Accept-Ranges", "bytes");
+    if (exchange.getRequestMethod().equals("HEAD")) {
+      exchange.getResponseHeaders().add("Content-Length", String.valueOf(data.length));
+      exchange.sendResponseHeaders(200, -1);
+      exchange.close();
+      return;
+    }
+    numGets.incrementAndGet();
+    Matcher m = RANGE_PAT.matcher(exchange.getRequestHeaders().getFirst("Range"));
+    if (!m.matches()) {
+      exchange.sendResponseHeaders(400, -1);
+      exchange.close();
+      return;
+    }
+    int start = Integer.parseInt(m.group(1));
+    int end = Math.min(data.length - 1, Integer.parseInt(m.group(2)));
+    exchange
+        .getResponseHeaders()
+        .add("Content-Range", String.format(Locale.US, "bytes %d-%d/%d", start, end, data.length));
+    exchange.sendResponseHeaders(206, end - start + 1);
+    try (OutputStream os = exchange.getResponseBody()) {
+      os.write(data, start, end - start + 1);
+    }
+  }
+
+  private void handleWithoutRanges(HttpExchange exchange) throws IOException {
+    if (exchange.getRequestMethod().equals("HEAD")) {
+      exchange.getResponseHeaders().add("Content-Length", String.valueOf(data.length));
+      exchange.sendResponseHeaders(200, -1);
+      exchange.close();
+      return;
+    }
+    numGets.incrementAndGet();
+    exchange.sendResponseHeaders(200, data.length);
+    try (OutputStream os = exchange.getResponseBody()) {
+      os.write(data);
+    }
+  }
+
+  @Test
+  void shouldReadRanges() throws IOException {
+    SourcePointer pointer = SourcePointer.parse(url);
+    assertThat(pointer.sources.get(0).type).isEqualTo(SourcePointer.SourceType.HTTP);
+    try (SourceReader reader = pointer.getReader(8 * 1024, 8)) {
+      assertThat(reader).isInstanceOf(HttpSourceReader.class);
+      assertThat(reader.length()).isEqualTo(data.length);
+      assertThat(reader.getVersion()).isGreaterThan(0);
+      byte[] buf = new byte[1000];
+      assertThat(reader.readBytes(buf, 0, 12345, 1000)).isEqualTo(1000);
+      assertThat(buf).isEqualTo(Arrays.copyOfRange(data, 12345, 13345));
+      assertThat(reader.readAsciiString(data.length - 100, 200))
+          .isEqualTo(new String(data, data.length - 100, 100, StandardCharsets.ISO_8859_1));
+    }
+  }
+
+  @Test
+  void shouldCoalesceAdjacentSections() throws IOException {
+    int sectionSize = 1024;
+    try (SourceReader reader = SourcePointer.parse(url).getReader(sectionSize, 32)) {
+      long[] starts = {0, 2 * sectionSize, 3 * sectionSize + 10};
+      long[] ends = {2 * sectionSize, 3 * sectionSize, 6 * sectionSize};
+      reader.prefetch(starts, ends, 0, starts.length, 16 * sectionSize);
+      assertThat(numGets.get()).isEqualTo(1);
+      assertThat(reader.readAsciiString(0, 6 * sectionSize))
+          .isEqualTo(new String(data, 0, 6 * sectionSize, StandardCharsets.ISO_8859_1));
+      assertThat(numGets.get()).isEqualTo(1);
+    }
+  }
+
+  @Test
+  void shouldShareSectionsAcrossReaders() throws IOException {
+    SectionCache.configureShared(1024 * 1024, false);
+    SourcePointer pointer = SourcePointer.parse(url);
+    String expected;
+    try (SourceReader reader = pointer.getReader(8 * 1024, 8)) {
+      expected = reader.readAsciiString(20000, 100);
+    }
+    assertThat(numGets.get()).isEqualTo(1);
+    try (SourceReader reader = pointer.getReader(8 * 1024, 8)) {
+      assertThat(reader.readAsciiString(20000, 100)).isEqualTo(expected);
+    }
+    assertThat(numGets.get()).isEqualTo(1);
+  }
+
+  @Test
+  void shouldRejectUrlsWithoutAllowedPrefix() {
+    String otherPort =
+        String.format(
+            Locale.US, "http://127.0.0.1:%d/ocr/miniocr.xml", server.getAddress().getPort() + 1);
+    for (String target :
+        new String[] {
+          baseUrl + "/secret.xml",
+          baseUrl + "/ocr/../secret.xml",
+          otherPort,
+          "http://localhost.invalid/ocr/miniocr.xml",
+          "http://127.0.0.1@localhost.invalid" + url.substring(baseUrl.length())
+        }) {
+      assertThatThrownBy(() -> SourcePointer.parse(target))
+          .hasMessageContaining("allowedHttpPrefixes");
+    }
+  }
+
+  @Test
+  void shouldMatchPrefixesOnParsedUrls() throws IOException {
+    assertThat(HttpSourceReader.isAllowed(new URL(url))).isTrue();
+    assertThat(HttpSourceReader.isAllowed(new URL(url.replace("http://", "HTTP://")))).isTrue();
+    assertThat(HttpSourceReader.isAllowed(new URL(baseUrl + "/ocr/./miniocr.xml"))).isTrue();
+    assertThat(HttpSourceReader.isAllowed(new URL(baseUrl + "/ocrx/miniocr.xml"))).isFalse();
+    assertThat(HttpSourceReader.isAllowed(new URL(url.replace("http://", "https://")))).isFalse();
+  }
+
+  @Test
+  void shouldFailFastWithoutRangeSupport() throws IOException {
+    try (SourceReader reader =
+        SourcePointer.parse(baseUrl + "/norange/miniocr.xml").getReader(1024, 8)) {
+      assertThatThrownBy(() -> reader.readAsciiString(20000, 100))
+          .isInstanceOf(IOException.class)
+          .hasMessageContaining("does not support range requests");
+      assertThat(numGets.get()).isEqualTo(1);
+    }
+  }
+}
@@ -0,0 +1,150 @@
+package com.github.dbmdz.solrocr.reader;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Locale;
+import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Decorator that simulates slow storage, by delaying every read from the underlying source by a
+ * latency and the time it takes to transfer the bytes with a limited bandwidth.
+ *
+ * <p>Only reads that go to the underlying source are delayed, sections that are served from the
+ * caches of {@link BaseSourceReader} or the {@link SectionCache} are not, just like with real
+ * storage.
+ *
+ * <p>All reads that go to the underlying source are counted, regardless of the profile, so tests
+ * can check the number and size of reads of a request, see {@link #resetStats()}.
+ */
+public class LatencyInjectingSourceReader extends BaseSourceReader {
+
+  /** Storage characteristics, with the per-read latency sampled from a log-normal distribution. */
+  public static final class Profile {
+    public static final Profile SSD = new Profile("ssd", 100_000, 0.3, 500_000_000);
+    public static final Profile HDD = new Profile("hdd", 8_000_000, 0.5, 150_000_000);
+    public static final Profile NFS = new Profile("nfs", 2_000_000, 1.0, 100_000_000);
+
+    public final String name;
+    final long medianLatencyNanos;
+    final double sigma;
+    final long bytesPerSecond;
+
+    /**
+     * @param medianLatencyNanos median of the fixed latency of every read
+     * @param sigma spread of the latency, {@code 0} for a constant latency
+     * @param bytesPerSecond bandwidth of the storage, {@code <= 0} for unlimited
+     */
+    public Profile(String name, long medianLatencyNanos, double sigma, long bytesPerSecond) {
+      this.name = name;
+      this.medianLatencyNanos = medianLatencyNanos;
+      this.sigma = sigma;
+      this.bytesPerSecond = bytesPerSecond;
+    }
+
+    /** Get the time a read of {@code numBytes} should take. */
+    long sampleNanos(int numBytes, Random rand) {
+      long latency = (long) (medianLatencyNanos * Math.exp(sigma * rand.nextGaussian()));
+      long transfer = bytesPerSecond > 0 ? numBytes * 1_000_000_000L / bytesPerSecond : 0;
+      return latency + transfer;
+    }
+
+    @Override
+    public String toString() {
+      return String.format(
+          Locale.US,
+          "%s (median latency %.2fms, sigma %.1f, %dMB/s)",
+          name,
+          medianLatencyNanos / 1e6,
+          sigma,
+          bytesPerSecond / 1_000_000);
+    }
+  }
+
+  private static volatile Profile activeProfile;
+  private static final AtomicLong numReads = new AtomicLong();
+  private static final AtomicLong numBytesRead = new AtomicLong();
+
+  private final SourceReader input;
+  private final Profile profile;
+
+  /**
+   * @param input reader for the actual data, only its {@link SourceReader#readBytes(ByteBuffer,
+   *     long)} is used
+   * @param profile storage to simulate, {@code null} to use the profile that is active when reads
+   *     happen (see {@link #setActiveProfile(Profile)})
+   */
+  public LatencyInjectingSourceReader(
+      SourceReader input, Profile profile, int sectionSize, int maxCacheEntries) {
+    super(input.getPointer(), sectionSize, maxCacheEntries);
+    this.input = input;
+    this.profile = profile;
+  }
+
+  /** Set the storage to simulate for readers without a fixed profile, {@code null} disables it. */
+  public static void setActiveProfile(Profile profile) {
+    activeProfile = profile;
+  }
+
+  /** Reset the read counters of all readers. */
+  public static void resetStats() {
+    numReads.set(0);
+    numBytesRead.set(0);
+  }
+
+  /** Get the number of reads from underlying sources since the last {@link #resetStats()}. */
+  public static long getNumReads() {
+    return numReads.get();
+  }
+
+  /** Get the number of bytes read from the underlying sources since the last reset. */
+  public static long getNumBytesRead() {
+    return numBytesRead.get();
+  }
+
+  @Override
+  public int readBytes(ByteBuffer dst, long start) throws IOException {
+    Profile profile = this.profile != null ? this.profile : activeProfile;
+    long startNs = System.nanoTime();
+    int numRead = input.readBytes(dst, start);
+    if (numRead > 0) {
+      numReads.incrementAndGet();
+      numBytesRead.addAndGet(numRead);
+    }
+    if (profile != null && numRead > 0) {
+      long deadline = startNs + profile.sampleNanos(numRead, ThreadLocalRandom.current());
+      long remaining;
+      while ((remaining = deadline - System.nanoTime()) > 0) {
+        LockSupport.parkNanos(remaining);
+      }
+    }
+    return numRead;
+  }
+
+  @Override
+  public long length() throws IOException {
+    return input.length();
+  }
+
+  @Override
+  public long getVersion() throws IOException {
+    return input.getVersion();
+  }
+
+  @Override
+  public void releaseResources() throws IOException {
+    input.releaseResources();
+  }
+
+  @Override
+  public void close() throws IOException {
+    input.close();
+  }
+
+  @Override
+  public String getIdentifier() {
+    return input.getIdentifier();
+  }
+}
@@ -0,0 +1,74 @@
+package com.github.dbmdz.solrocr.reader;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.github.dbmdz.solrocr.reader.LatencyInjectingSourceReader.Profile;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+class LatencyInjectingSourceReaderTest {
+  private final Path filePath = Paths.get("src/test/resources/data/miniocr.xml");
+
+  @AfterEach
+  void resetProfile() {
+    LatencyInjectingSourceReader.setActiveProfile(null);
+  }
+
+  @Test
+  void shouldReturnUnderlyingData() throws Exception {
+    byte[] data = Files.readAllBytes(filePath);
+    Profile profile = new Profile("test", 1_000, 0, -1);
+    try (LatencyInjectingSourceReader reader =
+        new LatencyInjectingSourceReader(
+            new FileSourceReader(filePath, null, 512, 0), profile, 512, 4)) {
+      assertThat(reader.length()).isEqualTo(data.length);
+      assertThat(reader.readAsciiString(0, 5)).isEqualTo("<?xml");
+      ByteBuffer buf = ByteBuffer.allocate(128);
+      reader.readBytes(buf, 1000);
+      assertThat(buf.array()).containsExactly(Arrays.copyOfRange(data, 1000, 1128));
+    }
+  }
+
+  @Test
+  void shouldDelayReads() throws Exception {
+    // 20ms constant latency, 1MB/s bandwidth => 4096 bytes take another ~4ms
+    Profile profile = new Profile("test", 20_000_000, 0, 1_000_000);
+    try (LatencyInjectingSourceReader reader =
+        new LatencyInjectingSourceReader(
+            new FileSourceReader(filePath, null, 512, 0), profile, 512, 4)) {
+      long start = System.nanoTime();
+      reader.readBytes(ByteBuffer.allocate(4096), 0);
+      assertThat(System.nanoTime() - start).isGreaterThanOrEqualTo(24_000_000L);
+    }
+  }
+
+  @Test
+  void shouldUseActiveProfileIfNoneIsFixed() throws Exception {
+    try (LatencyInjectingSourceReader reader =
+        new LatencyInjectingSourceReader(
+            new FileSourceReader(filePath, null, 512, 0), null, 512, 4)) {
+      LatencyInjectingSourceReader.setActiveProfile(new Profile("test", 20_000_000, 0, -1));
+      long start = System.nanoTime();
+      reader.readBytes(ByteBuffer.allocate(64), 0);
+      assertThat(System.nanoTime() - start).isGreaterThanOrEqualTo(20_000_000L);
+    }
+  }
+
+  @Test
+  void shouldCountReadsWithoutProfile() throws Exception {
+    try (LatencyInjectingSourceReader reader =
+        new LatencyInjectingSourceReader(
+            new FileSourceReader(filePath, null, 512, 0), null, 512, 4)) {
+      LatencyInjectingSourceReader.resetStats();
+      reader.readBytes(ByteBuffer.allocate(64), 0);
+      reader.readBytes(ByteBuffer.allocate(128), 1000);
+      assertThat(LatencyInjectingSourceReader.getNumReads()).isEqualTo(2);
+      assertThat(LatencyInjectingSourceReader.getNumBytesRead()).isEqualTo(192);
+    }
+  }
+}
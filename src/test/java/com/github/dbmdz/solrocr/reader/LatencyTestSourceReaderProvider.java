@@ -0,0 +1,48 @@
+package com.github.dbmdz.solrocr.reader;
+
+import com.github.dbmdz.solrocr.model.SourcePointer;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Resolves {@code slow://} targets against the test data directory and reads them with the latency
+ * of the active {@link LatencyInjectingSourceReader.Profile}, if any.
+ */
+public class LatencyTestSourceReaderProvider implements SourceReaderProvider {
+  static final String PREFIX = "slow://";
+
+  private static Path resolve(String target) {
+    return Paths.get("src/test/resources/data", target.substring(PREFIX.length()));
+  }
+
+  @Override
+  public String getName() {
+    return "test-latency";
+  }
+
+  @Override
+  public List<String> getPrefixes() {
+    return Collections.singletonList(PREFIX);
+  }
+
+  @Override
+  public void validate(String target) throws IOException {
+    if (!Files.exists(resolve(target))) {
+      throw new FileNotFoundException(target);
+    }
+  }
+
+  @Override
+  public SourceReader getReader(
+      String target, SourcePointer pointer, int sectionSize, int maxCacheEntries)
+      throws IOException {
+    // The underlying reader is only used for raw reads, so it doesn't need a cache
+    SourceReader input = new FileSourceReader(resolve(target), pointer, sectionSize, 0);
+    return new LatencyInjectingSourceReader(input, null, sectionSize, maxCacheEntries);
+  }
+}
@@ -0,0 +1,117 @@
+package com.github.dbmdz.solrocr.reader;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.github.dbmdz.solrocr.model.SourcePointer;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+class LazySourceReaderTest {
+  private final Path filePath = Paths.get("src/test/resources/data/miniocr.xml");
+  private final SourcePointer pointer = SourcePointer.parse(filePath.toString());
+  private final AtomicInteger numCreated = new AtomicInteger();
+
+  @AfterEach
+  void disableNodeLimit() {
+    LazySourceReader.configureMaxOpenPerNode(0);
+  }
+
+  private LazySourceReader lazyReader(Semaphore requestPermits) {
+    return new LazySourceReader(
+        pointer,
+        () -> {
+          numCreated.incrementAndGet();
+          return new FileSourceReader(filePath, pointer, 8192, 10);
+        },
+        requestPermits);
+  }
+
+  @Test
+  void shouldOnlyCreateReaderOnFirstAccess() throws IOException {
+    try (SourceReader reader = lazyReader(null)) {
+      assertThat(reader.getPointer()).isSameAs(pointer);
+      assertThat(numCreated.get()).isEqualTo(0);
+      assertThat(reader.readAsciiString(0, 5)).isEqualTo("<?xml");
+      reader.readAsciiString(100, 5);
+      assertThat(numCreated.get()).isEqualTo(1);
+    }
+  }
+
+  @Test
+  void shouldWaitForFreeSlot() throws Exception {
+    Semaphore permits = new Semaphore(1);
+    SourceReader first = lazyReader(permits);
+    SourceReader second = lazyReader(permits);
+    first.length();
+    CompletableFuture<Long> fut =
+        CompletableFuture.supplyAsync(
+            () -> {
+              try {
+                return second.length();
+              } catch (IOException e) {
+                throw new RuntimeException(e);
+              }
+            });
+    Assertions.assertThrows(TimeoutException.class, () -> fut.get(200, TimeUnit.MILLISECONDS));
+    first.close();
+    assertThat(fut.get(5, TimeUnit.SECONDS)).isEqualTo(Files.size(filePath));
+    second.close();
+    assertThat(permits.availablePermits()).isEqualTo(1);
+  }
+
+  @Test
+  void shouldHonorNodeLimit() throws Exception {
+    LazySourceReader.configureMaxOpenPerNode(1);
+    SourceReader first = lazyReader(null);
+    SourceReader second = lazyReader(null);
+    first.length();
+    CompletableFuture<Void> fut =
+        CompletableFuture.runAsync(
+            () -> {
+              try {
+                second.length();
+              } catch (IOException e) {
+                throw new RuntimeException(e);
+              }
+            });
+    Assertions.assertThrows(TimeoutException.class, () -> fut.get(200, TimeUnit.MILLISECONDS));
+    first.close();
+    fut.get(5, TimeUnit.SECONDS);
+    second.close();
+  }
+
+  @Test
+  void shouldNotHoldSlotsForPrefetching() throws IOException {
+    Semaphore permits = new Semaphore(1);
+    long[] starts = {0};
+    long[] ends = {1024};
+    try (SourceReader busy = lazyReader(permits);
+        SourceReader reader = lazyReader(permits)) {
+      busy.length();
+      // No free slot, prefetching is skipped instead of waiting
+      assertThat(reader.prefetch(starts, ends, 0, 1, 1024)).isEqualTo(1);
+      assertThat(numCreated.get()).isEqualTo(1);
+      busy.close();
+
+      assertThat(reader.prefetch(starts, ends, 0, 1, 1024)).isEqualTo(1);
+      assertThat(numCreated.get()).isEqualTo(2);
+      // Slot is free again after prefetching
+      assertThat(permits.availablePermits()).isEqualTo(1);
+
+      assertThat(reader.readAsciiString(0, 5)).isEqualTo("<?xml");
+      assertThat(permits.availablePermits()).isEqualTo(0);
+      assertThat(numCreated.get()).isEqualTo(2);
+    }
+    assertThat(permits.availablePermits()).isEqualTo(1);
+  }
+}
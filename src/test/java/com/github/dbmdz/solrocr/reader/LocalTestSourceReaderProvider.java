@@ -0,0 +1,43 @@
+package com.github.dbmdz.solrocr.reader;
+
+import com.github.dbmdz.solrocr.model.SourcePointer;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Collections;
+import java.util.List;
+
+/** Resolves {@code test://} targets against the test data directory. */
+public class LocalTestSourceReaderProvider implements SourceReaderProvider {
+  static final String PREFIX = "test://";
+
+  private static Path resolve(String target) {
+    return Paths.get("src/test/resources/data", target.substring(PREFIX.length()));
+  }
+
+  @Override
+  public String getName() {
+    return "test-local";
+  }
+
+  @Override
+  public List<String> getPrefixes() {
+    return Collections.singletonList(PREFIX);
+  }
+
+  @Override
+  public void validate(String target) throws IOException {
+    if (!Files.exists(resolve(target))) {
+      throw new FileNotFoundException(target);
+    }
+  }
+
+  @Override
+  public SourceReader getReader(
+      String target, SourcePointer pointer, int sectionSize, int maxCacheEntries)
+      throws IOException {
+    return new FileSourceReader(resolve(target), pointer, sectionSize, maxCacheEntries);
+  }
+}
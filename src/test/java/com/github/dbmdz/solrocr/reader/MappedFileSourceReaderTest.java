@@ -0,0 +1,88 @@
+package com.github.dbmdz.solrocr.reader;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.github.dbmdz.solrocr.model.SourcePointer;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+class MappedFileSourceReaderTest {
+
+  private final Path filePath = Paths.get("src/test/resources/data/miniocr.xml");
+  private final SourcePointer pointer = SourcePointer.parse(filePath.toString());
+
+  @Test
+  void shouldBeSelectedViaReadMode() throws IOException {
+    try (SourceReader reader = pointer.getReader(8192, 10, FileReadMode.MMAP)) {
+      assertThat(reader).isInstanceOf(MappedFileSourceReader.class);
+      assertThat(reader.length()).isEqualTo((int) Files.size(filePath));
+    }
+  }
+
+  @Test
+  void shouldReadUtf8StringLikeChannelReader() throws IOException {
+    Random rand = new Random(42);
+    try (SourceReader mapped = new MappedFileSourceReader(filePath, pointer, 8192, 10);
+        SourceReader channel = new FileSourceReader(filePath, pointer, 8192, 10)) {
+      for (int i = 0; i < 1000; i++) {
+        int start = rand.nextInt((int) mapped.length() - 512);
+        int len = rand.nextInt(512) + 1;
+        assertThat(mapped.readUtf8String(start, len)).isEqualTo(channel.readUtf8String(start, len));
+      }
+    }
+  }
+
+  @ParameterizedTest
+  @ValueSource(ints = {64, 1024, 8192, 65_536})
+  void shouldReadCorrectlyAlignedSections(int sectionSize) throws IOException {
+    SourceReader reader = new MappedFileSourceReader(filePath, pointer, sectionSize, 3);
+    int offset = (sectionSize * 4) + (sectionSize / 2);
+    SourceReader.Section section = reader.getAsciiSection(offset);
+    byte[] expectedData = new byte[sectionSize];
+    try (ByteChannel chan = Files.newByteChannel(filePath).position(sectionSize * 4L)) {
+      chan.read(ByteBuffer.wrap(expectedData));
+    }
+    String expectedStr = new String(expectedData, 0, 0, expectedData.length);
+    assertThat(section.start).isEqualTo(sectionSize * 4);
+    assertThat(section.end).isEqualTo(sectionSize * 5);
+    assertThat(section.getText()).isEqualTo(expectedStr);
+  }
+
+  @Test
+  void shouldCacheSections() throws IOException {
+    byte[] data = Files.readAllBytes(filePath);
+    SectionCache.configureShared(16 * 1024 * 1024, false);
+    try (SourceReader reader = new MappedFileSourceReader(filePath, pointer, 1000, 3)) {
+      for (int offset = 0; offset < data.length; offset += 997) {
+        SourceReader.Section section = reader.getAsciiSection(offset);
+        int start = offset / 1000 * 1000;
+        assertThat(section.start).isEqualTo(start);
+        assertThat(section.end).isEqualTo(start + 1000);
+        assertThat(section.bytes)
+            .isEqualTo(Arrays.copyOfRange(data, start, Math.min(start + 1000, data.length)));
+        assertThat(reader.getAsciiSection(offset)).isSameAs(section);
+      }
+      assertThat(SectionCache.getShared().size()).isEqualTo((data.length + 999) / 1000);
+    } finally {
+      SectionCache.configureShared(0, false);
+    }
+  }
+
+  @Test
+  void shouldReadTrailingBytes() throws IOException {
+    SourceReader reader = new MappedFileSourceReader(filePath, pointer, 8192, 3);
+    byte[] buf = new byte[64];
+    int numRead = reader.readBytes(buf, 0, reader.length() - 16, buf.length);
+    assertThat(numRead).isEqualTo(16);
+    assertThat(reader.readBytes(ByteBuffer.wrap(buf), reader.length())).isEqualTo(-1);
+  }
+}
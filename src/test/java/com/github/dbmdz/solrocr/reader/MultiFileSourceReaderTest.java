@@ -97,8 +97,10 @@ class MultiFileSourceReaderTest {
     // Choose offsets to force reading across multiple sections
     int startOffset =
         Math.max(
-            0, (reader.length() / 2) - (maxCacheEntries / 2 * sectionSize) - (sectionSize / 2));
-    int endOffset = Math.min(startOffset + (maxCacheEntries / 2 * sectionSize), reader.length());
+            0,
+            ((int) reader.length() / 2) - (maxCacheEntries / 2 * sectionSize) - (sectionSize / 2));
+    int endOffset =
+        Math.min(startOffset + (maxCacheEntries / 2 * sectionSize), (int) reader.length());
     int readLen = endOffset - startOffset;
     byte[] expectedData = readData(startOffset, endOffset);
     String expectedStr = new String(expectedData, 0, 0, expectedData.length);
@@ -120,7 +122,7 @@ class MultiFileSourceReaderTest {
     String expectedStr = new String(expectedData, 0, 0, expectedData.length);
     assertThat(section.start).isEqualTo(sectionStart);
     assertThat(section.end).isEqualTo(sectionStart + sectionSize);
-    assertThat(section.text).isEqualTo(expectedStr);
+    assertThat(section.getText()).isEqualTo(expectedStr);
   }
 
   @Test
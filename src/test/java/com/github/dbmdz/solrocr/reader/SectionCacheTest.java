@@ -0,0 +1,62 @@
+package com.github.dbmdz.solrocr.reader;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.github.dbmdz.solrocr.model.SourcePointer;
+import com.github.dbmdz.solrocr.reader.SourceReader.Section;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+class SectionCacheTest {
+  private final Path filePath = Paths.get("src/test/resources/data/miniocr.xml");
+  private final SourcePointer pointer = SourcePointer.parse(filePath.toString());
+
+  @AfterEach
+  void disableSharedCache() {
+    SectionCache.configureShared(0, false);
+  }
+
+  @ParameterizedTest
+  @ValueSource(booleans = {false, true})
+  void shouldShareSectionsAcrossReaders(boolean offHeap) throws IOException {
+    SectionCache.configureShared(1024 * 1024, offHeap);
+    SectionCache cache = SectionCache.getShared();
+    Section first;
+    try (SourceReader reader = new FileSourceReader(filePath, pointer, 8192, 10)) {
+      first = reader.getAsciiSection(3 * 8192 + 17);
+    }
+    assertThat(cache.stats().missCount()).isEqualTo(1);
+    assertThat(cache.stats().hitCount()).isEqualTo(0);
+
+    try (SourceReader reader = new FileSourceReader(filePath, pointer, 8192, 10)) {
+      Section second = reader.getAsciiSection(3 * 8192 + 4096);
+      assertThat(second.start).isEqualTo(first.start);
+      assertThat(second.end).isEqualTo(first.end);
+      assertThat(second.getText()).isEqualTo(first.getText());
+      // Different section size must not produce a hit
+      reader.getAsciiSection(0);
+    }
+    try (SourceReader reader = new FileSourceReader(filePath, pointer, 4096, 10)) {
+      reader.getAsciiSection(3 * 8192 + 17);
+    }
+    assertThat(cache.stats().hitCount()).isEqualTo(1);
+    assertThat(cache.stats().missCount()).isEqualTo(3);
+  }
+
+  @ParameterizedTest
+  @ValueSource(booleans = {false, true})
+  void shouldRespectMaximumSize(boolean offHeap) throws IOException {
+    SectionCache.configureShared(64 * 1024, offHeap);
+    try (SourceReader reader = new FileSourceReader(filePath, pointer, 8192, 1)) {
+      for (int offset = 0; offset < 32 * 8192; offset += 8192) {
+        reader.getAsciiSection(offset);
+      }
+    }
+    assertThat(SectionCache.getShared().size()).isLessThan(8);
+    assertThat(SectionCache.getShared().stats().evictionCount()).isGreaterThan(24);
+  }
+}
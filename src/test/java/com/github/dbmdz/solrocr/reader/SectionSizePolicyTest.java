@@ -0,0 +1,118 @@
+package com.github.dbmdz.solrocr.reader;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.github.dbmdz.solrocr.model.SourcePointer;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+class SectionSizePolicyTest {
+  private final Path filePath = Paths.get("src/test/resources/data/miniocr.xml");
+
+  @AfterEach
+  void disablePolicy() {
+    SectionSizePolicy.configureShared(false, 0, 0, 0);
+  }
+
+  /** Simulate reads of varying sizes that take {@code nanosPerRead + nanosPerByte * size}. */
+  private static void recordReads(
+      SectionSizePolicy.Tier tier, long nanosPerRead, int nanosPerByte) {
+    for (int i = 0; i < 2 * SectionSizePolicy.MIN_SAMPLES; i++) {
+      int size = 4096 * (1 + (i % 16));
+      tier.recordRead(size, nanosPerRead + (long) nanosPerByte * size);
+    }
+  }
+
+  @Test
+  void shouldUseBaseSizeWithoutStatistics() {
+    SectionSizePolicy policy = new SectionSizePolicy(8192, 1024, 1024 * 1024);
+    SectionSizePolicy.Tier tier = new SectionSizePolicy.Tier("test");
+    assertThat(policy.chooseSize(tier, -1)).isEqualTo(8192);
+    // Small sources are read with a single section
+    assertThat(policy.chooseSize(tier, 5000)).isEqualTo(4096);
+
+    // Reads of a single size don't allow telling the fixed and per-byte costs apart
+    for (int i = 0; i < 2 * SectionSizePolicy.MIN_SAMPLES; i++) {
+      tier.recordRead(8192, 50_000);
+    }
+    assertThat(policy.chooseSize(tier, -1)).isEqualTo(8192);
+  }
+
+  @Test
+  void shouldPickLargerSectionsForHighLatencyTiers() {
+    SectionSizePolicy policy = new SectionSizePolicy(8192, 4096, 1024 * 1024);
+    SectionSizePolicy.Tier fast = new SectionSizePolicy.Tier("fast");
+    recordReads(fast, 10_000, 1);
+    SectionSizePolicy.Tier slow = new SectionSizePolicy.Tier("slow");
+    recordReads(slow, 100_000, 1);
+    SectionSizePolicy.Tier remote = new SectionSizePolicy.Tier("remote");
+    recordReads(remote, 50_000_000, 1);
+
+    assertThat(policy.chooseSize(fast, -1)).isEqualTo(8192);
+    assertThat(policy.chooseSize(slow, -1)).isEqualTo(128 * 1024);
+    assertThat(policy.chooseSize(remote, -1)).isEqualTo(1024 * 1024);
+    assertThat(policy.chooseSize(remote, 300 * 1024)).isEqualTo(256 * 1024);
+  }
+
+  @Test
+  void shouldAdaptToReadsOfChosenSize() {
+    SectionSizePolicy policy = new SectionSizePolicy(8192, 4096, 1024 * 1024);
+    SectionSizePolicy.Tier tier = new SectionSizePolicy.Tier("slow");
+    // Like in practice, every reader only reads sections of the size that was chosen for it
+    for (int i = 0; i < 64; i++) {
+      int size = policy.chooseSize(tier, -1);
+      for (int j = 0; j < 8; j++) {
+        tier.recordRead(size, 100_000 + size);
+      }
+    }
+    assertThat(tier.lastChosenSize).isEqualTo(128 * 1024);
+  }
+
+  @Test
+  void shouldCoverTypicalScans() {
+    SectionSizePolicy policy = new SectionSizePolicy(8192, 1024, 1024 * 1024);
+    SectionSizePolicy.Tier tier = new SectionSizePolicy.Tier("test");
+    recordReads(tier, 1000, 1);
+    assertThat(policy.chooseSize(tier, -1)).isEqualTo(1024);
+    for (int i = 0; i < 100; i++) {
+      tier.recordScan(20_000);
+    }
+    assertThat(policy.chooseSize(tier, -1)).isEqualTo(16 * 1024);
+    assertThat(policy.getChosenSizes()).isEmpty();
+  }
+
+  @Test
+  void shouldCreateReadersWithChosenSize() throws IOException {
+    SourcePointer pointer = SourcePointer.parse(filePath.toString());
+    // Without a policy, the configured size is used
+    try (SourceReader reader =
+        SectionSizePolicy.getReader(pointer, 8192, 10, FileReadMode.CHANNEL)) {
+      assertThat(((BaseSourceReader) reader).sectionSize).isEqualTo(8192);
+    }
+
+    SectionSizePolicy.configureShared(true, 8192, 4096, 64 * 1024);
+    SectionSizePolicy policy = SectionSizePolicy.getShared();
+    SectionSizePolicy.Tier tier = policy.getTier(pointer);
+    assertThat(tier.name).startsWith("filesystem:");
+    recordReads(tier, 1_000_000, 1);
+    try (SourceReader reader =
+        SectionSizePolicy.getReader(pointer, 8192, 10, FileReadMode.CHANNEL)) {
+      assertThat(((BaseSourceReader) reader).sectionSize).isEqualTo(64 * 1024);
+      // Sections are aligned to the chosen size
+      byte[] data = Files.readAllBytes(filePath);
+      assertThat(reader.getAsciiSection(100_000).bytes)
+          .hasSize(64 * 1024)
+          .startsWith(data[64 * 1024]);
+    }
+    assertThat(policy.getChosenSizes()).containsEntry(tier.name, 64 * 1024);
+    assertThat(policy.getLargestChosenSize()).isEqualTo(64 * 1024);
+
+    // Re-configuring with the same settings keeps the statistics
+    SectionSizePolicy.configureShared(true, 8192, 4096, 64 * 1024);
+    assertThat(SectionSizePolicy.getShared()).isSameAs(policy);
+  }
+}
@@ -0,0 +1,119 @@
+package com.github.dbmdz.solrocr.reader;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.github.dbmdz.solrocr.model.SourcePointer;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+class SharedSourceReaderTest {
+  private final Path filePath = Paths.get("src/test/resources/data/miniocr.xml");
+
+  /** Reader that counts how often it was closed. */
+  private static class ClosingSourceReader extends FileSourceReader {
+    int numCloses = 0;
+
+    ClosingSourceReader(Path path) throws IOException {
+      super(path, null, 1024, 8);
+    }
+
+    @Override
+    public void close() throws IOException {
+      numCloses++;
+      super.close();
+    }
+  }
+
+  @Test
+  void shouldOnlyCloseAfterLastHandle() throws Exception {
+    ClosingSourceReader input = new ClosingSourceReader(filePath);
+    SharedSourceReader first = new SharedSourceReader(input);
+    SharedSourceReader second = first.share();
+    first.close();
+    // Closing a handle twice doesn't release the other handles
+    first.close();
+    assertThat(input.numCloses).isEqualTo(0);
+    assertThat(second.readAsciiString(0, 5)).isEqualTo("<?xml");
+    second.close();
+    assertThat(input.numCloses).isEqualTo(1);
+    Assertions.assertThrows(IllegalStateException.class, second::share);
+  }
+
+  @Test
+  void shouldTellIfInMemory() throws Exception {
+    assertThat(new SharedSourceReader(new StringSourceReader("<ocr/>")).share().isInMemory())
+        .isTrue();
+    assertThat(new SharedSourceReader(new FileSourceReader(filePath, null, 512, 4)).isInMemory())
+        .isFalse();
+  }
+
+  @Test
+  @Timeout(10)
+  void shouldReleasePermitsOfLazyReaderWhenHandleIsClosed() throws Exception {
+    SourcePointer pointer = SourcePointer.parse(filePath.toString());
+    Semaphore permits = new Semaphore(1);
+    SharedSourceReader[] firstHandles = new SharedSourceReader[3];
+    SharedSourceReader[] secondHandles = new SharedSourceReader[3];
+    for (int i = 0; i < firstHandles.length; i++) {
+      firstHandles[i] =
+          new SharedSourceReader(
+              new LazySourceReader(
+                  pointer, () -> new FileSourceReader(filePath, pointer, 1024, 8), permits));
+      secondHandles[i] = firstHandles[i].share();
+    }
+    // Use all first handles before any of the second handles, like the highlighter does
+    for (SharedSourceReader[] handles : new SharedSourceReader[][] {firstHandles, secondHandles}) {
+      for (SharedSourceReader handle : handles) {
+        assertThat(handle.readAsciiString(0, 5)).isEqualTo("<?xml");
+        handle.close();
+        assertThat(permits.availablePermits()).isEqualTo(1);
+      }
+    }
+  }
+
+  @Test
+  void shouldAllowConcurrentAccess() throws Exception {
+    byte[] data = Files.readAllBytes(filePath);
+    SharedSourceReader reader =
+        new SharedSourceReader(new FileSourceReader(filePath, null, 512, 4));
+    ExecutorService pool = Executors.newFixedThreadPool(4);
+    try {
+      List<Future<?>> futs = new ArrayList<>();
+      for (int t = 0; t < 4; t++) {
+        SharedSourceReader handle = reader.share();
+        int seed = t;
+        futs.add(
+            pool.submit(
+                () -> {
+                  Random rand = new Random(seed);
+                  try (SourceReader r = handle) {
+                    for (int i = 0; i < 500; i++) {
+                      int start = rand.nextInt(data.length - 256);
+                      assertThat(r.readAsciiString(start, 256))
+                          .isEqualTo(new String(data, 0, start, 256));
+                    }
+                  }
+                  return null;
+                }));
+      }
+      for (Future<?> fut : futs) {
+        fut.get();
+      }
+    } finally {
+      pool.shutdown();
+      reader.close();
+    }
+  }
+}
@@ -0,0 +1,57 @@
+package com.github.dbmdz.solrocr.reader;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.github.dbmdz.solrocr.model.SourcePointer;
+import java.io.IOException;
+import java.nio.file.Paths;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class SourceReaderProvidersTest {
+  private static final String filePath = "src/test/resources/data/miniocr.xml";
+
+  @BeforeEach
+  void enableProvider() {
+    SourceReaderProviders.enable(getClass().getClassLoader(), " test-local, ");
+  }
+
+  @Test
+  void shouldUseProviderForClaimedPrefix() throws IOException {
+    SourcePointer pointer = SourcePointer.parse("test://miniocr.xml[100:200]");
+    SourcePointer.Source source = pointer.sources.get(0);
+    assertThat(source.type).isEqualTo(SourcePointer.SourceType.CUSTOM);
+    assertThat(source.provider).isInstanceOf(LocalTestSourceReaderProvider.class);
+    assertThat(source.regions).hasSize(1);
+    try (SourceReader reader = pointer.getReader(8192, 10);
+        SourceReader expected = SourcePointer.parse(filePath).getReader(8192, 10)) {
+      assertThat(reader.getPointer()).isSameAs(pointer);
+      assertThat(reader.readAsciiString(100, 100)).isEqualTo(expected.readAsciiString(100, 100));
+    }
+  }
+
+  @Test
+  void shouldCombineWithBuiltinTypes() throws IOException {
+    SourcePointer pointer = SourcePointer.parse("test://miniocr.xml+" + filePath);
+    try (SourceReader reader = pointer.getReader(8192, 10)) {
+      assertThat(reader).isInstanceOf(ConcatenatedSourceReader.class);
+      assertThat(reader.length()).isEqualTo(2 * Paths.get(filePath).toFile().length());
+    }
+  }
+
+  @Test
+  void shouldValidateTargets() {
+    Assertions.assertThrows(
+        RuntimeException.class, () -> SourcePointer.parse("test://does-not-exist.xml"));
+  }
+
+  @Test
+  void shouldFailForUnknownProviders() {
+    IllegalArgumentException e =
+        Assertions.assertThrows(
+            IllegalArgumentException.class,
+            () -> SourceReaderProviders.enable(getClass().getClassLoader(), "test-local,s3"));
+    assertThat(e.getMessage()).contains("'s3'").contains("test-local");
+  }
+}
@@ -0,0 +1,145 @@
+package com.github.dbmdz.solrocr.reader;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.github.dbmdz.solrocr.model.SourcePointer;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class ZipMemberSourceReaderTest {
+  private static final int NUM_MEMBERS = 4;
+
+  @TempDir Path tempDir;
+
+  private byte[] data;
+  private Path archivePath;
+
+  /** Split the test data into members, alternating between stored and deflated ones. */
+  @BeforeEach
+  void writeArchive() throws IOException {
+    data = Files.readAllBytes(Paths.get("src/test/resources/data/miniocr.xml"));
+    archivePath = tempDir.resolve("volume.zip");
+    int memberSize = data.length / NUM_MEMBERS + 1;
+    try (OutputStream out = Files.newOutputStream(archivePath);
+        ZipOutputStream zipOut = new ZipOutputStream(out)) {
+      for (int i = 0; i < NUM_MEMBERS; i++) {
+        int offset = i * memberSize;
+        int len = Math.min(memberSize, data.length - offset);
+        ZipEntry entry = new ZipEntry(String.format("pages/page_%d.xml", i));
+        if (i % 2 == 0) {
+          CRC32 crc = new CRC32();
+          crc.update(data, offset, len);
+          entry.setMethod(ZipEntry.STORED);
+          entry.setSize(len);
+          entry.setCompressedSize(len);
+          entry.setCrc(crc.getValue());
+        }
+        zipOut.putNextEntry(entry);
+        zipOut.write(data, offset, len);
+        zipOut.closeEntry();
+      }
+    }
+  }
+
+  private String memberPointer(int idx) {
+    return archivePath
+        + SourcePointer.ZIP_MEMBER_SEPARATOR
+        + String.format("pages/page_%d.xml", idx);
+  }
+
+  private static void assertReadsMatch(SourceReader reader, byte[] expected) throws IOException {
+    assertThat(reader.length()).isEqualTo(expected.length);
+    assertThat(reader.readAsciiString(0, expected.length))
+        .isEqualTo(new String(expected, StandardCharsets.ISO_8859_1));
+    Random rand = new Random(42);
+    for (int i = 0; i < 100; i++) {
+      int start = rand.nextInt(expected.length);
+      int len = Math.min(rand.nextInt(16 * 1024), expected.length - start);
+      byte[] buf = new byte[len];
+      assertThat(reader.readBytes(buf, 0, start, len)).isEqualTo(len);
+      assertThat(buf).isEqualTo(Arrays.copyOfRange(expected, start, start + len));
+    }
+    assertThat(reader.readBytes(ByteBuffer.allocate(16), expected.length)).isEqualTo(-1);
+  }
+
+  @Test
+  void shouldReadSingleMembers() throws IOException {
+    int memberSize = data.length / NUM_MEMBERS + 1;
+    for (int i = 0; i < NUM_MEMBERS; i++) {
+      SourcePointer pointer = SourcePointer.parse(memberPointer(i));
+      assertThat(pointer.sources.get(0).type).isEqualTo(SourcePointer.SourceType.ZIP);
+      byte[] expected =
+          Arrays.copyOfRange(data, i * memberSize, Math.min(data.length, (i + 1) * memberSize));
+      try (SourceReader reader = pointer.getReader(1024, 8)) {
+        assertThat(reader).isInstanceOf(ZipMemberSourceReader.class);
+        assertReadsMatch(reader, expected);
+      }
+    }
+  }
+
+  @Test
+  void shouldConcatenateMembers() throws IOException {
+    StringBuilder ptr = new StringBuilder();
+    for (int i = 0; i < NUM_MEMBERS; i++) {
+      if (i > 0) {
+        ptr.append('+');
+      }
+      ptr.append(memberPointer(i));
+    }
+    SourcePointer pointer = SourcePointer.parse(ptr.toString());
+    try (SourceReader reader = pointer.getReader(1024, 8)) {
+      assertThat(reader).isInstanceOf(ConcatenatedSourceReader.class);
+      assertThat(reader.getVersion()).isEqualTo(Files.getLastModifiedTime(archivePath).toMillis());
+      assertReadsMatch(reader, data);
+    }
+  }
+
+  @Test
+  void shouldKeepInflatedMemberWhenReleasingResources() throws IOException {
+    int memberSize = data.length / NUM_MEMBERS + 1;
+    byte[] expected = Arrays.copyOfRange(data, memberSize, 2 * memberSize);
+    try (SourceReader reader =
+        new ZipMemberSourceReader(archivePath, "pages/page_1.xml", null, 1024, 8)) {
+      byte[] buf = new byte[128];
+      assertThat(reader.readBytes(buf, 0, 0, buf.length)).isEqualTo(buf.length);
+      reader.releaseResources();
+      // The member has to be served from memory, since the archive can't be opened anymore
+      Files.delete(archivePath);
+      assertThat(reader.readBytes(buf, 0, 1000, buf.length)).isEqualTo(buf.length);
+      assertThat(buf).isEqualTo(Arrays.copyOfRange(expected, 1000, 1000 + buf.length));
+    }
+  }
+
+  @Test
+  void shouldCacheCentralDirectory() throws IOException {
+    ZipArchiveIndex index = ZipArchiveIndex.forFile(archivePath);
+    assertThat(index.numMembers()).isEqualTo(NUM_MEMBERS);
+    assertThat(ZipArchiveIndex.forFile(archivePath)).isSameAs(index);
+    assertThat(index.getMember("pages/page_0.xml").method).isEqualTo(ZipArchiveIndex.METHOD_STORED);
+    assertThat(index.getMember("pages/page_1.xml").method)
+        .isEqualTo(ZipArchiveIndex.METHOD_DEFLATED);
+  }
+
+  @Test
+  void shouldRejectMissingMembers() {
+    Assertions.assertThrows(
+        RuntimeException.class,
+        () ->
+            SourcePointer.parse(
+                archivePath + SourcePointer.ZIP_MEMBER_SEPARATOR + "pages/missing.xml"));
+  }
+}
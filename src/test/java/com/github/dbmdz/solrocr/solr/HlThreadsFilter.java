@@ -6,6 +6,7 @@ public class HlThreadsFilter implements ThreadFilter {
 
   @Override
   public boolean reject(Thread thread) {
-    return thread.getName().startsWith("OcrHighlighter-");
+    return thread.getName().startsWith("OcrHighlighter-")
+        || thread.getName().startsWith("OcrReadAhead-");
   }
 }
@@ -0,0 +1,109 @@
+package com.github.dbmdz.solrocr.solr;
+
+import com.carrotsearch.randomizedtesting.annotations.ThreadLeakFilters;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Locale;
+import org.apache.lucene.tests.util.QuickPatchThreadsFilter;
+import org.apache.solr.SolrIgnoredThreadsFilter;
+import org.apache.solr.SolrTestCaseJ4;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+/** Indexing and highlighting of a region that is located beyond 2GiB in its source. */
+@ThreadLeakFilters(
+    defaultFilters = true,
+    filters = {
+      SolrIgnoredThreadsFilter.class,
+      QuickPatchThreadsFilter.class,
+      HlThreadsFilter.class
+    })
+public class LargeSourceTest extends SolrTestCaseJ4 {
+  private static final long REGION_START = 3L * 1024 * 1024 * 1024;
+  private static final Path MINIOCR_PATH =
+      Paths.get("src/test/resources/data/miniocr.xml").toAbsolutePath();
+
+  private static Path largePath;
+
+  @BeforeClass
+  public static void beforeClass() throws Exception {
+    // Store the OCR markup of the inindex_ocr field in chunks
+    System.setProperty("solrocr.chunkedStorage", "true");
+    // Needed since https://github.com/apache/solr/commit/16657ccab092
+    System.setProperty("solr.install.dir", "./");
+    initCore("solrconfig.xml", "schema.xml", "src/test/resources/solr", "general");
+
+    // Sparse file, only the OCR markup behind the 3GiB of padding is actually written
+    byte[] ocr = Files.readAllBytes(MINIOCR_PATH);
+    largePath = createTempDir().resolve("large.xml").toAbsolutePath();
+    try (FileChannel chan =
+        FileChannel.open(largePath, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)) {
+      chan.write(ByteBuffer.wrap(ocr), REGION_START);
+    }
+    String closedRegion =
+        String.format(Locale.US, "%s[%d:%d]", largePath, REGION_START, REGION_START + ocr.length);
+    String openRegion = String.format(Locale.US, "%s[%d:]", largePath, REGION_START);
+    assertU(adoc("ocr_text", closedRegion, "id", "1"));
+    assertU(adoc("ocr_text", openRegion, "id", "2"));
+    // Only the markup of the region is stored in the index
+    assertU(adoc("inindex_ocr", closedRegion, "id", "3"));
+    assertU(commit());
+  }
+
+  @AfterClass
+  public static void afterClass() {
+    System.clearProperty("solrocr.chunkedStorage");
+  }
+
+  @Test
+  public void testRegionBeyond2GiB() {
+    assertQ(
+        req(
+            "q", "München",
+            "defType", "edismax",
+            "qf", "ocr_text",
+            "hl", "true",
+            "hl.ocr.fl", "ocr_text",
+            "hl.ctxTag", "l",
+            "hl.ctxSize", "2",
+            "hl.snippets", "10",
+            "fl", "id"),
+        "count(//lst[@name='ocrHighlighting']/lst[@name='1']/lst[@name='ocr_text']/arr/lst)=3",
+        "count(//lst[@name='ocrHighlighting']/lst[@name='2']/lst[@name='ocr_text']/arr/lst)=3",
+        "//lst[@name='1']//str[@name='text'][1]/text()='Bayerische Staatsbibliothek <em>München</em>'",
+        "//lst[@name='2']//str[@name='text'][1]/text()='Bayerische Staatsbibliothek <em>München</em>'");
+  }
+
+  @Test
+  public void testChunkedRegionBeyond2GiB() {
+    assertQ(
+        req(
+            "q", "München",
+            "defType", "edismax",
+            "qf", "inindex_ocr",
+            "hl", "true",
+            "hl.ocr.fl", "inindex_ocr",
+            "f.inindex_ocr.hl.ocr.chunkedField", "inindex_chunks",
+            "hl.ctxTag", "l",
+            "hl.ctxSize", "2",
+            "hl.snippets", "10",
+            "fl", "id"),
+        "count(//lst[@name='ocrHighlighting']/lst[@name='3']/lst[@name='inindex_ocr']/arr/lst)=3",
+        "//lst[@name='3']//str[@name='text'][1]/text()='Bayerische Staatsbibliothek <em>München</em>'");
+  }
+
+  @Test
+  public void testMultipleFilesBeyond2GiBAreRejected() {
+    ignoreException("only pointers to regions of a single file");
+    try {
+      assertFailedU(adoc("ocr_text", largePath + "+" + MINIOCR_PATH, "id", "4"));
+    } finally {
+      resetExceptionIgnores();
+    }
+  }
+}
@@ -14,6 +14,7 @@ import org.apache.solr.SolrIgnoredThreadsFilter;
 import org.apache.solr.SolrTestCaseJ4;
 import org.apache.solr.common.params.ModifiableSolrParams;
 import org.apache.solr.request.SolrQueryRequest;
+import org.junit.AfterClass;
 import org.junit.BeforeClass;
 import org.junit.Test;
 
@@ -27,6 +28,8 @@ import org.junit.Test;
 public class MiniOcrTest extends SolrTestCaseJ4 {
   @BeforeClass
   public static void beforeClass() throws Exception {
+    // Store the OCR markup of the inindex_ocr field in chunks
+    System.setProperty("solrocr.chunkedStorage", "true");
     // Needed since https://github.com/apache/solr/commit/16657ccab092
     System.setProperty("solr.install.dir", "./");
     initCore("solrconfig.xml", "schema.xml", "src/test/resources/solr", "general");
@@ -52,9 +55,33 @@ public class MiniOcrTest extends SolrTestCaseJ4 {
             new String(Files.readAllBytes(ocrPath), StandardCharsets.UTF_8),
             "id",
             "41337"));
+    // OCR markup stored inside of the index, from a pointer and from a string
+    assertU(adoc("inindex_ocr", ocrPath.toString(), "id", "51337"));
+    assertU(
+        adoc(
+            "inindex_ocr",
+            new String(Files.readAllBytes(ocrPath), StandardCharsets.UTF_8),
+            "id",
+            "61337"));
+    // Pointer from DocValues, the OCR field itself is not stored
+    assertU(
+        adoc(
+            "dv_ocr",
+            ocrPath.toString(),
+            "other_ocr",
+            ocrPath.toString(),
+            "dv_ptr",
+            ocrPath.toString(),
+            "id",
+            "71337"));
     assertU(commit());
   }
 
+  @AfterClass
+  public static void afterClass() {
+    System.clearProperty("solrocr.chunkedStorage");
+  }
+
   protected static SolrQueryRequest xmlQ(String... extraArgs) {
     Map<String, String> args =
         new HashMap<>(
@@ -138,6 +165,63 @@ public class MiniOcrTest extends SolrTestCaseJ4 {
         "count(//lst[@name='ocrHighlighting']/lst[@name='41337']/lst[@name='ocr_text']/arr/lst)=3");
   }
 
+  @Test
+  public void testChunkedHighlighting() {
+    SolrQueryRequest req =
+        xmlQ(
+            "q",
+            "München",
+            "hl.ocr.fl",
+            "inindex_ocr",
+            "df",
+            "inindex_ocr",
+            "f.inindex_ocr.hl.ocr.chunkedField",
+            "inindex_chunks");
+    String snippets =
+        "//lst[@name='ocrHighlighting']/lst[@name='%s']/lst[@name='inindex_ocr']/arr/lst"
+            + "/str[@name='text' and contains(text(),'<em>München</em>')]";
+    assertQ(
+        req,
+        "count(" + String.format(snippets, "51337") + ")=3",
+        "count(" + String.format(snippets, "61337") + ")=3");
+  }
+
+  @Test
+  public void testPointerFromDocValues() {
+    String snippets =
+        "count(//lst[@name='ocrHighlighting']/lst[@name='71337']/lst[@name='dv_ocr']/arr/lst)";
+    assertQ(xmlQ("q", "München", "hl.ocr.fl", "dv_ocr", "df", "dv_ocr"), snippets + "=0");
+    assertQ(
+        xmlQ(
+            "q",
+            "München",
+            "hl.ocr.fl",
+            "dv_ocr",
+            "df",
+            "dv_ocr",
+            "f.dv_ocr.hl.ocr.pointerField",
+            "dv_ptr"),
+        snippets + "=3");
+  }
+
+  @Test
+  public void testFieldsWithSameSource() {
+    String snippets =
+        "count(//lst[@name='ocrHighlighting']/lst[@name='71337']/lst[@name='%s']/arr/lst)=3";
+    assertQ(
+        xmlQ(
+            "q",
+            "München",
+            "hl.ocr.fl",
+            "dv_ocr,other_ocr",
+            "qf",
+            "dv_ocr other_ocr",
+            "hl.ocr.pointerField",
+            "dv_ptr"),
+        String.format(snippets, "dv_ocr"),
+        String.format(snippets, "other_ocr"));
+  }
+
   @Test
   public void testBooleanQuery() {
     SolrQueryRequest req = xmlQ("q", "((München AND Italien) OR Landsherr)");
@@ -0,0 +1,65 @@
+package com.github.dbmdz.solrocr.solr;
+
+import com.carrotsearch.randomizedtesting.annotations.ThreadLeakFilters;
+import com.carrotsearch.randomizedtesting.annotations.Timeout;
+import java.nio.file.Paths;
+import org.apache.lucene.tests.util.QuickPatchThreadsFilter;
+import org.apache.solr.SolrIgnoredThreadsFilter;
+import org.apache.solr.SolrTestCaseJ4;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+/** Highlighting of fields that share a source, with a single open source per request. */
+@ThreadLeakFilters(
+    defaultFilters = true,
+    filters = {
+      SolrIgnoredThreadsFilter.class,
+      QuickPatchThreadsFilter.class,
+      HlThreadsFilter.class
+    })
+public class OpenSourcesLimitTest extends SolrTestCaseJ4 {
+  private static final int NUM_DOCS = 4;
+
+  @BeforeClass
+  public static void beforeClass() throws Exception {
+    System.setProperty("solrocr.maxOpenSourcesPerRequest", "1");
+    // Highlight on the request thread, so the documents are highlighted strictly in field order
+    System.setProperty("solrocr.numHighlightingThreads", "0");
+    // Needed since https://github.com/apache/solr/commit/16657ccab092
+    System.setProperty("solr.install.dir", "./");
+    initCore("solrconfig.xml", "schema.xml", "src/test/resources/solr", "general");
+
+    String ptr = Paths.get("src/test/resources/data/miniocr.xml").toAbsolutePath().toString();
+    for (int i = 0; i < NUM_DOCS; i++) {
+      assertU(adoc("dv_ocr", ptr, "other_ocr", ptr, "dv_ptr", ptr, "id", String.valueOf(i)));
+    }
+    assertU(commit());
+  }
+
+  @AfterClass
+  public static void afterClass() {
+    System.clearProperty("solrocr.maxOpenSourcesPerRequest");
+    System.clearProperty("solrocr.numHighlightingThreads");
+  }
+
+  @Test
+  @Timeout(millis = 60_000)
+  public void testFieldsWithSameSourceAcrossDocuments() {
+    assertQ(
+        req(
+            "q", "München",
+            "qf", "dv_ocr other_ocr",
+            "defType", "edismax",
+            "hl", "true",
+            "hl.ocr.fl", "dv_ocr,other_ocr",
+            "hl.ocr.pointerField", "dv_ptr",
+            "hl.ctxTag", "l",
+            "hl.snippets", "10",
+            "rows", String.valueOf(NUM_DOCS),
+            "fl", "id"),
+        "count(//lst[@name='ocrHighlighting']/lst/lst[@name='dv_ocr']/arr/lst)=" + 3 * NUM_DOCS,
+        "count(//lst[@name='ocrHighlighting']/lst/lst[@name='other_ocr']/arr/lst)="
+            + 3 * NUM_DOCS);
+  }
+}
@@ -0,0 +1,80 @@
+package com.github.dbmdz.solrocr.solr;
+
+import com.carrotsearch.randomizedtesting.annotations.ThreadLeakFilters;
+import com.github.dbmdz.solrocr.reader.LatencyInjectingSourceReader;
+import com.github.dbmdz.solrocr.reader.LatencyInjectingSourceReader.Profile;
+import org.apache.lucene.tests.util.QuickPatchThreadsFilter;
+import org.apache.solr.SolrIgnoredThreadsFilter;
+import org.apache.solr.SolrTestCaseJ4;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+/** Highlighting with a read-ahead pool that is too small for the document batch. */
+@ThreadLeakFilters(
+    defaultFilters = true,
+    filters = {
+      SolrIgnoredThreadsFilter.class,
+      QuickPatchThreadsFilter.class,
+      HlThreadsFilter.class
+    })
+public class ReadAheadTest extends SolrTestCaseJ4 {
+  private static final int NUM_DOCS = 8;
+
+  @BeforeClass
+  public static void beforeClass() throws Exception {
+    // A single read-ahead thread with a single queue slot, so most read-aheads are rejected
+    System.setProperty("solrocr.numReadAheadThreads", "1");
+    System.setProperty("solrocr.maxQueuedPerThread", "1");
+    // Needed since https://github.com/apache/solr/commit/16657ccab092
+    System.setProperty("solr.install.dir", "./");
+    initCore("solrconfig.xml", "schema.xml", "src/test/resources/solr", "general");
+
+    LatencyInjectingSourceReader.setActiveProfile(null);
+    for (int i = 0; i < NUM_DOCS; i++) {
+      assertU(
+          adoc(
+              "dv_ocr",
+              "slow://miniocr.xml",
+              "other_ocr",
+              "slow://miniocr.xml",
+              "dv_ptr",
+              "slow://miniocr.xml",
+              "id",
+              String.valueOf(i)));
+    }
+    assertU(commit());
+  }
+
+  @AfterClass
+  public static void afterClass() {
+    LatencyInjectingSourceReader.setActiveProfile(null);
+    System.clearProperty("solrocr.numReadAheadThreads");
+    System.clearProperty("solrocr.maxQueuedPerThread");
+  }
+
+  @Test
+  public void testSaturatedReadAheadPool() {
+    // Keep the read-ahead thread busy, so that the pool is guaranteed to reject tasks
+    LatencyInjectingSourceReader.setActiveProfile(new Profile("test", 20_000_000, 0, 0));
+    try {
+      assertQ(
+          req(
+              "q", "München",
+              "qf", "dv_ocr other_ocr",
+              "defType", "edismax",
+              "hl", "true",
+              "hl.ocr.fl", "dv_ocr,other_ocr",
+              "hl.ocr.pointerField", "dv_ptr",
+              "hl.ctxTag", "l",
+              "hl.snippets", "10",
+              "rows", String.valueOf(NUM_DOCS),
+              "fl", "id"),
+          "count(//lst[@name='ocrHighlighting']/lst/lst[@name='dv_ocr']/arr/lst)=" + 3 * NUM_DOCS,
+          "count(//lst[@name='ocrHighlighting']/lst/lst[@name='other_ocr']/arr/lst)="
+              + 3 * NUM_DOCS);
+    } finally {
+      LatencyInjectingSourceReader.setActiveProfile(null);
+    }
+  }
+}
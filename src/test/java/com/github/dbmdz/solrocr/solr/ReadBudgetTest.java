@@ -0,0 +1,134 @@
+package com.github.dbmdz.solrocr.solr;
+
+import com.carrotsearch.randomizedtesting.annotations.ThreadLeakFilters;
+import com.github.dbmdz.solrocr.reader.LatencyInjectingSourceReader;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import org.apache.lucene.tests.util.QuickPatchThreadsFilter;
+import org.apache.solr.SolrIgnoredThreadsFilter;
+import org.apache.solr.SolrTestCaseJ4;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+/**
+ * Number and size of the reads from the sources per query, counted on simulated storage without
+ * any latency. Timings on slow storage are measured by {@link SlowStorageBenchmark}.
+ */
+@ThreadLeakFilters(
+    defaultFilters = true,
+    filters = {
+      SolrIgnoredThreadsFilter.class,
+      QuickPatchThreadsFilter.class,
+      HlThreadsFilter.class
+    })
+public class ReadBudgetTest extends SolrTestCaseJ4 {
+  private static final int SECTION_SIZE = 8 * 1024;
+
+  /** Allowance for reads that do not depend on the matches, e.g. for the format detection */
+  private static final int BASE_READS = 4;
+
+  private static final long BASE_BYTES = 4 * SECTION_SIZE;
+
+  /** Reads per match with only the line context, i.e. the read-ahead, context and snippet */
+  private static final int READS_PER_MATCH = 6;
+
+  private static final long BYTES_PER_MATCH = 6 * SECTION_SIZE;
+
+  private static long miniOcrLength;
+  private static long altoLength;
+
+  @BeforeClass
+  public static void beforeClass() throws Exception {
+    // Highlight on the request thread and without read-ahead, so the reads are deterministic
+    System.setProperty("solrocr.numHighlightingThreads", "0");
+    System.setProperty("solrocr.numReadAheadThreads", "0");
+    // Needed since https://github.com/apache/solr/commit/16657ccab092
+    System.setProperty("solr.install.dir", "./");
+    initCore("solrconfig.xml", "schema.xml", "src/test/resources/solr", "general");
+
+    miniOcrLength = Files.size(Paths.get("src/test/resources/data/miniocr.xml"));
+    altoLength = Files.size(Paths.get("src/test/resources/data/chronicling_america.xml"));
+    LatencyInjectingSourceReader.setActiveProfile(null);
+    assertU(adoc("ocr_text", "slow://miniocr.xml", "id", "1"));
+    assertU(adoc("ocr_text", "slow://chronicling_america.xml", "id", "2"));
+    assertU(commit());
+  }
+
+  @AfterClass
+  public static void afterClass() {
+    System.clearProperty("solrocr.numHighlightingThreads");
+    System.clearProperty("solrocr.numReadAheadThreads");
+  }
+
+  /** Highlight the term in a single document and check the reads from its source. */
+  private static void assertReadBudget(
+      String docId, String term, long maxReads, long maxBytes, String... extraParams) {
+    List<String> params =
+        new ArrayList<>(
+            Arrays.asList(
+                "q", term,
+                "df", "ocr_text",
+                "fq", "id:" + docId,
+                "hl", "true",
+                "hl.ocr.fl", "ocr_text",
+                "hl.snippets", "10",
+                "fl", "id"));
+    params.addAll(Arrays.asList(extraParams));
+    LatencyInjectingSourceReader.resetStats();
+    assertQ(
+        req(params.toArray(new String[0])),
+        "count(//lst[@name='ocrHighlighting']/lst[@name='" + docId + "']/lst/arr/lst)>0");
+    long numReads = LatencyInjectingSourceReader.getNumReads();
+    long numBytes = LatencyInjectingSourceReader.getNumBytesRead();
+
+    String stats =
+        String.format(
+            Locale.US,
+            "'%s' in doc %s: %d reads with %d bytes, budget is %d reads with %d bytes",
+            term,
+            docId,
+            numReads,
+            numBytes,
+            maxReads,
+            maxBytes);
+    assertTrue("Too many reads for " + stats, numReads <= maxReads);
+    assertTrue("Too many bytes read for " + stats, numBytes <= maxBytes);
+  }
+
+  /** Only the surroundings of the matches are read if no page or block has to be located. */
+  @Test
+  public void testLineContextReadsOnlyAroundMatches() {
+    String[] lineContextOnly = {"hl.ocr.trackPages", "false", "hl.ocr.limitBlock", "none"};
+    assertReadBudget(
+        "1",
+        "München",
+        BASE_READS + 3 * READS_PER_MATCH,
+        BASE_BYTES + 3 * BYTES_PER_MATCH,
+        lineContextOnly);
+    assertReadBudget(
+        "2",
+        "Paris",
+        BASE_READS + 2 * READS_PER_MATCH,
+        BASE_BYTES + 2 * BYTES_PER_MATCH,
+        lineContextOnly);
+  }
+
+  /**
+   * Pages and blocks can span large parts of a source, but no part of it should be read over and
+   * over again, no matter how many matches there are.
+   */
+  @Test
+  public void testDefaultContextReadsSourceAtMostTwice() {
+    long miniOcrSections = (miniOcrLength + SECTION_SIZE - 1) / SECTION_SIZE;
+    long altoSections = (altoLength + SECTION_SIZE - 1) / SECTION_SIZE;
+    assertReadBudget("1", "München", 2 * miniOcrSections, 2 * miniOcrLength);
+    assertReadBudget("1", "Italien", 2 * miniOcrSections, 2 * miniOcrLength);
+    assertReadBudget("2", "Paris", 2 * altoSections, 2 * altoLength);
+    assertReadBudget("2", "Monday", 2 * altoSections, 2 * altoLength);
+  }
+}
@@ -0,0 +1,133 @@
+package com.github.dbmdz.solrocr.solr;
+
+import com.carrotsearch.randomizedtesting.annotations.ThreadLeakFilters;
+import com.github.dbmdz.solrocr.reader.LatencyInjectingSourceReader;
+import com.github.dbmdz.solrocr.reader.LatencyInjectingSourceReader.Profile;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.apache.lucene.tests.util.QuickPatchThreadsFilter;
+import org.apache.solr.SolrIgnoredThreadsFilter;
+import org.apache.solr.SolrTestCaseJ4;
+import org.junit.AfterClass;
+import org.junit.Assume;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+/**
+ * Runs the highlighting test corpora on simulated slow storage at varying concurrency, to make
+ * the effect of the number and size of reads on query latencies visible. The reads themselves are
+ * checked against a budget by {@link ReadBudgetTest}.
+ *
+ * <p>Only runs if the {@code solrocr.benchmark} system property is set, e.g. with {@code mvn test
+ * -Dtest=SlowStorageBenchmark -Dsolrocr.benchmark=true}. The number of queries per run can be set
+ * with {@code solrocr.benchmark.queries}.
+ */
+@ThreadLeakFilters(
+    defaultFilters = true,
+    filters = {
+      SolrIgnoredThreadsFilter.class,
+      QuickPatchThreadsFilter.class,
+      HlThreadsFilter.class
+    })
+public class SlowStorageBenchmark extends SolrTestCaseJ4 {
+  private static final List<Profile> PROFILES =
+      Arrays.asList(Profile.SSD, Profile.NFS, Profile.HDD);
+  private static final int[] CONCURRENCIES = {1, 4, 16};
+  private static final String[][] QUERIES = {
+    // MiniOCR
+    {"l", "München"},
+    {"l", "Italien"},
+    // ALTO
+    {"ocr_line", "Paris"},
+    {"ocr_line", "Monday"},
+    {"ocr_line", "ligesom"},
+  };
+
+  @BeforeClass
+  public static void beforeClass() throws Exception {
+    Assume.assumeTrue(
+        "Benchmarks are only run with -Dsolrocr.benchmark=true",
+        Boolean.getBoolean("solrocr.benchmark"));
+    System.setProperty("solr.install.dir", "./");
+    initCore("solrconfig.xml", "schema.xml", "src/test/resources/solr", "general");
+
+    // Indexing reads the sources without latency, only highlighting is simulated
+    LatencyInjectingSourceReader.setActiveProfile(null);
+    assertU(adoc("ocr_text", "slow://miniocr.xml", "id", "1"));
+    assertU(adoc("ocr_text", "slow://bnl_lunion_1865-04-15.xml", "id", "2"));
+    assertU(adoc("ocr_text", "slow://chronicling_america.xml", "id", "3"));
+    assertU(commit());
+  }
+
+  @AfterClass
+  public static void afterClass() {
+    LatencyInjectingSourceReader.setActiveProfile(null);
+  }
+
+  private static long runQuery(String[] query) throws Exception {
+    long start = System.nanoTime();
+    String rsp =
+        h.query(
+            req(
+                "q", query[1],
+                "df", "ocr_text",
+                "hl", "true",
+                "hl.ocr.fl", "ocr_text",
+                "hl.ctxTag", query[0],
+                "hl.ctxSize", "2",
+                "hl.snippets", "10",
+                "fl", "id"));
+    long took = System.nanoTime() - start;
+    if (!rsp.contains("ocrHighlighting")) {
+      throw new AssertionError("No highlighting in response for '" + query[1] + "'");
+    }
+    return took;
+  }
+
+  @Test
+  public void benchmarkSlowStorage() throws Exception {
+    int numQueries = Integer.getInteger("solrocr.benchmark.queries", 64);
+    // Warm up the JIT without any latency
+    for (int i = 0; i < numQueries; i++) {
+      runQuery(QUERIES[i % QUERIES.length]);
+    }
+    for (Profile profile : PROFILES) {
+      LatencyInjectingSourceReader.setActiveProfile(profile);
+      for (int concurrency : CONCURRENCIES) {
+        ExecutorService pool = Executors.newFixedThreadPool(concurrency);
+        try {
+          List<Future<Long>> futures = new ArrayList<>(numQueries);
+          long start = System.nanoTime();
+          for (int i = 0; i < numQueries; i++) {
+            String[] query = QUERIES[i % QUERIES.length];
+            futures.add(pool.submit(() -> runQuery(query)));
+          }
+          List<Long> latencies = new ArrayList<>(numQueries);
+          for (Future<Long> f : futures) {
+            latencies.add(f.get());
+          }
+          long took = System.nanoTime() - start;
+          Collections.sort(latencies);
+          System.out.printf(
+              Locale.US,
+              "%-50s concurrency=%2d  p50=%8.2fms  p95=%8.2fms  max=%8.2fms  %7.1f queries/s%n",
+              profile,
+              concurrency,
+              latencies.get(latencies.size() / 2) / 1e6,
+              latencies.get((int) Math.ceil(latencies.size() * 0.95) - 1) / 1e6,
+              latencies.get(latencies.size() - 1) / 1e6,
+              numQueries / (took / 1e9));
+        } finally {
+          pool.shutdown();
+        }
+      }
+    }
+    LatencyInjectingSourceReader.setActiveProfile(null);
+  }
+}
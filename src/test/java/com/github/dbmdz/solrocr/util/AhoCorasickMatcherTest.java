@@ -0,0 +1,84 @@
+package com.github.dbmdz.solrocr.util;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.github.dbmdz.solrocr.breaklocator.AhoCorasickMatcher;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.Test;
+
+class AhoCorasickMatcherTest {
+  private static List<byte[]> patterns(String... patterns) {
+    return Arrays.stream(patterns)
+        .map(p -> p.getBytes(StandardCharsets.US_ASCII))
+        .collect(Collectors.toList());
+  }
+
+  private static byte[] bytes(String s) {
+    return s.getBytes(StandardCharsets.US_ASCII);
+  }
+
+  @Test
+  void shouldFindFirstAndLastOccurrence() {
+    AhoCorasickMatcher matcher = new AhoCorasickMatcher(patterns("ocr_line", "ocrx_line"));
+    byte[] text = bytes("<a class='ocrx_line'><b class='ocr_line'><c class='ocrx_line'>");
+    assertThat(matcher.indexOf(text, 0, text.length)).isEqualTo(10);
+    assertThat(matcher.indexOf(text, 11, text.length)).isEqualTo(31);
+    assertThat(matcher.lastIndexOf(text, text.length, 0)).isEqualTo(51);
+    assertThat(matcher.lastIndexOf(text, 51, 0)).isEqualTo(31);
+    assertThat(matcher.lastIndexOf(text, 31, 11)).isEqualTo(-1);
+  }
+
+  @Test
+  void shouldAllowMatchesToExtendBeyondLimit() {
+    AhoCorasickMatcher matcher = new AhoCorasickMatcher(patterns("ocr_par"));
+    byte[] text = bytes("xxocr_parxx");
+    assertThat(matcher.indexOf(text, 0, 3)).isEqualTo(2);
+    assertThat(matcher.indexOf(text, 0, 2)).isEqualTo(-1);
+    assertThat(matcher.lastIndexOf(text, 3, 0)).isEqualTo(2);
+    assertThat(matcher.lastIndexOf(text, 2, 0)).isEqualTo(-1);
+  }
+
+  @Test
+  void shouldPreferEarliestStartForOverlappingPatterns() {
+    // "carea" ends before "ocr_careas", but the latter starts earlier
+    AhoCorasickMatcher matcher = new AhoCorasickMatcher(patterns("carea", "ocr_careas"));
+    byte[] text = bytes("..ocr_careas..");
+    assertThat(matcher.indexOf(text, 0, text.length)).isEqualTo(2);
+    assertThat(matcher.lastIndexOf(text, text.length, 0)).isEqualTo(6);
+  }
+
+  @Test
+  void shouldAgreeWithNaiveSearch() {
+    String[] classes = {"ocr_page", "ocr_carea", "ocrx_block", "ocr_par", "ocr_line", "ocrx_line"};
+    AhoCorasickMatcher matcher = new AhoCorasickMatcher(patterns(classes));
+    Random rand = new Random(42);
+    StringBuilder sb = new StringBuilder();
+    for (int i = 0; i < 200; i++) {
+      sb.append(rand.nextBoolean() ? classes[rand.nextInt(classes.length)] : "ocr_x");
+      sb.append("<>".charAt(rand.nextInt(2)));
+    }
+    byte[] text = bytes(sb.toString());
+    String str = sb.toString();
+    for (int from = 0; from < text.length; from += 7) {
+      int to = Math.min(text.length, from + rand.nextInt(64));
+      int expectedNext = -1;
+      int expectedLast = -1;
+      for (String cls : classes) {
+        int next = str.indexOf(cls, from);
+        if (next >= 0 && next < to && (expectedNext < 0 || next < expectedNext)) {
+          expectedNext = next;
+        }
+        int last = str.lastIndexOf(cls, to - 1);
+        if (last >= from && last > expectedLast) {
+          expectedLast = last;
+        }
+      }
+      assertThat(matcher.indexOf(text, from, to)).isEqualTo(expectedNext);
+      assertThat(matcher.lastIndexOf(text, to, from)).isEqualTo(expectedLast);
+    }
+  }
+}
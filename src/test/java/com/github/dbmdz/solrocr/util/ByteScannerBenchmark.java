@@ -0,0 +1,110 @@
+package com.github.dbmdz.solrocr.util;
+
+import com.github.dbmdz.solrocr.breaklocator.ByteScanner;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Locale;
+import java.util.function.ToIntFunction;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+/**
+ * Compares the word-at-a-time searches of {@link ByteScanner} with plain byte-by-byte loops, for
+ * the patterns the break locators look for.
+ *
+ * <p>Only runs if the {@code solrocr.benchmark} system property is set, e.g. with {@code mvn test
+ * -Dtest=ByteScannerBenchmark -Dsolrocr.benchmark=true}.
+ */
+@EnabledIfSystemProperty(named = "solrocr.benchmark", matches = "true")
+class ByteScannerBenchmark {
+  private static final int ITERATIONS = 200;
+
+  private static int naiveIndexOf(byte[] haystack, byte[] needle, int fromIdx) {
+    int max = haystack.length - needle.length;
+    outer:
+    for (int i = Math.max(0, fromIdx); i <= max; i++) {
+      for (int j = 0; j < needle.length; j++) {
+        if (haystack[i + j] != needle[j]) {
+          continue outer;
+        }
+      }
+      return i;
+    }
+    return -1;
+  }
+
+  private static int naiveLastIndexOf(byte[] haystack, byte[] needle, int beforeIdx) {
+    outer:
+    for (int i = Math.min(beforeIdx - 1, haystack.length - needle.length); i >= 0; i--) {
+      for (int j = 0; j < needle.length; j++) {
+        if (haystack[i + j] != needle[j]) {
+          continue outer;
+        }
+      }
+      return i;
+    }
+    return -1;
+  }
+
+  /** Find all occurrences going forward, then going backward, and return a checksum. */
+  private static long scan(
+      byte[] haystack, ToIntFunction<Integer> forward, ToIntFunction<Integer> backward) {
+    long sum = 0;
+    for (int i = forward.applyAsInt(0); i >= 0; i = forward.applyAsInt(i + 1)) {
+      sum += i;
+    }
+    for (int i = backward.applyAsInt(haystack.length); i >= 0; i = backward.applyAsInt(i)) {
+      sum -= i;
+    }
+    return sum;
+  }
+
+  private static void compare(String file, String pattern) throws Exception {
+    byte[] haystack = Files.readAllBytes(Paths.get("src/test/resources/data", file));
+    byte[] needle = pattern.getBytes(StandardCharsets.US_ASCII);
+    long[] nanos = new long[2];
+    long checksum = 0;
+    // First round warms up the JIT
+    for (int round = 0; round < 2; round++) {
+      long start = System.nanoTime();
+      for (int i = 0; i < ITERATIONS; i++) {
+        checksum +=
+            scan(
+                haystack,
+                from -> naiveIndexOf(haystack, needle, from),
+                before -> naiveLastIndexOf(haystack, needle, before));
+      }
+      nanos[0] = System.nanoTime() - start;
+      start = System.nanoTime();
+      for (int i = 0; i < ITERATIONS; i++) {
+        checksum -=
+            scan(
+                haystack,
+                from -> ByteScanner.indexOf(haystack, needle, from),
+                before -> ByteScanner.lastIndexOf(haystack, needle, before));
+      }
+      nanos[1] = System.nanoTime() - start;
+    }
+    if (checksum != 0) {
+      throw new AssertionError("Scanners found different occurrences in " + file);
+    }
+    double mebibytes = (double) haystack.length * ITERATIONS / (1024 * 1024);
+    System.out.printf(
+        Locale.US,
+        "%-35s %-20s naive: %8.1f MiB/s  swar: %8.1f MiB/s%n",
+        file,
+        "'" + pattern + "'",
+        mebibytes / (nanos[0] / 1e9),
+        mebibytes / (nanos[1] / 1e9));
+  }
+
+  @Test
+  void benchmarkTagScanning() throws Exception {
+    compare("bnl_lunion_1865-04-15.xml", "<");
+    compare("bnl_lunion_1865-04-15.xml", "</TextLine");
+    compare("sn83032300_1887_07_16_3.html", "<");
+    compare("sn83032300_1887_07_16_3.html", "class=\"ocr_line\"");
+    compare("miniocr.xml", "<l");
+  }
+}
@@ -0,0 +1,63 @@
+package com.github.dbmdz.solrocr.util;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.github.dbmdz.solrocr.breaklocator.ByteScanner;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+class ByteScannerTest {
+  private static int naiveIndexOf(byte[] haystack, byte needle, int from, int to) {
+    for (int i = Math.max(0, from); i < Math.min(to, haystack.length); i++) {
+      if (haystack[i] == needle) {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  private static int naiveLastIndexOf(byte[] haystack, byte needle, int from, int min) {
+    for (int i = Math.min(from, haystack.length - 1); i >= Math.max(0, min); i--) {
+      if (haystack[i] == needle) {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  @Test
+  void shouldAgreeWithNaiveByteSearch() {
+    Random rand = new Random(1337);
+    // Include bytes with the high bit set and neighbouring values to catch carry/borrow errors
+    byte[] alphabet = {'<', '=', ';', '>', 0, (byte) 0xBC, (byte) 0x3C, (byte) 0xFF, 'a'};
+    for (int round = 0; round < 200; round++) {
+      byte[] haystack = new byte[rand.nextInt(40)];
+      for (int i = 0; i < haystack.length; i++) {
+        haystack[i] = alphabet[rand.nextInt(alphabet.length)];
+      }
+      for (int from = -1; from <= haystack.length + 1; from++) {
+        for (int to = from; to <= haystack.length + 1; to++) {
+          assertThat(ByteScanner.indexOf(haystack, (byte) '<', from, to))
+              .isEqualTo(naiveIndexOf(haystack, (byte) '<', from, to));
+          assertThat(ByteScanner.lastIndexOf(haystack, (byte) 0xBC, to, from))
+              .isEqualTo(naiveLastIndexOf(haystack, (byte) 0xBC, to, from));
+        }
+      }
+    }
+  }
+
+  @Test
+  void shouldFindByteSequences() {
+    byte[] haystack =
+        "<TextLine ID='1'></TextLine><TextLine ID='2'></TextLine>"
+            .getBytes(StandardCharsets.US_ASCII);
+    byte[] needle = "</TextLine".getBytes(StandardCharsets.US_ASCII);
+    assertThat(ByteScanner.indexOf(haystack, needle, 0)).isEqualTo(17);
+    assertThat(ByteScanner.indexOf(haystack, needle, 18)).isEqualTo(45);
+    assertThat(ByteScanner.indexOf(haystack, needle, 46)).isEqualTo(-1);
+    assertThat(ByteScanner.lastIndexOf(haystack, needle, haystack.length)).isEqualTo(45);
+    assertThat(ByteScanner.lastIndexOf(haystack, needle, 45)).isEqualTo(17);
+    assertThat(ByteScanner.lastIndexOf(haystack, needle, 17)).isEqualTo(-1);
+  }
+}
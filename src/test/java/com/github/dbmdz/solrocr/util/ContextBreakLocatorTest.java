@@ -34,10 +34,10 @@ class ContextBreakLocatorTest {
     TagBreakLocator limitLocator = new TagBreakLocator(reader, "b");
     ContextBreakLocator it = new ContextBreakLocator(baseLocator, limitLocator, 5);
     int center = 16283;
-    int start = it.preceding(center);
-    int end = it.following(center);
+    long start = it.preceding(center);
+    long end = it.following(center);
     assertThat(start).isLessThan(end);
-    String snippet = reader.readUtf8String(start, end - start);
+    String snippet = reader.readUtf8String(start, (int) (end - start));
     assertThat(StringUtils.countMatches(snippet, "<w")).isEqualTo(2 * 5 + 1);
     assertThat(StringUtils.countMatches(snippet, "</w>")).isEqualTo(2 * 5 + 1);
     assertThat(stripTags(snippet))
@@ -51,10 +51,10 @@ class ContextBreakLocatorTest {
     BreakLocator baseLocator = new HocrClassBreakLocator(reader, "ocr_line");
     BreakLocator limitLocator = new HocrClassBreakLocator(reader, "ocrx_block");
     ContextBreakLocator it = new ContextBreakLocator(baseLocator, limitLocator, 5);
-    int start = it.preceding(5352801);
-    int end = it.following(5352801 + "Japan</span>".length());
+    long start = it.preceding(5352801);
+    long end = it.following(5352801 + "Japan</span>".length());
     assertThat(start).isLessThan(end);
-    String snippet = reader.readUtf8String(start, end - start);
+    String snippet = reader.readUtf8String(start, (int) (end - start));
     assertThat(StringUtils.countMatches(snippet, "ocr_line")).isEqualTo(1 + 1 + 5);
     assertThat(snippet).doesNotContain("ocr_page");
     assertThat(snippet).containsOnlyOnce("ocrx_block");
@@ -73,9 +73,9 @@ class ContextBreakLocatorTest {
       BreakLocator baseLocator = new TagBreakLocator(reader, "TextLine");
       BreakLocator limitLocator = new TagBreakLocator(reader, "TextBlock");
       ContextBreakLocator it = new ContextBreakLocator(baseLocator, limitLocator, 2);
-      int start = it.preceding(offStart);
-      int end = it.following(offEnd);
-      String snippet = reader.readUtf8String(start, end - start);
+      long start = it.preceding(offStart);
+      long end = it.following(offEnd);
+      String snippet = reader.readUtf8String(start, (int) (end - start));
       if (lastResult != null) {
         assertThat(snippet).isEqualTo(lastResult);
       }
@@ -94,10 +94,10 @@ class ContextBreakLocatorTest {
     BreakLocator limitLocator = new TagBreakLocator(reader, "TextBlock");
     ContextBreakLocator it = new ContextBreakLocator(baseLocator, limitLocator, 2);
 
-    int start = it.preceding(42736);
-    int end = it.following(42919);
+    long start = it.preceding(42736);
+    long end = it.following(42919);
     assertThat(start).isLessThan(end);
-    String snippet = reader.readUtf8String(start, end - start);
+    String snippet = reader.readUtf8String(start, (int) (end - start));
     // One match line, two following context lines
     assertThat(StringUtils.countMatches(snippet, "<TextLine")).isEqualTo(1 + 2);
 
@@ -105,7 +105,7 @@ class ContextBreakLocatorTest {
     end = it.following(43849);
     assertThat(start).isLessThan(end);
     // One match line, two following context lines
-    snippet = reader.readUtf8String(start, end - start);
+    snippet = reader.readUtf8String(start, (int) (end - start));
     assertThat(StringUtils.countMatches(snippet, "<TextLine")).isEqualTo(1 + 2);
   }
 }
@@ -0,0 +1,89 @@
+package com.github.dbmdz.solrocr.util;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.github.dbmdz.solrocr.breaklocator.BreakLocator;
+import com.github.dbmdz.solrocr.breaklocator.HierarchicalBreakLocator;
+import com.github.dbmdz.solrocr.formats.alto.AltoFormat;
+import com.github.dbmdz.solrocr.formats.hocr.HocrFormat;
+import com.github.dbmdz.solrocr.formats.miniocr.MiniOcrFormat;
+import com.github.dbmdz.solrocr.model.OcrBlock;
+import com.github.dbmdz.solrocr.model.OcrFormat;
+import com.github.dbmdz.solrocr.reader.FileSourceReader;
+import com.github.dbmdz.solrocr.reader.SourceReader;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.stream.Stream;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+class HierarchicalBreakLocatorTest {
+
+  static Stream<Arguments> formats() {
+    return Stream.of(
+        Arguments.of(new AltoFormat(), "bnl_lunion_1865-04-15.xml"),
+        Arguments.of(new HocrFormat(), "hocr.html"),
+        Arguments.of(new HocrFormat(), "multicolumn.hocr"),
+        Arguments.of(new MiniOcrFormat(), "miniocr.xml"));
+  }
+
+  /** Check if the offset lies within a tag, i.e. after a {@code '<'} that wasn't closed yet. */
+  private static boolean isInTag(byte[] data, long offset) {
+    for (int i = (int) offset - 1; i >= 0; i--) {
+      if (data[i] == '>') {
+        return false;
+      } else if (data[i] == '<') {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Breaks have to be identical to the ones of the format's dedicated locators.
+   *
+   * <p>For hOCR, offsets within tags are skipped, for these the hOCR class locator doesn't find the
+   * tag the offset lies in.
+   */
+  @ParameterizedTest
+  @MethodSource("formats")
+  void shouldMatchDedicatedLocators(OcrFormat format, String fileName) throws IOException {
+    Path path = Paths.get("src/test/resources/data", fileName);
+    byte[] data = Files.readAllBytes(path);
+    // Small sections, so that many tags are split across sections
+    SourceReader reader = new FileSourceReader(path, null, 512, 64);
+    HierarchicalBreakLocator blockBreaks = format.getHierarchicalBreakLocator(reader);
+    OcrBlock[][] requests = {
+      {OcrBlock.WORD},
+      {OcrBlock.LINE},
+      {OcrBlock.PAGE},
+      OcrBlock.getHierarchyFrom(OcrBlock.BLOCK).toArray(new OcrBlock[0]),
+    };
+    long step = Math.max(1, reader.length() / 500);
+    boolean skipInTag = format instanceof HocrFormat;
+    for (OcrBlock[] blocks : requests) {
+      BreakLocator shared = blockBreaks.forBlocks(blocks);
+      for (long offset = 1; offset < reader.length(); offset += step) {
+        if (skipInTag && isInTag(data, offset)) {
+          continue;
+        }
+        BreakLocator expected = format.getBreakLocator(reader, blocks);
+        assertThat(shared.following(offset)).isEqualTo(expected.following(offset));
+        assertThat(shared.preceding(offset)).isEqualTo(expected.preceding(offset));
+      }
+    }
+  }
+
+  @ParameterizedTest
+  @MethodSource("formats")
+  void shouldShareLocatorsForSameBlocks(OcrFormat format, String fileName) throws IOException {
+    SourceReader reader =
+        new FileSourceReader(Paths.get("src/test/resources/data", fileName), null, 8192, 8);
+    HierarchicalBreakLocator blockBreaks = format.getHierarchicalBreakLocator(reader);
+    assertThat(blockBreaks.forBlocks(OcrBlock.LINE)).isSameAs(blockBreaks.forBlocks(OcrBlock.LINE));
+    assertThat(blockBreaks.forBlocks(OcrBlock.LINE).getText()).isSameAs(reader);
+  }
+}
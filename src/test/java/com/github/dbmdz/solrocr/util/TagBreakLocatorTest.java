@@ -8,6 +8,8 @@ import com.github.dbmdz.solrocr.reader.SourceReader;
 import com.google.common.collect.ImmutableSet;
 import java.io.IOException;
 import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import org.apache.commons.io.IOUtils;
@@ -29,9 +31,9 @@ class TagBreakLocatorTest {
   void firstNext() throws IOException {
     SourceReader reader = new FileSourceReader(utf8Path, null, 8 * 1024, 8);
     TagBreakLocator it = new TagBreakLocator(reader, "w");
-    int start = it.following(0);
-    int end = it.following(start);
-    String tag = reader.readUtf8String(start, end - start);
+    long start = it.following(0);
+    long end = it.following(start);
+    String tag = reader.readUtf8String(start, (int) (end - start));
     assertThat(tag).startsWith("<w");
     assertThat(StringUtils.countMatches(tag, "<w")).isEqualTo(1);
     assertThat(StringUtils.countMatches(tag, "</w>")).isEqualTo(1);
@@ -41,9 +43,9 @@ class TagBreakLocatorTest {
   void next() throws IOException {
     SourceReader reader = new FileSourceReader(utf8Path, null, 8 * 1024, 8);
     TagBreakLocator it = new TagBreakLocator(reader, "w");
-    int start = it.following(8267);
-    int end = it.following(start);
-    String tag = reader.readUtf8String(start, end - start);
+    long start = it.following(8267);
+    long end = it.following(start);
+    String tag = reader.readUtf8String(start, (int) (end - start));
     assertThat(tag).startsWith("<w");
     assertThat(StringUtils.countMatches(tag, "<w")).isEqualTo(1);
     assertThat(StringUtils.countMatches(tag, "</w>")).isEqualTo(1);
@@ -54,9 +56,9 @@ class TagBreakLocatorTest {
   void lastPrevious() throws IOException {
     SourceReader reader = new FileSourceReader(utf8Path, null, 8 * 1024, 8);
     TagBreakLocator it = new TagBreakLocator(reader, "w");
-    int end = reader.length() - 1;
-    int start = it.preceding(reader.length() - 1);
-    String tag = reader.readUtf8String(start, end - start);
+    long end = reader.length() - 1;
+    long start = it.preceding(reader.length() - 1);
+    String tag = reader.readUtf8String(start, (int) (end - start));
     assertThat(tag).startsWith("<w");
     assertThat(StringUtils.countMatches(tag, "<w")).isEqualTo(1);
     assertThat(StringUtils.countMatches(tag, "</w>")).isEqualTo(1);
@@ -68,8 +70,8 @@ class TagBreakLocatorTest {
     SourceReader reader = new FileSourceReader(utf8Path, null, 8 * 1024, 8);
     TagBreakLocator it = new TagBreakLocator(reader, "w");
     int end = 2872126;
-    int start = it.preceding(end);
-    String tag = reader.readUtf8String(start, end - start);
+    long start = it.preceding(end);
+    String tag = reader.readUtf8String(start, (int) (end - start));
     assertThat(tag).startsWith("<w");
     assertThat(StringUtils.countMatches(tag, "<w")).isEqualTo(1);
     assertThat(StringUtils.countMatches(tag, "</w>")).isEqualTo(1);
@@ -80,14 +82,48 @@ class TagBreakLocatorTest {
   void previousFirst() throws IOException {
     SourceReader reader = new FileSourceReader(utf8Path, null, 8 * 1024, 8);
     TagBreakLocator it = new TagBreakLocator(reader, "w");
-    int idx = it.preceding(293);
+    long idx = it.preceding(293);
     idx = it.preceding(idx);
     idx = it.preceding(idx);
-    int end = it.preceding(idx);
-    int start = it.preceding(end);
-    String tag = reader.readUtf8String(start, end - start);
+    long end = it.preceding(idx);
+    long start = it.preceding(end);
+    String tag = reader.readUtf8String(start, (int) (end - start));
     assertThat(tag).startsWith("<?xml");
     assertThat(StringUtils.countMatches(tag, "<w")).isEqualTo(0);
     assertThat(StringUtils.countMatches(tag, "</w>")).isEqualTo(0);
   }
+
+  @Test
+  void shouldMatchAcrossSectionBoundaries() throws IOException {
+    // With tiny sections, lots of tags are split across sections
+    String text = new String(Files.readAllBytes(utf8Path), StandardCharsets.ISO_8859_1);
+    SourceReader reader = new FileSourceReader(utf8Path, null, 64, 8);
+    TagBreakLocator it = new TagBreakLocator(reader, "w");
+    for (int offset = 1; offset < 64 * 1024; offset += 7) {
+      int expectedFollowing = text.indexOf("<w", offset + 1);
+      assertThat(it.following(offset)).isEqualTo(expectedFollowing);
+      int expectedPreceding = text.lastIndexOf("<w", offset - 1);
+      assertThat(it.preceding(offset)).isEqualTo(Math.max(0, expectedPreceding));
+    }
+  }
+
+  @Test
+  void shouldFindNthBreak() throws IOException {
+    String text = new String(Files.readAllBytes(utf8Path), StandardCharsets.ISO_8859_1);
+    SourceReader reader = new FileSourceReader(utf8Path, null, 64, 8);
+    TagBreakLocator it = new TagBreakLocator(reader, "w");
+    int offset = 16283;
+    long expectedFollowing = offset;
+    long expectedPreceding = offset;
+    for (int i = 0; i < 25; i++) {
+      expectedFollowing = text.indexOf("<w", (int) expectedFollowing + 1);
+      expectedPreceding = text.lastIndexOf("<w", (int) expectedPreceding - 1);
+    }
+    assertThat(it.following(offset, 25, reader.length())).isEqualTo(expectedFollowing);
+    assertThat(it.preceding(offset, 25, 0)).isEqualTo(expectedPreceding);
+    // Breaks beyond the limit are not returned
+    assertThat(it.following(offset, 25, expectedFollowing)).isEqualTo(expectedFollowing);
+    assertThat(it.following(offset, 26, expectedFollowing)).isEqualTo(expectedFollowing);
+    assertThat(it.preceding(offset, 26, expectedPreceding)).isEqualTo(expectedPreceding);
+  }
 }